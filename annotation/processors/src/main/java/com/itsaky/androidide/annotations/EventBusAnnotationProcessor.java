@@ -297,7 +297,7 @@ public class EventBusAnnotationProcessor extends AbstractProcessor {
       List<String> parts = new ArrayList<>();
       parts.add(callPrefix + "(\"" + methodName + "\",");
       String lineEnd = "),";
-      if (subscribe.priority() == 0 && !subscribe.sticky()) {
+      if (subscribe.priority() == 0 && !subscribe.sticky() && !subscribe.coalesce()) {
         if (subscribe.threadMode() == ThreadMode.POSTING) {
           parts.add(eventClass + lineEnd);
         } else {
@@ -308,7 +308,12 @@ public class EventBusAnnotationProcessor extends AbstractProcessor {
         parts.add(eventClass + ",");
         parts.add("ThreadMode." + subscribe.threadMode().name() + ",");
         parts.add(subscribe.priority() + ",");
-        parts.add(subscribe.sticky() + lineEnd);
+        if (subscribe.coalesce()) {
+          parts.add(subscribe.sticky() + ",");
+          parts.add(subscribe.coalesce() + lineEnd);
+        } else {
+          parts.add(subscribe.sticky() + lineEnd);
+        }
       }
       writeLine(writer, 3, parts.toArray(new String[parts.size()]));
 
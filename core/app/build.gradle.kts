@@ -289,6 +289,8 @@ dependencies {
   // This is to build the tooling-api-impl project before the app is built
   // So we always copy the latest JAR file to assets
   compileOnly(projects.tooling.impl)
+
+  testImplementation(libs.tests.junit)
   
   // implementation(libs.org.jetbrains.kotlin.compiler)
 }
@@ -294,8 +294,13 @@ abstract class ProjectHandlerActivity : BaseEditorActivity() {
    *
    * @param buildVariantsProvider A function which returns the map of project paths to the selected
    *   build variants. This function is called asynchronously.
+   * @param useModelCache Whether the project model cached by the last sync should be used, if it is
+   *   still valid.
    */
-  fun initializeProject(buildVariantsProvider: () -> Map<String, String>) {
+  fun initializeProject(
+      buildVariantsProvider: () -> Map<String, String>,
+      useModelCache: Boolean = false,
+  ) {
     executeWithProgress { progress ->
       executeAsyncProvideError(buildVariantsProvider::invoke) { result, error ->
         com.itsaky.tom.rv2ide.tasks.runOnUiThread { progress.dismiss() }
@@ -307,12 +312,12 @@ abstract class ProjectHandlerActivity : BaseEditorActivity() {
           return@executeAsyncProvideError
         }
 
-        com.itsaky.tom.rv2ide.tasks.runOnUiThread { initializeProject(result) }
+        com.itsaky.tom.rv2ide.tasks.runOnUiThread { initializeProject(result, useModelCache) }
       }
     }
   }
 
-  fun initializeProject() {
+  fun initializeProject(useModelCache: Boolean = false) {
     val currentVariants = buildVariantsViewModel._buildVariants.value
 
     // no information about the build variants is available
@@ -321,7 +326,7 @@ abstract class ProjectHandlerActivity : BaseEditorActivity() {
       log.debug(
           "No variant selection information available. Default build variants will be selected."
       )
-      initializeProject(emptyMap())
+      initializeProject(emptyMap(), useModelCache)
       return
     }
 
@@ -331,29 +336,37 @@ abstract class ProjectHandlerActivity : BaseEditorActivity() {
     if (buildVariantsViewModel.updatedBuildVariants.isNotEmpty()) {
       val newSelections = currentVariants.toMutableMap()
       newSelections.putAll(buildVariantsViewModel.updatedBuildVariants)
-      initializeProject {
-        newSelections.mapToSelectedVariants().also {
-          log.debug("Initializing project with new build variant selections: {}", it)
-        }
-      }
+      initializeProject(
+          {
+            newSelections.mapToSelectedVariants().also {
+              log.debug("Initializing project with new build variant selections: {}", it)
+            }
+          },
+          useModelCache,
+      )
       return
     }
 
     // variant selection information is available but no variant selections have been updated
     // the user might be trying to sync the project from options menu
     // initialize the project with the existing selected variants
-    initializeProject {
-      log.debug("Re-initializing project with existing build variant selections")
-      currentVariants.mapToSelectedVariants()
-    }
+    initializeProject(
+        {
+          log.debug("Re-initializing project with existing build variant selections")
+          currentVariants.mapToSelectedVariants()
+        },
+        useModelCache,
+    )
   }
 
   /**
    * Initialize (sync) the project.
    *
    * @param buildVariants A map of project paths to the selected build variants.
+   * @param useModelCache Whether the project model cached by the last sync should be used, if it is
+   *   still valid.
    */
-  fun initializeProject(buildVariants: Map<String, String>) {
+  fun initializeProject(buildVariants: Map<String, String>, useModelCache: Boolean = false) {
     val manager = ProjectManagerImpl.getInstance()
     val projectDir = manager.projectDir
     if (!projectDir.exists()) {
@@ -386,8 +399,14 @@ abstract class ProjectHandlerActivity : BaseEditorActivity() {
 
     this.initializingFuture =
         if (shouldInitialize || (!isFromSavedInstance && !initialized)) {
-          log.debug("Sending init request to tooling server..")
-          buildService.initializeProject(createProjectInitParams(projectDir, buildVariants))
+          val params = createProjectInitParams(projectDir, buildVariants)
+          if (useModelCache) {
+            initializeWithModelCache(buildService, params)
+          } else {
+            log.debug("Sending init request to tooling server..")
+            manager.discardRestoredModel()
+            buildService.initializeProject(params)
+          }
         } else {
           // The project initialization was in progress before the configuration change
           // In this case, we should not start another project initialization
@@ -414,6 +433,26 @@ abstract class ProjectHandlerActivity : BaseEditorActivity() {
     }
   }
 
+  /**
+   * Initialize the project with the project model cached by the last sync, if the build
+   * configuration has not changed since then. In this case, the tooling server only connects to the
+   * project and does not build the project model. Otherwise, the project is synced as usual.
+   */
+  private fun initializeWithModelCache(
+      buildService: BuildService,
+      params: InitializeProjectParams,
+  ): CompletableFuture<InitializeResult> {
+    return CompletableFuture.supplyAsync {
+          ProjectManagerImpl.getInstance()
+              .restoreWorkspaceModel(params.androidParams.variantSelections)
+        }
+        .thenCompose { restored ->
+          log.debug("Sending init request to tooling server (model restored: {})..", restored)
+          params.buildModel = !restored
+          buildService.initializeProject(params)
+        }
+  }
+
   private fun createProjectInitParams(
       projectDir: File,
       buildVariants: Map<String, String>,
@@ -494,10 +533,10 @@ abstract class ProjectHandlerActivity : BaseEditorActivity() {
           }
         }
 
-        initializeProject()
+        initializeProject(useModelCache = true)
       }
     } else {
-      initializeProject()
+      initializeProject(useModelCache = true)
     }
   }
 
@@ -23,19 +23,21 @@ import android.view.View
 import com.blankj.utilcode.util.ThreadUtils
 import com.itsaky.tom.rv2ide.R
 import com.itsaky.tom.rv2ide.preferences.internal.BuildPreferences
+import java.io.File
+import java.io.StringWriter
 
 class BuildOutputFragment : NonEditableEditorFragment() {
-  private val unsavedLines: MutableList<String?> = ArrayList()
   private val pendingOutputBuffer = StringBuilder()
   private val flushHandler = Handler(Looper.getMainLooper())
   private var flushPending = false
-  private var currentLineCount = 0
+
+  // the retained build output, only accessed on the UI thread
+  private var output: ChunkedTextBuffer? = null
 
   companion object {
     private const val MAX_LINES = 10000
-    private const val TRIM_TO_LINES = 8000
     private const val FLUSH_DELAY_MS = 150L
-    private const val BATCH_SIZE = 100
+    private const val SPILL_FILE_NAME = "build_output.log"
   }
 
   private val flushRunnable = Runnable {
@@ -43,35 +45,50 @@ class BuildOutputFragment : NonEditableEditorFragment() {
     flushPendingOutput()
   }
 
+  override fun onCreate(savedInstanceState: Bundle?) {
+    super.onCreate(savedInstanceState)
+    // evicted output is spilled to a file so that the full build output can still be shared
+    output =
+        ChunkedTextBuffer(
+            MAX_LINES,
+            spillFile = File(requireContext().cacheDir, SPILL_FILE_NAME).also { it.delete() },
+        )
+
+    // retain the output received before this fragment was created
+    flushPendingOutput()
+  }
+
   override fun onViewCreated(view: View, savedInstanceState: Bundle?) {
     super.onViewCreated(view, savedInstanceState)
     emptyStateViewModel.emptyMessage.value = getString(R.string.msg_emptyview_buildoutput)
-    if (unsavedLines.isNotEmpty()) {
-      for (line in unsavedLines) {
-        editor?.append("${line!!.trim()}\n")
-      }
-      unsavedLines.clear()
+
+    // show the output received while the view did not exist
+    val output = this.output
+    if (output != null && output.lineCount > 0) {
+      editor?.setText(output.retainedText())
+      emptyStateViewModel.isEmpty.value = false
     }
   }
 
   override fun onDestroyView() {
     flushHandler.removeCallbacks(flushRunnable)
-    pendingOutputBuffer.clear()
+    flushPending = false
     editor?.release()
     super.onDestroyView()
   }
 
+  override fun onDestroy() {
+    output?.close()
+    output = null
+    super.onDestroy()
+  }
+
   fun appendOutput(output: String?) {
     // Check if build output is disabled
     if (!BuildPreferences.isBuildOutputEnabled) {
       return
     }
 
-    if (editor == null) {
-      unsavedLines.add(output)
-      return
-    }
-
     val message =
         if (output == null || output.endsWith("\n")) {
           output ?: ""
@@ -89,6 +106,11 @@ class BuildOutputFragment : NonEditableEditorFragment() {
   }
 
   private fun flushPendingOutput() {
+    if (output == null) {
+      // keep the output pending until the buffer is created in onCreate
+      return
+    }
+
     val textToAppend: String
     synchronized(pendingOutputBuffer) {
       if (pendingOutputBuffer.isEmpty()) {
@@ -99,19 +121,13 @@ class BuildOutputFragment : NonEditableEditorFragment() {
     }
 
     ThreadUtils.runOnUiThread {
+      val evictedLines = output?.append(textToAppend) ?: 0
       editor?.let { ed ->
-        val newLines = textToAppend.count { it == '\n' }
-        currentLineCount += newLines
-
-        // Append in batches to reduce UI operations
-        val lines = textToAppend.lines()
-        lines.chunked(BATCH_SIZE).forEach { chunk ->
-          ed.append(chunk.joinToString("\n") + if (chunk.last().isNotEmpty()) "\n" else "")
-        }
+        ed.append(textToAppend)
 
-        // Trim if exceeds max lines
-        if (currentLineCount > MAX_LINES) {
-          trimExcessLines()
+        // the buffer evicts whole chunks of lines, remove the same lines from the editor
+        if (evictedLines > 0) {
+          ed.text.delete(0, 0, evictedLines, 0)
         }
 
         emptyStateViewModel.isEmpty.value = false
@@ -119,25 +135,14 @@ class BuildOutputFragment : NonEditableEditorFragment() {
     }
   }
 
-  private fun trimExcessLines() {
-    editor?.let { ed ->
-      try {
-        val text = ed.text?.toString() ?: return
-        val lines = text.lines()
-
-        if (lines.size > MAX_LINES) {
-          val trimmedLines = lines.takeLast(TRIM_TO_LINES)
-          val linesToRemove = lines.size - TRIM_TO_LINES
-          val newText =
-              "... [${linesToRemove} lines trimmed for performance] ...\n\n" +
-                  trimmedLines.joinToString("\n")
-
-          ed.setText(newText)
-          currentLineCount = TRIM_TO_LINES
-        }
-      } catch (e: Exception) {
-        // Fail silently if trimming doesn't work
-      }
-    }
+  override fun getContent(): String {
+    val output = this.output ?: return super.getContent()
+    return StringWriter().also { output.writeTo(it) }.toString()
+  }
+
+  override fun clearOutput() {
+    synchronized(pendingOutputBuffer) { pendingOutputBuffer.clear() }
+    output?.clear()
+    super.clearOutput()
   }
 }
@@ -0,0 +1,175 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.fragments.output
+
+import java.io.File
+import java.io.Writer
+import org.slf4j.LoggerFactory
+
+/**
+ * A line-indexed ring buffer of text, stored as chunks of at most [linesPerChunk] lines.
+ *
+ * When the buffer holds more than [maxLines] complete lines, whole chunks are evicted from the
+ * head. Evicting a chunk only drops its reference, so trimming the buffer does not depend on the
+ * amount of text retained. [append] returns the number of lines evicted so that a view showing the
+ * same text can delete exactly those lines from its start.
+ *
+ * If a [spillFile] is given, evicted chunks are appended to it so that [writeTo] can still provide
+ * the full text without keeping it on the heap.
+ *
+ * Instances are not thread safe.
+ *
+ * @author Akash Yadav
+ */
+class ChunkedTextBuffer
+@JvmOverloads
+constructor(
+    private val maxLines: Int,
+    private val linesPerChunk: Int = DEFAULT_LINES_PER_CHUNK,
+    private val spillFile: File? = null,
+) : AutoCloseable {
+
+  private class Chunk {
+    val text = StringBuilder()
+    var lineCount = 0
+  }
+
+  private val chunks = ArrayDeque<Chunk>()
+  private var spillWriter: Writer? = null
+
+  /** The number of complete lines retained in this buffer. */
+  var lineCount = 0
+    private set
+
+  /** The number of lines evicted from this buffer since it was created or cleared. */
+  var evictedLineCount = 0L
+    private set
+
+  /** The number of characters retained in this buffer. */
+  val length: Int
+    get() = chunks.sumOf { it.text.length }
+
+  companion object {
+
+    private val log = LoggerFactory.getLogger(ChunkedTextBuffer::class.java)
+
+    const val DEFAULT_LINES_PER_CHUNK = 256
+  }
+
+  init {
+    require(linesPerChunk in 1..maxLines) { "linesPerChunk must be in range [1, maxLines]" }
+  }
+
+  /**
+   * Append the given text. The text may end with an incomplete line, which is completed by the
+   * next call.
+   *
+   * @return The number of lines evicted from the head of the buffer.
+   */
+  fun append(text: CharSequence): Int {
+    var start = 0
+    while (start < text.length) {
+      val chunk = tailChunk()
+      val newline = text.indexOf('\n', start)
+      val end = if (newline == -1) text.length else newline + 1
+      chunk.text.append(text, start, end)
+      if (newline != -1) {
+        chunk.lineCount++
+        lineCount++
+      }
+      start = end
+    }
+
+    return evictIfNeeded()
+  }
+
+  /** Get the retained text. */
+  fun retainedText(): String {
+    val sb = StringBuilder(length)
+    chunks.forEach { sb.append(it.text) }
+    return sb.toString()
+  }
+
+  /** Write the full text, including the evicted text spilled to the [spillFile], to [writer]. */
+  fun writeTo(writer: Writer) {
+    if (spillFile != null && evictedLineCount > 0) {
+      spillWriter?.flush()
+      spillFile.reader().use { it.copyTo(writer) }
+    }
+
+    chunks.forEach { writer.append(it.text) }
+  }
+
+  /** Remove all text from this buffer and from the [spillFile]. */
+  fun clear() {
+    chunks.clear()
+    lineCount = 0
+    evictedLineCount = 0
+    closeSpillWriter()
+    spillFile?.delete()
+  }
+
+  override fun close() {
+    clear()
+  }
+
+  private fun tailChunk(): Chunk {
+    val tail = chunks.lastOrNull()
+    if (tail != null && tail.lineCount < linesPerChunk) {
+      return tail
+    }
+
+    return Chunk().also { chunks.addLast(it) }
+  }
+
+  private fun evictIfNeeded(): Int {
+    var evicted = 0
+    while (lineCount > maxLines && chunks.size > 1) {
+      val head = chunks.removeFirst()
+      spill(head)
+      lineCount -= head.lineCount
+      evicted += head.lineCount
+    }
+
+    evictedLineCount += evicted
+    return evicted
+  }
+
+  private fun spill(chunk: Chunk) {
+    val spillFile = this.spillFile ?: return
+    try {
+      val writer =
+          spillWriter ?: spillFile.also { it.parentFile?.mkdirs() }.bufferedWriter().also {
+            spillWriter = it
+          }
+      writer.append(chunk.text)
+    } catch (err: Exception) {
+      log.error("Unable to spill text to {}", spillFile, err)
+    }
+  }
+
+  private fun closeSpillWriter() {
+    try {
+      spillWriter?.close()
+    } catch (err: Exception) {
+      log.warn("Unable to close spill file writer", err)
+    } finally {
+      spillWriter = null
+    }
+  }
+}
@@ -19,6 +19,7 @@ package com.itsaky.tom.rv2ide.fragments.output
 
 import android.content.SharedPreferences
 import android.os.Bundle
+import android.os.Process
 import android.view.View
 import androidx.lifecycle.Lifecycle
 import androidx.preference.PreferenceManager
@@ -62,7 +63,8 @@ class IDELogFragment : LogViewFragment() {
   private fun setupLogging() {
     emptyStateViewModel.emptyMessage.value = getString(R.string.msg_emptyview_idelogs)
 
-    lifecycleAwareAppender.consumer = this::appendLine
+    val pid = Process.myPid()
+    lifecycleAwareAppender.consumer = { level, tag, line -> appendLogLine(level, tag, pid, line) }
     lifecycleAwareAppender.attachTo(viewLifecycleOwner)
 
     val loggerContext = LoggerFactory.getILoggerFactory() as LoggerContext
@@ -21,7 +21,6 @@ import android.os.Bundle
 import android.os.Handler
 import android.os.Looper
 import android.view.View
-import com.blankj.utilcode.util.ThreadUtils
 import com.itsaky.tom.rv2ide.R
 import com.itsaky.tom.rv2ide.databinding.FragmentLogBinding
 import com.itsaky.tom.rv2ide.editor.language.treesitter.LogLanguage
@@ -29,15 +28,20 @@ import com.itsaky.tom.rv2ide.editor.language.treesitter.TreeSitterLanguageProvid
 import com.itsaky.tom.rv2ide.editor.schemes.IDEColorScheme
 import com.itsaky.tom.rv2ide.editor.schemes.IDEColorSchemeProvider
 import com.itsaky.tom.rv2ide.fragments.EmptyStateFragment
+import com.itsaky.tom.rv2ide.models.LogFilter
 import com.itsaky.tom.rv2ide.models.LogLine
+import com.itsaky.tom.rv2ide.models.LogStore
+import com.itsaky.tom.rv2ide.resources.R.string
+import com.itsaky.tom.rv2ide.tasks.executeAsync
+import com.itsaky.tom.rv2ide.utils.DialogUtils
 import com.itsaky.tom.rv2ide.utils.ILogger.Level
 import com.itsaky.tom.rv2ide.utils.jetbrainsMono
 import io.github.rosemoe.sora.widget.style.CursorAnimator
-import java.util.concurrent.ArrayBlockingQueue
-import java.util.concurrent.atomic.AtomicBoolean
+import java.io.StringWriter
+import java.util.concurrent.atomic.AtomicInteger
 import java.util.concurrent.locks.ReentrantLock
 import kotlin.concurrent.withLock
-import kotlin.math.min
+import kotlin.math.max
 import org.slf4j.LoggerFactory
 
 /**
@@ -71,55 +75,78 @@ abstract class LogViewFragment :
     const val LOG_DELAY = 100L
 
     /**
-     * Trim the logs when the number of lines reaches this value. Only [MAX_LINE_COUNT] number of
-     * lines are kept in the logs.
+     * The maximum number of lines that are shown in the log view. Older lines are dropped in chunks
+     * of [LOG_LINES_PER_CHUNK] lines once this limit is exceeded.
      */
-    const val TRIM_ON_LINE_COUNT = 5000
+    const val MAX_LINE_COUNT = 4700
+
+    /** The number of lines that are dropped at once from the start of the logs. */
+    const val LOG_LINES_PER_CHUNK = 300
 
     /**
-     * The maximum number of lines that are shown in the log view. This value must be less than
-     * [TRIM_ON_LINE_COUNT] by a difference of [LOG_FREQUENCY] or preferably, more.
+     * The maximum number of lines kept in the [LogStore]. Filters are applied to these lines, so
+     * this can be much larger than [MAX_LINE_COUNT].
      */
-    const val MAX_LINE_COUNT = TRIM_ON_LINE_COUNT - 300
+    const val MAX_STORED_LINE_COUNT = 50000
   }
 
   private var lastLog = -1L
 
+  // the lines which are yet to be appended to the editor, guarded by cacheLock
   private val cacheLock = ReentrantLock()
-  private val cache = StringBuilder()
-  private var cacheLineTrack = ArrayBlockingQueue<Int>(MAX_LINE_COUNT, true)
+  private val cache = ArrayDeque<PendingLine>()
+
+  // incremented for every applied filter, lines matched against an older filter are dropped
+  private val generation = AtomicInteger()
+
+  // the generation of the lines shown in the editor, only accessed on the UI thread
+  private var shownGeneration = 0
+
+  // the lines up to this sequence number were shown by the last filter query, only accessed on
+  // the UI thread
+  private var lastQueriedSeq = -1L
 
-  private val isTrimming = AtomicBoolean(false)
+  // the logs shown in the editor, only accessed on the UI thread
+  private val output = ChunkedTextBuffer(MAX_LINE_COUNT, LOG_LINES_PER_CHUNK)
+
+  /** All the received log lines, indexed by level, tag and process ID. */
+  protected val logStore = LogStore(MAX_STORED_LINE_COUNT)
+
+  /** The filter for the lines shown in the log view. */
+  @Volatile
+  var filter: LogFilter = LogFilter.ALL
+    private set
 
   private val logHandler = Handler(Looper.getMainLooper())
   private val logRunnable =
       object : Runnable {
         override fun run() {
+          val text = StringBuilder()
           cacheLock.withLock {
-            if (cacheLineTrack.size == MAX_LINE_COUNT) {
-              cache.delete(0, cacheLineTrack.poll()!!)
+            if (shownGeneration != generation.get()) {
+              // the lines of the current filter are being queried, this is scheduled again once
+              // they are shown
+              return
             }
 
-            cacheLineTrack.clear()
-
-            if (cache.length < MAX_CHUNK_SIZE) {
-              append(cache)
-              cache.clear()
-            } else {
-              // Append the lines in chunks to avoid UI lags
-              val length = min(cache.length, MAX_CHUNK_SIZE)
-              append(cache.subSequence(0, length))
-              cache.delete(0, length)
+            // Append the lines in chunks to avoid UI lags
+            while (cache.isNotEmpty() && text.length < MAX_CHUNK_SIZE) {
+              val line = cache.removeFirst()
+              if (line.seq > lastQueriedSeq) {
+                text.append(line.text)
+              }
             }
 
             if (cache.isNotEmpty()) {
               // if we still have data left to append, resechedule this
               logHandler.removeCallbacks(this)
               logHandler.postDelayed(this, LOG_DELAY)
-            } else {
-              trimLinesAtStart()
             }
           }
+
+          if (text.isNotEmpty()) {
+            append(text)
+          }
         }
       }
 
@@ -132,73 +159,153 @@ abstract class LogViewFragment :
           line.toString()
         }
 
+    val seq = logStore.add(line, lineString)
+
+    // read the generation before the filter, so that the line is dropped if it was matched against
+    // a filter which has been replaced since
+    val generation = generation.get()
+    val matches = filter.matches(line)
+
     line.recycle()
 
-    appendLine(lineString)
+    if (matches) {
+      appendLine(seq, generation, lineString)
+    }
   }
 
-  protected fun appendLine(line: String) {
-    var lineStr = line
-    if (!lineStr.endsWith("\n")) {
-      lineStr += "\n"
+  /**
+   * Append the given line to the logs.
+   *
+   * @param level The level of the line.
+   * @param tag The tag of the line.
+   * @param pid The ID of the process which produced the line.
+   * @param line The line to show in the log view.
+   */
+  protected fun appendLogLine(level: Level, tag: String, pid: Int, line: String) {
+    val seq = logStore.add(level, tag, pid, line)
+    val generation = generation.get()
+    if (filter.matches(level, tag, pid)) {
+      appendLine(seq, generation, line)
     }
+  }
 
-    if (
-        isTrimming.get() ||
-            cache.isNotEmpty() ||
-            System.currentTimeMillis() - lastLog <= LOG_FREQUENCY
-    ) {
-      cacheLock.withLock {
-        logHandler.removeCallbacks(logRunnable)
-
-        // If the log lines are too frequent, cache the lines to log them later at once
-        cache.append(lineStr)
-        logHandler.postDelayed(logRunnable, LOG_DELAY)
+  /**
+   * Show only the stored lines which match the given filter, as well as the lines received later
+   * which match the filter. The matching lines are looked up in the [logStore] indexes on a
+   * background thread.
+   */
+  fun applyFilter(filter: LogFilter) {
+    val generation =
+        cacheLock.withLock {
+          this.filter = filter
+
+          // cached lines are already stored and are shown again if they match the filter
+          cache.clear()
+          this.generation.incrementAndGet()
+        }
 
-        lastLog = System.currentTimeMillis()
+    executeAsync({
+      val seqs = logStore.query(filter)
+      val text =
+          logStore
+              .appendTo(StringBuilder(), seqs, from = max(0, seqs.size - MAX_LINE_COUNT))
+              .toString()
+      FilteredLines(generation, seqs.lastOrNull() ?: -1L, text)
+    }) { result ->
+      if (result == null || result.generation != this.generation.get()) {
+        // another filter was applied in the meantime
+        return@executeAsync
+      }
 
-        val length = cache.length + 1
-        if (!cacheLineTrack.offer(length)) {
-          cacheLineTrack.poll()
-          cacheLineTrack.offer(length)
-        }
+      cacheLock.withLock {
+        shownGeneration = result.generation
+        lastQueriedSeq = result.lastSeq
       }
-      return
-    }
 
-    lastLog = System.currentTimeMillis()
+      output.clear()
+      output.append(result.text)
+      _binding?.editor?.also { editor ->
+        editor.setText(result.text)
+        emptyStateViewModel.isEmpty.value = result.text.isEmpty()
+      }
 
-    append(lineStr)
-    trimLinesAtStart()
+      // show the lines received while the query was running
+      logHandler.removeCallbacks(logRunnable)
+      logHandler.post(logRunnable)
+    }
   }
 
-  private fun append(chars: CharSequence?) {
-    chars?.let {
-      ThreadUtils.runOnUiThread {
-        _binding?.editor?.append(chars)?.also { emptyStateViewModel.isEmpty.value = false }
-      }
+  /** Show a dialog to select the minimum level of the lines shown in the log view. */
+  fun showFilterDialog() {
+    val context = context ?: return
+    val levels = arrayOf(null, Level.VERBOSE, Level.DEBUG, Level.INFO, Level.WARNING, Level.ERROR)
+    val labels =
+        intArrayOf(
+                string.log_filter_all_levels,
+                string.log_level_verbose,
+                string.log_level_debug,
+                string.log_level_info,
+                string.log_level_warning,
+                string.log_level_error,
+            )
+            .map(context::getString)
+            .toTypedArray()
+
+    val builder = DialogUtils.newMaterialDialogBuilder(context)
+    builder.setTitle(string.title_filter_logs)
+    builder.setSingleChoiceItems(labels, levels.indexOf(filter.minLevel)) { dialog, which ->
+      applyFilter(filter.copy(minLevel = levels[which]))
+      dialog.dismiss()
     }
+    builder.setNegativeButton(android.R.string.cancel, null)
+    builder.show()
   }
 
-  private fun trimLinesAtStart() {
-    if (isTrimming.get()) {
-      // trimming is already in progress
-      return
+  private fun appendLine(seq: Long, generation: Int, line: String) {
+    var lineStr = line
+    if (!lineStr.endsWith("\n")) {
+      lineStr += "\n"
     }
 
-    ThreadUtils.runOnUiThread {
-      _binding?.editor?.text?.apply {
-        if (lineCount <= TRIM_ON_LINE_COUNT) {
-          isTrimming.set(false)
-          return@apply
-        }
+    cacheLock.withLock {
+      if (generation != this.generation.get()) {
+        // the line was matched against a filter which has been replaced
+        return
+      }
+
+      // the lines are always appended from the UI thread, so that lines which are shown by a
+      // filter query can be skipped
+      val now = System.currentTimeMillis()
+      val frequent = cache.isNotEmpty() || now - lastLog <= LOG_FREQUENCY
+      lastLog = now
+
+      if (cache.size == MAX_LINE_COUNT) {
+        cache.removeFirst()
+      }
+      cache.addLast(PendingLine(seq, lineStr))
+
+      logHandler.removeCallbacks(logRunnable)
+      if (frequent) {
+        // If the log lines are too frequent, cache the lines to log them later at once
+        logHandler.postDelayed(logRunnable, LOG_DELAY)
+      } else {
+        logHandler.post(logRunnable)
+      }
+    }
+  }
+
+  private fun append(text: CharSequence) {
+    val evictedLines = output.append(text)
+    _binding?.editor?.also { editor ->
+      editor.append(text)
 
-        isTrimming.set(true)
-        val lastLine = lineCount - MAX_LINE_COUNT
-        log.debug("Deleting log text till line {}", lastLine)
-        delete(0, 0, lastLine, getColumnCount(lastLine))
-        isTrimming.set(false)
+      // the buffer evicts whole chunks of lines, remove the same lines from the editor
+      if (evictedLines > 0) {
+        log.debug("Deleting {} lines from the start of the logs", evictedLines)
+        editor.text.delete(0, 0, evictedLines, 0)
       }
+
+      emptyStateViewModel.isEmpty.value = false
     }
   }
 
@@ -212,6 +319,11 @@ abstract class LogViewFragment :
   override fun onViewCreated(view: View, savedInstanceState: Bundle?) {
     super.onViewCreated(view, savedInstanceState)
     val editor = this.binding.editor
+    if (output.lineCount > 0) {
+      // show the logs received while the view did not exist
+      editor.setText(output.retainedText())
+      emptyStateViewModel.isEmpty.value = false
+    }
     editor.props.autoIndent = false
     editor.isEditable = false
     editor.dividerWidth = 0f
@@ -274,11 +386,25 @@ abstract class LogViewFragment :
     super.onDestroyView()
   }
 
+  override fun onDestroy() {
+    output.close()
+    super.onDestroy()
+  }
+
   override fun getContent(): String {
-    return this._binding?.editor?.text?.toString() ?: ""
+    return StringWriter().also { output.writeTo(it) }.toString()
   }
 
   override fun clearOutput() {
+    cacheLock.withLock { cache.clear() }
+    logStore.clear()
+    output.clear()
     _binding?.editor?.setText("")?.also { emptyStateViewModel.isEmpty.value = true }
   }
+
+  /** A line which is yet to be appended to the editor. */
+  private class PendingLine(val seq: Long, val text: String)
+
+  /** The lines which match a filter, as shown in the editor. */
+  private class FilteredLines(val generation: Int, val lastSeq: Long, val text: String)
 }
@@ -20,13 +20,17 @@ package com.itsaky.tom.rv2ide.logging
 import androidx.lifecycle.Lifecycle
 import androidx.lifecycle.LifecycleEventObserver
 import androidx.lifecycle.LifecycleOwner
+import ch.qos.logback.classic.Level
 import ch.qos.logback.classic.spi.ILoggingEvent
 import ch.qos.logback.core.AppenderBase
 import ch.qos.logback.core.Context
 import com.itsaky.tom.rv2ide.logging.encoder.IDELogFormatLayout
+import com.itsaky.tom.rv2ide.utils.ILogger
 
 /**
- * An [AppenderBase] implementation to show the logs in the GUI.
+ * An [AppenderBase] implementation to show the logs in the GUI. The [consumer] receives the level
+ * and the (abbreviated) logger name of every line along with the formatted line, so that the lines
+ * can be filtered.
  *
  * @author Akash Yadav
  */
@@ -34,7 +38,7 @@ class LifecycleAwareAppender
 @JvmOverloads
 constructor(
     private val requireLifecycleState: Lifecycle.State = Lifecycle.State.CREATED,
-    var consumer: ((String) -> Unit)? = null,
+    var consumer: ((level: ILogger.Level, tag: String, line: String) -> Unit)? = null,
 ) : AppenderBase<ILoggingEvent>(), LifecycleEventObserver {
 
   private var currentState: Lifecycle.State? = null
@@ -93,6 +97,20 @@ constructor(
     // lines
     // if it does, we need to prefix the message with the layout header
     val prefix = logLayout.doLayout(eventObject)
-    eventObject.formattedMessage.split('\n').forEach { consumer?.invoke("$prefix $it") }
+    val level = levelOf(eventObject.level)
+    val tag = eventObject.loggerName.substringAfterLast('.')
+    eventObject.formattedMessage.split('\n').forEach {
+      consumer?.invoke(level, tag, "$prefix $it")
+    }
+  }
+
+  private fun levelOf(level: Level): ILogger.Level {
+    return when (level.toInt()) {
+      Level.ERROR_INT -> ILogger.Level.ERROR
+      Level.WARN_INT -> ILogger.Level.WARNING
+      Level.INFO_INT -> ILogger.Level.INFO
+      Level.DEBUG_INT -> ILogger.Level.DEBUG
+      else -> ILogger.Level.VERBOSE
+    }
   }
 }
@@ -46,7 +46,9 @@ import com.itsaky.tom.rv2ide.tooling.api.IProject
 import com.itsaky.tom.rv2ide.tooling.api.IToolingApiClient
 import com.itsaky.tom.rv2ide.tooling.api.IToolingApiServer
 import com.itsaky.tom.rv2ide.tooling.api.LogSenderConfig.PROPERTY_LOGSENDER_ENABLED
+import com.itsaky.tom.rv2ide.tooling.api.messages.BuildStreamBatch
 import com.itsaky.tom.rv2ide.tooling.api.messages.InitializeProjectParams
+import com.itsaky.tom.rv2ide.tooling.api.messages.LogMessageBatch
 import com.itsaky.tom.rv2ide.tooling.api.messages.LogMessageParams
 import com.itsaky.tom.rv2ide.tooling.api.messages.TaskExecutionMessage
 import com.itsaky.tom.rv2ide.tooling.api.messages.result.BuildCancellationRequestResult
@@ -256,6 +258,14 @@ class GradleBuildService : Service(), BuildService, IToolingApiClient,
     }
   }
 
+  override fun logMessages(batch: LogMessageBatch) {
+    if (batch.droppedCount > 0) {
+      log.warn("{} log message(s) were dropped by the tooling API", batch.droppedCount)
+    }
+
+    batch.messages.forEach(this::logMessage)
+  }
+
   override fun logOutput(line: String) {
     eventListener?.onOutput(line)
   }
@@ -279,6 +289,17 @@ class GradleBuildService : Service(), BuildService, IToolingApiClient,
     eventListener?.onProgressEvent(event)
   }
 
+  override fun onBuildStream(batch: BuildStreamBatch): CompletableFuture<Void> {
+    val listener = eventListener ?: return CompletableFuture.completedFuture(null)
+    listener.onBuildStream(batch)
+
+    // the listener dispatches the batch to the UI thread, acknowledge the batch only after it has
+    // been consumed so that the server does not send output faster than the UI can show it
+    val ack = CompletableFuture<Void>()
+    runOnUiThread { ack.complete(null) }
+    return ack
+  }
+
   override fun getBuildArguments(): CompletableFuture<List<String>> {
     val extraArgs = ArrayList<String>()
     extraArgs.add("--init-script")
@@ -472,6 +493,10 @@ class GradleBuildService : Service(), BuildService, IToolingApiClient,
       override fun onOutput(line: String?) {
         runOnUiThread { listener.onOutput(line) }
       }
+
+      override fun onBuildStream(batch: BuildStreamBatch) {
+        runOnUiThread { listener.onBuildStream(batch) }
+      }
     }
   }
 
@@ -541,5 +566,17 @@ class GradleBuildService : Service(), BuildService, IToolingApiClient,
      * @param line The line of the build output.
      */
     fun onOutput(line: String?)
+
+    /**
+     * Called when a batch of output lines and progress events is received. The default
+     * implementation dispatches the lines to [onOutput] and the events to [onProgressEvent], in
+     * the order they were produced.
+     *
+     * @param batch The batch of build output and progress events.
+     * @see IToolingApiClient.onBuildStream
+     */
+    fun onBuildStream(batch: BuildStreamBatch) {
+      batch.forEachInOrder(::onOutput, ::onProgressEvent)
+    }
   }
 }
\ No newline at end of file
@@ -17,8 +17,10 @@
 
 package com.itsaky.tom.rv2ide.services.log
 
+import com.itsaky.tom.rv2ide.logsender.socket.LogFrame
 import com.itsaky.tom.rv2ide.logsender.socket.SenderInfoCommand
 import com.itsaky.tom.rv2ide.models.LogLine
+import com.itsaky.tom.rv2ide.utils.ILogger
 import java.net.Socket
 import java.net.SocketException
 import kotlinx.coroutines.CancellationException
@@ -27,7 +29,8 @@ import kotlinx.coroutines.withContext
 import org.slf4j.LoggerFactory
 
 /**
- * Handles a single log sender.
+ * Handles a single log sender. Senders using the [framed protocol][LogFrame] send pre-parsed log
+ * entries in batches, older senders send the raw `logcat` lines.
  *
  * @author Akash Yadav
  */
@@ -48,14 +51,10 @@ class LogSenderHandler(
   suspend fun startAsync() =
       withContext(Dispatchers.IO) {
         try {
-          socket.getInputStream().bufferedReader().use { reader ->
-            while (!socket.isClosed) {
-              try {
-                LogLine.forLogString(reader.readLine())?.let { line -> consumer?.invoke(line) }
-              } catch (cancellation: CancellationException) {
-                break
-              }
-            }
+          if (sender.protocolVersion >= LogFrame.PROTOCOL_VERSION) {
+            readFrames()
+          } else {
+            readLines()
           }
         } catch (err: SocketException) {
           if (!manuallyClosed) {
@@ -66,6 +65,62 @@ class LogSenderHandler(
         }
       }
 
+  private fun readFrames() {
+    val reader = LogFrame.Reader(socket.getInputStream().buffered())
+    val handler = LogFrame.EntryHandler { entry -> consumer?.invoke(entry.toLogLine()) }
+    while (!socket.isClosed) {
+      try {
+        if (!reader.readFrame(handler)) {
+          break
+        }
+      } catch (cancellation: CancellationException) {
+        break
+      }
+    }
+  }
+
+  private fun readLines() {
+    socket.getInputStream().bufferedReader().use { reader ->
+      while (!socket.isClosed) {
+        try {
+          LogLine.forLogString(reader.readLine())?.let { line -> consumer?.invoke(line) }
+        } catch (cancellation: CancellationException) {
+          break
+        }
+      }
+    }
+  }
+
+  private fun LogFrame.Entry.toLogLine(): LogLine {
+    if (!isParsed) {
+      return LogLine.obtain(ILogger.Level.DEBUG, null, null, formatted = false).also {
+        it.unformatted = message()
+      }
+    }
+
+    return LogLine.obtain(levelOf(priority), tag(), message()).also {
+      it.date = formatDate()
+      it.time = formatTime()
+      it.pid = pid.toString()
+      it.tid = tid.toString()
+    }
+  }
+
+  /**
+   * The log level for the given logcat priority. Fatal (`F`) and assert (`A`) lines, as well as
+   * any unknown priority, are shown as errors.
+   */
+  private fun levelOf(priority: Char): ILogger.Level {
+    return when (priority.uppercaseChar()) {
+      'D' -> ILogger.Level.DEBUG
+      'W' -> ILogger.Level.WARNING
+      'I' -> ILogger.Level.INFO
+      'V',
+      'T' -> ILogger.Level.VERBOSE
+      else -> ILogger.Level.ERROR
+    }
+  }
+
   override fun close() {
     try {
       manuallyClosed = true
@@ -21,6 +21,8 @@ import com.itsaky.tom.rv2ide.logsender.socket.SenderInfoCommand
 import com.itsaky.tom.rv2ide.logsender.socket.SocketCommandParser
 import com.itsaky.tom.rv2ide.models.LogLine
 import com.itsaky.tom.rv2ide.tasks.cancelIfActive
+import java.io.ByteArrayOutputStream
+import java.io.InputStream
 import java.lang.Thread.currentThread
 import java.net.ServerSocket
 import java.util.concurrent.ConcurrentHashMap
@@ -80,8 +82,9 @@ class MultiLogSenderHandler(consumer: ((LogLine) -> Unit)? = null) : AutoCloseab
           while (job?.isCancelled != true && isAlive.get()) {
             val clientSocket = server.accept()
 
-            val senderInfoLine = clientSocket.getInputStream().bufferedReader().readLine()
-            val command = SocketCommandParser.parse(senderInfoLine)
+            // read the command line byte by byte, the rest of the stream belongs to the handler
+            val senderInfoLine = clientSocket.getInputStream().readCommandLine()
+            val command = senderInfoLine?.let { SocketCommandParser.parse(it) }
             if (command == null || command !is SenderInfoCommand) {
               log.error(
                   "Cannot accept log sender client. A sender must send the /sender command first."
@@ -133,6 +136,22 @@ class MultiLogSenderHandler(consumer: ((LogLine) -> Unit)? = null) : AutoCloseab
     this.logHandlerScope.cancelIfActive()
   }
 
+  private fun InputStream.readCommandLine(): String? {
+    val line = ByteArrayOutputStream(128)
+    while (true) {
+      val b = read()
+      if (b == -1) {
+        return if (line.size() == 0) null else line.toString()
+      }
+
+      if (b == '\n'.code) {
+        return line.toString()
+      }
+
+      line.write(b)
+    }
+  }
+
   private fun LogSenderHandler.closeAndLogError() {
     try {
       close()
@@ -50,6 +50,7 @@ import com.itsaky.tom.rv2ide.adapters.DiagnosticsAdapter
 import com.itsaky.tom.rv2ide.adapters.EditorBottomSheetTabAdapter
 import com.itsaky.tom.rv2ide.adapters.SearchListAdapter
 import com.itsaky.tom.rv2ide.databinding.LayoutEditorBottomSheetBinding
+import com.itsaky.tom.rv2ide.fragments.output.LogViewFragment
 import com.itsaky.tom.rv2ide.fragments.output.ShareableOutputFragment
 import com.itsaky.tom.rv2ide.models.LogLine
 import com.itsaky.tom.rv2ide.resources.R.string
@@ -137,6 +138,12 @@ constructor(
               binding.clearFab.hide()
               binding.shareOutputFab.hide()
             }
+
+            if (fragment is LogViewFragment) {
+              binding.filterLogFab.show()
+            } else {
+              binding.filterLogFab.hide()
+            }
           }
 
           override fun onTabUnselected(tab: Tab) {}
@@ -174,6 +181,12 @@ constructor(
       (fragment as ShareableOutputFragment).clearOutput()
     }
 
+    TooltipCompat.setTooltipText(binding.filterLogFab, context.getString(string.title_filter_logs))
+    binding.filterLogFab.setOnClickListener {
+      val fragment = pagerAdapter.getFragmentAtIndex(binding.tabs.selectedTabPosition)
+      (fragment as? LogViewFragment)?.showFilterDialog()
+    }
+
     binding.headerContainer.setOnClickListener {
       if (behavior.state != BottomSheetBehavior.STATE_EXPANDED) {
         behavior.state = BottomSheetBehavior.STATE_EXPANDED
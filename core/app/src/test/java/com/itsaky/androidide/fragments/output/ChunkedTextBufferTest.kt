@@ -0,0 +1,99 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.fragments.output
+
+import java.io.File
+import java.io.StringWriter
+import java.nio.file.Files
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Before
+import org.junit.Test
+
+/** @author Akash Yadav */
+class ChunkedTextBufferTest {
+
+  private lateinit var dir: File
+
+  @Before
+  fun setUp() {
+    dir = Files.createTempDirectory("ctb").toFile()
+  }
+
+  @After
+  fun tearDown() {
+    dir.deleteRecursively()
+  }
+
+  @Test
+  fun completesPartialLinesAcrossAppends() {
+    val buffer = ChunkedTextBuffer(maxLines = 10, linesPerChunk = 2)
+    buffer.append("a")
+    assertEquals(0, buffer.lineCount)
+
+    buffer.append("b\nc\nd")
+    assertEquals(2, buffer.lineCount)
+    assertEquals("ab\nc\nd", buffer.retainedText())
+    assertEquals(buffer.retainedText().length, buffer.length)
+  }
+
+  @Test
+  fun evictsWholeChunksFromTheHead() {
+    val buffer = ChunkedTextBuffer(maxLines = 4, linesPerChunk = 2)
+    assertEquals(0, buffer.append(lines(0 until 4)))
+
+    // the fifth line exceeds the limit, so the oldest chunk of two lines is evicted
+    assertEquals(2, buffer.append(lines(4 until 5)))
+    assertEquals(3, buffer.lineCount)
+    assertEquals(2L, buffer.evictedLineCount)
+    assertEquals(lines(2 until 5), buffer.retainedText())
+  }
+
+  @Test
+  fun reportsEvictionsOfASingleLargeAppend() {
+    val buffer = ChunkedTextBuffer(maxLines = 4, linesPerChunk = 2)
+    assertEquals(6, buffer.append(lines(0 until 10)))
+    assertEquals(lines(6 until 10), buffer.retainedText())
+  }
+
+  @Test
+  fun writesSpilledAndRetainedText() {
+    val spill = File(dir, "out/spill.txt")
+    val buffer = ChunkedTextBuffer(maxLines = 4, linesPerChunk = 2, spillFile = spill)
+    buffer.append(lines(0 until 9))
+    buffer.append("tail")
+
+    val writer = StringWriter()
+    buffer.writeTo(writer)
+    assertEquals(lines(0 until 9) + "tail", writer.toString())
+
+    buffer.clear()
+    assertEquals(0, buffer.lineCount)
+    assertEquals(0L, buffer.evictedLineCount)
+    assertEquals("", buffer.retainedText())
+    assertFalse(spill.exists())
+  }
+
+  @Test(expected = IllegalArgumentException::class)
+  fun rejectsChunksLargerThanTheLimit() {
+    ChunkedTextBuffer(maxLines = 2, linesPerChunk = 3)
+  }
+
+  private fun lines(range: IntRange): String = range.joinToString("") { "line $it\n" }
+}
@@ -58,4 +58,6 @@ dependencies {
   implementation(libs.google.auto.service.annotations)
   implementation(libs.google.guava)
 
+  testImplementation(libs.tests.junit)
+
 }
\ No newline at end of file
@@ -26,6 +26,7 @@ import com.itsaky.tom.rv2ide.tooling.api.IJavaProject
 import com.itsaky.tom.rv2ide.tooling.api.IProject
 import com.itsaky.tom.rv2ide.tooling.api.ProjectType
 import com.itsaky.tom.rv2ide.tooling.api.models.BasicProjectMetadata
+import com.itsaky.tom.rv2ide.tooling.api.models.WorkspaceModel
 import com.itsaky.tom.rv2ide.tooling.api.models.params.StringParameter
 import com.itsaky.tom.rv2ide.tooling.api.models.result.SelectProjectResult
 import java.util.concurrent.CompletableFuture
@@ -88,6 +89,10 @@ open class CachingProject(val project: IProject) : IProject {
     }
   }
 
+  override fun getWorkspaceModel(): CompletableFuture<WorkspaceModel> {
+    return project.getWorkspaceModel()
+  }
+
   override fun selectProject(param: StringParameter): CompletableFuture<SelectProjectResult> {
     return project.selectProject(param)
   }
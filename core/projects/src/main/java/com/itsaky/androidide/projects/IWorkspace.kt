@@ -19,6 +19,7 @@ package com.itsaky.tom.rv2ide.projects
 
 import com.android.builder.model.v2.models.ProjectSyncIssues
 import com.itsaky.tom.rv2ide.projects.android.AndroidModule
+import com.itsaky.tom.rv2ide.projects.classpath.CompileClasspathGraph
 import com.itsaky.tom.rv2ide.tooling.api.models.BuildVariantInfo
 import java.io.File
 import java.nio.file.Path
@@ -51,6 +52,12 @@ interface IWorkspace {
    */
   fun getAndroidVariantSelections(): Map<String, BuildVariantInfo>
 
+  /**
+   * Get the compile classpath graph of the module projects in this workspace. The graph is computed
+   * lazily and is invalidated when the version catalog of the project changes.
+   */
+  fun getClasspathGraph(): CompileClasspathGraph
+
   /**
    * Finds the project by the given path.
    *
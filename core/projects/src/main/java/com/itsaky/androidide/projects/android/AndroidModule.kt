@@ -20,7 +20,6 @@ package com.itsaky.tom.rv2ide.projects.android
 import com.android.SdkConstants
 import com.android.aaptcompiler.AaptResourceType
 import com.android.builder.model.v2.ide.LibraryType.ANDROID_LIBRARY
-import com.android.builder.model.v2.ide.LibraryType.JAVA_LIBRARY
 import com.android.builder.model.v2.ide.LibraryType.PROJECT
 import com.android.builder.model.v2.ide.ProjectType
 import com.itsaky.tom.rv2ide.builder.model.DefaultAndroidGradlePluginProjectFlags
@@ -30,7 +29,6 @@ import com.itsaky.tom.rv2ide.builder.model.DefaultSourceSetContainer
 import com.itsaky.tom.rv2ide.builder.model.DefaultViewBindingOptions
 import com.itsaky.tom.rv2ide.builder.model.UNKNOWN_PACKAGE
 import com.itsaky.tom.rv2ide.projects.IProjectManager
-import com.itsaky.tom.rv2ide.projects.IWorkspace
 import com.itsaky.tom.rv2ide.projects.ModuleProject
 import com.itsaky.tom.rv2ide.tooling.api.ProjectType.Android
 import com.itsaky.tom.rv2ide.tooling.api.models.BasicAndroidVariantMetadata
@@ -126,6 +124,9 @@ open class AndroidModule( // Class must be open because BaseXMLTest mocks this..
     private val log = LoggerFactory.getLogger(AndroidModule::class.java)
   }
 
+  /** The resource tables of this module and its dependencies. */
+  internal val resourceTables = ResourceTableCatalog(this)
+
   init {
     type = Android
   }
@@ -201,107 +202,13 @@ open class AndroidModule( // Class must be open because BaseXMLTest mocks this..
   }
 
   override fun getCompileClasspaths(): Set<File> {
-    val project = IProjectManager.getInstance().getWorkspace() ?: return emptySet()
-    val result = mutableSetOf<File>()
-    result.addAll(getModuleClasspaths())
-
-    val modelDepsCount = result.size
-    collectLibraries(project, this.libraries, result)
-    log.debug("AGP model provided {} dependencies", result.size - modelDepsCount)
-
-    // Build a map of already loaded dependencies by group:name
-    val existingDeps = buildDependencyMap(result)
-    log.debug("Existing dependency map contains {} entries", existingDeps.size)
-
-    // Get catalog dependencies that don't conflict
-    val catalogDeps = getVersionCatalogDependencies(existingDeps)
-    if (catalogDeps.isNotEmpty()) {
-      val beforeCatalog = result.size
-      result.addAll(catalogDeps)
-      log.info(
-          "Added {} new dependencies from version catalog (total now: {})",
-          result.size - beforeCatalog,
-          result.size,
-      )
-    }
-
-    return result
-  }
-
-  /**
-   * Build a map of existing dependencies from classpath files. Key format: "group:name", Value:
-   * File path
-   */
-  private fun buildDependencyMap(classpath: Set<File>): Map<String, File> {
-    val depMap = mutableMapOf<String, File>()
-    val gradleCachePattern =
-        """.gradle/caches/modules-2/files-2.1/([^/]+)/([^/]+)/([^/]+)/""".toRegex()
-
-    for (file in classpath) {
-      if (!file.exists()) continue
-
-      val path = file.absolutePath
-      val match = gradleCachePattern.find(path)
-
-      if (match != null) {
-        val group = match.groupValues[1]
-        val name = match.groupValues[2]
-        val version = match.groupValues[3]
-        val key = "$group:$name"
-
-        // Keep the first occurrence (AGP model takes precedence)
-        if (!depMap.containsKey(key)) {
-          depMap[key] = file
-          log.trace("Mapped dependency: {} -> version {}", key, version)
-        }
-      }
-    }
-
-    return depMap
-  }
-
-  /**
-   * Get dependencies from version catalog that don't conflict with existing ones.
-   *
-   * @param existingDeps Map of group:name -> File for already loaded dependencies
-   */
-  private fun getVersionCatalogDependencies(existingDeps: Map<String, File>): Set<File> {
-    val rootProjectDir = projectDir.parentFile ?: projectDir
-
-    return try {
-      log.debug("Resolving dependencies from version catalog for module: {}", path)
-
-      val catalogProvider = com.itsaky.tom.rv2ide.projects.classpath.VersionCatalogClasspathProvider()
-
-      // Pass existing dependency map to avoid duplicates
-      val jars = catalogProvider.getClasspathFromCatalog(rootProjectDir, existingDeps)
-
-      log.info("Resolved {} JARs from version catalog for module: {}", jars.size, path)
-      jars
-    } catch (e: Exception) {
-      log.error("Failed to resolve version catalog dependencies", e)
-      emptySet()
+    val workspace = IProjectManager.getInstance().getWorkspace()
+    if (workspace == null) {
+      log.warn("No workspace available, cannot compute compile classpath of {}", path)
+      return emptySet()
     }
-  }
-
-  private fun collectLibraries(root: IWorkspace, libraries: Set<String>, result: MutableSet<File>) {
-    for (library in libraries) {
-      val lib = this.libraryMap[library] ?: continue
-      if (lib.type == PROJECT) {
-        val module = root.findProject(lib.projectInfo!!.projectPath) ?: continue
-        if (module !is ModuleProject) {
-          continue
-        }
 
-        result.addAll(module.getCompileClasspaths())
-      } else if (lib.type == ANDROID_LIBRARY) {
-        result.addAll(lib.androidLibraryData!!.compileJarFiles)
-      } else if (lib.type == JAVA_LIBRARY) {
-        result.add(lib.artifact!!)
-      }
-
-      collectLibraries(root, lib.dependencies, result)
-    }
+    return workspace.getClasspathGraph().getCompileClasspaths(this)
   }
 
   override fun getCompileModuleProjects(): List<ModuleProject> {
@@ -425,7 +332,13 @@ open class AndroidModule( // Class must be open because BaseXMLTest mocks this..
       val tableRegistry = ResourceTableRegistry.getInstance()
       val resDirs = mainSourceSet?.sourceProvider?.resDirectories ?: return@runAsync
       tableRegistry.removeTable(this.namespace)
-      tableRegistry.forPackage(this.namespace, *resDirs.toTypedArray())
+      val table = tableRegistry.forPackage(this.namespace, *resDirs.toTypedArray())
+
+      // update the catalogs of this module and the modules that depend on it
+      val workspace = IProjectManager.getInstance().getWorkspace() ?: return@runAsync
+      workspace.androidProjects().forEach { module ->
+        module.resourceTables.replaceSourceTable(this.namespace, table)
+      }
     }
   }
 
@@ -449,15 +362,16 @@ open class AndroidModule( // Class must be open because BaseXMLTest mocks this..
    * @return The set of resource tables. Empty when project is not initalized.
    */
   fun getSourceResourceTables(): Set<IResourceTable> {
-    val set = mutableSetOf(getResourceTable() ?: return emptySet())
-    getCompileModuleProjects().filterIsInstance<AndroidModule>().forEach {
-      it.getResourceTable()?.also { table -> set.add(table) }
-    }
-    return set
+    return resourceTables.sourceTables
   }
 
   /** Get the resource tables for external dependencies (not local module project dependencies). */
   fun getDependencyResourceTables(): Set<IResourceTable> {
+    return resourceTables.dependencyTables
+  }
+
+  /** Create the resource tables for external dependencies. */
+  internal fun createDependencyResourceTables(): Set<IResourceTable> {
     return mutableSetOf<IResourceTable>().also {
       var deps: Int
       it.addAll(
@@ -516,27 +430,7 @@ open class AndroidModule( // Class must be open because BaseXMLTest mocks this..
       return getFrameworkResourceTable()?.let { listOf(it) } ?: emptyList()
     }
 
-    val tables: List<IResourceTable> =
-        mutableListOf<IResourceTable>().apply {
-          getResourceTable()?.let { add(it) }
-          addAll(getSourceResourceTables())
-          addAll(getDependencyResourceTables())
-        }
-
-    val result = mutableListOf<IResourceTable>()
-    for (table in tables) {
-      val resPck = table.findPackage(pck) ?: continue
-      if (hasGroup == null) {
-        result.add(table)
-        continue
-      }
-      if (resPck.findGroup(hasGroup) != null) {
-        result.add(table)
-        continue
-      }
-    }
-
-    return emptyList()
+    return resourceTables.findTables(pck, hasGroup)
   }
 
   /**
@@ -549,8 +443,8 @@ open class AndroidModule( // Class must be open because BaseXMLTest mocks this..
     return mutableSetOf<IResourceTable>().apply {
       getResourceTable()?.let { add(it) }
       getFrameworkResourceTable()?.let { add(it) }
-      addAll(getSourceResourceTables())
-      addAll(getDependencyResourceTables())
+      addAll(resourceTables.sourceTables)
+      addAll(resourceTables.dependencyTables)
     }
   }
 
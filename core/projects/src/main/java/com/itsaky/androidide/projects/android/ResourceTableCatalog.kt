@@ -0,0 +1,207 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.projects.android
+
+import com.android.aaptcompiler.AaptResourceType
+import com.itsaky.tom.rv2ide.xml.res.IResourceTable
+import java.util.Collections
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Catalog of the resource tables visible to an [AndroidModule], indexed by package name and
+ * resource type.
+ *
+ * The tables of the external dependencies are resolved once per module model (i.e. once per sync).
+ * The tables of the module and its local module dependencies are replaced individually with
+ * [replaceSourceTable] when a module's resources change.
+ *
+ * @author Akash Yadav
+ */
+internal class ResourceTableCatalog(private val source: Source) {
+
+  constructor(module: AndroidModule) : this(ModuleSource(module))
+
+  /** The module whose tables are cataloged. */
+  interface Source {
+
+    /** The namespace of the module. */
+    val namespace: String?
+
+    /** Get the table of the module's own resources. */
+    fun getResourceTable(): IResourceTable?
+
+    /** Get the Android module dependencies, in the order of the compile classpath. */
+    fun getModuleDependencies(): List<Source>
+
+    /** Create the tables of the external dependencies. */
+    fun createDependencyResourceTables(): Set<IResourceTable>
+  }
+
+  private class ModuleSource(private val module: AndroidModule) : Source {
+
+    override val namespace: String?
+      get() = module.namespace
+
+    override fun getResourceTable(): IResourceTable? = module.getResourceTable()
+
+    override fun getModuleDependencies(): List<Source> =
+        module.getCompileModuleProjects().filterIsInstance<AndroidModule>().map(::ModuleSource)
+
+    override fun createDependencyResourceTables(): Set<IResourceTable> =
+        module.createDependencyResourceTables()
+  }
+
+  private data class GroupKey(val pck: String, val type: AaptResourceType)
+
+  /**
+   * The indexed tables.
+   *
+   * @property sourceTables The tables of the module and its module dependencies, keyed by
+   *   namespace.
+   * @property dependencyTables The tables of the external dependencies.
+   * @property packages The tables mapped by the names of the packages they contain, source tables
+   *   first.
+   * @property groups The tables of [packages] filtered by the resource groups they contain. They
+   *   are memoized per index, so a lookup racing with [replaceSourceTable] only fills the groups of
+   *   the index it read.
+   */
+  private class Index(
+      val sourceTables: Map<String, IResourceTable>,
+      val dependencyTables: Set<IResourceTable>,
+      val packages: Map<String, List<IResourceTable>>,
+  ) {
+    val sourceTableSet: Set<IResourceTable> =
+        Collections.unmodifiableSet(LinkedHashSet(sourceTables.values))
+
+    val groups = ConcurrentHashMap<GroupKey, List<IResourceTable>>()
+  }
+
+  @Volatile private var index: Index? = null
+
+  /** The tables of the module and its module dependencies. */
+  val sourceTables: Set<IResourceTable>
+    get() = index().sourceTableSet
+
+  /** The tables of the external dependencies. */
+  val dependencyTables: Set<IResourceTable>
+    get() = index().dependencyTables
+
+  /**
+   * Find the tables which contain the given package, in the order of the module table, the tables
+   * of module dependencies and the tables of external dependencies.
+   *
+   * @param pck The package name.
+   * @param hasGroup If not `null`, only the tables whose package contain a group of this type.
+   */
+  fun findTables(pck: String, hasGroup: AaptResourceType? = null): List<IResourceTable> {
+    val index = index()
+    val tables = index.packages[pck] ?: return emptyList()
+    if (hasGroup == null) {
+      return tables
+    }
+
+    return index.groups.getOrPut(GroupKey(pck, hasGroup)) {
+      tables.filter { it.findPackage(pck)?.findGroup(hasGroup) != null }
+    }
+  }
+
+  /**
+   * Replace the table of the module with the given [namespace], if the catalog includes it.
+   *
+   * @param namespace The namespace of the module whose table changed.
+   * @param table The new table, or `null` if the module no longer has one.
+   */
+  fun replaceSourceTable(namespace: String, table: IResourceTable?) {
+    synchronized(this) {
+      val current = index ?: return
+      val old = current.sourceTables[namespace]
+      if (old === table) {
+        return
+      }
+
+      if (old == null && namespace != source.namespace && !dependsOn(namespace)) {
+        return
+      }
+
+      val sourceTables = LinkedHashMap(current.sourceTables)
+      if (table == null) {
+        sourceTables.remove(namespace)
+      } else {
+        sourceTables[namespace] = table
+      }
+
+      val packages = HashMap<String, List<IResourceTable>>(current.packages)
+      old?.packages?.forEach { pck ->
+        packages[pck.name]?.let { tables ->
+          val remaining = tables.filter { it !== old }
+          if (remaining.isEmpty()) packages.remove(pck.name) else packages[pck.name] = remaining
+        }
+      }
+      table?.packages?.forEach { pck ->
+        val tables = packages[pck.name] ?: emptyList()
+        if (tables.none { it === table }) {
+          // source tables are looked up before the dependency tables
+          packages[pck.name] = listOf(table) + tables
+        }
+      }
+
+      index = Index(sourceTables, current.dependencyTables, packages)
+    }
+  }
+
+  private fun dependsOn(namespace: String): Boolean =
+      source.getModuleDependencies().any { it.namespace == namespace }
+
+  private fun index(): Index {
+    index?.let {
+      return it
+    }
+
+    return synchronized(this) { index ?: build().also { index = it } }
+  }
+
+  private fun build(): Index {
+    val sourceTables = LinkedHashMap<String, IResourceTable>()
+    val ownTable = source.getResourceTable()
+    if (ownTable != null) {
+      sourceTables[source.namespace!!] = ownTable
+      source.getModuleDependencies().forEach { dependency ->
+        val namespace = dependency.namespace ?: return@forEach
+        dependency.getResourceTable()?.let { sourceTables.putIfAbsent(namespace, it) }
+      }
+    }
+
+    val dependencyTables =
+        Collections.unmodifiableSet(LinkedHashSet(source.createDependencyResourceTables()))
+
+    val packages = HashMap<String, MutableList<IResourceTable>>()
+    fun add(table: IResourceTable) {
+      for (pck in table.packages) {
+        val tables = packages.getOrPut(pck.name) { ArrayList(1) }
+        if (tables.none { it === table }) {
+          tables.add(table)
+        }
+      }
+    }
+
+    sourceTables.values.forEach(::add)
+    dependencyTables.forEach(::add)
+
+    return Index(sourceTables, dependencyTables, packages)
+  }
+}
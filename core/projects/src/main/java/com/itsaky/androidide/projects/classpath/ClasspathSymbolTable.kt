@@ -0,0 +1,252 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.projects.classpath
+
+import androidx.annotation.VisibleForTesting
+import com.google.common.collect.ImmutableSet
+import com.itsaky.tom.rv2ide.utils.Environment
+import java.io.BufferedInputStream
+import java.io.BufferedOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.security.MessageDigest
+import java.util.concurrent.ConcurrentHashMap
+import java.util.zip.ZipFile
+import org.slf4j.LoggerFactory
+
+/**
+ * Persistent table of the classes contained in classpath JAR files.
+ *
+ * The class names of a JAR are read from its central directory once, and then stored on disk keyed
+ * by the path, size and modification time of the JAR. Later lookups, including those after an IDE
+ * restart, are served from memory or from the stored table as long as the JAR is unchanged. The
+ * stored tables of JARs which no longer exist are removed by [prune], which also keeps the total
+ * size of the stored tables within a limit.
+ * Entries which are not regular files (e.g. class directories) are always read with
+ * [JarFsClasspathReader].
+ *
+ * @author Akash Yadav
+ */
+object ClasspathSymbolTable : IClasspathReader {
+
+  private const val FORMAT_VERSION = 1
+  private const val INDEX_DIR_NAME = "classpath-index"
+
+  /** The maximum total size of the stored tables, in bytes. */
+  const val MAX_INDEX_SIZE = 64L * 1024 * 1024
+
+  private val log = LoggerFactory.getLogger(ClasspathSymbolTable::class.java)
+
+  /**
+   * The class names of a JAR file.
+   *
+   * @property size The size of the JAR file when it was read.
+   * @property lastModified The modification time of the JAR file when it was read.
+   * @property classNames The fully qualified names of the classes, including nested classes.
+   */
+  private class JarEntry(val size: Long, val lastModified: Long, val classNames: List<String>) {
+    fun isValidFor(jar: File) = size == jar.length() && lastModified == jar.lastModified()
+  }
+
+  private val jars = ConcurrentHashMap<String, JarEntry>()
+
+  /** The directory of the stored tables. Overridden in tests. */
+  @VisibleForTesting
+  internal var indexDir: File? = null
+    get() = field ?: Environment.ANDROIDIDE_HOME?.let { File(it, "cache/$INDEX_DIR_NAME") }
+
+  override fun listClasses(files: Collection<File>): ImmutableSet<ClassInfo> {
+    val builder = ImmutableSet.builder<ClassInfo>()
+    val others = mutableListOf<File>()
+    for (file in files) {
+      if (!file.isFile) {
+        if (file.exists()) others.add(file)
+        continue
+      }
+
+      classNames(file).forEach { name -> ClassInfo.create(name)?.also { builder.add(it) } }
+    }
+
+    if (others.isNotEmpty()) {
+      builder.addAll(JarFsClasspathReader().listClasses(others))
+    }
+
+    return builder.build()
+  }
+
+  /**
+   * Get the fully qualified names of the classes in the given JAR file.
+   *
+   * @param jar The JAR file.
+   * @return The class names, or an empty list if the file cannot be read.
+   */
+  fun classNames(jar: File): List<String> {
+    val path = jar.absolutePath
+    jars[path]?.let {
+      if (it.isValidFor(jar)) {
+        return it.classNames
+      }
+    }
+
+    val entry = readStored(jar) ?: scan(jar)?.also { store(jar, it) } ?: return emptyList()
+    jars[path] = entry
+    return entry.classNames
+  }
+
+  /** Discard the in-memory entries. The stored tables are kept. */
+  fun clearMemoryCache() {
+    jars.clear()
+  }
+
+  /**
+   * Delete the stored tables of JARs which no longer exist, and those written by other versions.
+   * If the remaining tables exceed [maxSize], the least recently used ones are deleted as well.
+   *
+   * @param maxSize The maximum total size of the stored tables, in bytes.
+   * @return The number of deleted tables.
+   */
+  @JvmOverloads
+  fun prune(maxSize: Long = MAX_INDEX_SIZE): Int {
+    jars.keys.removeIf { !File(it).isFile }
+
+    val files = indexDir?.listFiles() ?: return 0
+    var deleted = 0
+    val live = mutableListOf<File>()
+    for (file in files) {
+      val keep = file.name.endsWith(".idx") && storedJar(file)?.isFile == true
+      if (keep) {
+        live.add(file)
+      } else if (file.delete()) {
+        deleted++
+      }
+    }
+
+    var size = live.sumOf { it.length() }
+    if (size > maxSize) {
+      for (file in live.sortedBy { it.lastModified() }) {
+        if (size <= maxSize) break
+        val length = file.length()
+        if (file.delete()) {
+          size -= length
+          deleted++
+        }
+      }
+    }
+
+    if (deleted > 0) {
+      log.info("Pruned {} stored class tables ({} bytes remaining)", deleted, size)
+    }
+    return deleted
+  }
+
+  private fun storedJar(file: File): File? {
+    return try {
+      DataInputStream(BufferedInputStream(file.inputStream())).use { input ->
+        if (input.readInt() == FORMAT_VERSION) File(input.readUTF()) else null
+      }
+    } catch (e: Exception) {
+      null
+    }
+  }
+
+  private fun scan(jar: File): JarEntry? {
+    val size = jar.length()
+    val lastModified = jar.lastModified()
+    return try {
+      val names = ArrayList<String>()
+      ZipFile(jar).use { zip ->
+        val entries = zip.entries()
+        while (entries.hasMoreElements()) {
+          val name = entries.nextElement().name
+          if (
+              !name.endsWith(".class") ||
+                  name.endsWith("package-info.class") ||
+                  name.endsWith("module-info.class")
+          ) {
+            continue
+          }
+
+          val className = name.substring(0, name.length - 6).trimStart('/').replace('/', '.')
+          if (className.isNotBlank()) {
+            names.add(className)
+          }
+        }
+      }
+      JarEntry(size, lastModified, names)
+    } catch (e: Exception) {
+      log.debug("Failed to scan JAR: {}", jar.name, e)
+      null
+    }
+  }
+
+  private fun storedFile(jar: File): File? {
+    val dir = indexDir ?: return null
+    val digest = MessageDigest.getInstance("SHA-1").digest(jar.absolutePath.toByteArray())
+    return File(dir, digest.joinToString("") { "%02x".format(it) } + ".idx")
+  }
+
+  private fun readStored(jar: File): JarEntry? {
+    val file = storedFile(jar)?.takeIf { it.isFile } ?: return null
+    return try {
+      DataInputStream(BufferedInputStream(file.inputStream())).use { input ->
+        if (input.readInt() != FORMAT_VERSION || input.readUTF() != jar.absolutePath) {
+          return null
+        }
+
+        val size = input.readLong()
+        val lastModified = input.readLong()
+        if (size != jar.length() || lastModified != jar.lastModified()) {
+          return null
+        }
+
+        val count = input.readInt()
+        val names = ArrayList<String>(count)
+        repeat(count) { names.add(input.readUTF()) }
+        JarEntry(size, lastModified, names)
+      }.also {
+        // the modification time orders the tables by their last use when pruning
+        file.setLastModified(System.currentTimeMillis())
+      }
+    } catch (e: Exception) {
+      log.debug("Failed to read stored class table for {}", jar.name, e)
+      null
+    }
+  }
+
+  private fun store(jar: File, entry: JarEntry) {
+    val file = storedFile(jar) ?: return
+    try {
+      file.parentFile?.mkdirs()
+      val tmp = File(file.parentFile, file.name + ".tmp")
+      DataOutputStream(BufferedOutputStream(tmp.outputStream())).use { out ->
+        out.writeInt(FORMAT_VERSION)
+        out.writeUTF(jar.absolutePath)
+        out.writeLong(entry.size)
+        out.writeLong(entry.lastModified)
+        out.writeInt(entry.classNames.size)
+        entry.classNames.forEach(out::writeUTF)
+      }
+      if (!tmp.renameTo(file)) {
+        tmp.delete()
+      }
+    } catch (e: Exception) {
+      log.debug("Failed to store class table for {}", jar.name, e)
+    }
+  }
+}
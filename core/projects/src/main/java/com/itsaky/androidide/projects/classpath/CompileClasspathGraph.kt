@@ -0,0 +1,267 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.projects.classpath
+
+import com.android.builder.model.v2.ide.LibraryType.ANDROID_LIBRARY
+import com.android.builder.model.v2.ide.LibraryType.JAVA_LIBRARY
+import com.android.builder.model.v2.ide.LibraryType.PROJECT
+import com.itsaky.tom.rv2ide.projects.IWorkspace
+import com.itsaky.tom.rv2ide.projects.ModuleProject
+import com.itsaky.tom.rv2ide.projects.android.AndroidModule
+import com.itsaky.tom.rv2ide.projects.java.JavaModule
+import java.io.File
+import java.util.Collections
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+import org.slf4j.LoggerFactory
+
+/**
+ * Workspace-level model of the transitive compile classpaths of module projects.
+ *
+ * The classpath of each module is computed at most once per model version and the resulting
+ * (immutable) set is shared with every module that depends on it. A new graph is created for every
+ * synced workspace; within a workspace, the model version changes only when [invalidate] is called,
+ * i.e. when the selected build variants, the version catalog or the generated sources change.
+ *
+ * @author Akash Yadav
+ */
+class CompileClasspathGraph(private val workspace: IWorkspace) {
+
+  /**
+   * An immutable snapshot of the compile classpaths of all the module projects in the workspace.
+   *
+   * @property version The model version this snapshot was computed for.
+   * @property classpaths The compile classpaths, mapped by module project paths.
+   */
+  class Snapshot(val version: Long, val classpaths: Map<String, Set<File>>) {
+
+    /** Get the compile classpath of the module with the given path. */
+    fun classpathOf(path: String): Set<File> = classpaths[path] ?: emptySet()
+  }
+
+  private class State(val version: Long) {
+    val closures = ConcurrentHashMap<String, Set<File>>()
+    val inProgress = mutableSetOf<String>()
+
+    @Volatile var snapshot: Snapshot? = null
+  }
+
+  companion object {
+
+    private val log = LoggerFactory.getLogger(CompileClasspathGraph::class.java)
+
+    private val versions = AtomicLong()
+
+    private val GRADLE_CACHE_PATTERN =
+        """.gradle/caches/modules-2/files-2.1/([^/]+)/([^/]+)/([^/]+)/""".toRegex()
+  }
+
+  private val catalogProvider = VersionCatalogClasspathProvider()
+
+  @Volatile private var state = State(versions.incrementAndGet())
+
+  /** The current version of the classpath model. */
+  val version: Long
+    get() = state.version
+
+  /**
+   * Get the transitive compile classpath of the given module.
+   *
+   * @param module The module project.
+   * @return The compile classpath. The returned set must not be modified.
+   */
+  fun getCompileClasspaths(module: ModuleProject): Set<File> {
+    val state = this.state
+    state.closures[module.path]?.let {
+      return it
+    }
+
+    return synchronized(state) { closureOf(state, module) }
+  }
+
+  /** Get an immutable snapshot of the compile classpaths of all the modules in the workspace. */
+  fun snapshot(): Snapshot {
+    val state = this.state
+    state.snapshot?.let {
+      return it
+    }
+
+    return synchronized(state) {
+      state.snapshot
+          ?: run {
+            val modules = workspace.getSubProjects().filterIsInstance<ModuleProject>()
+            val classpaths = LinkedHashMap<String, Set<File>>(modules.size)
+            for (module in modules) {
+              classpaths[module.path] = closureOf(state, module)
+            }
+            Snapshot(state.version, Collections.unmodifiableMap(classpaths)).also {
+              state.snapshot = it
+            }
+          }
+    }
+  }
+
+  /**
+   * Discard the computed classpaths, for example, after the selected build variants or the version
+   * catalog have been modified.
+   */
+  fun invalidate() {
+    state = State(versions.incrementAndGet())
+    log.info("Compile classpath graph invalidated (version: {})", state.version)
+  }
+
+  private fun closureOf(state: State, module: ModuleProject): Set<File> {
+    state.closures[module.path]?.let {
+      return it
+    }
+
+    if (!state.inProgress.add(module.path)) {
+      log.warn("Cyclic project dependency on module '{}'", module.path)
+      return emptySet()
+    }
+
+    val result =
+        try {
+          when (module) {
+            is AndroidModule -> androidClosure(state, module)
+            is JavaModule -> javaClosure(state, module)
+            else -> module.getModuleClasspaths()
+          }
+        } finally {
+          state.inProgress.remove(module.path)
+        }
+
+    return Collections.unmodifiableSet(result).also { state.closures[module.path] = it }
+  }
+
+  private fun javaClosure(state: State, module: JavaModule): Set<File> {
+    val result = LinkedHashSet(module.getModuleClasspaths())
+    for (dependency in module.getCompileModuleProjects()) {
+      result.addAll(closureOf(state, dependency))
+    }
+    result.addAll(module.getDependencyClasspaths())
+    return result
+  }
+
+  private fun androidClosure(state: State, module: AndroidModule): Set<File> {
+    val result = LinkedHashSet(module.getModuleClasspaths())
+
+    val modelDepsCount = result.size
+    collectLibraries(state, module, module.libraries, HashSet(), result)
+    log.debug(
+        "AGP model provided {} dependencies for {}",
+        result.size - modelDepsCount,
+        module.path,
+    )
+
+    // Build a map of already loaded dependencies by group:name
+    val existingDeps = buildDependencyMap(result)
+    log.debug("Existing dependency map contains {} entries", existingDeps.size)
+
+    // Get catalog dependencies that don't conflict
+    val catalogDeps = getVersionCatalogDependencies(module, existingDeps)
+    if (catalogDeps.isNotEmpty()) {
+      val beforeCatalog = result.size
+      result.addAll(catalogDeps)
+      log.info(
+          "Added {} new dependencies from version catalog (total now: {})",
+          result.size - beforeCatalog,
+          result.size,
+      )
+    }
+
+    return result
+  }
+
+  private fun collectLibraries(
+      state: State,
+      module: AndroidModule,
+      libraries: Set<String>,
+      visited: MutableSet<String>,
+      result: MutableSet<File>,
+  ) {
+    for (library in libraries) {
+      if (!visited.add(library)) {
+        // already walked through another path of a diamond dependency
+        continue
+      }
+
+      val lib = module.libraryMap[library] ?: continue
+      if (lib.type == PROJECT) {
+        val project = workspace.findProject(lib.projectInfo!!.projectPath) ?: continue
+        if (project !is ModuleProject) {
+          continue
+        }
+
+        result.addAll(closureOf(state, project))
+      } else if (lib.type == ANDROID_LIBRARY) {
+        result.addAll(lib.androidLibraryData!!.compileJarFiles)
+      } else if (lib.type == JAVA_LIBRARY) {
+        result.add(lib.artifact!!)
+      }
+
+      collectLibraries(state, module, lib.dependencies, visited, result)
+    }
+  }
+
+  /**
+   * Build a map of existing dependencies from classpath files. Key format: "group:name", Value:
+   * File path
+   */
+  private fun buildDependencyMap(classpath: Set<File>): Map<String, File> {
+    val depMap = mutableMapOf<String, File>()
+
+    for (file in classpath) {
+      val path = file.absolutePath
+      if (!path.contains(".gradle/caches/modules-2/") || !file.exists()) continue
+
+      val match = GRADLE_CACHE_PATTERN.find(path) ?: continue
+      val key = "${match.groupValues[1]}:${match.groupValues[2]}"
+
+      // Keep the first occurrence (AGP model takes precedence)
+      depMap.putIfAbsent(key, file)
+    }
+
+    return depMap
+  }
+
+  /**
+   * Get dependencies from version catalog that don't conflict with existing ones.
+   *
+   * @param existingDeps Map of group:name -> File for already loaded dependencies
+   */
+  private fun getVersionCatalogDependencies(
+      module: AndroidModule,
+      existingDeps: Map<String, File>,
+  ): Set<File> {
+    val rootProjectDir = module.projectDir.parentFile ?: module.projectDir
+
+    return try {
+      log.debug("Resolving dependencies from version catalog for module: {}", module.path)
+
+      // Pass existing dependency map to avoid duplicates
+      val jars = catalogProvider.getClasspathFromCatalog(rootProjectDir, existingDeps)
+
+      log.info("Resolved {} JARs from version catalog for module: {}", jars.size, module.path)
+      jars
+    } catch (e: Exception) {
+      log.error("Failed to resolve version catalog dependencies", e)
+      emptySet()
+    }
+  }
+}
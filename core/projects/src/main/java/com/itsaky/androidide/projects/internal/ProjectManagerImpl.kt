@@ -18,6 +18,7 @@
 package com.itsaky.tom.rv2ide.projects.internal
 
 import androidx.annotation.RestrictTo
+import androidx.annotation.VisibleForTesting
 import com.android.builder.model.v2.models.ProjectSyncIssues
 import com.google.auto.service.AutoService
 import com.google.common.collect.ImmutableList
@@ -36,11 +37,13 @@ import com.itsaky.tom.rv2ide.projects.ModuleProject
 import com.itsaky.tom.rv2ide.projects.R
 import com.itsaky.tom.rv2ide.projects.android.AndroidModule
 import com.itsaky.tom.rv2ide.projects.builder.BuildService
+import com.itsaky.tom.rv2ide.projects.classpath.VersionCatalogClasspathProvider
 import com.itsaky.tom.rv2ide.tasks.executeAsync
 import com.itsaky.tom.rv2ide.tooling.api.IAndroidProject
 import com.itsaky.tom.rv2ide.tooling.api.IProject
 import com.itsaky.tom.rv2ide.tooling.api.messages.result.InitializeResult
 import com.itsaky.tom.rv2ide.tooling.api.models.BuildVariantInfo
+import com.itsaky.tom.rv2ide.tooling.api.models.WorkspaceModel
 import com.itsaky.tom.rv2ide.utils.DocumentUtils
 import com.itsaky.tom.rv2ide.utils.flashError
 import com.itsaky.tom.rv2ide.utils.withStopWatch
@@ -74,6 +77,8 @@ class ProjectManagerImpl : IProjectManager, EventReceiver {
   private var _workspace: WorkspaceImpl? = null
   private var _projectDir: File? = null
 
+  @Volatile private var restoredModel: WorkspaceModel? = null
+
   var projectInitialized: Boolean = false
   var cachedInitResult: InitializeResult? = null
 
@@ -87,34 +92,79 @@ class ProjectManagerImpl : IProjectManager, EventReceiver {
     return _workspace
   }
 
+  /** **For testing purposes only!** */
+  @VisibleForTesting
+  internal fun setWorkspace(workspace: WorkspaceImpl?) {
+    this._workspace = workspace
+  }
+
   override fun openProject(directory: File) {
     // IMP: Always use canonical path
     this._projectDir = directory.canonicalFile
   }
 
+  /**
+   * Restore the workspace model cached by the last successful project setup. The model is restored
+   * only if the build configuration of the project has not changed since then. If restored, the next
+   * [setupProject] call uses the restored model instead of fetching it from the tooling server.
+   *
+   * @param variantSelections The build variants requested for the Android modules.
+   * @return Whether the workspace model was restored.
+   */
+  fun restoreWorkspaceModel(variantSelections: Map<String, String>): Boolean {
+    val model =
+        withStopWatch("Restore cached workspace model") {
+          WorkspaceModelCache.load(projectDir, variantSelections)
+        }
+
+    this.restoredModel = model
+    return model != null
+  }
+
+  /** Discard the workspace model restored with [restoreWorkspaceModel], if any. */
+  fun discardRestoredModel() {
+    this.restoredModel = null
+  }
+
   override suspend fun setupProject(project: IProject) {
-    this._workspace =
+    val restoredModel = this.restoredModel
+    this.restoredModel = null
+
+    val workspace =
         withStopWatch("Transform project proxy") {
           withContext(Dispatchers.IO) {
-            WorkspaceModelBuilder.build(projectDir, CachingProject(project))
+            if (restoredModel != null) {
+              WorkspaceModelBuilder.build(projectDir, restoredModel)
+            } else {
+              WorkspaceModelBuilder.build(projectDir, CachingProject(project))
+            }
           }
         }
 
-    val rootProject = this.getWorkspace() ?: return
+    if (workspace == null) {
+      if (restoredModel != null) {
+        // the cached model is unusable, make sure that the next setup syncs the project
+        WorkspaceModelCache.clear(projectDir)
+      }
+      this._workspace = null
+      return
+    }
 
-    // build variants must be updated before the sources and classpaths are indexed
-    updateBuildVariants { buildVariants -> _workspace!!.setVariantSelections(buildVariants) }
+    // build variants must be selected before the workspace is published, otherwise the classpaths
+    // queried in between would be computed (and memoized) without the selected variants
+    updateBuildVariants(workspace) { buildVariants -> workspace.setVariantSelections(buildVariants) }
+    this._workspace = workspace
 
     log.info(
         "Found {} project sync issues: {}",
-        rootProject.getProjectSyncIssues().syncIssues.size,
-        rootProject.getProjectSyncIssues().syncIssues,
+        workspace.getProjectSyncIssues().syncIssues.size,
+        workspace.getProjectSyncIssues().syncIssues,
     )
 
     withStopWatch("Setup project") {
       val indexerScope = CoroutineScope(Dispatchers.Default)
       val modulesFlow = flow {
-        rootProject.getSubProjects().filterIsInstance<ModuleProject>().forEach { emit(it) }
+        workspace.getSubProjects().filterIsInstance<ModuleProject>().forEach { emit(it) }
       }
 
       val jobs =
@@ -139,6 +189,7 @@ class ProjectManagerImpl : IProjectManager, EventReceiver {
     this._workspace = null
 
     this._projectDir = null
+    this.restoredModel = null
     this.cachedInitResult = null
     this.projectInitialized = false
   }
@@ -202,6 +253,9 @@ class ProjectManagerImpl : IProjectManager, EventReceiver {
 
     executeAsync {
       getWorkspace()?.apply {
+        // the generated class jars may have changed
+        getClasspathGraph().invalidate()
+
         getSubProjects().forEach { subproject ->
           if (subproject is ModuleProject) {
             subproject.indexSources()
@@ -215,12 +269,10 @@ class ProjectManagerImpl : IProjectManager, EventReceiver {
     }
   }
 
-  private fun updateBuildVariants(onUpdated: (Map<String, BuildVariantInfo>) -> Unit = {}) {
-    val rootProject =
-        checkNotNull(this.getWorkspace()) {
-          "Cannot update build variants. Root project model is null."
-        }
-
+  private fun updateBuildVariants(
+      rootProject: IWorkspace,
+      onUpdated: (Map<String, BuildVariantInfo>) -> Unit = {},
+  ) {
     val buildVariants = mutableMapOf<String, BuildVariantInfo>()
     rootProject.getSubProjects().forEach { subproject ->
       if (subproject is AndroidModule) {
@@ -259,6 +311,13 @@ class ProjectManagerImpl : IProjectManager, EventReceiver {
         return@apply
       }
 
+      if (fileName.toString().endsWith(".versions.toml")) {
+        // the resolved catalog dependencies are part of the compile classpaths
+        VersionCatalogClasspathProvider().clearCache()
+        getWorkspace()?.getClasspathGraph()?.invalidate()
+        return@apply
+      }
+
       if (extension != "xml") {
         return@apply
       }
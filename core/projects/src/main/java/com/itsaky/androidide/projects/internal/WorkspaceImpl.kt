@@ -24,7 +24,9 @@ import com.itsaky.tom.rv2ide.projects.GradleProject
 import com.itsaky.tom.rv2ide.projects.IWorkspace
 import com.itsaky.tom.rv2ide.projects.ModuleProject
 import com.itsaky.tom.rv2ide.projects.android.AndroidModule
+import com.itsaky.tom.rv2ide.projects.classpath.CompileClasspathGraph
 import com.itsaky.tom.rv2ide.tooling.api.models.BuildVariantInfo
+import com.itsaky.tom.rv2ide.utils.DocumentUtils
 import java.io.File
 import java.nio.file.Files
 import java.nio.file.Path
@@ -45,12 +47,24 @@ internal class WorkspaceImpl(
 ) : IWorkspace {
 
   private val variantSelections = mutableMapOf<String, BuildVariantInfo>()
+  private val classpathGraph = CompileClasspathGraph(this)
+
+  @Volatile private var pathIndex: WorkspacePathIndex? = null
 
   internal fun setVariantSelections(selections: Map<String, BuildVariantInfo>) {
     this.variantSelections.apply {
       clear()
       putAll(selections)
     }
+
+    // the source roots and the classpaths depend on the selected variants
+    invalidatePathIndex()
+    classpathGraph.invalidate()
+  }
+
+  /** Discard the path index so that it is rebuilt from the current module models on next use. */
+  internal fun invalidatePathIndex() {
+    this.pathIndex = null
   }
 
   override fun getProjectDir(): File {
@@ -73,6 +87,10 @@ internal class WorkspaceImpl(
     return ImmutableMap.copyOf(this.variantSelections)
   }
 
+  override fun getClasspathGraph(): CompileClasspathGraph {
+    return this.classpathGraph
+  }
+
   override fun findProject(path: String): GradleProject? {
     return this.subProjects.find { it.path == path }
   }
@@ -87,57 +105,42 @@ internal class WorkspaceImpl(
 
   override fun findModuleForFile(file: File, checkExistance: Boolean): ModuleProject? {
 
-    if (!file.exists() && checkExistance) {
-      return null
-    }
-
-    val path = file.canonicalPath
-    var longestPath = ""
-    var moduleWithLongestPath: ModuleProject? = null
-
-    for (module in subProjects) {
-      if (module !is ModuleProject) {
-        continue
-      }
-
-      val moduleDir = module.projectDir.canonicalPath
-      if (path.startsWith(moduleDir) && longestPath.length < moduleDir.length) {
-        longestPath = moduleDir
-        moduleWithLongestPath = module
-      }
-    }
-
-    if (longestPath.isEmpty() || moduleWithLongestPath == null) {
+    if (checkExistance && !file.exists()) {
       return null
     }
 
-    return moduleWithLongestPath
+    return getPathIndex().lookup(file).module
   }
 
   override fun containsSourceFile(file: Path): Boolean {
-    if (!Files.exists(file)) {
+    val match = getPathIndex().lookup(file.toFile())
+    if (match.module == null || match.sourceRoot == null || !Files.exists(file)) {
       return false
     }
 
-    for (module in subProjects) {
-      if (module !is ModuleProject) {
-        continue
-      }
-
-      val source = module.compileJavaSourceClasses.findSource(file)
-      if (source != null) {
-        return true
-      }
-    }
-
-    return false
+    return DocumentUtils.isJavaFile(file)
   }
 
   override fun isAndroidResource(file: File): Boolean {
-    val module = findModuleForFile(file, true) ?: return false
+    if (!file.exists()) {
+      return false
+    }
+
+    val match = getPathIndex().lookup(file)
+    val module = match.module ?: return false
     if (module is AndroidModule) {
-      return module.getResourceDirectories().find { file.path.startsWith(it.path) } != null
+      return match.resourceRoot != null
     }
     return true
   }
+
+  private fun getPathIndex(): WorkspacePathIndex {
+    pathIndex?.let {
+      return it
+    }
+
+    return synchronized(this) {
+      pathIndex ?: WorkspacePathIndex.build(subProjects).also { pathIndex = it }
+    }
+  }
 }
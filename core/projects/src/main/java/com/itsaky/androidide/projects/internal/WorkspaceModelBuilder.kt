@@ -20,15 +20,12 @@ package com.itsaky.tom.rv2ide.projects.internal
 import com.itsaky.tom.rv2ide.projects.GradleProject
 import com.itsaky.tom.rv2ide.projects.android.AndroidModule
 import com.itsaky.tom.rv2ide.projects.java.JavaModule
-import com.itsaky.tom.rv2ide.tooling.api.IAndroidProject
-import com.itsaky.tom.rv2ide.tooling.api.IGradleProject
-import com.itsaky.tom.rv2ide.tooling.api.IJavaProject
 import com.itsaky.tom.rv2ide.tooling.api.IProject
 import com.itsaky.tom.rv2ide.tooling.api.ProjectType
 import com.itsaky.tom.rv2ide.tooling.api.models.AndroidProjectMetadata
-import com.itsaky.tom.rv2ide.tooling.api.models.BasicProjectMetadata
 import com.itsaky.tom.rv2ide.tooling.api.models.JavaProjectMetadata
-import com.itsaky.tom.rv2ide.tooling.api.models.params.StringParameter
+import com.itsaky.tom.rv2ide.tooling.api.models.ModuleModel
+import com.itsaky.tom.rv2ide.tooling.api.models.WorkspaceModel
 import java.io.File
 import java.util.concurrent.CopyOnWriteArrayList
 import org.slf4j.LoggerFactory
@@ -36,6 +33,10 @@ import org.slf4j.LoggerFactory
 /**
  * Transforms project models from tooling API to the projects API.
  *
+ * The whole workspace model is fetched with a single [IProject.getWorkspaceModel] call instead of
+ * selecting and querying each module separately. Successfully transformed models are persisted with
+ * [WorkspaceModelCache].
+ *
  * @author Akash Yadav
  */
 internal object WorkspaceModelBuilder {
@@ -43,15 +44,23 @@ internal object WorkspaceModelBuilder {
   private val log = LoggerFactory.getLogger(WorkspaceModelBuilder::class.java)
 
   fun build(projectDir: File, project: IProject): WorkspaceImpl? {
-    try {
-      val allProjects = project.getProjects().get()
-      val selectionResult = project.selectProject(StringParameter("")).get()
-      check(selectionResult.isSuccessful) { "Cannot find root project" }
+    val model =
+        try {
+          project.getWorkspaceModel().get()
+        } catch (error: Throwable) {
+          log.error("Unable to fetch workspace model", error)
+          return null
+        }
+
+    return build(projectDir, model)?.also { WorkspaceModelCache.save(projectDir, model) }
+  }
 
+  fun build(projectDir: File, model: WorkspaceModel): WorkspaceImpl? {
+    try {
       val rootProject =
-          when (project.getType().get()) {
-            ProjectType.Gradle -> transform(project.asGradleProject())
-            ProjectType.Android -> transform(project.asAndroidProject())
+          when (model.rootProject.type) {
+            ProjectType.Gradle -> transformGradle(model.rootProject)
+            ProjectType.Android -> transformAndroid(model.rootProject, model)
             else ->
                 throw IllegalStateException(
                     "Root project must be either an Android project or a Gradle project"
@@ -61,8 +70,8 @@ internal object WorkspaceModelBuilder {
       return WorkspaceImpl(
           projectDir,
           rootProject,
-          CopyOnWriteArrayList(transform(allProjects, project)),
-          project.getProjectSyncIssues().get(),
+          CopyOnWriteArrayList(model.allProjects().map { createProject(it, model) }),
+          model.syncIssues,
       )
     } catch (error: Throwable) {
       log.error("Unable to transform project", error)
@@ -70,8 +79,8 @@ internal object WorkspaceModelBuilder {
     }
   }
 
-  private fun transform(rootProject: IGradleProject): GradleProject {
-    val metadata = rootProject.getMetadata().get()
+  private fun transformGradle(module: ModuleModel): GradleProject {
+    val metadata = module.metadata
     return GradleProject(
         name = metadata.name ?: IProject.PROJECT_UNKNOWN,
         description = metadata.description ?: "",
@@ -82,15 +91,14 @@ internal object WorkspaceModelBuilder {
 
         // The list will never change, we could make these thread-safe with
         // CopyOnWriteArrayList
-        tasks = CopyOnWriteArrayList(rootProject.getTasks().get() ?: listOf()),
+        tasks = CopyOnWriteArrayList(module.tasks),
     )
   }
 
-  private fun transform(project: IAndroidProject): AndroidModule {
-    val metadata = project.getMetadata().get() as AndroidProjectMetadata
-    val libraryMap = project.getLibraryMap().get()
-    val variants = project.getVariants().get()
-    val configuredVariant = project.getConfiguredVariant().get()
+  private fun transformAndroid(module: ModuleModel, model: WorkspaceModel): AndroidModule {
+    val metadata = module.metadata as AndroidProjectMetadata
+    val libraryMap = model.libraryMapOf(module)
+    val variants = module.variants
     return AndroidModule(
         name = metadata.name ?: IProject.PROJECT_UNKNOWN,
         description = metadata.description ?: "",
@@ -98,28 +106,28 @@ internal object WorkspaceModelBuilder {
         projectDir = metadata.projectDir,
         buildDir = metadata.buildDir,
         buildScript = metadata.buildScript,
-        tasks = project.getTasks().get(),
+        tasks = module.tasks,
         resourcePrefix = metadata.resourcePrefix,
         namespace = metadata.namespace,
         androidTestNamespace = metadata.androidTestNamespace,
         testFixtureNamespace = metadata.testFixtureNamespace,
         projectType = metadata.androidType,
-        mainSourceSet = project.getMainSourceSet().get(),
+        mainSourceSet = module.mainSourceSet,
         flags = metadata.flags,
         compilerSettings = metadata.javaCompileOptions,
         viewBindingOptions = metadata.viewBindingOptions,
-        bootClassPaths = project.getBootClasspaths().get(),
+        bootClassPaths = module.bootClasspaths,
         libraries = libraryMap.keys,
         libraryMap = libraryMap,
-        lintCheckJars = project.getLintCheckJars().get(),
+        lintCheckJars = module.lintCheckJars,
         variants = variants,
-        configuredVariant = variants.find { it.name == configuredVariant },
+        configuredVariant = variants.find { it.name == module.configuredVariant },
         classesJar = metadata.classesJar,
     )
   }
 
-  private fun transform(project: IJavaProject): JavaModule {
-    val metadata = project.getMetadata().get() as JavaProjectMetadata
+  private fun transformJava(module: ModuleModel): JavaModule {
+    val metadata = module.metadata as JavaProjectMetadata
     return JavaModule(
         name = metadata.name ?: IProject.PROJECT_UNKNOWN,
         description = metadata.description ?: "",
@@ -127,36 +135,21 @@ internal object WorkspaceModelBuilder {
         projectDir = metadata.projectDir,
         buildDir = metadata.buildDir,
         buildScript = metadata.buildScript,
-        tasks = project.getTasks().get(),
-        contentRoots = project.getContentRoots().get(),
-        dependencies = project.getDependencies().get(),
+        tasks = module.tasks,
+        contentRoots = module.contentRoots,
+        dependencies = module.dependencies,
         compilerSettings = metadata.compilerSettings,
         classesJar = metadata.classesJar,
     )
   }
 
-  private fun transform(modules: List<BasicProjectMetadata>, root: IProject): List<GradleProject> {
-    return mutableListOf<GradleProject>().apply {
-      for (module in modules) {
-        add(createProject(module, root))
-      }
-    }
-  }
-
-  private fun createProject(moduleMetadata: BasicProjectMetadata, root: IProject): GradleProject {
-    val selectionResult = root.selectProject(StringParameter(moduleMetadata.projectPath)).get()
-    check(selectionResult.isSuccessful) {
-      "Selection failed for project '${moduleMetadata.projectPath}' but it is included in all projects."
-    }
-
-    val type = root.getType().get() ?: throw java.lang.IllegalStateException("Invalid module data")
-
-    return when (type) {
+  private fun createProject(module: ModuleModel, model: WorkspaceModel): GradleProject {
+    return when (module.type) {
       ProjectType.Gradle,
-      ProjectType.Unknown -> transform(root.asGradleProject())
+      ProjectType.Unknown -> transformGradle(module)
 
-      ProjectType.Android -> transform(root.asAndroidProject())
-      ProjectType.Java -> transform(root.asJavaProject())
+      ProjectType.Android -> transformAndroid(module, model)
+      ProjectType.Java -> transformJava(module)
     }
   }
 }
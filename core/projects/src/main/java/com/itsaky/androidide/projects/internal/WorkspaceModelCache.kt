@@ -0,0 +1,218 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.projects.internal
+
+import com.google.gson.Gson
+import com.google.gson.GsonBuilder
+import com.itsaky.tom.rv2ide.tooling.api.models.WorkspaceModel
+import com.itsaky.tom.rv2ide.tooling.api.util.ToolingApiLauncher
+import java.io.File
+import java.security.MessageDigest
+import java.util.TreeSet
+import org.slf4j.LoggerFactory
+
+/**
+ * Persists the [WorkspaceModel] of a project so that the project can be reopened without running a
+ * Gradle sync.
+ *
+ * A cached model is only used as long as the [fingerprint] of the files that configure the build
+ * (settings and build scripts, version catalogs, `gradle.properties`, `local.properties`, the
+ * Gradle wrapper properties, `buildSrc` and included builds) matches the fingerprint recorded when the
+ * model was saved.
+ *
+ * @author Akash Yadav
+ */
+internal object WorkspaceModelCache {
+
+  private val log = LoggerFactory.getLogger(WorkspaceModelCache::class.java)
+
+  /** Version of the cache file format. Must be bumped whenever the model classes change. */
+  private const val CACHE_VERSION = 3
+
+  private const val CACHE_FILE = ".androidide/cache/workspace-model.json"
+
+  /** Files, relative to the root project directory, which are included in the [fingerprint]. */
+  private val BUILD_CONFIG_FILES =
+      arrayOf(
+          "settings.gradle",
+          "settings.gradle.kts",
+          "build.gradle",
+          "build.gradle.kts",
+          "gradle.properties",
+          "local.properties",
+          "gradle/wrapper/gradle-wrapper.properties",
+      )
+
+  /** Directories which are skipped when walking the sources of `buildSrc` or included builds. */
+  private val IGNORED_BUILD_DIRS = setOf("build", ".gradle", ".idea", ".androidide")
+
+  /** Matches `includeBuild("path")` and `includeBuild 'path'` in settings scripts. */
+  private val INCLUDE_BUILD = Regex("""includeBuild\s*\(?\s*["']([^"']+)["']""")
+
+  private val gson: Gson by lazy {
+    GsonBuilder().also { ToolingApiLauncher.configureGson(it) }.create()
+  }
+
+  private class CacheEntry(
+      val version: Int,
+      val fingerprint: String,
+      val model: WorkspaceModel,
+  )
+
+  /**
+   * Load the cached workspace model of the given project.
+   *
+   * @param projectDir The root project directory.
+   * @param variantSelections The build variants requested for the Android modules.
+   * @return The cached model, or `null` if there is no cached model, the build configuration has
+   *   changed since the model was cached or the model was built with different variant selections.
+   */
+  fun load(projectDir: File, variantSelections: Map<String, String>): WorkspaceModel? {
+    val file = File(projectDir, CACHE_FILE)
+    if (!file.isFile) {
+      return null
+    }
+
+    val entry =
+        try {
+          file.bufferedReader().use { gson.fromJson(it, CacheEntry::class.java) }?.takeIf {
+            it.model != null &&
+                it.version == CACHE_VERSION &&
+                it.fingerprint == fingerprint(projectDir, it.model)
+          }
+        } catch (err: Throwable) {
+          log.warn("Unable to read cached workspace model", err)
+          null
+        }
+
+    if (entry == null) {
+      log.info("No valid cached workspace model. The build configuration might have changed.")
+      return null
+    }
+
+    val selectionsMatch =
+        variantSelections.all { (path, variant) ->
+          entry.model.allProjects().find { it.metadata.projectPath == path }?.configuredVariant ==
+              variant
+        }
+
+    if (!selectionsMatch) {
+      log.info("Cached workspace model was built with different build variant selections")
+      return null
+    }
+
+    return entry.model
+  }
+
+  /**
+   * Save the workspace model of the given project to the cache.
+   *
+   * @param projectDir The root project directory.
+   * @param model The workspace model to cache.
+   */
+  fun save(projectDir: File, model: WorkspaceModel) {
+    val file = File(projectDir, CACHE_FILE)
+    val tmpFile = File(file.parentFile, "${file.name}.tmp")
+    try {
+      file.parentFile?.mkdirs()
+      tmpFile.bufferedWriter().use { writer ->
+        gson.toJson(CacheEntry(CACHE_VERSION, fingerprint(projectDir, model), model), writer)
+      }
+
+      if (!tmpFile.renameTo(file)) {
+        file.delete()
+        check(tmpFile.renameTo(file)) { "Unable to move $tmpFile to $file" }
+      }
+    } catch (err: Throwable) {
+      log.warn("Unable to cache workspace model", err)
+      tmpFile.delete()
+    }
+  }
+
+  /** Delete the cached workspace model of the given project, if any. */
+  fun clear(projectDir: File) {
+    File(projectDir, CACHE_FILE).delete()
+  }
+
+  /**
+   * Compute the fingerprint of the build configuration of the given project. The build scripts of
+   * the modules are taken from the given [model].
+   */
+  fun fingerprint(projectDir: File, model: WorkspaceModel): String {
+    val files = TreeSet<File>()
+    BUILD_CONFIG_FILES.forEach { files.add(File(projectDir, it)) }
+
+    File(projectDir, "gradle").listFiles { file -> file.name.endsWith(".versions.toml") }
+        ?.let { files.addAll(it) }
+
+    files.add(model.rootProject.metadata.buildScript)
+    model.projects.forEach { files.add(it.metadata.buildScript) }
+
+    // buildSrc and included builds contribute plugins and conventions to the build
+    // their sources are tracked by size and modification time instead of their contents
+    val buildDirs = TreeSet<File>()
+    buildDirs.add(File(projectDir, "buildSrc"))
+    buildDirs.addAll(findIncludedBuilds(projectDir))
+
+    val digest = MessageDigest.getInstance("SHA-256")
+    digest.update(CACHE_VERSION.toByte())
+    for (file in files) {
+      digest.update(file.absolutePath.toByteArray())
+      if (file.isFile) {
+        digest.update(1.toByte())
+        digest.update(file.readBytes())
+      } else {
+        digest.update(0.toByte())
+      }
+    }
+
+    for (dir in buildDirs) {
+      digest.update(dir.absolutePath.toByteArray())
+      if (!dir.isDirectory) {
+        digest.update(0.toByte())
+        continue
+      }
+
+      digest.update(1.toByte())
+      dir.walkTopDown()
+          .onEnter { it == dir || it.name !in IGNORED_BUILD_DIRS }
+          .filter { it.isFile }
+          .sortedBy { it.path }
+          .forEach { file ->
+            digest.update(file.path.toByteArray())
+            digest.update(file.length().toString().toByteArray())
+            digest.update(file.lastModified().toString().toByteArray())
+          }
+    }
+
+    return digest.digest().joinToString(separator = "") { "%02x".format(it) }
+  }
+
+  /** Find the root directories of the builds included by the settings script of the project. */
+  private fun findIncludedBuilds(projectDir: File): List<File> {
+    return arrayOf("settings.gradle", "settings.gradle.kts")
+        .map { File(projectDir, it) }
+        .filter { it.isFile }
+        .flatMap { settings ->
+          INCLUDE_BUILD.findAll(settings.readText()).map { match ->
+            val path = File(match.groupValues[1])
+            (if (path.isAbsolute) path else File(projectDir, path.path)).normalize()
+          }
+        }
+  }
+}
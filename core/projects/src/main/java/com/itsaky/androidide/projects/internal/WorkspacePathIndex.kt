@@ -0,0 +1,153 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.projects.internal
+
+import com.itsaky.tom.rv2ide.projects.GradleProject
+import com.itsaky.tom.rv2ide.projects.ModuleProject
+import com.itsaky.tom.rv2ide.projects.android.AndroidModule
+import java.io.File
+import org.slf4j.LoggerFactory
+
+/**
+ * A trie of canonicalized path segments which maps the module roots, source roots and resource
+ * roots of the module projects in a workspace. A lookup walks the segments of the given path once
+ * and does not access the file system.
+ *
+ * @author Akash Yadav
+ */
+internal class WorkspacePathIndex private constructor(private val root: Node) {
+
+  private class Node {
+    var children: HashMap<String, Node>? = null
+    var module: ModuleProject? = null
+    var sourceRoot: File? = null
+    var resourceRoot: File? = null
+
+    fun child(segment: String): Node =
+        (children ?: HashMap<String, Node>(4).also { children = it }).getOrPut(segment) { Node() }
+  }
+
+  /**
+   * The result of a lookup. Each property holds the deepest match along the looked up path.
+   *
+   * @property module The module whose project directory contains the path.
+   * @property sourceRoot The source root containing the path.
+   * @property resourceRoot The resource root containing the path.
+   */
+  class Match(val module: ModuleProject?, val sourceRoot: File?, val resourceRoot: File?) {
+    companion object {
+      @JvmStatic val NONE = Match(null, null, null)
+    }
+  }
+
+  /**
+   * Looks up the given file. The file is matched by its absolute, normalized path first, and by
+   * its canonical path only if that does not match any module.
+   */
+  fun lookup(file: File): Match {
+    val match = lookup(file.absoluteFile.normalize().path)
+    if (match.module != null) {
+      return match
+    }
+
+    val canonicalPath =
+        try {
+          file.canonicalPath
+        } catch (e: Exception) {
+          return match
+        }
+
+    return lookup(canonicalPath)
+  }
+
+  private fun lookup(path: String): Match {
+    var node: Node? = root
+    var module: ModuleProject? = null
+    var sourceRoot: File? = null
+    var resourceRoot: File? = null
+
+    val segments = segments(path)
+    var index = 0
+    while (node != null) {
+      node.module?.let { module = it }
+      node.sourceRoot?.let { sourceRoot = it }
+      node.resourceRoot?.let { resourceRoot = it }
+      if (index == segments.size) {
+        break
+      }
+      node = node.children?.get(segments[index++])
+    }
+
+    if (module == null && sourceRoot == null && resourceRoot == null) {
+      return Match.NONE
+    }
+    return Match(module, sourceRoot, resourceRoot)
+  }
+
+  companion object {
+
+    private val log = LoggerFactory.getLogger(WorkspacePathIndex::class.java)
+
+    @JvmStatic val EMPTY = WorkspacePathIndex(Node())
+
+    private fun segments(path: String): List<String> =
+        path.split(File.separatorChar).filter { it.isNotEmpty() }
+
+    private fun canonicalize(file: File): String =
+        try {
+          file.canonicalPath
+        } catch (e: Exception) {
+          file.absoluteFile.normalize().path
+        }
+
+    /** Builds the index for the given projects. */
+    @JvmStatic
+    fun build(projects: List<GradleProject>): WorkspacePathIndex {
+      val root = Node()
+      fun nodeFor(file: File): Node {
+        var node = root
+        for (segment in segments(canonicalize(file))) {
+          node = node.child(segment)
+        }
+        return node
+      }
+
+      for (project in projects) {
+        if (project !is ModuleProject) {
+          continue
+        }
+
+        nodeFor(project.projectDir).module = project
+
+        for (dir in project.getSourceDirectories()) {
+          nodeFor(dir).sourceRoot = dir
+        }
+
+        if (project is AndroidModule) {
+          val resDirs = project.mainSourceSet?.sourceProvider?.resDirectories ?: emptyList()
+          for (dir in resDirs) {
+            nodeFor(dir).resourceRoot = dir
+          }
+        }
+      }
+
+      log.debug("Built workspace path index for {} projects", projects.size)
+      return WorkspacePathIndex(root)
+    }
+  }
+}
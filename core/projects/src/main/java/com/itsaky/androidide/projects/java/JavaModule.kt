@@ -27,6 +27,7 @@ import com.itsaky.tom.rv2ide.tooling.api.models.JavaModuleDependency
 import com.itsaky.tom.rv2ide.tooling.api.models.JavaModuleExternalDependency
 import com.itsaky.tom.rv2ide.tooling.api.models.JavaModuleProjectDependency
 import java.io.File
+import org.slf4j.LoggerFactory
 
 /**
  * A [GradleProject] model implementation for Java library modules which is exposed to other modules
@@ -62,6 +63,8 @@ class JavaModule(
 
     const val SCOPE_COMPILE = "COMPILE"
     const val SCOPE_RUNTIME = "RUNTIME"
+
+    private val log = LoggerFactory.getLogger(JavaModule::class.java)
   }
 
   init {
@@ -91,10 +94,14 @@ class JavaModule(
   }
 
   override fun getCompileClasspaths(): Set<File> {
-    val classpaths = getModuleClasspaths().toMutableSet()
-    getCompileModuleProjects().forEach { classpaths.addAll(it.getCompileClasspaths()) }
-    classpaths.addAll(getDependencyClasspaths())
-    return classpaths
+    val workspace = IProjectManager.getInstance().getWorkspace()
+    if (workspace == null) {
+      // without a workspace, the classpaths of the module projects cannot be resolved
+      log.warn("No workspace available, compile classpath of {} excludes project modules", path)
+      return getModuleClasspaths() + getDependencyClasspaths()
+    }
+
+    return workspace.getClasspathGraph().getCompileClasspaths(this)
   }
 
   override fun getCompileModuleProjects(): List<ModuleProject> {
@@ -0,0 +1,156 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.projects.android
+
+import com.android.aaptcompiler.AaptResourceType
+import com.android.aaptcompiler.ResourceName
+import com.itsaky.tom.rv2ide.xml.res.IResourceEntry
+import com.itsaky.tom.rv2ide.xml.res.IResourceGroup
+import com.itsaky.tom.rv2ide.xml.res.IResourceTable
+import com.itsaky.tom.rv2ide.xml.res.IResourceTablePackage
+import com.itsaky.tom.rv2ide.xml.res.ISearchResult
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+/** @author Akash Yadav */
+class ResourceTableCatalogTest {
+
+  private val appTable = table("app", "com.example.app" to setOf(AaptResourceType.LAYOUT))
+  private val libTable =
+      table(
+          "lib",
+          "com.example.lib" to setOf(AaptResourceType.LAYOUT, AaptResourceType.STRING),
+      )
+  private val material =
+      table(
+          "material",
+          "com.example.lib" to setOf(AaptResourceType.STRING),
+          "com.google.android.material" to setOf(AaptResourceType.DRAWABLE),
+      )
+
+  private val lib = FakeSource("com.example.lib", libTable)
+  private val app = FakeSource("com.example.app", appTable, listOf(lib), setOf(material))
+
+  /**
+   * Lookups by package return the tables which contain the package. Before the catalog,
+   * `AndroidModule.findAllResourceTableForPackage` built this list but returned an empty list, so
+   * resources could only be found in the framework package.
+   */
+  @Test
+  fun findsTheTablesOfAPackage() {
+    val catalog = ResourceTableCatalog(app)
+
+    assertEquals(listOf(appTable), catalog.findTables("com.example.app"))
+    assertEquals(listOf(material), catalog.findTables("com.google.android.material"))
+    assertTrue(catalog.findTables("com.example.missing").isEmpty())
+  }
+
+  @Test
+  fun looksUpSourceTablesBeforeDependencyTables() {
+    val catalog = ResourceTableCatalog(app)
+
+    assertEquals(listOf(libTable, material), catalog.findTables("com.example.lib"))
+    assertEquals(listOf(appTable, libTable), catalog.sourceTables.toList())
+    assertEquals(setOf(material), catalog.dependencyTables)
+  }
+
+  @Test
+  fun filtersTablesByResourceType() {
+    val catalog = ResourceTableCatalog(app)
+
+    assertEquals(listOf(libTable), catalog.findTables("com.example.lib", AaptResourceType.LAYOUT))
+    assertEquals(
+        listOf(libTable, material),
+        catalog.findTables("com.example.lib", AaptResourceType.STRING),
+    )
+    assertTrue(catalog.findTables("com.example.lib", AaptResourceType.DRAWABLE).isEmpty())
+  }
+
+  @Test
+  fun replacesTheTablesOfModules() {
+    val catalog = ResourceTableCatalog(app)
+    assertEquals(listOf(libTable), catalog.findTables("com.example.lib", AaptResourceType.LAYOUT))
+
+    // the new table of the library no longer has layouts
+    val newLibTable = table("lib2", "com.example.lib" to setOf(AaptResourceType.STRING))
+    catalog.replaceSourceTable("com.example.lib", newLibTable)
+    assertEquals(listOf(newLibTable, material), catalog.findTables("com.example.lib"))
+    assertTrue(catalog.findTables("com.example.lib", AaptResourceType.LAYOUT).isEmpty())
+
+    catalog.replaceSourceTable("com.example.app", null)
+    assertTrue(catalog.findTables("com.example.app").isEmpty())
+    assertEquals(listOf(newLibTable), catalog.sourceTables.toList())
+  }
+
+  @Test
+  fun ignoresTablesOfOtherModules() {
+    val catalog = ResourceTableCatalog(app)
+
+    catalog.replaceSourceTable("com.example.other", table("other", "com.example.other" to emptySet()))
+    assertTrue(catalog.findTables("com.example.other").isEmpty())
+  }
+
+  private class FakeSource(
+      override val namespace: String,
+      private val table: IResourceTable?,
+      private val moduleDependencies: List<ResourceTableCatalog.Source> = emptyList(),
+      private val dependencyTables: Set<IResourceTable> = emptySet(),
+  ) : ResourceTableCatalog.Source {
+
+    override fun getResourceTable(): IResourceTable? = table
+
+    override fun getModuleDependencies(): List<ResourceTableCatalog.Source> = moduleDependencies
+
+    override fun createDependencyResourceTables(): Set<IResourceTable> = dependencyTables
+  }
+
+  private fun table(
+      label: String,
+      vararg packages: Pair<String, Set<AaptResourceType>>,
+  ): IResourceTable {
+    val tablePackages = packages.map { (pck, types) -> FakePackage(pck, types) }
+    return object : IResourceTable {
+      override val packages: Collection<IResourceTablePackage> = tablePackages
+
+      override fun findResource(name: ResourceName): ISearchResult? = null
+
+      override fun findPackage(name: String): IResourceTablePackage? =
+          tablePackages.find { it.name == name }
+
+      override fun toString(): String = label
+    }
+  }
+
+  private class FakePackage(override val name: String, private val types: Set<AaptResourceType>) :
+      IResourceTablePackage {
+
+    override fun findGroup(type: AaptResourceType, groupId: Byte?): IResourceGroup? =
+        if (type in types) EmptyGroup else null
+  }
+
+  private object EmptyGroup : IResourceGroup {
+
+    override fun findEntry(name: String, entryId: Short?): IResourceEntry? = null
+
+    override fun findEntries(
+        entryId: Short?,
+        predicate: (String) -> Boolean,
+    ): List<IResourceEntry> = emptyList()
+  }
+}
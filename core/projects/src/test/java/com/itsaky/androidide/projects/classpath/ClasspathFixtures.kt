@@ -0,0 +1,251 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.projects.classpath
+
+import com.android.builder.model.v2.ide.LibraryType
+import com.android.builder.model.v2.ide.ProjectType
+import com.itsaky.tom.rv2ide.builder.model.DefaultAndroidGradlePluginProjectFlags
+import com.itsaky.tom.rv2ide.builder.model.DefaultAndroidLibraryData
+import com.itsaky.tom.rv2ide.builder.model.DefaultJavaCompileOptions
+import com.itsaky.tom.rv2ide.builder.model.DefaultLibrary
+import com.itsaky.tom.rv2ide.builder.model.DefaultProjectInfo
+import com.itsaky.tom.rv2ide.builder.model.DefaultProjectSyncIssues
+import com.itsaky.tom.rv2ide.builder.model.DefaultViewBindingOptions
+import com.itsaky.tom.rv2ide.projects.GradleProject
+import com.itsaky.tom.rv2ide.projects.ModuleProject
+import com.itsaky.tom.rv2ide.projects.android.AndroidModule
+import com.itsaky.tom.rv2ide.projects.internal.ProjectManagerImpl
+import com.itsaky.tom.rv2ide.projects.internal.WorkspaceImpl
+import com.itsaky.tom.rv2ide.projects.java.JavaModule
+import com.itsaky.tom.rv2ide.tooling.api.models.JavaModuleDependency
+import com.itsaky.tom.rv2ide.tooling.api.models.JavaModuleExternalDependency
+import com.itsaky.tom.rv2ide.tooling.api.models.JavaModuleProjectDependency
+import java.io.File
+
+/**
+ * Builds workspaces of Java and Android modules for the [CompileClasspathGraph] tests and
+ * benchmarks.
+ *
+ * @author Akash Yadav
+ */
+internal object ClasspathFixtures {
+
+  private val root = File("/fixture")
+
+  /**
+   * Create a workspace of [moduleCount] modules, publish it to the project manager and return it.
+   * Each module depends on the [fanOut] modules that precede it and on [jarsPerModule] external
+   * JARs.
+   */
+  fun layeredWorkspace(moduleCount: Int, fanOut: Int, jarsPerModule: Int): WorkspaceImpl {
+    val modules =
+        (0 until moduleCount).map { index ->
+          val dependencies = mutableListOf<JavaModuleDependency>()
+          for (dependency in maxOf(0, index - fanOut) until index) {
+            dependencies.add(projectDependency(":m$dependency"))
+          }
+          for (jar in 0 until jarsPerModule) {
+            dependencies.add(
+                JavaModuleExternalDependency(
+                    File(root, "libs/m$index-$jar.jar"),
+                    gradleArtifact = null,
+                    scope = "COMPILE",
+                    exported = false,
+                )
+            )
+          }
+          module(":m$index", dependencies)
+        }
+
+    return publish(modules)
+  }
+
+  /**
+   * Create a workspace of [layers] layers of [width] modules each, publish it to the project
+   * manager and return it. Each module depends on every module of the previous layer and on
+   * [jarsPerModule] external JARs, so every pair of modules in adjacent layers forms a diamond.
+   */
+  fun diamondWorkspace(layers: Int, width: Int, jarsPerModule: Int): WorkspaceImpl {
+    val modules =
+        (0 until layers * width).map { index ->
+          val layer = index / width
+          val dependencies = mutableListOf<JavaModuleDependency>()
+          if (layer > 0) {
+            for (dependency in (layer - 1) * width until layer * width) {
+              dependencies.add(projectDependency(":m$dependency"))
+            }
+          }
+          for (jar in 0 until jarsPerModule) {
+            dependencies.add(
+                JavaModuleExternalDependency(
+                    File(root, "libs/m$index-$jar.jar"),
+                    gradleArtifact = null,
+                    scope = "COMPILE",
+                    exported = false,
+                )
+            )
+          }
+          module(":m$index", dependencies)
+        }
+
+    return publish(modules)
+  }
+
+  fun projectDependency(path: String) =
+      JavaModuleProjectDependency(path.substringAfterLast(':'), path, "COMPILE", false)
+
+  fun module(path: String, dependencies: List<JavaModuleDependency>): JavaModule {
+    val name = path.substringAfterLast(':')
+    val dir = File(root, name)
+    return JavaModule(
+        name,
+        "",
+        path,
+        dir,
+        File(dir, "build"),
+        File(dir, "build.gradle"),
+        emptyList(),
+        DefaultJavaCompileOptions(),
+        emptyList(),
+        dependencies,
+        File(dir, "build/libs/$name.jar"),
+    )
+  }
+
+  /**
+   * Create an Android library module.
+   *
+   * @param libraries The keys of the direct dependencies of the module.
+   * @param libraryMap All the libraries of the module, including the transitive ones.
+   */
+  fun androidModule(
+      path: String,
+      libraries: Set<String>,
+      libraryMap: Map<String, DefaultLibrary>,
+  ): AndroidModule {
+    val name = path.substringAfterLast(':')
+    val dir = File(root, name)
+    return AndroidModule(
+        name,
+        "",
+        path,
+        dir,
+        File(dir, "build"),
+        File(dir, "build.gradle"),
+        emptyList(),
+        resourcePrefix = null,
+        namespace = "com.example.$name",
+        androidTestNamespace = null,
+        testFixtureNamespace = null,
+        projectType = ProjectType.LIBRARY,
+        mainSourceSet = null,
+        flags = DefaultAndroidGradlePluginProjectFlags(emptyMap()),
+        compilerSettings = DefaultJavaCompileOptions(),
+        viewBindingOptions = DefaultViewBindingOptions(),
+        bootClassPaths = emptyList(),
+        libraries = libraries,
+        libraryMap = libraryMap,
+        lintCheckJars = emptyList(),
+        configuredVariant = null,
+        classesJar = File(dir, "build/classes.jar"),
+    )
+  }
+
+  /** Create an external Java library of an Android module. */
+  fun javaLibrary(key: String, vararg dependencies: String) =
+      library(key, LibraryType.JAVA_LIBRARY, dependencies) {
+        artifact = File(root, "libs/$key.jar")
+      }
+
+  /** Create an external Android library (AAR) of an Android module. */
+  fun androidLibrary(key: String, vararg dependencies: String) =
+      library(key, LibraryType.ANDROID_LIBRARY, dependencies) {
+        val dir = File(root, "aars/$key")
+        androidLibraryData =
+            DefaultAndroidLibraryData(
+                aidlFolder = File(dir, "aidl"),
+                assetsFolder = File(dir, "assets"),
+                compileJarFiles = listOf(File(dir, "classes.jar")),
+                externalAnnotations = File(dir, "annotations.zip"),
+                jniFolder = File(dir, "jni"),
+                manifest = File(dir, "AndroidManifest.xml"),
+                proguardRules = File(dir, "proguard.txt"),
+                publicResources = File(dir, "public.txt"),
+                renderscriptFolder = File(dir, "rs"),
+                resFolder = File(dir, "res"),
+                resStaticLibrary = File(dir, "res.apk"),
+                runtimeJarFiles = listOf(File(dir, "classes.jar")),
+                symbolFile = File(dir, "R.txt"),
+            )
+      }
+
+  /** Create a dependency of an Android module on the module project with the given path. */
+  fun projectLibrary(path: String, vararg dependencies: String) =
+      library(path, LibraryType.PROJECT, dependencies) {
+        projectInfo =
+            DefaultProjectInfo(
+                attributes = emptyMap(),
+                buildType = "debug",
+                capabilities = emptyList(),
+                isTestFixtures = false,
+                productFlavors = emptyMap(),
+                buildId = root.path,
+                projectPath = path,
+            )
+      }
+
+  private inline fun library(
+      key: String,
+      type: LibraryType,
+      dependencies: Array<out String>,
+      configure: DefaultLibrary.() -> Unit,
+  ): DefaultLibrary {
+    return DefaultLibrary().apply {
+      this.key = key
+      this.type = type
+      this.dependencies.addAll(dependencies)
+      configure()
+    }
+  }
+
+  fun publish(modules: List<ModuleProject>): WorkspaceImpl {
+    val rootProject =
+        GradleProject(
+            "root",
+            "",
+            ":",
+            root,
+            File(root, "build"),
+            File(root, "build.gradle"),
+            emptyList(),
+        )
+    val workspace = WorkspaceImpl(root, rootProject, modules, DefaultProjectSyncIssues(emptyList()))
+    ProjectManagerImpl.getInstance().setWorkspace(workspace)
+    return workspace
+  }
+
+  /** Compute the compile classpath of [module] by walking its dependencies without memoization. */
+  fun legacyClasspath(module: JavaModule): Set<File> {
+    val classpaths = module.getModuleClasspaths().toMutableSet()
+    module.getCompileModuleProjects().forEach {
+      classpaths.addAll(legacyClasspath(it as JavaModule))
+    }
+    classpaths.addAll(module.getDependencyClasspaths())
+    return classpaths
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.projects.classpath
+
+import java.io.File
+import java.nio.file.Files
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+
+/** @author Akash Yadav */
+class ClasspathSymbolTableTest {
+
+  private lateinit var dir: File
+  private lateinit var indexDir: File
+
+  @Before
+  fun setUp() {
+    dir = Files.createTempDirectory("classpath").toFile()
+    indexDir = File(dir, "index")
+    ClasspathSymbolTable.indexDir = indexDir
+    ClasspathSymbolTable.clearMemoryCache()
+  }
+
+  @After
+  fun tearDown() {
+    ClasspathSymbolTable.clearMemoryCache()
+    ClasspathSymbolTable.indexDir = null
+    dir.deleteRecursively()
+  }
+
+  @Test
+  fun readsAndStoresClassNames() {
+    val jar = jar("a.jar", "com/example/A.class", "com/example/A\$Inner.class", "META-INF/A.MF")
+    val classNames = listOf("com.example.A", "com.example.A\$Inner")
+
+    assertEquals(classNames, ClasspathSymbolTable.classNames(jar))
+    assertEquals(1, storedTables().size)
+
+    ClasspathSymbolTable.clearMemoryCache()
+    assertEquals(classNames, ClasspathSymbolTable.classNames(jar))
+  }
+
+  @Test
+  fun pruneRemovesTablesOfMissingJars() {
+    val kept = jar("kept.jar", "com/example/Kept.class")
+    val removed = jar("removed.jar", "com/example/Removed.class")
+    ClasspathSymbolTable.classNames(kept)
+    ClasspathSymbolTable.classNames(removed)
+    File(indexDir, "stale.idx.tmp").writeText("partial")
+    assertEquals(3, indexDir.listFiles()!!.size)
+
+    assertTrue(removed.delete())
+
+    assertEquals(2, ClasspathSymbolTable.prune())
+    assertEquals(1, storedTables().size)
+    assertEquals(listOf("com.example.Kept"), ClasspathSymbolTable.classNames(kept))
+  }
+
+  @Test
+  fun pruneKeepsTheMostRecentlyUsedTablesWithinTheLimit() {
+    val old = jar("old.jar", "com/example/Old.class")
+    val recent = jar("recent.jar", "com/example/Recent.class")
+    ClasspathSymbolTable.classNames(old)
+    ClasspathSymbolTable.classNames(recent)
+
+    storedTables().forEach { it.setLastModified(1_000_000) }
+
+    // reading a stored table marks it as recently used
+    ClasspathSymbolTable.clearMemoryCache()
+    ClasspathSymbolTable.classNames(recent)
+    val recentTable = storedTables().maxBy { it.lastModified() }
+
+    assertEquals(1, ClasspathSymbolTable.prune(maxSize = recentTable.length()))
+    assertEquals(listOf(recentTable), storedTables())
+    assertEquals(listOf("com.example.Old"), ClasspathSymbolTable.classNames(old))
+  }
+
+  private fun storedTables() = indexDir.listFiles { file -> file.name.endsWith(".idx") }!!.toList()
+
+  private fun jar(name: String, vararg entries: String): File {
+    val file = File(dir, name)
+    ZipOutputStream(file.outputStream()).use { out ->
+      for (entry in entries) {
+        out.putNextEntry(ZipEntry(entry))
+        out.write(byteArrayOf(0))
+        out.closeEntry()
+      }
+    }
+    return file
+  }
+}
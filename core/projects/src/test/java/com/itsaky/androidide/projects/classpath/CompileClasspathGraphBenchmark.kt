@@ -0,0 +1,96 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.projects.classpath
+
+import com.itsaky.tom.rv2ide.projects.internal.ProjectManagerImpl
+import com.itsaky.tom.rv2ide.projects.java.JavaModule
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assume.assumeTrue
+import org.junit.Test
+
+/**
+ * Compares computing the compile classpath of every module in a workspace of 50 modules with
+ * diamond dependencies through the memoized [CompileClasspathGraph] against walking the
+ * dependencies of each module separately, as the modules did before the graph was introduced.
+ *
+ * The per-module traversal takes a few seconds, so this only runs when the `CLASSPATH_BENCHMARK`
+ * environment variable is set:
+ * ```
+ * CLASSPATH_BENCHMARK=1 ./gradlew :core:projects:test --tests '*CompileClasspathGraphBenchmark*' -i
+ * ```
+ *
+ * @author Akash Yadav
+ */
+class CompileClasspathGraphBenchmark {
+
+  companion object {
+    // each module depends on every module of the previous layer, so the per-module traversal
+    // grows exponentially with the number of layers
+    private const val LAYERS = 5
+    private const val WIDTH = 10
+    private const val MODULES = LAYERS * WIDTH
+    private const val JARS_PER_MODULE = 10
+    private const val RUNS = 3
+  }
+
+  @After
+  fun tearDown() {
+    ProjectManagerImpl.getInstance().setWorkspace(null)
+  }
+
+  @Test
+  fun compareWithPerModuleTraversal() {
+    assumeTrue("CLASSPATH_BENCHMARK is not set", System.getenv("CLASSPATH_BENCHMARK") != null)
+
+    val workspace = ClasspathFixtures.diamondWorkspace(LAYERS, WIDTH, JARS_PER_MODULE)
+    val graph = workspace.getClasspathGraph()
+    val measured = workspace.getSubProjects().filterIsInstance<JavaModule>()
+
+    var legacySize = 0
+    val legacy = median {
+      legacySize = measured.sumOf { ClasspathFixtures.legacyClasspath(it).size }
+    }
+
+    var graphSize = 0
+    val cold = median {
+      graph.invalidate()
+      graphSize = measured.sumOf { it.getCompileClasspaths().size }
+    }
+    val warm = median { graphSize = measured.sumOf { it.getCompileClasspaths().size } }
+
+    assertEquals(legacySize, graphSize)
+    println(
+        "Compile classpaths of $MODULES modules ($graphSize entries): " +
+            "per-module traversal ${legacy / 1000} us, graph (cold) ${cold / 1000} us, " +
+            "graph (memoized) ${warm / 1000} us"
+    )
+  }
+
+  private inline fun median(block: () -> Unit): Long {
+    block()
+    val times = LongArray(RUNS)
+    for (i in 0 until RUNS) {
+      val start = System.nanoTime()
+      block()
+      times[i] = System.nanoTime() - start
+    }
+    times.sort()
+    return times[RUNS / 2]
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.projects.classpath
+
+import com.itsaky.tom.rv2ide.builder.model.DefaultLibrary
+import com.itsaky.tom.rv2ide.projects.classpath.ClasspathFixtures.androidLibrary
+import com.itsaky.tom.rv2ide.projects.classpath.ClasspathFixtures.androidModule
+import com.itsaky.tom.rv2ide.projects.classpath.ClasspathFixtures.javaLibrary
+import com.itsaky.tom.rv2ide.projects.classpath.ClasspathFixtures.projectLibrary
+import com.itsaky.tom.rv2ide.projects.internal.ProjectManagerImpl
+import com.itsaky.tom.rv2ide.projects.java.JavaModule
+import java.io.File
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotEquals
+import org.junit.Assert.assertNotSame
+import org.junit.Assert.assertSame
+import org.junit.Test
+
+/** @author Akash Yadav */
+class CompileClasspathGraphTest {
+
+  @After
+  fun tearDown() {
+    ProjectManagerImpl.getInstance().setWorkspace(null)
+  }
+
+  @Test
+  fun computesTheTransitiveClasspath() {
+    val workspace = ClasspathFixtures.layeredWorkspace(12, fanOut = 3, jarsPerModule = 4)
+    for (module in workspace.getSubProjects().filterIsInstance<JavaModule>()) {
+      assertEquals(ClasspathFixtures.legacyClasspath(module), module.getCompileClasspaths())
+    }
+  }
+
+  @Test
+  fun computesTheTransitiveClasspathOfDiamonds() {
+    val workspace = ClasspathFixtures.diamondWorkspace(layers = 3, width = 4, jarsPerModule = 2)
+    for (module in workspace.getSubProjects().filterIsInstance<JavaModule>()) {
+      assertEquals(ClasspathFixtures.legacyClasspath(module), module.getCompileClasspaths())
+    }
+  }
+
+  @Test
+  fun sharesMemoizedClasspathsUntilInvalidated() {
+    val workspace = ClasspathFixtures.layeredWorkspace(4, fanOut = 1, jarsPerModule = 2)
+    val graph = workspace.getClasspathGraph()
+    val module = workspace.getProject(":m3") as JavaModule
+
+    val classpath = module.getCompileClasspaths()
+    assertSame(classpath, module.getCompileClasspaths())
+    assertSame(classpath, graph.snapshot().classpathOf(":m3"))
+
+    graph.invalidate()
+    val recomputed = module.getCompileClasspaths()
+    assertNotSame(classpath, recomputed)
+    assertEquals(classpath, recomputed)
+  }
+
+  @Test
+  fun invalidatesWhenTheVariantSelectionsChange() {
+    val workspace = ClasspathFixtures.layeredWorkspace(2, fanOut = 1, jarsPerModule = 1)
+    val graph = workspace.getClasspathGraph()
+    val version = graph.version
+    val snapshot = graph.snapshot()
+
+    workspace.setVariantSelections(emptyMap())
+
+    assertNotEquals(version, graph.version)
+    assertNotSame(snapshot, graph.snapshot())
+  }
+
+  @Test
+  fun collectsSharedAndroidLibrariesOnce() {
+    // app -> left -> base, app -> right (AAR) -> base
+    val libraries =
+        mapOf(
+            "left" to javaLibrary("left", "base"),
+            "right" to androidLibrary("right", "base"),
+            "base" to javaLibrary("base"),
+        )
+    val app = androidModule(":app", setOf("left", "right"), libraries)
+    ClasspathFixtures.publish(listOf(app))
+
+    val expected =
+        app.getModuleClasspaths() +
+            libraries.getValue("left").artifact!! +
+            libraries.getValue("right").androidLibraryData!!.compileJarFiles +
+            libraries.getValue("base").artifact!!
+    assertEquals(expected, app.getCompileClasspaths())
+  }
+
+  @Test(timeout = 10_000)
+  fun walksDeepAndroidLibraryDiamondsOnce() {
+    // each library depends on both libraries of the next layer, so there are 2^LAYERS paths from
+    // the module to the last layer, which must not all be walked
+    val layers = 40
+    val libraries = LinkedHashMap<String, DefaultLibrary>()
+    for (layer in 0 until layers) {
+      val next = if (layer + 1 < layers) arrayOf("a${layer + 1}", "b${layer + 1}") else emptyArray()
+      libraries["a$layer"] = javaLibrary("a$layer", *next)
+      libraries["b$layer"] = androidLibrary("b$layer", *next)
+    }
+    val app = androidModule(":app", setOf("a0", "b0"), libraries)
+    ClasspathFixtures.publish(listOf(app))
+
+    val expected = LinkedHashSet<File>(app.getModuleClasspaths())
+    for (library in libraries.values) {
+      library.artifact?.let(expected::add)
+      library.androidLibraryData?.let { expected.addAll(it.compileJarFiles) }
+    }
+    assertEquals(2 * layers + 1, expected.size)
+    assertEquals(expected, app.getCompileClasspaths())
+  }
+
+  @Test
+  fun sharesProjectClasspathsAcrossAndroidDiamonds() {
+    // app -> left -> core, app -> right -> core, where core is a Java module
+    val core = ClasspathFixtures.module(":core", emptyList())
+    val dependsOnCore = { path: String ->
+      androidModule(
+          path,
+          setOf(":core", "shared"),
+          mapOf(":core" to projectLibrary(":core"), "shared" to javaLibrary("shared")),
+      )
+    }
+    val left = dependsOnCore(":left")
+    val right = dependsOnCore(":right")
+    val app =
+        androidModule(
+            ":app",
+            setOf(":left", ":right"),
+            mapOf(
+                ":left" to projectLibrary(":left", ":core", "shared"),
+                ":right" to projectLibrary(":right", ":core", "shared"),
+                ":core" to projectLibrary(":core"),
+                "shared" to javaLibrary("shared"),
+            ),
+        )
+    val workspace = ClasspathFixtures.publish(listOf(app, left, right, core))
+
+    val expected =
+        app.getModuleClasspaths() +
+            left.getCompileClasspaths() +
+            right.getCompileClasspaths() +
+            core.getCompileClasspaths()
+    assertEquals(expected, app.getCompileClasspaths())
+    assertEquals(
+        left.getModuleClasspaths() + core.getCompileClasspaths() + File("/fixture/libs/shared.jar"),
+        left.getCompileClasspaths(),
+    )
+
+    // the classpath of the shared project is computed once
+    val snapshot = workspace.getClasspathGraph().snapshot()
+    assertSame(core.getCompileClasspaths(), snapshot.classpathOf(":core"))
+  }
+
+  @Test
+  fun toleratesCyclicProjectDependencies() {
+    val a = ClasspathFixtures.module(":a", listOf(ClasspathFixtures.projectDependency(":b")))
+    val b = ClasspathFixtures.module(":b", listOf(ClasspathFixtures.projectDependency(":a")))
+    ClasspathFixtures.publish(listOf(a, b))
+
+    assertEquals(a.getModuleClasspaths() + b.getModuleClasspaths(), a.getCompileClasspaths())
+  }
+}
@@ -0,0 +1,244 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.projects.internal
+
+import com.itsaky.tom.rv2ide.builder.model.DefaultJavaCompileOptions
+import com.itsaky.tom.rv2ide.builder.model.DefaultLibrary
+import com.itsaky.tom.rv2ide.builder.model.DefaultProjectSyncIssues
+import com.itsaky.tom.rv2ide.projects.java.JavaModule
+import com.itsaky.tom.rv2ide.tooling.api.IProject
+import com.itsaky.tom.rv2ide.tooling.api.ProjectType
+import com.itsaky.tom.rv2ide.tooling.api.models.JavaContentRoot
+import com.itsaky.tom.rv2ide.tooling.api.models.JavaModuleExternalDependency
+import com.itsaky.tom.rv2ide.tooling.api.models.JavaProjectMetadata
+import com.itsaky.tom.rv2ide.tooling.api.models.ModuleModel
+import com.itsaky.tom.rv2ide.tooling.api.models.ProjectMetadata
+import com.itsaky.tom.rv2ide.tooling.api.models.WorkspaceModel
+import java.io.File
+import java.lang.reflect.Proxy
+import java.nio.file.Files
+import java.util.concurrent.CompletableFuture
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+
+/** @author Akash Yadav */
+class WorkspaceModelBuilderTest {
+
+  private lateinit var projectDir: File
+
+  @Before
+  fun setUp() {
+    projectDir = Files.createTempDirectory("wmb").toFile()
+  }
+
+  @After
+  fun tearDown() {
+    projectDir.deleteRecursively()
+  }
+
+  @Test
+  fun transformsTheProjectsOfTheModel() {
+    val contentRoot = JavaContentRoot()
+    val dependency =
+        JavaModuleExternalDependency(
+            File("/libs/a.jar"),
+            gradleArtifact = null,
+            scope = "COMPILE",
+            exported = false,
+        )
+    val lib =
+        ModuleModel(
+            ProjectType.Java,
+            javaMetadata(":lib"),
+            emptyList(),
+            contentRoots = listOf(contentRoot),
+            dependencies = listOf(dependency),
+        )
+    val model = model(gradle(":"), lib, gradle(":unknown", ProjectType.Unknown))
+
+    val workspace = WorkspaceModelBuilder.build(projectDir, model)
+    assertNotNull(workspace)
+    assertEquals(":", workspace!!.getRootProject().path)
+    assertEquals(listOf(":lib", ":unknown"), workspace.getSubProjects().map { it.path })
+
+    val module = workspace.findProject(":lib") as JavaModule
+    assertEquals(File(projectDir, "lib/build.gradle"), module.buildScript)
+    assertSame(contentRoot, module.contentRoots.single())
+    assertSame(dependency, module.dependencies.single())
+    assertEquals(File(projectDir, "lib/build/libs/lib.jar"), module.classesJar)
+    assertTrue(workspace.findProject(":unknown") !is JavaModule)
+  }
+
+  @Test
+  fun rejectsJavaRootProjects() {
+    val root = ModuleModel(ProjectType.Java, javaMetadata(":"), emptyList())
+    assertNull(WorkspaceModelBuilder.build(projectDir, model(root)))
+  }
+
+  @Test
+  fun cachesFetchedModels() {
+    val model = model(gradle(":"), gradle(":app"))
+    val workspace = WorkspaceModelBuilder.build(projectDir, project(completedFuture(model)))
+    assertNotNull(workspace)
+
+    val cached = WorkspaceModelCache.load(projectDir, emptyMap())
+    assertEquals(listOf(":app"), cached?.projects?.map { it.metadata.projectPath })
+  }
+
+  @Test
+  fun doesNotCacheFailedFetches() {
+    val failed = CompletableFuture<WorkspaceModel>()
+    failed.completeExceptionally(IllegalStateException("sync failed"))
+
+    assertNull(WorkspaceModelBuilder.build(projectDir, project(failed)))
+    assertNull(WorkspaceModelCache.load(projectDir, emptyMap()))
+  }
+
+  @Test
+  fun mapsTheLibrariesOfAModule() {
+    val first = DefaultLibrary().apply { key = "first" }
+    val second = DefaultLibrary().apply { key = "second" }
+    val app =
+        ModuleModel(
+            ProjectType.Android,
+            metadata(":app", ProjectType.Android),
+            emptyList(),
+            libraryKeys = listOf("second", "missing", "first"),
+        )
+    val model =
+        WorkspaceModel(
+            gradle(":"),
+            listOf(app),
+            mapOf("first" to first, "second" to second),
+            DefaultProjectSyncIssues(emptyList()),
+        )
+
+    val libraries = model.libraryMapOf(app)
+    assertEquals(listOf("second", "first"), libraries.keys.toList())
+    assertSame(first, libraries["first"])
+  }
+
+  @Test
+  fun keepsTheLibraryDependenciesOfEachModule() {
+    val shared =
+        DefaultLibrary().apply {
+          key = "shared"
+          dependencies.add("a")
+        }
+    val app =
+        ModuleModel(
+            ProjectType.Android,
+            metadata(":app", ProjectType.Android),
+            emptyList(),
+            libraryKeys = listOf("shared"),
+        )
+    val lib =
+        ModuleModel(
+            ProjectType.Android,
+            metadata(":lib", ProjectType.Android),
+            emptyList(),
+            libraryKeys = listOf("shared"),
+            libraryDependencies = mapOf("shared" to setOf("b")),
+        )
+    val model =
+        WorkspaceModel(
+            gradle(":"),
+            listOf(app, lib),
+            mapOf("shared" to shared),
+            DefaultProjectSyncIssues(emptyList()),
+        )
+
+    assertSame(shared, model.libraryMapOf(app)["shared"])
+    assertEquals(setOf("b"), model.libraryMapOf(lib)["shared"]!!.dependencies)
+    assertEquals(setOf("a"), shared.dependencies)
+  }
+
+  @Test
+  fun includesTheRootProjectInTheProjectsOnce() {
+    val root = gradle(":")
+    val model =
+        WorkspaceModel(
+            root,
+            listOf(gradle(":app")),
+            emptyMap(),
+            DefaultProjectSyncIssues(emptyList()),
+            rootProjectIndex = 0,
+        )
+
+    assertEquals(listOf(":", ":app"), model.allProjects().map { it.metadata.projectPath })
+
+    val workspace = WorkspaceModelBuilder.build(projectDir, model)
+    assertEquals(listOf(":", ":app"), workspace!!.getSubProjects().map { it.path })
+  }
+
+  private fun model(root: ModuleModel, vararg projects: ModuleModel) =
+      WorkspaceModel(root, projects.toList(), emptyMap(), DefaultProjectSyncIssues(emptyList()))
+
+  private fun gradle(path: String, type: ProjectType = ProjectType.Gradle) =
+      ModuleModel(type, metadata(path, type), emptyList())
+
+  private fun dirOf(path: String) = File(projectDir, path.substringAfterLast(':'))
+
+  private fun metadata(path: String, type: ProjectType) =
+      ProjectMetadata(
+          path.substringAfterLast(':'),
+          path,
+          dirOf(path),
+          File(dirOf(path), "build"),
+          null,
+          File(dirOf(path), "build.gradle"),
+          type,
+      )
+
+  private fun javaMetadata(path: String): JavaProjectMetadata {
+    val name = path.substringAfterLast(':')
+    return JavaProjectMetadata(
+        name,
+        path,
+        dirOf(path),
+        File(dirOf(path), "build"),
+        null,
+        File(dirOf(path), "build.gradle"),
+        ProjectType.Java,
+        DefaultJavaCompileOptions(),
+        File(dirOf(path), "build/libs/$name.jar"),
+    )
+  }
+
+  private fun <T> completedFuture(value: T): CompletableFuture<T> =
+      CompletableFuture.completedFuture(value)
+
+  /** A project which only provides the given workspace model, all other calls are ignored. */
+  private fun project(model: CompletableFuture<WorkspaceModel>): IProject {
+    return Proxy.newProxyInstance(
+        javaClass.classLoader,
+        arrayOf(IProject::class.java),
+    ) { _, method, _ ->
+      when (method.name) {
+        "getWorkspaceModel" -> model
+        else -> CompletableFuture.completedFuture(null)
+      }
+    } as IProject
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.projects.internal
+
+import com.itsaky.tom.rv2ide.builder.model.DefaultProjectSyncIssues
+import com.itsaky.tom.rv2ide.tooling.api.ProjectType
+import com.itsaky.tom.rv2ide.tooling.api.models.ModuleModel
+import com.itsaky.tom.rv2ide.tooling.api.models.ProjectMetadata
+import com.itsaky.tom.rv2ide.tooling.api.models.WorkspaceModel
+import java.io.File
+import java.nio.file.Files
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertNull
+import org.junit.Before
+import org.junit.Test
+
+/** @author Akash Yadav */
+class WorkspaceModelCacheTest {
+
+  private lateinit var projectDir: File
+  private lateinit var model: WorkspaceModel
+
+  @Before
+  fun setUp() {
+    projectDir = Files.createTempDirectory("wmc").toFile()
+    write("settings.gradle", "include ':app'")
+    write("build.gradle", "")
+    write("app/build.gradle", "plugins { id 'java' }")
+    File(projectDir, "buildSrc").mkdirs()
+
+    model =
+        WorkspaceModel(
+            module(":", ProjectType.Gradle, projectDir),
+            listOf(module(":app", ProjectType.Android, File(projectDir, "app"), "debug")),
+            emptyMap(),
+            DefaultProjectSyncIssues(emptyList()),
+        )
+    WorkspaceModelCache.save(projectDir, model)
+  }
+
+  @After
+  fun tearDown() {
+    projectDir.deleteRecursively()
+  }
+
+  @Test
+  fun loadsTheSavedModel() {
+    val loaded = WorkspaceModelCache.load(projectDir, mapOf(":app" to "debug"))
+    assertNotNull(loaded)
+    assertEquals(listOf(":app"), loaded!!.projects.map { it.metadata.projectPath })
+    assertEquals("debug", loaded.projects[0].configuredVariant)
+    assertEquals(File(projectDir, "app/build.gradle"), loaded.projects[0].metadata.buildScript)
+  }
+
+  @Test
+  fun rejectsDifferentVariantSelections() {
+    assertNull(WorkspaceModelCache.load(projectDir, mapOf(":app" to "release")))
+    assertNull(WorkspaceModelCache.load(projectDir, mapOf(":missing" to "debug")))
+  }
+
+  @Test
+  fun rejectsChangedBuildScripts() {
+    write("app/build.gradle", "plugins { id 'com.android.application' }")
+    assertNull(WorkspaceModelCache.load(projectDir, emptyMap()))
+  }
+
+  @Test
+  fun rejectsNewBuildConfigurationFiles() {
+    write("gradle/libs.versions.toml", "[versions]")
+    assertNull(WorkspaceModelCache.load(projectDir, emptyMap()))
+
+    WorkspaceModelCache.save(projectDir, model)
+    write("gradle.properties", "org.gradle.jvmargs=-Xmx2g")
+    assertNull(WorkspaceModelCache.load(projectDir, emptyMap()))
+  }
+
+  @Test
+  fun tracksBuildSrcSources() {
+    write("buildSrc/build/tmp/output.txt", "")
+    write("buildSrc/.gradle/state.bin", "")
+    assertNotNull(WorkspaceModelCache.load(projectDir, emptyMap()))
+
+    write("buildSrc/src/main/kotlin/Conventions.kt", "object Conventions")
+    assertNull(WorkspaceModelCache.load(projectDir, emptyMap()))
+  }
+
+  @Test
+  fun tracksIncludedBuildSources() {
+    write("settings.gradle", "includeBuild(\"build-logic\")\ninclude ':app'")
+    File(projectDir, "build-logic").mkdirs()
+    WorkspaceModelCache.save(projectDir, model)
+    assertNotNull(WorkspaceModelCache.load(projectDir, emptyMap()))
+
+    write("build-logic/src/main/kotlin/Plugin.kt", "class Plugin")
+    assertNull(WorkspaceModelCache.load(projectDir, emptyMap()))
+  }
+
+  @Test
+  fun clearsTheCache() {
+    WorkspaceModelCache.clear(projectDir)
+    assertNull(WorkspaceModelCache.load(projectDir, emptyMap()))
+  }
+
+  private fun write(path: String, text: String) {
+    File(projectDir, path).apply {
+      parentFile!!.mkdirs()
+      writeText(text)
+    }
+  }
+
+  private fun module(
+      path: String,
+      type: ProjectType,
+      dir: File,
+      variant: String? = null,
+  ): ModuleModel {
+    val metadata =
+        ProjectMetadata(
+            path.substringAfterLast(':').ifEmpty { "root" },
+            path,
+            dir,
+            File(dir, "build"),
+            null,
+            File(dir, "build.gradle"),
+            type,
+        )
+    return ModuleModel(type, metadata, emptyList(), configuredVariant = variant)
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.projects.internal
+
+import com.itsaky.tom.rv2ide.builder.model.DefaultJavaCompileOptions
+import com.itsaky.tom.rv2ide.builder.model.DefaultProjectSyncIssues
+import com.itsaky.tom.rv2ide.projects.GradleProject
+import com.itsaky.tom.rv2ide.projects.java.JavaModule
+import com.itsaky.tom.rv2ide.tooling.api.models.JavaContentRoot
+import com.itsaky.tom.rv2ide.tooling.api.models.JavaSourceDirectory
+import java.io.File
+import java.nio.file.Files
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+
+/** @author Akash Yadav */
+class WorkspacePathIndexTest {
+
+  private lateinit var root: File
+  private lateinit var app: JavaModule
+  private lateinit var inner: JavaModule
+  private lateinit var workspace: WorkspaceImpl
+
+  @Before
+  fun setUp() {
+    root = Files.createTempDirectory("wpi").toFile().canonicalFile
+    app = module("app", File(root, "app"))
+    inner = module("inner", File(root, "app/inner"))
+    workspace = workspace(listOf(app, inner))
+  }
+
+  @After
+  fun tearDown() {
+    root.deleteRecursively()
+  }
+
+  @Test
+  fun resolvesFilesToTheDeepestModule() {
+    assertSame(app, workspace.findModuleForFile(File(root, "app/src/main/java/A.java"), false))
+    assertSame(inner, workspace.findModuleForFile(File(root, "app/inner/build.gradle"), false))
+    assertSame(app, workspace.findModuleForFile(File(root, "app"), false))
+  }
+
+  @Test
+  fun matchesWholeSegmentsOnly() {
+    assertNull(workspace.findModuleForFile(File(root, "app2/src/A.java"), false))
+    assertNull(workspace.findModuleForFile(File(root, "other/A.java"), false))
+    assertNull(workspace.findModuleForFile(root, false))
+  }
+
+  @Test
+  fun normalizesLookedUpPaths() {
+    val file = File(root, "other/../app/inner/./src/main/java/B.java")
+    assertSame(inner, workspace.findModuleForFile(file, false))
+  }
+
+  @Test
+  fun reportsTheDeepestSourceRoot() {
+    val index = WorkspacePathIndex.build(listOf(app, inner))
+    val match = index.lookup(File(root, "app/inner/src/main/java/pkg/B.java"))
+    assertSame(inner, match.module)
+    assertEquals(File(root, "app/inner/src/main/java"), match.sourceRoot)
+    assertNull(match.resourceRoot)
+
+    assertSame(WorkspacePathIndex.Match.NONE, index.lookup(File(root, "elsewhere")))
+  }
+
+  @Test
+  fun containsOnlyJavaFilesUnderSourceRoots() {
+    val source = create("app/src/main/java/pkg/A.java")
+    val notSource = create("app/scripts/B.java")
+    val notJava = create("app/src/main/java/pkg/C.kt")
+    val outside = create("other/src/main/java/D.java")
+
+    assertTrue(workspace.containsSourceFile(source.toPath()))
+    assertFalse(workspace.containsSourceFile(notSource.toPath()))
+    assertFalse(workspace.containsSourceFile(notJava.toPath()))
+    assertFalse(workspace.containsSourceFile(outside.toPath()))
+
+    // deleted or never created files are not source files, even under a source root
+    source.delete()
+    assertFalse(workspace.containsSourceFile(source.toPath()))
+    assertFalse(workspace.containsSourceFile(File(root, "app/src/main/java/pkg/E.java").toPath()))
+  }
+
+  @Test
+  fun rebuildsTheIndexOnlyWhenInvalidated() {
+    val modules = mutableListOf(app, inner)
+    workspace = workspace(modules)
+    val file = File(root, "app/inner/A.java")
+    assertSame(inner, workspace.findModuleForFile(file, false))
+
+    modules.remove(inner)
+    assertSame(inner, workspace.findModuleForFile(file, false))
+
+    workspace.invalidatePathIndex()
+    assertSame(app, workspace.findModuleForFile(file, false))
+  }
+
+  private fun create(path: String): File =
+      File(root, path).apply {
+        parentFile!!.mkdirs()
+        writeText("")
+      }
+
+  private fun module(name: String, dir: File): JavaModule {
+    val contentRoot = JavaContentRoot()
+    (contentRoot.sourceDirectories as MutableList) +=
+        JavaSourceDirectory(File(dir, "src/main/java"), false)
+    return JavaModule(
+        name,
+        "",
+        ":$name",
+        dir,
+        File(dir, "build"),
+        File(dir, "build.gradle"),
+        emptyList(),
+        DefaultJavaCompileOptions(),
+        listOf(contentRoot),
+        emptyList(),
+        File(dir, "build/libs/$name.jar"),
+    )
+  }
+
+  private fun workspace(modules: List<JavaModule>): WorkspaceImpl {
+    val rootProject =
+        GradleProject(
+            "root",
+            "",
+            ":",
+            root,
+            File(root, "build"),
+            File(root, "build.gradle"),
+            emptyList(),
+        )
+    return WorkspaceImpl(root, rootProject, modules, DefaultProjectSyncIssues(emptyList()))
+  }
+}
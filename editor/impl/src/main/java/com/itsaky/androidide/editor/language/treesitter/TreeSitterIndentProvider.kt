@@ -34,10 +34,11 @@ import com.itsaky.tom.rv2ide.treesitter.TSQueryMatch
 import com.itsaky.tom.rv2ide.treesitter.TSTree
 import com.itsaky.tom.rv2ide.treesitter.predicate.SetDirectiveHandler
 import com.itsaky.tom.rv2ide.utils.IntPair
-import io.github.rosemoe.sora.editor.ts.TsAnalyzeWorker
+import io.github.rosemoe.sora.editor.ts.TsTextDocument
 import io.github.rosemoe.sora.text.Content
 import io.github.rosemoe.sora.text.TextUtils
 import kotlin.math.max
+import kotlin.math.min
 import org.slf4j.LoggerFactory
 
 /**
@@ -52,7 +53,7 @@ import org.slf4j.LoggerFactory
  */
 class TreeSitterIndentProvider(
     private val languageSpec: TreeSitterLanguageSpec,
-    private val analyzer: TsAnalyzeWorker,
+    private val document: TsTextDocument,
     private val indentSize: Int,
 ) {
 
@@ -77,6 +78,29 @@ class TreeSitterIndentProvider(
     private val DELIMITER_REGEX = Regex("""[\-.+\[\]()$^\\?*]""")
   }
 
+  /**
+   * The indent captures of the last query run, valid for [tree] at content [version] and for the
+   * lines in the byte range [startByte, endByte).
+   */
+  private class CachedIndents(
+      val tree: TSTree,
+      val ownsTree: Boolean,
+      val version: Long,
+      val startByte: Int,
+      val endByte: Int,
+      val indents: IndentsContainer,
+  ) {
+
+    fun covers(tree: TSTree, version: Long, startByte: Int, endByte: Int): Boolean {
+      return this.tree === tree &&
+          this.version == version &&
+          this.startByte <= startByte &&
+          endByte <= this.endByte
+    }
+  }
+
+  private var cachedIndents: CachedIndents? = null
+
   fun getIndentsForLines(
       content: Content,
       positions: LongArray,
@@ -94,17 +118,19 @@ class TreeSitterIndentProvider(
       return defaultIndents
     }
 
-    val document = analyzer.document
-    TSParser.create().use { parser ->
-      parser.language = document.parser.language
-
-      var closeTree = true
+    synchronized(this) {
+      val version = content.documentVersion
+      val cachedIndents = this.cachedIndents
+      var ownsTree = false
       val tree =
-          if (content.documentVersion == document.version) {
+          if (version == document.version) {
             // avoid converting the content to string if not really needed
             log.info("Re-using cached tree from document version {}", document.version)
-            closeTree = false
             document.tree
+          } else if (cachedIndents?.ownsTree == true && cachedIndents.version == version) {
+            log.info("Re-using tree parsed for content version {}", version)
+            ownsTree = true
+            cachedIndents.tree
           } else {
             log.info(
                 "Re-parsing content for indentation as document version {} does not match version {}",
@@ -112,8 +138,12 @@ class TreeSitterIndentProvider(
                 content.documentVersion,
             )
 
-            (document.tree?.copy() ?: return defaultIndents).use { copiedTree ->
-              parser.parseString(copiedTree, content.toString())
+            ownsTree = true
+            TSParser.create().use { parser ->
+              parser.language = document.parser.language
+              (document.tree?.copy() ?: return defaultIndents).use { copiedTree ->
+                parser.parseString(copiedTree, content.toString())
+              }
             }
           }
 
@@ -123,19 +153,36 @@ class TreeSitterIndentProvider(
       }
 
       try {
-        return computeIndents(tree, content, positions, defaultIndents).also { indents ->
+        return computeIndents(tree, ownsTree, content, positions, defaultIndents).also { indents ->
           log.debug("Computed indents: {}", indents.joinToString(","))
         }
       } finally {
-        if (closeTree) {
+        // trees parsed here are owned by the cache, close the tree only if it was not cached
+        if (ownsTree && this.cachedIndents?.tree !== tree) {
           tree.close()
         }
       }
     }
   }
 
-  private fun computeIndents(
+  /** Releases the tree held by the indents cache. */
+  fun close() {
+    synchronized(this) {
+      cachedIndents?.let { if (it.ownsTree) it.tree.close() }
+      cachedIndents = null
+    }
+  }
+
+  /**
+   * Compute the indents at the given positions of [content], which has been parsed into [tree].
+   * Only the captures of the nodes which intersect the requested lines are queried, and they are
+   * cached until the tree or the content changes.
+   *
+   * @param ownsTree Whether the cache should close the tree once it is no longer used.
+   */
+  internal fun computeIndents(
       tree: TSTree,
+      ownsTree: Boolean,
       content: Content,
       positions: LongArray,
       defaultIndents: IntArray,
@@ -154,16 +201,46 @@ class TreeSitterIndentProvider(
               return defaultIndents
             }
 
-    return TSQueryCursor.create().use { cursor ->
-      cursor.addPredicateHandler(SetDirectiveHandler())
-      cursor.exec(indentsQuery, tree.rootNode)
-
-      val indents = getIndents(languageSpec.indentsQuery, cursor)
-      return@use IntArray(positions.size) { index ->
-        val line = IntPair.getFirst(positions[index])
-        val column = IntPair.getSecond(positions[index])
-        computeIndentForLine(content, line, column, defaultIndents[index], rootNode, indents)
+    // Indents are computed by walking up the ancestors of the nodes at the requested lines (or the
+    // previous non-blank line for empty lines). Every such ancestor intersects the byte range of
+    // those lines, so the query does not have to be run over the whole tree.
+    var startLine = Int.MAX_VALUE
+    var endLine = 0
+    for (position in positions) {
+      val line = IntPair.getFirst(position)
+      var firstLine = line
+      if (content.getLine(line).trimmedLength() == 0) {
+        firstLine = content.previousNonBlankLine(line).takeIf { it != -1 } ?: line
       }
+      startLine = min(startLine, firstLine)
+      endLine = max(endLine, line)
+    }
+
+    val startByte = content.getCharIndex(startLine, 0) shl 1
+    val endByte = content.getCharIndex(endLine, content.getColumnCount(endLine)) shl 1
+    val version = content.documentVersion
+
+    var cached = this.cachedIndents
+    if (cached == null || !cached.covers(tree, version, startByte, endByte)) {
+      val indents =
+          TSQueryCursor.create().use { cursor ->
+            cursor.addPredicateHandler(SetDirectiveHandler())
+            cursor.setByteRange(startByte, endByte)
+            cursor.exec(indentsQuery, rootNode)
+            getIndents(indentsQuery, cursor)
+          }
+      this.cachedIndents?.let { if (it.ownsTree && it.tree !== tree) it.tree.close() }
+      cached = CachedIndents(tree, ownsTree, version, startByte, endByte, indents)
+      this.cachedIndents = cached
+    } else {
+      log.debug("Re-using indent captures for document version {}", version)
+    }
+
+    val indents = cached.indents
+    return IntArray(positions.size) { index ->
+      val line = IntPair.getFirst(positions[index])
+      val column = IntPair.getSecond(positions[index])
+      computeIndentForLine(content, line, column, defaultIndents[index], rootNode, indents)
     }
   }
 
@@ -58,7 +58,7 @@ abstract class TreeSitterLanguage(
     get() {
       if (!this::_indentProvider.isInitialized) {
         this._indentProvider =
-            TreeSitterIndentProvider(languageSpec, analyzer.analyzeWorker!!, getTabSize())
+            TreeSitterIndentProvider(languageSpec, analyzer.analyzeWorker!!.document, getTabSize())
       }
 
       return _indentProvider
@@ -183,6 +183,9 @@ abstract class TreeSitterLanguage(
   }
 
   override fun destroy() {
+    if (this::_indentProvider.isInitialized) {
+      this._indentProvider.close()
+    }
     this.languageSpec.close()
     this.languageScheme = null
   }
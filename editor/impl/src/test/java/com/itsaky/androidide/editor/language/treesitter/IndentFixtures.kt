@@ -0,0 +1,105 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.editor.language.treesitter
+
+import com.itsaky.tom.rv2ide.treesitter.TSParser
+import com.itsaky.tom.rv2ide.treesitter.TSTree
+import com.itsaky.tom.rv2ide.treesitter.TreeSitter
+import com.itsaky.tom.rv2ide.treesitter.java.TSLanguageJava
+import com.itsaky.tom.rv2ide.utils.IntPair
+import io.github.rosemoe.sora.editor.ts.TsLanguageSpec
+import io.github.rosemoe.sora.text.Content
+import java.io.File
+
+/**
+ * Java sources and language specs for the [TreeSitterIndentProvider] tests and benchmarks.
+ *
+ * @author Akash Yadav
+ */
+internal object IndentFixtures {
+
+  /** Whether the native tree-sitter libraries for the host can be loaded. */
+  val nativesAvailable by lazy {
+    try {
+      TreeSitter.loadLibrary()
+      true
+    } catch (err: Throwable) {
+      false
+    }
+  }
+
+  /** Create the Java language spec with the queries shipped in the assets. */
+  fun javaSpec(): TreeSitterLanguageSpec {
+    val spec = TsLanguageSpec(TSLanguageJava.getInstance(), scheme("highlights"))
+    return TreeSitterLanguageSpec(spec, scheme("indents"))
+  }
+
+  fun parse(spec: TreeSitterLanguageSpec, source: String): TSTree {
+    return TSParser.create().use { parser ->
+      parser.language = spec.language
+      parser.parseString(source)
+    }
+  }
+
+  /** Compute the indents of the given lines of [content] in a single request. */
+  fun indentsOf(
+      provider: TreeSitterIndentProvider,
+      tree: TSTree,
+      content: Content,
+      vararg lines: Int,
+  ): IntArray {
+    val positions = LongArray(lines.size) { IntPair.pack(lines[it], 0) }
+    val defaults = IntArray(lines.size) { TreeSitterIndentProvider.INDENTATION_ERR }
+    return provider.computeIndents(tree, false, content, positions, defaults)
+  }
+
+  /**
+   * Generate a Java source with [classes] nested classes. Each class has blocks which start lines
+   * before their contents, closing delimiters on their own lines, arguments wrapped over several
+   * lines and blank lines.
+   */
+  fun javaSource(classes: Int) = buildString {
+    append("package test;\n\n")
+    append("public class Source {\n")
+    for (index in 0 until classes) {
+      append("\n")
+      append("  public static class Nested$index {\n")
+      append("    private final int[] values = {\n")
+      append("        1, 2, 3\n")
+      append("    };\n")
+      append("\n")
+      append("    public int method$index(int count) {\n")
+      append("      int total = 0;\n")
+      append("      for (int j = 0; j < count; j++) {\n")
+      append("        if (j % 2 == 0) {\n")
+      append("          total += compute(\n")
+      append("              j,\n")
+      append("              count);\n")
+      append("        }\n")
+      append("\n")
+      append("      }\n")
+      append("      return total;\n")
+      append("    }\n")
+      append("  }\n")
+    }
+    append("}\n")
+  }
+
+  private fun scheme(name: String) =
+      File("src/main/assets/editor/treesitter/java/$name.scm").readText()
+}
@@ -0,0 +1,101 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.editor.language.treesitter
+
+import io.github.rosemoe.sora.editor.ts.TsTextDocument
+import io.github.rosemoe.sora.text.Content
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assume.assumeTrue
+import org.junit.Test
+
+/**
+ * Measures computing the indent of a single line (as done on every line break) in a Java file of
+ * about 5000 lines, with the indents query restricted to the requested lines and run over the whole
+ * tree, as the provider did before.
+ *
+ * This needs the native tree-sitter libraries for the host and only runs when the
+ * `INDENT_BENCHMARK` environment variable is set:
+ * ```
+ * INDENT_BENCHMARK=1 ./gradlew :editor:impl:testDebugUnitTest \
+ *   --tests '*TreeSitterIndentProviderBenchmark*' -i
+ * ```
+ *
+ * @author Akash Yadav
+ */
+class TreeSitterIndentProviderBenchmark {
+
+  companion object {
+    // 19 lines per class
+    private const val CLASSES = 265
+    private const val REQUESTS = 200
+  }
+
+  @Test
+  fun compareRestrictedAndFullQueries() {
+    assumeTrue("INDENT_BENCHMARK is not set", System.getenv("INDENT_BENCHMARK") != null)
+    assumeTrue("tree-sitter natives are not available", IndentFixtures.nativesAvailable)
+
+    val spec = IndentFixtures.javaSpec()
+    val document = TsTextDocument(spec.language)
+    val source = IndentFixtures.javaSource(CLASSES)
+    val content = Content(source)
+    val tree = IndentFixtures.parse(spec, source)
+    try {
+      val lastLine = content.lineCount - 1
+      val lines = IntArray(REQUESTS) { (it.toLong() * lastLine / REQUESTS).toInt() }
+
+      // a new provider for every request, so that no cached captures are used
+      val restrictedIndents = IntArray(REQUESTS)
+      val fullIndents = IntArray(REQUESTS)
+      val measure = { full: Boolean ->
+        val start = System.nanoTime()
+        lines.forEachIndexed { index, line ->
+          val provider = TreeSitterIndentProvider(spec, document, 4)
+          if (full) {
+            // requesting the first and the last line too makes the query cover the whole tree
+            fullIndents[index] =
+                IndentFixtures.indentsOf(provider, tree, content, 0, line, lastLine)[1]
+          } else {
+            restrictedIndents[index] = IndentFixtures.indentsOf(provider, tree, content, line)[0]
+          }
+          provider.close()
+        }
+        System.nanoTime() - start
+      }
+
+      // warm up
+      repeat(3) {
+        measure(false)
+        measure(true)
+      }
+
+      val restricted = measure(false)
+      val full = measure(true)
+      assertArrayEquals(fullIndents, restrictedIndents)
+      println(
+          "Indents of $REQUESTS lines in ${content.lineCount} lines: " +
+              "restricted query ${restricted / REQUESTS / 1000} us/request, " +
+              "full query ${full / REQUESTS / 1000} us/request"
+      )
+    } finally {
+      tree.close()
+      document.close()
+      spec.close()
+    }
+  }
+}
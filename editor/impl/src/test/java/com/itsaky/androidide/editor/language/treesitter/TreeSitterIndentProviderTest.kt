@@ -0,0 +1,120 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.editor.language.treesitter
+
+import com.itsaky.tom.rv2ide.treesitter.TSTree
+import io.github.rosemoe.sora.editor.ts.TsTextDocument
+import io.github.rosemoe.sora.text.Content
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Assume.assumeTrue
+import org.junit.Before
+import org.junit.Test
+
+/**
+ * Checks that the indents computed with the indents query restricted to the requested lines match
+ * those computed with the query run over the whole tree.
+ *
+ * This needs the native tree-sitter libraries for the host, so it only runs when they can be loaded
+ * from `java.library.path`.
+ *
+ * @author Akash Yadav
+ */
+class TreeSitterIndentProviderTest {
+
+  private lateinit var spec: TreeSitterLanguageSpec
+  private lateinit var document: TsTextDocument
+
+  @Before
+  fun setUp() {
+    assumeTrue("tree-sitter natives are not available", IndentFixtures.nativesAvailable)
+    spec = IndentFixtures.javaSpec()
+    document = TsTextDocument(spec.language)
+  }
+
+  @After
+  fun tearDown() {
+    if (::document.isInitialized) {
+      document.close()
+      spec.close()
+    }
+  }
+
+  @Test
+  fun restrictedQueriesMatchTheFullQuery() {
+    val source = IndentFixtures.javaSource(classes = 4)
+    val content = Content(source)
+    val tree = IndentFixtures.parse(spec, source)
+    try {
+      // requesting every line at once queries the whole tree
+      val lines = IntArray(content.lineCount) { it }
+      val full = indentsOf(tree, content, *lines)
+      assertTrue(full.any { it > 0 })
+
+      // the captures of the enclosing blocks and of the closing delimiters start before the
+      // requested line, but must still be found by the restricted query
+      for (line in lines) {
+        assertEquals(
+            "indent of line $line: '${content.getLine(line)}'",
+            full[line],
+            indentsOf(tree, content, line)[0],
+        )
+      }
+    } finally {
+      tree.close()
+    }
+  }
+
+  @Test
+  fun requestsWithinTheCachedRangeMatchFreshQueries() {
+    val source = IndentFixtures.javaSource(classes = 2)
+    val content = Content(source)
+    val tree = IndentFixtures.parse(spec, source)
+    try {
+      val provider = TreeSitterIndentProvider(spec, document, INDENT_SIZE)
+      val lines = IntArray(content.lineCount) { it }
+      IndentFixtures.indentsOf(provider, tree, content, *lines)
+
+      // served from the captures of the first request
+      for (line in lines) {
+        assertEquals(
+            indentsOf(tree, content, line)[0],
+            IndentFixtures.indentsOf(provider, tree, content, line)[0],
+        )
+      }
+      provider.close()
+    } finally {
+      tree.close()
+    }
+  }
+
+  /** Compute the indents with a new provider, so that no cached captures are used. */
+  private fun indentsOf(tree: TSTree, content: Content, vararg lines: Int): IntArray {
+    val provider = TreeSitterIndentProvider(spec, document, INDENT_SIZE)
+    try {
+      return IndentFixtures.indentsOf(provider, tree, content, *lines)
+    } finally {
+      provider.close()
+    }
+  }
+
+  companion object {
+    private const val INDENT_SIZE = 4
+  }
+}
@@ -20,6 +20,7 @@ package com.itsaky.tom.rv2ide.eventbus.events.editor
 import com.itsaky.tom.rv2ide.models.Range
 import java.net.URI
 import java.nio.file.Path
+import org.greenrobot.eventbus.CoalescingEvent
 
 /** Base class for files that accept files as parameters. */
 open class DocumentEvent(var file: Path) {
@@ -41,6 +42,9 @@ constructor(var closedFile: Path, val selectionRange: Range = Range.NONE) :
 /**
  * Dispatched when the content of the given opened document changes. The change can be either
  * performed by the user or the IDE itself.
+ *
+ * Change events of the same file coalesce for subscribers which only need the latest state of the
+ * document (see [org.greenrobot.eventbus.Subscribe.coalesce]).
  */
 data class DocumentChangeEvent(
     var changedFile: Path,
@@ -50,7 +54,10 @@ data class DocumentChangeEvent(
     var changeType: ChangeType,
     var changeDelta: Int,
     var changeRange: Range,
-) : DocumentEvent(changedFile)
+) : DocumentEvent(changedFile), CoalescingEvent {
+
+  override fun getCoalescingKey(): Any = changedFile
+}
 
 /** Dispatched when the given document is saved to disk. */
 data class DocumentSaveEvent(var savedFile: Path) : DocumentEvent(savedFile)
@@ -26,4 +26,6 @@ plugins {
 
 dependencies {
     implementation(libs.common.jkotlin)
+
+    testImplementation(libs.tests.junit)
 }
\ No newline at end of file
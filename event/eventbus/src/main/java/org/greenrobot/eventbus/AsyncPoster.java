@@ -15,33 +15,221 @@
  */
 package org.greenrobot.eventbus;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
- * Posts events in background.
+ * Posts events in background. Events are delivered serially per subscription, so that a burst of
+ * events never occupies more than one thread per subscriber. Pending
+ * {@link CoalescingEvent}s may be replaced by newer ones for subscribers which opted in with {@link
+ * Subscribe#coalesce()}.
  *
  * @author Markus
  */
-class AsyncPoster implements Runnable, Poster {
+class AsyncPoster implements Poster {
+
+  /**
+   * Maximum number of events delivered by a lane in one go before it yields its thread to other
+   * subscribers.
+   */
+  private static final int MAX_EVENTS_PER_RUN = 64;
 
-  private final PendingPostQueue queue;
   private final EventBus eventBus;
+  private final ExecutorService executorService;
+  private final Set<Lane> lanes =
+      Collections.newSetFromMap(new ConcurrentHashMap<Lane, Boolean>());
 
-  AsyncPoster(EventBus eventBus) {
+  private final AtomicInteger queueDepth = new AtomicInteger();
+  private final AtomicInteger peakQueueDepth = new AtomicInteger();
+  private final AtomicLong delivered = new AtomicLong();
+  private final AtomicLong coalesced = new AtomicLong();
+
+  AsyncPoster(EventBus eventBus, ExecutorService executorService) {
     this.eventBus = eventBus;
-    queue = new PendingPostQueue();
+    this.executorService = executorService;
   }
 
   public void enqueue(Subscription subscription, Object event) {
-    PendingPost pendingPost = PendingPost.obtainPendingPost(subscription, event);
-    queue.enqueue(pendingPost);
-    eventBus.getExecutorService().execute(this);
+    Lane lane = subscription.asyncLane;
+    if (lane == null) {
+      synchronized (subscription) {
+        lane = subscription.asyncLane;
+        if (lane == null) {
+          lane = subscription.asyncLane = new Lane(subscription);
+        }
+      }
+    }
+    lane.enqueue(event);
+  }
+
+  /** Drops the lane of an unregistered subscription, unless it is still being drained. */
+  void removeSubscription(Subscription subscription) {
+    Lane lane = subscription.asyncLane;
+    if (lane != null) {
+      synchronized (lane) {
+        if (!lane.scheduled) {
+          lanes.remove(lane);
+        }
+      }
+    }
+  }
+
+  AsyncPosterStats getStats() {
+    int maxSubscriberDepth = 0;
+    int activeSubscribers = 0;
+    for (Lane lane : lanes) {
+      synchronized (lane) {
+        if (lane.size > maxSubscriberDepth) {
+          maxSubscriberDepth = lane.size;
+        }
+        if (lane.scheduled) {
+          activeSubscribers++;
+        }
+      }
+    }
+    return new AsyncPosterStats(
+        queueDepth.get(),
+        peakQueueDepth.get(),
+        maxSubscriberDepth,
+        activeSubscribers,
+        delivered.get(),
+        coalesced.get());
+  }
+
+  private void onQueued() {
+    int depth = queueDepth.incrementAndGet();
+    int peak;
+    while (depth > (peak = peakQueueDepth.get())) {
+      if (peakQueueDepth.compareAndSet(peak, depth)) {
+        break;
+      }
+    }
   }
 
-  @Override
-  public void run() {
-    PendingPost pendingPost = queue.poll();
-    if (pendingPost == null) {
-      throw new IllegalStateException("No pending post available");
+  /** Pending events of a single subscription. At most one thread drains a lane at a time. */
+  final class Lane implements Runnable {
+
+    private final Subscription subscription;
+    private final boolean coalesce;
+
+    // all fields below are guarded by 'this'
+    private PendingPost head;
+    private PendingPost tail;
+    private int size;
+    private boolean scheduled;
+    private Map<Object, PendingPost> pendingByKey;
+
+    Lane(Subscription subscription) {
+      this.subscription = subscription;
+      this.coalesce = subscription.subscriberMethod.coalesce;
+    }
+
+    void enqueue(Object event) {
+      Object key = coalesce && event instanceof CoalescingEvent
+          ? ((CoalescingEvent) event).getCoalescingKey()
+          : null;
+      boolean schedule = false;
+      synchronized (this) {
+        if (key != null) {
+          if (pendingByKey == null) {
+            pendingByKey = new HashMap<>();
+          }
+          PendingPost pending = pendingByKey.get(key);
+          if (pending != null) {
+            // latest wins, the event keeps the position of the one it supersedes
+            pending.event = event;
+            coalesced.incrementAndGet();
+            return;
+          }
+        }
+
+        PendingPost pendingPost = PendingPost.obtainPendingPost(subscription, event);
+        if (tail != null) {
+          tail.next = pendingPost;
+        } else {
+          head = pendingPost;
+        }
+        tail = pendingPost;
+        size++;
+        if (key != null) {
+          pendingByKey.put(key, pendingPost);
+        }
+        if (!scheduled) {
+          scheduled = schedule = true;
+          lanes.add(this);
+        }
+      }
+      onQueued();
+      if (schedule) {
+        executorService.execute(this);
+      }
+    }
+
+    private synchronized PendingPost poll() {
+      PendingPost pendingPost = head;
+      if (pendingPost != null) {
+        head = pendingPost.next;
+        if (head == null) {
+          tail = null;
+        }
+        pendingPost.next = null;
+        size--;
+        if (pendingByKey != null && pendingPost.event instanceof CoalescingEvent) {
+          Object key = ((CoalescingEvent) pendingPost.event).getCoalescingKey();
+          if (key != null && pendingByKey.get(key) == pendingPost) {
+            pendingByKey.remove(key);
+          }
+        }
+      }
+      return pendingPost;
+    }
+
+    @Override
+    public void run() {
+      int count = 0;
+      while (true) {
+        PendingPost pendingPost;
+        synchronized (this) {
+          pendingPost = poll();
+          if (pendingPost == null) {
+            scheduled = false;
+            if (!subscription.active) {
+              lanes.remove(this);
+            }
+            return;
+          }
+        }
+        queueDepth.decrementAndGet();
+        try {
+          eventBus.invokeSubscriber(pendingPost);
+          delivered.incrementAndGet();
+        } catch (RuntimeException | Error e) {
+          // keep the lane alive, otherwise no further events would ever be delivered to it
+          reschedule();
+          throw e;
+        }
+        if (++count >= MAX_EVENTS_PER_RUN) {
+          reschedule();
+          return;
+        }
+      }
+    }
+
+    private void reschedule() {
+      boolean hasMore;
+      synchronized (this) {
+        hasMore = head != null;
+        scheduled = hasMore;
+      }
+      if (hasMore) {
+        executorService.execute(this);
+      }
     }
-    eventBus.invokeSubscriber(pendingPost);
   }
 }
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2012-2016 Markus Junginger, greenrobot (http://greenrobot.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.greenrobot.eventbus;
+
+/**
+ * Snapshot of the queue metrics of the poster which delivers {@link ThreadMode#ASYNC} events.
+ *
+ * @see EventBus#getAsyncPosterStats()
+ */
+public final class AsyncPosterStats {
+
+  private final int queueDepth;
+  private final int peakQueueDepth;
+  private final int maxSubscriberQueueDepth;
+  private final int activeSubscribers;
+  private final long delivered;
+  private final long coalesced;
+
+  AsyncPosterStats(
+      int queueDepth,
+      int peakQueueDepth,
+      int maxSubscriberQueueDepth,
+      int activeSubscribers,
+      long delivered,
+      long coalesced) {
+    this.queueDepth = queueDepth;
+    this.peakQueueDepth = peakQueueDepth;
+    this.maxSubscriberQueueDepth = maxSubscriberQueueDepth;
+    this.activeSubscribers = activeSubscribers;
+    this.delivered = delivered;
+    this.coalesced = coalesced;
+  }
+
+  /** Number of events currently waiting to be delivered, across all subscribers. */
+  public int getQueueDepth() {
+    return queueDepth;
+  }
+
+  /** Highest value {@link #getQueueDepth()} has reached since the bus was created. */
+  public int getPeakQueueDepth() {
+    return peakQueueDepth;
+  }
+
+  /** Number of events waiting for the most backed up subscriber. */
+  public int getMaxSubscriberQueueDepth() {
+    return maxSubscriberQueueDepth;
+  }
+
+  /** Number of subscribers which currently have pending events or are receiving one. */
+  public int getActiveSubscribers() {
+    return activeSubscribers;
+  }
+
+  /** Total number of events delivered to async subscribers. */
+  public long getDelivered() {
+    return delivered;
+  }
+
+  /** Total number of events that were dropped because a newer event superseded them. */
+  public long getCoalesced() {
+    return coalesced;
+  }
+
+  @Override
+  public String toString() {
+    return "AsyncPosterStats[queueDepth="
+        + queueDepth
+        + ", peakQueueDepth="
+        + peakQueueDepth
+        + ", maxSubscriberQueueDepth="
+        + maxSubscriberQueueDepth
+        + ", activeSubscribers="
+        + activeSubscribers
+        + ", delivered="
+        + delivered
+        + ", coalesced="
+        + coalesced
+        + "]";
+  }
+}
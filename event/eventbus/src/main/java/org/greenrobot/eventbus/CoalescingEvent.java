@@ -0,0 +1,30 @@
+/*
+ * Copyright (C) 2012-2016 Markus Junginger, greenrobot (http://greenrobot.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.greenrobot.eventbus;
+
+/**
+ * Events which can be coalesced by {@link ThreadMode#ASYNC} subscribers that opted in with {@link
+ * Subscribe#coalesce()}. If an event with the same coalescing key is still pending for such a
+ * subscriber, the pending event is replaced with the newer one.
+ */
+public interface CoalescingEvent {
+
+  /**
+   * The key identifying events which supersede each other, e.g. the file a document event belongs
+   * to. May return {@code null} to opt out of coalescing for this particular event.
+   */
+  Object getCoalescingKey();
+}
@@ -18,12 +18,12 @@ package org.greenrobot.eventbus;
 import org.greenrobot.eventbus.android.AndroidDependenciesDetector;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.logging.Level;
 
@@ -47,7 +47,11 @@ public class EventBus {
   private static final EventBusBuilder DEFAULT_BUILDER = new EventBusBuilder();
   private static final Map<Class<?>, List<Class<?>>> eventTypesCache = new HashMap<>();
 
-  private final Map<Class<?>, CopyOnWriteArrayList<Subscription>> subscriptionsByEventType;
+  /**
+   * Immutable snapshot of the subscriptions for each event type. Posting threads read it without
+   * locking, (un)registration replaces it with an updated copy while holding the lock on this bus.
+   */
+  private volatile Map<Class<?>, List<Subscription>> subscriptionsByEventType;
   private final Map<Object, List<Class<?>>> typesBySubscriber;
   private final Map<Class<?>, Object> stickyEvents;
 
@@ -112,13 +116,13 @@ public class EventBus {
 
   EventBus(EventBusBuilder builder) {
     logger = builder.getLogger();
-    subscriptionsByEventType = new HashMap<>();
+    subscriptionsByEventType = Collections.emptyMap();
     typesBySubscriber = new HashMap<>();
     stickyEvents = new ConcurrentHashMap<>();
     mainThreadSupport = builder.getMainThreadSupport();
     mainThreadPoster = mainThreadSupport != null ? mainThreadSupport.createPoster(this) : null;
     backgroundPoster = new BackgroundPoster(this);
-    asyncPoster = new AsyncPoster(this);
+    asyncPoster = new AsyncPoster(this, builder.getAsyncExecutorService());
     indexCount = builder.subscriberInfoIndexes != null ? builder.subscriberInfoIndexes.size() : 0;
     subscriberMethodFinder =
         new SubscriberMethodFinder(
@@ -154,34 +158,55 @@ public class EventBus {
     List<SubscriberMethod> subscriberMethods =
         subscriberMethodFinder.findSubscriberMethods(subscriberClass);
     synchronized (this) {
+      Map<Class<?>, List<Subscription>> newSubscriptions =
+          new HashMap<>(subscriptionsByEventType);
+      List<Subscription> newStickySubscriptions = null;
       for (SubscriberMethod subscriberMethod : subscriberMethods) {
-        subscribe(subscriber, subscriberMethod);
+        Subscription subscription = subscribe(newSubscriptions, subscriber, subscriberMethod);
+        if (subscriberMethod.sticky) {
+          if (newStickySubscriptions == null) {
+            newStickySubscriptions = new ArrayList<>();
+          }
+          newStickySubscriptions.add(subscription);
+        }
+      }
+      subscriptionsByEventType = newSubscriptions;
+
+      if (newStickySubscriptions != null) {
+        for (Subscription subscription : newStickySubscriptions) {
+          postStickyEvents(subscription);
+        }
       }
     }
   }
 
   // Must be called in synchronized block
-  private void subscribe(Object subscriber, SubscriberMethod subscriberMethod) {
+  private Subscription subscribe(
+      Map<Class<?>, List<Subscription>> subscriptionsByEventType,
+      Object subscriber,
+      SubscriberMethod subscriberMethod) {
     Class<?> eventType = subscriberMethod.eventType;
     Subscription newSubscription = new Subscription(subscriber, subscriberMethod);
-    CopyOnWriteArrayList<Subscription> subscriptions = subscriptionsByEventType.get(eventType);
-    if (subscriptions == null) {
-      subscriptions = new CopyOnWriteArrayList<>();
-      subscriptionsByEventType.put(eventType, subscriptions);
-    } else {
-      if (subscriptions.contains(newSubscription)) {
-        throw new EventBusException(
-            "Subscriber " + subscriber.getClass() + " already registered to event " + eventType);
-      }
+    List<Subscription> subscriptions = subscriptionsByEventType.get(eventType);
+    if (subscriptions != null && subscriptions.contains(newSubscription)) {
+      throw new EventBusException(
+          "Subscriber " + subscriber.getClass() + " already registered to event " + eventType);
+    }
+
+    List<Subscription> newList =
+        subscriptions == null ? new ArrayList<>(1) : new ArrayList<>(subscriptions.size() + 1);
+    if (subscriptions != null) {
+      newList.addAll(subscriptions);
     }
 
-    int size = subscriptions.size();
+    int size = newList.size();
     for (int i = 0; i <= size; i++) {
-      if (i == size || subscriberMethod.priority > subscriptions.get(i).subscriberMethod.priority) {
-        subscriptions.add(i, newSubscription);
+      if (i == size || subscriberMethod.priority > newList.get(i).subscriberMethod.priority) {
+        newList.add(i, newSubscription);
         break;
       }
     }
+    subscriptionsByEventType.put(eventType, Collections.unmodifiableList(newList));
 
     List<Class<?>> subscribedEvents = typesBySubscriber.get(subscriber);
     if (subscribedEvents == null) {
@@ -189,25 +214,28 @@ public class EventBus {
       typesBySubscriber.put(subscriber, subscribedEvents);
     }
     subscribedEvents.add(eventType);
+    return newSubscription;
+  }
 
-    if (subscriberMethod.sticky) {
-      if (eventInheritance) {
-        // Existing sticky events of all subclasses of eventType have to be considered.
-        // Note: Iterating over all events may be inefficient with lots of sticky events,
-        // thus data structure should be changed to allow a more efficient lookup
-        // (e.g. an additional map storing sub classes of super classes: Class -> List<Class>).
-        Set<Map.Entry<Class<?>, Object>> entries = stickyEvents.entrySet();
-        for (Map.Entry<Class<?>, Object> entry : entries) {
-          Class<?> candidateEventType = entry.getKey();
-          if (eventType.isAssignableFrom(candidateEventType)) {
-            Object stickyEvent = entry.getValue();
-            checkPostStickyEventToSubscription(newSubscription, stickyEvent);
-          }
+  // Must be called in synchronized block, after the subscription has been published
+  private void postStickyEvents(Subscription newSubscription) {
+    Class<?> eventType = newSubscription.subscriberMethod.eventType;
+    if (eventInheritance) {
+      // Existing sticky events of all subclasses of eventType have to be considered.
+      // Note: Iterating over all events may be inefficient with lots of sticky events,
+      // thus data structure should be changed to allow a more efficient lookup
+      // (e.g. an additional map storing sub classes of super classes: Class -> List<Class>).
+      Set<Map.Entry<Class<?>, Object>> entries = stickyEvents.entrySet();
+      for (Map.Entry<Class<?>, Object> entry : entries) {
+        Class<?> candidateEventType = entry.getKey();
+        if (eventType.isAssignableFrom(candidateEventType)) {
+          Object stickyEvent = entry.getValue();
+          checkPostStickyEventToSubscription(newSubscription, stickyEvent);
         }
-      } else {
-        Object stickyEvent = stickyEvents.get(eventType);
-        checkPostStickyEventToSubscription(newSubscription, stickyEvent);
       }
+    } else {
+      Object stickyEvent = stickyEvents.get(eventType);
+      checkPostStickyEventToSubscription(newSubscription, stickyEvent);
     }
   }
 
@@ -236,22 +264,29 @@ public class EventBus {
   }
 
   /**
-   * Only updates subscriptionsByEventType, not typesBySubscriber! Caller must update
+   * Only updates the given subscriptionsByEventType copy, not typesBySubscriber! Caller must update
    * typesBySubscriber.
    */
-  private void unsubscribeByEventType(Object subscriber, Class<?> eventType) {
+  private void unsubscribeByEventType(
+      Map<Class<?>, List<Subscription>> subscriptionsByEventType,
+      Object subscriber,
+      Class<?> eventType) {
     List<Subscription> subscriptions = subscriptionsByEventType.get(eventType);
     if (subscriptions != null) {
-      int size = subscriptions.size();
-      for (int i = 0; i < size; i++) {
-        Subscription subscription = subscriptions.get(i);
+      List<Subscription> newList = new ArrayList<>(subscriptions.size());
+      for (Subscription subscription : subscriptions) {
         if (subscription.subscriber == subscriber) {
           subscription.active = false;
-          subscriptions.remove(i);
-          i--;
-          size--;
+          asyncPoster.removeSubscription(subscription);
+        } else {
+          newList.add(subscription);
         }
       }
+      if (newList.isEmpty()) {
+        subscriptionsByEventType.remove(eventType);
+      } else if (newList.size() != subscriptions.size()) {
+        subscriptionsByEventType.put(eventType, Collections.unmodifiableList(newList));
+      }
     }
   }
 
@@ -259,9 +294,12 @@ public class EventBus {
   public synchronized void unregister(Object subscriber) {
     List<Class<?>> subscribedTypes = typesBySubscriber.get(subscriber);
     if (subscribedTypes != null) {
+      Map<Class<?>, List<Subscription>> newSubscriptions =
+          new HashMap<>(subscriptionsByEventType);
       for (Class<?> eventType : subscribedTypes) {
-        unsubscribeByEventType(subscriber, eventType);
+        unsubscribeByEventType(newSubscriptions, subscriber, eventType);
       }
+      subscriptionsByEventType = newSubscriptions;
       typesBySubscriber.remove(subscriber);
     } else {
       logger.log(
@@ -381,10 +419,7 @@ public class EventBus {
       int countTypes = eventTypes.size();
       for (int h = 0; h < countTypes; h++) {
         Class<?> clazz = eventTypes.get(h);
-        CopyOnWriteArrayList<Subscription> subscriptions;
-        synchronized (this) {
-          subscriptions = subscriptionsByEventType.get(clazz);
-        }
+        List<Subscription> subscriptions = subscriptionsByEventType.get(clazz);
         if (subscriptions != null && !subscriptions.isEmpty()) {
           return true;
         }
@@ -420,12 +455,11 @@ public class EventBus {
 
   private boolean postSingleEventForEventType(
       Object event, PostingThreadState postingState, Class<?> eventClass) {
-    CopyOnWriteArrayList<Subscription> subscriptions;
-    synchronized (this) {
-      subscriptions = subscriptionsByEventType.get(eventClass);
-    }
+    List<Subscription> subscriptions = subscriptionsByEventType.get(eventClass);
     if (subscriptions != null && !subscriptions.isEmpty()) {
-      for (Subscription subscription : subscriptions) {
+      int size = subscriptions.size();
+      for (int i = 0; i < size; i++) {
+        Subscription subscription = subscriptions.get(i);
         postingState.event = event;
         postingState.subscription = subscription;
         boolean aborted;
@@ -592,6 +626,11 @@ public class EventBus {
     return executorService;
   }
 
+  /** Returns a snapshot of the queue metrics for {@link ThreadMode#ASYNC} event delivery. */
+  public AsyncPosterStats getAsyncPosterStats() {
+    return asyncPoster.getStats();
+  }
+
   /** For internal use only. */
   public Logger getLogger() {
     return logger;
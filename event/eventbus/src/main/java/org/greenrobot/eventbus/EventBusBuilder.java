@@ -21,6 +21,11 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Creates EventBus instances with custom parameters and also allows to install a custom default
@@ -39,6 +44,8 @@ public class EventBusBuilder {
   boolean ignoreGeneratedIndex;
   boolean strictMethodVerification;
   ExecutorService executorService = DEFAULT_EXECUTOR_SERVICE;
+  ExecutorService asyncExecutorService;
+  int asyncThreadCount;
   List<Class<?>> skipMethodVerificationForClasses;
   List<SubscriberInfoIndex> subscriberInfoIndexes;
   Logger logger;
@@ -106,6 +113,32 @@ public class EventBusBuilder {
     return this;
   }
 
+  /**
+   * Provide a custom executor used to deliver {@link ThreadMode#ASYNC} events. Events are still
+   * delivered serially per subscriber, so the executor only needs as many threads as async
+   * subscribers are expected to run concurrently. If not set, the {@link
+   * #executorService(ExecutorService) executor service} is used, unless a bounded pool is requested
+   * with {@link #asyncThreadCount(int)}.
+   */
+  public EventBusBuilder asyncExecutorService(ExecutorService asyncExecutorService) {
+    this.asyncExecutorService = asyncExecutorService;
+    return this;
+  }
+
+  /**
+   * Deliver {@link ThreadMode#ASYNC} events on a bounded pool with the given number of threads,
+   * created for each EventBus. By default, async events use the unbounded {@link
+   * #executorService(ExecutorService) executor service}, so that a blocking subscriber cannot starve
+   * the others. Ignored if {@link #asyncExecutorService(ExecutorService)} is set.
+   */
+  public EventBusBuilder asyncThreadCount(int asyncThreadCount) {
+    if (asyncThreadCount < 1) {
+      throw new IllegalArgumentException("asyncThreadCount must be >= 1");
+    }
+    this.asyncThreadCount = asyncThreadCount;
+    return this;
+  }
+
   /**
    * Method name verification is done for methods starting with onEvent to avoid typos; using this
    * method you can exclude subscriber classes from this check. Also disables checks for method
@@ -158,6 +191,27 @@ public class EventBusBuilder {
     }
   }
 
+  ExecutorService getAsyncExecutorService() {
+    if (asyncExecutorService != null) {
+      return asyncExecutorService;
+    }
+
+    if (asyncThreadCount == 0) {
+      return executorService;
+    }
+
+    final ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(
+            asyncThreadCount,
+            asyncThreadCount,
+            30,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(),
+            new AsyncThreadFactory());
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
   MainThreadSupport getMainThreadSupport() {
     if (mainThreadSupport != null) {
       return mainThreadSupport;
@@ -198,4 +252,18 @@ public class EventBusBuilder {
   public EventBus build() {
     return new EventBus(this);
   }
+
+  private static final class AsyncThreadFactory implements ThreadFactory {
+    private static final AtomicInteger poolCount = new AtomicInteger();
+    private final int poolNumber = poolCount.incrementAndGet();
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable r) {
+      Thread thread =
+          new Thread(r, "EventBus-" + poolNumber + "-async-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
 }
@@ -41,4 +41,12 @@ public @interface Subscribe {
    * delivery among subscribers with different {@link ThreadMode}s!
    */
   int priority() default 0;
+
+  /**
+   * Only applies to {@link ThreadMode#ASYNC} subscribers. If true, events implementing {@link
+   * CoalescingEvent} which are still waiting to be delivered to this subscriber are replaced by a
+   * newer event with the same {@link CoalescingEvent#getCoalescingKey() coalescing key} (latest
+   * wins). Use this only if the subscriber does not depend on seeing every single event.
+   */
+  boolean coalesce() default false;
 }
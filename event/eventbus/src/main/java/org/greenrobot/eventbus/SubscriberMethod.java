@@ -24,16 +24,28 @@ public class SubscriberMethod {
   final Class<?> eventType;
   final int priority;
   final boolean sticky;
+  final boolean coalesce;
   /** Used for efficient comparison */
   String methodString;
 
   public SubscriberMethod(
       Method method, Class<?> eventType, ThreadMode threadMode, int priority, boolean sticky) {
+    this(method, eventType, threadMode, priority, sticky, false);
+  }
+
+  public SubscriberMethod(
+      Method method,
+      Class<?> eventType,
+      ThreadMode threadMode,
+      int priority,
+      boolean sticky,
+      boolean coalesce) {
     this.method = method;
     this.threadMode = threadMode;
     this.eventType = eventType;
     this.priority = priority;
     this.sticky = sticky;
+    this.coalesce = coalesce;
   }
 
   @Override
@@ -193,7 +193,8 @@ class SubscriberMethodFinder {
                       eventType,
                       threadMode,
                       subscribeAnnotation.priority(),
-                      subscribeAnnotation.sticky()));
+                      subscribeAnnotation.sticky(),
+                      subscribeAnnotation.coalesce()));
             }
           }
         } else if (strictMethodVerification && method.isAnnotationPresent(Subscribe.class)) {
@@ -25,6 +25,9 @@ final class Subscription {
    */
   volatile boolean active;
 
+  /** Pending {@link ThreadMode#ASYNC} deliveries, created on first use by {@link AsyncPoster}. */
+  volatile AsyncPoster.Lane asyncLane;
+
   Subscription(Object subscriber, SubscriberMethod subscriberMethod) {
     this.subscriber = subscriber;
     this.subscriberMethod = subscriberMethod;
@@ -23,14 +23,26 @@ public class SubscriberMethodInfo {
   final Class<?> eventType;
   final int priority;
   final boolean sticky;
+  final boolean coalesce;
 
   public SubscriberMethodInfo(
-      String methodName, Class<?> eventType, ThreadMode threadMode, int priority, boolean sticky) {
+      String methodName,
+      Class<?> eventType,
+      ThreadMode threadMode,
+      int priority,
+      boolean sticky,
+      boolean coalesce) {
     this.methodName = methodName;
     this.threadMode = threadMode;
     this.eventType = eventType;
     this.priority = priority;
     this.sticky = sticky;
+    this.coalesce = coalesce;
+  }
+
+  public SubscriberMethodInfo(
+      String methodName, Class<?> eventType, ThreadMode threadMode, int priority, boolean sticky) {
+    this(methodName, eventType, threadMode, priority, sticky, false);
   }
 
   public SubscriberMethodInfo(String methodName, Class<?> eventType) {
@@ -0,0 +1,241 @@
+/*
+ * Copyright (C) 2012-2016 Markus Junginger, greenrobot (http://greenrobot.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.greenrobot.eventbus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+/** Tests ordering, coalescing and accounting of {@link ThreadMode#ASYNC} delivery. */
+public class AsyncPosterTest {
+
+  private static final int EVENT_COUNT = 10_000;
+
+  @Test
+  public void deliversEventsInPostingOrderPerSubscriber() throws InterruptedException {
+    EventBus eventBus = EventBus.builder().logNoSubscriberMessages(false).build();
+    OrderSubscriber first = new OrderSubscriber(EVENT_COUNT);
+    OrderSubscriber second = new OrderSubscriber(EVENT_COUNT);
+    eventBus.register(first);
+    eventBus.register(second);
+
+    for (int i = 0; i < EVENT_COUNT; i++) {
+      eventBus.post(i);
+    }
+
+    assertTrue(first.done.await(10, TimeUnit.SECONDS));
+    assertTrue(second.done.await(10, TimeUnit.SECONDS));
+    assertOrdered(first.received);
+    assertOrdered(second.received);
+  }
+
+  @Test
+  public void blockingSubscriberDoesNotStarveOthers() throws InterruptedException {
+    EventBus eventBus = EventBus.builder().logNoSubscriberMessages(false).build();
+    CountDownLatch release = new CountDownLatch(1);
+    List<BlockingSubscriber> blocking = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      BlockingSubscriber subscriber = new BlockingSubscriber(release);
+      blocking.add(subscriber);
+      eventBus.register(subscriber);
+    }
+    OrderSubscriber other = new OrderSubscriber(1);
+    eventBus.register(other);
+
+    try {
+      eventBus.post(0);
+      assertTrue(other.done.await(5, TimeUnit.SECONDS));
+    } finally {
+      release.countDown();
+    }
+  }
+
+  @Test
+  public void boundedPoolIsOptIn() throws InterruptedException {
+    EventBus eventBus =
+        EventBus.builder().logNoSubscriberMessages(false).asyncThreadCount(1).build();
+    OrderSubscriber first = new OrderSubscriber(EVENT_COUNT);
+    OrderSubscriber second = new OrderSubscriber(EVENT_COUNT);
+    eventBus.register(first);
+    eventBus.register(second);
+
+    for (int i = 0; i < EVENT_COUNT; i++) {
+      eventBus.post(i);
+    }
+
+    assertTrue(first.done.await(10, TimeUnit.SECONDS));
+    assertTrue(second.done.await(10, TimeUnit.SECONDS));
+    assertOrdered(first.received);
+    assertOrdered(second.received);
+  }
+
+  @Test
+  public void coalescesPendingEventsWithTheSameKey() throws InterruptedException {
+    EventBus eventBus = EventBus.builder().logNoSubscriberMessages(false).build();
+    CountDownLatch release = new CountDownLatch(1);
+    CoalescingSubscriber subscriber = new CoalescingSubscriber(release);
+    eventBus.register(subscriber);
+
+    // the first event blocks the lane, the rest are coalesced into a single pending event
+    eventBus.post(new KeyedEvent("a", 0));
+    assertTrue(subscriber.started.await(5, TimeUnit.SECONDS));
+    for (int i = 1; i <= 100; i++) {
+      eventBus.post(new KeyedEvent("a", i));
+    }
+    eventBus.post(new KeyedEvent("b", 0));
+    release.countDown();
+
+    assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+    synchronized (subscriber.received) {
+      assertEquals(3, subscriber.received.size());
+      assertEquals(new KeyedEvent("a", 0), subscriber.received.get(0));
+      assertEquals(new KeyedEvent("a", 100), subscriber.received.get(1));
+      assertEquals(new KeyedEvent("b", 0), subscriber.received.get(2));
+    }
+    assertEquals(99, eventBus.getAsyncPosterStats().getCoalesced());
+  }
+
+  @Test
+  public void countsDeliveriesToAllSubscribers() throws InterruptedException {
+    EventBus eventBus = EventBus.builder().logNoSubscriberMessages(false).build();
+    List<OrderSubscriber> subscribers = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      OrderSubscriber subscriber = new OrderSubscriber(EVENT_COUNT);
+      subscribers.add(subscriber);
+      eventBus.register(subscriber);
+    }
+
+    for (int i = 0; i < EVENT_COUNT; i++) {
+      eventBus.post(i);
+    }
+    for (OrderSubscriber subscriber : subscribers) {
+      assertTrue(subscriber.done.await(30, TimeUnit.SECONDS));
+    }
+
+    awaitDelivered(eventBus, (long) EVENT_COUNT * subscribers.size());
+    assertEquals(0, eventBus.getAsyncPosterStats().getQueueDepth());
+  }
+
+  /**
+   * Wait until the poster has counted the given number of deliveries. A delivery is counted after
+   * the subscriber method returns, so the count may lag behind the subscribers' latches.
+   */
+  private static void awaitDelivered(EventBus eventBus, long expected)
+      throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (eventBus.getAsyncPosterStats().getDelivered() < expected
+        && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+    assertEquals(expected, eventBus.getAsyncPosterStats().getDelivered());
+  }
+
+  private static void assertOrdered(List<Integer> received) {
+    synchronized (received) {
+      assertEquals(EVENT_COUNT, received.size());
+      for (int i = 0; i < received.size(); i++) {
+        assertEquals(i, (int) received.get(i));
+      }
+    }
+  }
+
+  public static class OrderSubscriber {
+    final List<Integer> received = Collections.synchronizedList(new ArrayList<Integer>());
+    final CountDownLatch done;
+
+    OrderSubscriber(int expected) {
+      this.done = new CountDownLatch(expected);
+    }
+
+    @Subscribe(threadMode = ThreadMode.ASYNC)
+    public void onEvent(Integer event) {
+      received.add(event);
+      done.countDown();
+    }
+  }
+
+  public static class BlockingSubscriber {
+    private final CountDownLatch release;
+
+    BlockingSubscriber(CountDownLatch release) {
+      this.release = release;
+    }
+
+    @Subscribe(threadMode = ThreadMode.ASYNC)
+    public void onEvent(Integer event) throws InterruptedException {
+      release.await(10, TimeUnit.SECONDS);
+    }
+  }
+
+  public static class CoalescingSubscriber {
+    final List<KeyedEvent> received = Collections.synchronizedList(new ArrayList<KeyedEvent>());
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(3);
+    private final CountDownLatch release;
+
+    CoalescingSubscriber(CountDownLatch release) {
+      this.release = release;
+    }
+
+    @Subscribe(threadMode = ThreadMode.ASYNC, coalesce = true)
+    public void onEvent(KeyedEvent event) throws InterruptedException {
+      started.countDown();
+      release.await(10, TimeUnit.SECONDS);
+      received.add(event);
+      done.countDown();
+    }
+  }
+
+  static final class KeyedEvent implements CoalescingEvent {
+    final String key;
+    final int value;
+
+    KeyedEvent(String key, int value) {
+      this.key = key;
+      this.value = value;
+    }
+
+    @Override
+    public Object getCoalescingKey() {
+      return key;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof KeyedEvent)) {
+        return false;
+      }
+      KeyedEvent other = (KeyedEvent) obj;
+      return key.equals(other.key) && value == other.value;
+    }
+
+    @Override
+    public int hashCode() {
+      return key.hashCode() * 31 + value;
+    }
+
+    @Override
+    public String toString() {
+      return key + ":" + value;
+    }
+  }
+}
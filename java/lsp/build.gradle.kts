@@ -52,6 +52,7 @@ dependencies {
 
   implementation(libs.androidide.ts)
   implementation(libs.androidide.ts.java)
+  implementation(libs.androidide.ts.kotlin)
   implementation(libs.androidx.annotation)
   implementation(libs.androidx.appcompat)
   implementation(libs.common.editor)
@@ -89,4 +90,6 @@ dependencies {
   implementation(libs.org.eclipse.lsp4j.lsp4j)
   implementation(libs.org.eclipse.lsp4j.jsonrpc)
 
+  testImplementation(libs.tests.junit)
+
 }
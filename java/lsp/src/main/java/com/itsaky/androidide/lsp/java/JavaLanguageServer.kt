@@ -32,6 +32,7 @@ import com.itsaky.tom.rv2ide.lsp.java.actions.JavaCodeActionsMenu
 import com.itsaky.tom.rv2ide.lsp.java.compiler.JavaCompilerService
 import com.itsaky.tom.rv2ide.lsp.java.compiler.SourceFileManager
 import com.itsaky.tom.rv2ide.lsp.java.models.JavaServerSettings
+import com.itsaky.tom.rv2ide.lsp.java.parser.Parser
 import com.itsaky.tom.rv2ide.lsp.java.providers.CodeFormatProvider
 import com.itsaky.tom.rv2ide.lsp.java.providers.CompletionProvider
 import com.itsaky.tom.rv2ide.lsp.java.providers.DefinitionProvider
@@ -117,6 +118,7 @@ class JavaLanguageServer : ILanguageServer {
     JavaCompilerProvider.getInstance().destroy()
     SourceFileManager.clearCache()
     CacheFSInfoSingleton.clearCache()
+    Parser.clearCache()
     clearCache()
     EventBus.getDefault().unregister(this)
     timer.cancel()
@@ -21,6 +21,7 @@ import com.itsaky.tom.rv2ide.lsp.java.compiler.SourceFileManager;
 import com.itsaky.tom.rv2ide.lsp.java.compiler.SourceFileObject;
 import com.itsaky.tom.rv2ide.models.Position;
 import com.itsaky.tom.rv2ide.models.Range;
+import com.itsaky.tom.rv2ide.projects.FileManager;
 import com.itsaky.tom.rv2ide.projects.IProjectManager;
 import com.itsaky.tom.rv2ide.projects.ModuleProject;
 
@@ -31,6 +32,9 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -53,8 +57,20 @@ public class Parser {
   private static final JavaCompiler COMPILER = JavacTool.create();
   private static SourceFileManager FILE_MANAGER = SourceFileManager.NO_MODULE;
   private static final Logger LOG = LoggerFactory.getLogger(Parser.class);
-  private static Parser cachedParse;
-  private static long cachedModified = -1;
+  /** Maximum number of parse results kept in {@link #CACHE}. */
+  static final int MAX_CACHED_PARSES = 8;
+
+  /** Recently used parse results, keyed by file URI, in access order. */
+  private static final Map<String, CachedParse> CACHE =
+    new LinkedHashMap<>(MAX_CACHED_PARSES, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CachedParse> eldest) {
+        return size() > MAX_CACHED_PARSES;
+      }
+    };
+
+  private static final AtomicLong cacheHits = new AtomicLong();
+  private static final AtomicLong cacheMisses = new AtomicLong();
   public final JavaFileObject file;
   public final String contents;
   public final JavacTask task;
@@ -110,26 +126,74 @@ public class Parser {
   }
 
   public static Parser parseJavaFileObject(JavaFileObject file) {
-    if (needsParse(file)) {
-      loadParse(file);
+    final var key = file.toUri().toString();
+    final var modified = file.getLastModified();
+    final var version = documentVersion(file);
+
+    CachedParse cached;
+    synchronized (CACHE) {
+      cached = CACHE.get(key);
+    }
+
+    if (cached != null && cached.isValidFor(file, modified, version)) {
+      cacheHits.incrementAndGet();
+      return cached.parser;
     }
-    return cachedParse;
+
+    cacheMisses.incrementAndGet();
+    final var parser = new Parser(file);
+    synchronized (CACHE) {
+      CACHE.put(key, new CachedParse(parser, modified, version));
+    }
+    return parser;
   }
 
-  private static boolean needsParse(JavaFileObject file) {
-    if (cachedParse == null) {
-      return true;
+  /** The number of {@link #parseJavaFileObject} calls served from the parse cache. */
+  public static long getCacheHitCount() {
+    return cacheHits.get();
+  }
+
+  /** The number of {@link #parseJavaFileObject} calls which had to parse the file. */
+  public static long getCacheMissCount() {
+    return cacheMisses.get();
+  }
+
+  /** Removes all the cached parse results. */
+  public static void clearCache() {
+    synchronized (CACHE) {
+      CACHE.clear();
     }
-    if (!cachedParse.file.equals(file)) {
-      return true;
+  }
+
+  private static int documentVersion(JavaFileObject file) {
+    final var uri = file.toUri();
+    if (!"file".equals(uri.getScheme())) {
+      return -1;
     }
 
-    return file.getLastModified() > cachedModified;
+    final var document = FileManager.INSTANCE.getActiveDocument(Paths.get(uri));
+    return document == null ? -1 : document.getVersion();
   }
 
-  private static void loadParse(JavaFileObject file) {
-    cachedParse = new Parser(file);
-    cachedModified = file.getLastModified();
+  /**
+   * A parse result along with the modification stamp of the file when it was parsed. Files with
+   * in-memory contents are compared by their contents through {@link JavaFileObject#equals}.
+   */
+  private static final class CachedParse {
+
+    final Parser parser;
+    final long modified;
+    final int version;
+
+    CachedParse(Parser parser, long modified, int version) {
+      this.parser = parser;
+      this.modified = modified;
+      this.version = version;
+    }
+
+    boolean isValidFor(JavaFileObject file, long modified, int version) {
+      return this.modified == modified && this.version == version && parser.file.equals(file);
+    }
   }
 
   public static Range range(JavacTask task, CharSequence contents, TreePath path) {
@@ -22,8 +22,8 @@ import com.itsaky.tom.rv2ide.projects.IProjectManager
 import com.itsaky.tom.rv2ide.projects.ModuleProject
 import com.itsaky.tom.rv2ide.projects.android.AndroidModule
 import com.itsaky.tom.rv2ide.projects.classpath.ClassInfo
+import com.itsaky.tom.rv2ide.projects.classpath.ClasspathSymbolTable
 import com.itsaky.tom.rv2ide.projects.classpath.IClasspathReader
-import com.itsaky.tom.rv2ide.projects.classpath.JarFsClasspathReader
 import java.io.File
 import org.slf4j.LoggerFactory
 
@@ -34,7 +34,7 @@ import org.slf4j.LoggerFactory
 class KotlinClasspathProvider {
 
   private var compilerService: KotlinCompilerService? = null
-  private val classpathReader: IClasspathReader = JarFsClasspathReader()
+  private val classpathReader: IClasspathReader = ClasspathSymbolTable
   private val log = LoggerFactory.getLogger(KotlinClasspathProvider::class.java)
 
   private var cachedClasspathList: List<String>? = null
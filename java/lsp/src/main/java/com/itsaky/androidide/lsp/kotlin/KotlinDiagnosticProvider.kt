@@ -21,250 +21,542 @@ import com.itsaky.tom.rv2ide.lsp.models.DiagnosticResult
 import com.itsaky.tom.rv2ide.lsp.models.DiagnosticSeverity
 import com.itsaky.tom.rv2ide.models.Position
 import com.itsaky.tom.rv2ide.models.Range
+import com.itsaky.tom.rv2ide.treesitter.TSInputEdit
+import com.itsaky.tom.rv2ide.treesitter.TSNode
+import com.itsaky.tom.rv2ide.treesitter.TSParser
+import com.itsaky.tom.rv2ide.treesitter.TSPoint
+import com.itsaky.tom.rv2ide.treesitter.TSTree
+import com.itsaky.tom.rv2ide.treesitter.kotlin.TSLanguageKotlin
 import java.nio.file.Path
-import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
 import org.slf4j.LoggerFactory
 
 /**
  * Kotlin diagnostic provider that works independently of the KLS server's document state. This
- * provides basic syntax and type checking for Kotlin files.
+ * provides fast syntax and type checking for Kotlin files while the external server is still
+ * warming up.
+ *
+ * Files are parsed with tree-sitter and the last syntax tree of each file is kept, so that an edit
+ * is applied to the previous tree and re-parsed incrementally. Diagnostics are computed per
+ * top-level declaration; declarations which lie entirely outside the edited region reuse the
+ * diagnostics of the previous run (shifted by the number of inserted or removed lines).
  *
  * @author Mohammed-baqer-null @ https://github.com/Mohammed-baqer-null
  */
-class KotlinDiagnosticProvider {
+class KotlinDiagnosticProvider : AutoCloseable {
 
   companion object {
     private val log = LoggerFactory.getLogger(KotlinDiagnosticProvider::class.java)
+
+    private const val SOURCE = "kotlin-analyzer"
+
+    /** Maximum number of files whose syntax trees are kept for incremental re-parsing. */
+    private const val MAX_CACHED_FILES = 8
+
+    /** Declared types for which literal initializers are checked. */
+    private val CHECKED_TYPES = setOf("String", "Int", "Long", "Float", "Double", "Boolean", "Char")
+
+    /**
+     * Names which are used implicitly through operator or delegate conventions, and hence never
+     * appear as identifiers in the source.
+     */
+    private val CONVENTION_NAMES =
+        setOf(
+            "getValue",
+            "setValue",
+            "provideDelegate",
+            "invoke",
+            "get",
+            "set",
+            "contains",
+            "iterator",
+            "hasNext",
+            "next",
+            "compareTo",
+            "equals",
+            "rangeTo",
+            "rangeUntil",
+            "plus",
+            "minus",
+            "times",
+            "div",
+            "rem",
+            "mod",
+            "unaryPlus",
+            "unaryMinus",
+            "not",
+            "inc",
+            "dec",
+            "plusAssign",
+            "minusAssign",
+            "timesAssign",
+            "divAssign",
+            "remAssign",
+        )
+
+    private val COMPONENT_N = Regex("component\\d+")
+    private val WORD = Regex("[A-Za-z_][A-Za-z0-9_]*")
   }
 
-  private var analyzing = AtomicBoolean(false)
+  /** An import directive declared in a file. */
+  private class ImportRef(val name: String, val range: Range)
 
-  fun analyze(file: Path): DiagnosticResult {
-    if (analyzing.get()) {
-      log.debug("Already analyzing, skipping: {}", file)
-      return DiagnosticResult.NO_UPDATE
-    }
+  /** Cached analysis result of a single top-level node of a file. */
+  private class Segment(
+      val type: String,
+      val start: Int,
+      val end: Int,
+      val diagnostics: List<DiagnosticItem>,
+      val identifiers: Set<String>,
+      val imports: List<ImportRef>,
+  ) {
 
-    analyzing.set(true)
+    fun shift(lineDelta: Int, charDelta: Int): Segment {
+      if (lineDelta == 0 && charDelta == 0) {
+        return this
+      }
 
-    try {
-      log.debug("Analyzing Kotlin file: {}", file)
+      return Segment(
+          type,
+          start + charDelta,
+          end + charDelta,
+          diagnostics.map { it.copy(range = it.range.shiftLines(lineDelta)) },
+          identifiers,
+          imports.map { ImportRef(it.name, it.range.shiftLines(lineDelta)) },
+      )
+    }
 
-      val content = file.toFile().readText()
-      val diagnostics = mutableListOf<DiagnosticItem>()
+    private fun Range.shiftLines(delta: Int): Range {
+      if (delta == 0) {
+        return this
+      }
+      return Range(
+          Position(start.line + delta, start.column),
+          Position(end.line + delta, end.column),
+      )
+    }
+  }
 
-      // Basic syntax checking
-      analyzeSyntax(content, diagnostics)
+  /** The last analyzed state of a file. */
+  private class FileState(
+      val content: String,
+      val tree: TSTree,
+      val segments: List<Segment>,
+      val diagnostics: List<DiagnosticItem>,
+  )
 
-      // Basic type checking
-      analyzeTypes(content, diagnostics)
+  // number of analyses in progress, only used to report whether the provider is busy
+  private val analyzing = AtomicInteger()
 
-      val result = DiagnosticResult(file, diagnostics)
-      log.info("Kotlin analysis completed. Found {} diagnostic items", diagnostics.size)
+  private val parserDelegate = lazy {
+    TSParser.create().also { it.language = TSLanguageKotlin.getInstance() }
+  }
+  private val parser by parserDelegate
 
-      // Debug: log the first few diagnostics
-      diagnostics.take(3).forEach { diag ->
-        log.debug(
-            "Diagnostic: {} at line {}:{} - {}:{}",
-            diag.message,
-            diag.range.start.line,
-            diag.range.start.column,
-            diag.range.end.line,
-            diag.range.end.column,
-        )
+  private val states =
+      object : LinkedHashMap<Path, FileState>(MAX_CACHED_FILES, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<Path, FileState>?): Boolean {
+          if (size > MAX_CACHED_FILES) {
+            eldest?.value?.tree?.close()
+            return true
+          }
+          return false
+        }
       }
 
-      return result
+  fun analyze(file: Path): DiagnosticResult {
+    return try {
+      analyze(file, file.toFile().readText())
+    } catch (e: Exception) {
+      log.error("Error reading Kotlin file: {}", file, e)
+      DiagnosticResult.NO_UPDATE
+    }
+  }
+
+  fun analyze(file: Path, content: String): DiagnosticResult {
+    analyzing.incrementAndGet()
+    try {
+      val start = System.nanoTime()
+      val diagnostics = synchronized(states) { analyzeLocked(file, content) }
+
+      log.debug(
+          "Kotlin analysis completed in {}us. Found {} diagnostic items",
+          (System.nanoTime() - start) / 1000,
+          diagnostics.size,
+      )
+
+      return DiagnosticResult(file, diagnostics)
     } catch (e: Exception) {
       log.error("Error analyzing Kotlin file: {}", file, e)
       return DiagnosticResult.NO_UPDATE
     } finally {
-      analyzing.set(false)
+      analyzing.decrementAndGet()
     }
   }
 
-  private fun analyzeSyntax(content: String, diagnostics: MutableList<DiagnosticItem>) {
-    val lines = content.split("\n")
-
-    lines.forEachIndexed { lineIndex, line ->
-      // Only check for obvious type mismatches - be very conservative
-      if (line.contains("val ") && line.contains(": ") && line.contains(" = ")) {
-        val valMatch = Regex("val\\s+(\\w+)\\s*:\\s*(\\w+)\\s*=\\s*(.+)").find(line)
-        if (valMatch != null) {
-          val type = valMatch.groupValues[2]
-          val value = valMatch.groupValues[3].trim()
-
-          // Only flag obvious mismatches - be very strict
-          when (type) {
-            "String" -> {
-              // Only flag if it's clearly a number or boolean
-              if (value.matches(Regex("\\d+")) || value.matches(Regex("true|false"))) {
-                val startCol = line.indexOf(value)
-                diagnostics.add(
-                    createDiagnosticWithColumn(
-                        lineIndex,
-                        startCol,
-                        startCol + value.length,
-                        "Type mismatch: expected String but found ${value}",
-                        "TYPE_MISMATCH",
-                        DiagnosticSeverity.ERROR,
-                    )
-                )
-              }
-            }
-            "Int" -> {
-              // Only flag if it's clearly a string or boolean
-              if (
-                  value.startsWith("\"") ||
-                      value.startsWith("'") ||
-                      value.matches(Regex("true|false"))
-              ) {
-                val startCol = line.indexOf(value)
-                diagnostics.add(
-                    createDiagnosticWithColumn(
-                        lineIndex,
-                        startCol,
-                        startCol + value.length,
-                        "Type mismatch: expected Int but found ${value}",
-                        "TYPE_MISMATCH",
-                        DiagnosticSeverity.ERROR,
-                    )
-                )
-              }
-            }
-            "Boolean" -> {
-              // Only flag if it's clearly a string or number
-              if (value.startsWith("\"") || value.startsWith("'") || value.matches(Regex("\\d+"))) {
-                val startCol = line.indexOf(value)
-                diagnostics.add(
-                    createDiagnosticWithColumn(
-                        lineIndex,
-                        startCol,
-                        startCol + value.length,
-                        "Type mismatch: expected Boolean but found ${value}",
-                        "TYPE_MISMATCH",
-                        DiagnosticSeverity.ERROR,
-                    )
-                )
-              }
+  /** Forget the cached syntax tree of the given file, e.g. when it is closed or deleted. */
+  fun invalidate(file: Path) {
+    synchronized(states) { states.remove(file)?.tree?.close() }
+  }
+
+  private fun analyzeLocked(file: Path, content: String): List<DiagnosticItem> {
+    val previous = states[file]
+    if (previous != null && previous.content == content) {
+      return previous.diagnostics
+    }
+
+    if (parser.isParsing) {
+      parser.requestCancellationAndWait()
+    }
+
+    val state = previous?.let { reanalyzeOrNull(file, it, content) } ?: parseFully(content)
+
+    states[file] = state
+    return state.diagnostics
+  }
+
+  private fun parseFully(content: String): FileState {
+    parser.reset()
+    val tree = parser.parseString(content)
+    try {
+      val segments = mutableListOf<Segment>()
+      forEachTopLevel(tree.rootNode) { segments.add(analyzeSegment(it, content)) }
+      return createState(content, tree, segments)
+    } catch (err: Throwable) {
+      tree.close()
+      throw err
+    }
+  }
+
+  /**
+   * Re-parse the file incrementally, or return `null` if that fails. The previous state is
+   * removed first, its tree is edited in place and no longer matches any text afterwards.
+   */
+  private fun reanalyzeOrNull(file: Path, previous: FileState, content: String): FileState? {
+    states.remove(file)
+    return try {
+      reanalyze(previous, content)
+    } catch (err: Exception) {
+      log.warn("Incremental re-parse of {} failed, parsing it fully", file, err)
+      null
+    }
+  }
+
+  private fun reanalyze(previous: FileState, content: String): FileState {
+    val oldContent = previous.content
+    val minLength = minOf(oldContent.length, content.length)
+
+    var prefix = 0
+    while (prefix < minLength && oldContent[prefix] == content[prefix]) {
+      prefix++
+    }
+
+    var suffix = 0
+    while (
+        suffix < minLength - prefix &&
+            oldContent[oldContent.length - suffix - 1] == content[content.length - suffix - 1]
+    ) {
+      suffix++
+    }
+
+    val oldEnd = oldContent.length - suffix
+    val newEnd = content.length - suffix
+    val startPoint = pointAt(oldContent, prefix)
+    val oldEndPoint = pointAt(oldContent, oldEnd)
+    val newEndPoint = pointAt(content, newEnd)
+
+    val oldTree = previous.tree
+    val tree =
+        try {
+          oldTree.edit(
+              TSInputEdit.create(
+                  prefix shl 1,
+                  oldEnd shl 1,
+                  newEnd shl 1,
+                  startPoint,
+                  oldEndPoint,
+                  newEndPoint,
+              )
+          )
+          parser.parseString(oldTree, content)
+        } finally {
+          oldTree.close()
+        }
+
+    val charDelta = newEnd - oldEnd
+    val lineDelta = newEndPoint.row - oldEndPoint.row
+    val oldSegments = previous.segments.associateBy { it.start }
+
+    var reused = 0
+    val segments = mutableListOf<Segment>()
+    try {
+      forEachTopLevel(tree.rootNode) { node ->
+        val start = node.startByte shr 1
+        val end = node.endByte shr 1
+
+        // only the nodes which lie entirely outside the edited region can be reused
+        val cached =
+            when {
+              end <= prefix -> oldSegments[start]?.takeIf { it.end == end }
+              start >= newEnd && node.startPoint.row > newEndPoint.row ->
+                  oldSegments[start - charDelta]?.takeIf { it.end == end - charDelta }
+              else -> null
             }
+
+        if (cached != null && cached.type == node.type) {
+          reused++
+          segments.add(if (end <= prefix) cached else cached.shift(lineDelta, charDelta))
+        } else {
+          segments.add(analyzeSegment(node, content))
+        }
+      }
+    } catch (err: Throwable) {
+      tree.close()
+      throw err
+    }
+
+    log.debug("Reused {} of {} top-level segments", reused, segments.size)
+    return createState(content, tree, segments)
+  }
+
+  private fun createState(content: String, tree: TSTree, segments: List<Segment>): FileState {
+    val diagnostics = mutableListOf<DiagnosticItem>()
+    segments.forEach { diagnostics.addAll(it.diagnostics) }
+
+    val identifiers = HashSet<String>()
+    segments.forEach { identifiers.addAll(it.identifiers) }
+    segments.forEach { segment ->
+      segment.imports.forEach { import ->
+        if (import.name !in identifiers) {
+          diagnostics.add(
+              createDiagnostic(
+                  import.range,
+                  "Unused import directive",
+                  "UNUSED_IMPORT",
+                  DiagnosticSeverity.WARNING,
+              )
+          )
+        }
+      }
+    }
+
+    diagnostics.sortWith(DiagnosticItem.START_COMPARATOR)
+    return FileState(content, tree, segments, diagnostics)
+  }
+
+  private inline fun forEachTopLevel(root: TSNode, action: (TSNode) -> Unit) {
+    for (i in 0 until root.childCount) {
+      val child = root.getChild(i)
+      if (child.type == "import_list") {
+        // analyze each import separately so that edits to one import do not affect others
+        for (j in 0 until child.childCount) {
+          action(child.getChild(j))
+        }
+      } else {
+        action(child)
+      }
+    }
+  }
+
+  private fun analyzeSegment(root: TSNode, content: String): Segment {
+    val diagnostics = mutableListOf<DiagnosticItem>()
+    val identifiers = HashSet<String>()
+    val imports = mutableListOf<ImportRef>()
+
+    val stack = ArrayDeque<TSNode>()
+    stack.addLast(root)
+    while (stack.isNotEmpty()) {
+      val node = stack.removeLast()
+      val type = node.type
+
+      when {
+        type == "ERROR" -> {
+          diagnostics.add(
+              createDiagnostic(
+                  rangeOf(node),
+                  "Syntax error: unexpected '${textOf(node, content).trim().take(32)}'",
+                  "SYNTAX_ERROR",
+                  DiagnosticSeverity.ERROR,
+              )
+          )
+          // nested error nodes are covered by this diagnostic
+          continue
+        }
+        node.isMissing -> {
+          diagnostics.add(
+              createDiagnostic(
+                  rangeOf(node),
+                  "Syntax error: expecting '$type'",
+                  "SYNTAX_ERROR",
+                  DiagnosticSeverity.ERROR,
+              )
+          )
+          continue
+        }
+        type == "import_header" -> {
+          importOf(node, content)?.let { imports.add(ImportRef(it, rangeOf(node))) }
+          continue
+        }
+        type == "package_header" -> continue
+        type == "simple_identifier" || type == "type_identifier" -> {
+          identifiers.add(textOf(node, content).removeSurrounding("`"))
+          continue
+        }
+        type == "interpolated_identifier" -> {
+          identifiers.add(textOf(node, content).removePrefix("$"))
+          continue
+        }
+        type == "comment" || type == "multiline_comment" -> {
+          // names referenced from KDoc count as usages of an import
+          val text = textOf(node, content)
+          if (text.startsWith("/**")) {
+            WORD.findAll(text).forEach { identifiers.add(it.value) }
           }
+          continue
         }
+        type == "property_declaration" -> checkLiteralInitializer(node, content, diagnostics)
+      }
+
+      for (i in node.childCount - 1 downTo 0) {
+        stack.addLast(node.getChild(i))
+      }
+    }
+
+    return Segment(
+        root.type,
+        root.startByte shr 1,
+        root.endByte shr 1,
+        diagnostics,
+        identifiers,
+        imports,
+    )
+  }
+
+  /** Returns the name introduced by the given import header, or `null` if it is not checked. */
+  private fun importOf(node: TSNode, content: String): String? {
+    var name: String? = null
+    for (i in 0 until node.childCount) {
+      val child = node.getChild(i)
+      when (child.type) {
+        "wildcard_import" -> return null
+        "identifier" -> name = lastIdentifier(child, content)
+        "import_alias" -> name = lastIdentifier(child, content)
       }
     }
+
+    if (name == null || name in CONVENTION_NAMES || COMPONENT_N.matches(name)) {
+      return null
+    }
+    return name
   }
 
-  private fun analyzeTypes(content: String, diagnostics: MutableList<DiagnosticItem>) {
-    // Skip unresolved reference checking for now - it's too complex and error-prone
-    // The KLS server should handle this properly
+  private fun lastIdentifier(node: TSNode, content: String): String? {
+    for (i in node.childCount - 1 downTo 0) {
+      val child = node.getChild(i)
+      if (child.type == "simple_identifier" || child.type == "type_identifier") {
+        return textOf(child, content).removeSurrounding("`")
+      }
+    }
+    return null
   }
 
-  private fun isKnownReference(ref: String): Boolean {
-    val knownRefs =
-        setOf(
-            "println",
-            "print",
-            "readLine",
-            "readln",
-            "readlnOrNull",
-            "String",
-            "Int",
-            "Long",
-            "Double",
-            "Float",
-            "Boolean",
-            "Char",
-            "Byte",
-            "Short",
-            "Array",
-            "List",
-            "Set",
-            "Map",
-            "MutableList",
-            "mutableListOf",
-            "listOf",
-            "setOf",
-            "mapOf",
-            "arrayOf",
-            "if",
-            "when",
-            "for",
-            "while",
-            "do",
-            "try",
-            "catch",
-            "finally",
-            "throw",
-            "return",
-            "break",
-            "continue",
-            "class",
-            "interface",
-            "object",
-            "fun",
-            "val",
-            "var",
-            "private",
-            "public",
-            "protected",
-            "internal",
-            "abstract",
-            "final",
-            "open",
-            "sealed",
-            "data",
-            "enum",
-            "annotation",
-            "companion",
-            "override",
-            "super",
-            "this",
-            "null",
-            "true",
-            "false",
-            "as",
-            "is",
-            "in",
-            "out",
-            "vararg",
-            "const",
-            "lateinit",
-            "noinline",
-            "crossinline",
-            "reified",
-            "infix",
-            "operator",
-            "inline",
-            "external",
-            "expect",
-            "actual",
+  private fun checkLiteralInitializer(
+      node: TSNode,
+      content: String,
+      diagnostics: MutableList<DiagnosticItem>,
+  ) {
+    var declaredType: String? = null
+    var initializer: TSNode? = null
+    var seenAssignment = false
+    for (i in 0 until node.childCount) {
+      val child = node.getChild(i)
+      when {
+        child.type == "variable_declaration" -> declaredType = declaredTypeOf(child, content)
+        child.type == "=" -> seenAssignment = true
+        seenAssignment -> {
+          initializer = child
+          break
+        }
+      }
+    }
+
+    if (declaredType == null || initializer == null) {
+      return
+    }
+
+    val literalType = literalTypeOf(initializer, content) ?: return
+    if (literalType == declaredType || (declaredType == "Long" && literalType == "Int")) {
+      return
+    }
+
+    diagnostics.add(
+        createDiagnostic(
+            rangeOf(initializer),
+            "Type mismatch: expected $declaredType but found $literalType",
+            "TYPE_MISMATCH",
+            DiagnosticSeverity.ERROR,
         )
-    return knownRefs.contains(ref)
+    )
   }
 
-  private fun createDiagnostic(
-      line: Int,
-      message: String,
-      code: String,
-      severity: DiagnosticSeverity,
-  ): DiagnosticItem {
-    // Calculate proper character indices for the range
-    val startIndex = line * 80 // Rough approximation
-    val endIndex = startIndex + 50 // Assume diagnostic spans about 50 characters
+  /** Returns the declared type if it is a plain, non-nullable [CHECKED_TYPES] type. */
+  private fun declaredTypeOf(declaration: TSNode, content: String): String? {
+    for (i in 0 until declaration.childCount) {
+      val child = declaration.getChild(i)
+      if (child.type != "user_type") {
+        continue
+      }
+      if (child.childCount != 1 || child.getChild(0).type != "type_identifier") {
+        return null
+      }
+      return textOf(child, content).takeIf { it in CHECKED_TYPES }
+    }
+    return null
+  }
 
-    return DiagnosticItem(
-        message = message,
-        code = code,
-        range = Range(start = Position(line, 0, startIndex), end = Position(line, 50, endIndex)),
-        source = "kotlin-analyzer",
-        severity = severity,
+  private fun literalTypeOf(node: TSNode, content: String): String? {
+    return when (node.type) {
+      "string_literal",
+      "line_string_literal",
+      "multi_line_string_literal" -> "String"
+      "integer_literal",
+      "hex_literal",
+      "bin_literal" -> "Int"
+      "long_literal" -> "Long"
+      "real_literal" -> if (textOf(node, content).endsWith('f', true)) "Float" else "Double"
+      "boolean_literal" -> "Boolean"
+      "character_literal" -> "Char"
+      else -> null
+    }
+  }
+
+  private fun pointAt(content: String, offset: Int): TSPoint {
+    var row = 0
+    var lineStart = 0
+    for (i in 0 until offset) {
+      if (content[i] == '\n') {
+        row++
+        lineStart = i + 1
+      }
+    }
+    return TSPoint.create(row, (offset - lineStart) shl 1)
+  }
+
+  private fun textOf(node: TSNode, content: String): String {
+    return content.substring(node.startByte shr 1, node.endByte shr 1)
+  }
+
+  private fun rangeOf(node: TSNode): Range {
+    val start = node.startPoint
+    val end = node.endPoint
+    return Range(
+        Position(start.row, start.column shr 1),
+        Position(end.row, end.column shr 1),
     )
   }
 
-  private fun createDiagnosticWithColumn(
-      line: Int,
-      startCol: Int,
-      endCol: Int,
+  private fun createDiagnostic(
+      range: Range,
       message: String,
       code: String,
       severity: DiagnosticSeverity,
@@ -273,15 +565,21 @@ class KotlinDiagnosticProvider {
     return DiagnosticItem(
         message = message,
         code = code,
-        range = Range(start = Position(line, startCol), end = Position(line, endCol)),
-        source = "kotlin-analyzer",
+        range = range,
+        source = SOURCE,
         severity = severity,
     )
   }
 
-  fun isAnalyzing(): Boolean = analyzing.get()
+  fun isAnalyzing(): Boolean = analyzing.get() > 0
 
-  fun cancel() {
-    analyzing.set(false)
+  override fun close() {
+    synchronized(states) {
+      states.values.forEach { it.tree.close() }
+      states.clear()
+    }
+    if (parserDelegate.isInitialized()) {
+      parser.close()
+    }
   }
 }
@@ -28,7 +28,10 @@ class KotlinEventHandler(private val documentManager: KotlinDocumentManager) {
   private val lastSaveTime = java.util.concurrent.ConcurrentHashMap<String, Long>()
   private val saveDebounceMs = 40L
 
-  @org.greenrobot.eventbus.Subscribe(threadMode = org.greenrobot.eventbus.ThreadMode.ASYNC)
+  @org.greenrobot.eventbus.Subscribe(
+      threadMode = org.greenrobot.eventbus.ThreadMode.ASYNC,
+      coalesce = true,
+  )
   fun onContentChange(event: com.itsaky.tom.rv2ide.eventbus.events.editor.DocumentChangeEvent) {
     val file = event.changedFile
     if (!(file.toString().endsWith(".kt") || file.toString().endsWith(".kts"))) return
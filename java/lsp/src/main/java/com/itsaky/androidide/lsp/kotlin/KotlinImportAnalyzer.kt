@@ -22,8 +22,9 @@ import com.itsaky.tom.rv2ide.lsp.models.DiagnosticItem
 import com.itsaky.tom.rv2ide.lsp.models.DiagnosticSeverity
 import com.itsaky.tom.rv2ide.models.Position
 import com.itsaky.tom.rv2ide.models.Range
+import com.itsaky.tom.rv2ide.projects.classpath.ClasspathSymbolTable
 import java.nio.file.Path
-import java.util.jar.JarFile
+import java.util.concurrent.ConcurrentHashMap
 import kotlinx.coroutines.*
 import org.slf4j.LoggerFactory
 
@@ -50,13 +51,45 @@ class KotlinImportAnalyzer {
             "kotlin.jvm",
             "kotlin.experimental",
         )
+
+    private val IMPORT_REGEX = """import\s+([\w.$\_]+)(?:\s*\.\s*\*)?""".toRegex()
+    private val PACKAGE_REGEX = """package\s+([\w.]+)""".toRegex()
+
+    private val FALSE_POSITIVES = setOf("Companion", "TODO", "TODO0", "TODO1")
+
+    // LSP SymbolKind values of class-like declarations: Class, Enum, Interface, Struct
+    private val CLASS_SYMBOL_KINDS = setOf(5, 10, 11, 23)
+    private const val PROJECT_SYMBOL_LOOKUP_LIMIT = 64
   }
 
-  private val importCache = mutableMapOf<String, MutableList<String>>()
-  private val packageCache = mutableMapOf<String, MutableSet<String>>()
+  /**
+   * The result of analyzing a file.
+   *
+   * @property contentHash The hash of the analyzed content.
+   * @property generation The value of [indexGeneration] when the file was analyzed.
+   * @property diagnostics The diagnostics for the file.
+   * @property metadataKeys The keys of the [diagnosticMetadata] entries of the diagnostics.
+   */
+  private class AnalysisResult(
+      val contentHash: Long,
+      val generation: Int,
+      val diagnostics: List<DiagnosticItem>,
+      val metadataKeys: List<String>,
+  )
+
+  // Reverse index of simple class names to their fully qualified names
+  private val importCache = ConcurrentHashMap<String, List<String>>()
+  private val packageCache = ConcurrentHashMap<String, MutableSet<String>>()
+
+  // Suggestions computed from the import cache, filtered with the configured exclusions
+  private val suggestionCache = ConcurrentHashMap<String, List<String>>()
+
+  // Incremented whenever the results of previous analyses may have become stale
+  @Volatile private var indexGeneration = 0
+  private val analysisCache = ConcurrentHashMap<Path, AnalysisResult>()
 
   // Store diagnostic metadata separately since DiagnosticItem doesn't support data field
-  private val diagnosticMetadata = mutableMapOf<String, DiagnosticMetadata>()
+  private val diagnosticMetadata = ConcurrentHashMap<String, DiagnosticMetadata>()
   private val analysisDispatcher =
       Dispatchers.Default.limitedParallelism(Runtime.getRuntime().availableProcessors())
 
@@ -76,6 +109,9 @@ class KotlinImportAnalyzer {
 
   private var config = AnalyzerConfig()
 
+  // Symbols indexed by the language server, used to suggest imports for project classes
+  @Volatile private var indexCache: KotlinIndexCache? = null
+
   /** Updates analyzer configuration */
   fun updateConfig(newConfig: AnalyzerConfig) {
     config = newConfig
@@ -83,10 +119,31 @@ class KotlinImportAnalyzer {
     clearCache()
   }
 
+  /** Sets the symbol index used to find imports for classes declared in the project */
+  fun setIndexCache(cache: KotlinIndexCache?) {
+    indexCache = cache
+    invalidateAnalyses()
+  }
+
+  /** Called when the indexed project symbols have changed */
+  fun onProjectSymbolsChanged() {
+    invalidateAnalyses()
+  }
+
   /** Analyzes file content and returns diagnostics for missing imports */
   suspend fun analyzeMissingImports(file: Path, content: String): List<DiagnosticItem> =
       withContext(analysisDispatcher) {
+        val contentHash =
+            (content.length.toLong() shl 32) or (content.hashCode().toLong() and 0xFFFFFFFFL)
+        val generation = indexGeneration
+        analysisCache[file]?.let { cached ->
+          if (cached.contentHash == contentHash && cached.generation == generation) {
+            return@withContext cached.diagnostics
+          }
+        }
+
         val diagnostics = mutableListOf<DiagnosticItem>()
+        val metadataKeys = mutableListOf<String>()
         val existingImports = extractExistingImports(content)
 
         // Find all unresolved class references
@@ -105,6 +162,7 @@ class KotlinImportAnalyzer {
 
                         // Store metadata
                         val key = "${file}:${pos.start.line}:${pos.start.column}"
+                        synchronized(metadataKeys) { metadataKeys.add(key) }
                         diagnosticMetadata[key] =
                             DiagnosticMetadata(
                                 className = className,
@@ -123,6 +181,17 @@ class KotlinImportAnalyzer {
                 .flatten()
 
         diagnostics.addAll(results)
+
+        // drop the metadata of the diagnostics from the previous analysis of this file
+        val previous =
+            analysisCache.put(
+                file,
+                AnalysisResult(contentHash, generation, diagnostics, metadataKeys),
+            )
+        previous?.metadataKeys?.forEach { key ->
+          if (key !in metadataKeys) diagnosticMetadata.remove(key)
+        }
+
         return@withContext diagnostics
       }
 
@@ -135,9 +204,8 @@ class KotlinImportAnalyzer {
   /** Extracts existing import statements from file */
   private fun extractExistingImports(content: String): Set<String> {
     val imports = mutableSetOf<String>()
-    val importRegex = """import\s+([\w.$\_]+)(?:\s*\.\s*\*)?""".toRegex()
 
-    importRegex.findAll(content).forEach { match -> imports.add(match.groupValues[1]) }
+    IMPORT_REGEX.findAll(content).forEach { match -> imports.add(match.groupValues[1]) }
 
     return imports
   }
@@ -148,38 +216,27 @@ class KotlinImportAnalyzer {
       existingImports: Set<String>,
   ): Map<String, List<Range>> {
     val unresolvedMap = mutableMapOf<String, MutableList<Range>>()
-    val lines = content.split("\n")
-
-    // Improved regex to match class names (uppercase start) and avoid false positives
-    val classRefRegex = """\b([A-Z][A-Za-z0-9_]*)\b""".toRegex()
-
-    lines.forEachIndexed { lineIndex, line ->
-      // Skip import lines, package lines, and comments
-      if (shouldSkipLine(line)) {
-        return@forEachIndexed
-      }
+    val currentPackage = PACKAGE_REGEX.find(content)?.groupValues?.get(1)
 
-      classRefRegex.findAll(line).forEach { match ->
-        val className = match.value
+    // Names that have already been checked, mapped to whether they are unresolved
+    val checked = mutableMapOf<String, Boolean>()
 
-        // Skip if already imported or is a known type
-        if (
+    KotlinTypeReferenceScanner(content).scan { className, lineIndex, startCol ->
+      val unresolved =
+          checked.getOrPut(className) {
             !isAlreadyResolved(className, existingImports) &&
                 !isKnownType(className) &&
-                !isInCurrentPackage(className, content) &&
+                !isInCurrentPackage(className, currentPackage) &&
                 isValidClassName(className)
-        ) {
-
-          val startCol = match.range.first
-          val endCol = match.range.last + 1
+          }
 
-          val range =
-              Range(start = Position(lineIndex, startCol), end = Position(lineIndex, endCol))
+      if (unresolved) {
+        val endCol = startCol + className.length
+        val range = Range(start = Position(lineIndex, startCol), end = Position(lineIndex, endCol))
 
-          unresolvedMap.getOrPut(className) { mutableListOf() }.add(range)
+        unresolvedMap.getOrPut(className) { mutableListOf() }.add(range)
 
-          KslLogs.debug("Found unresolved reference: '{}' at line {}", className, lineIndex)
-        }
+        KslLogs.debug("Found unresolved reference: '{}' at line {}", className, lineIndex)
       }
     }
 
@@ -193,24 +250,11 @@ class KotlinImportAnalyzer {
     if (className.length == 1) return false
 
     // Skip common false positives
-    val falsePositives = setOf("Companion", "TODO", "TODO0", "TODO1")
-    if (className in falsePositives) return false
+    if (className in FALSE_POSITIVES) return false
 
     return true
   }
 
-  /** Determines if a line should be skipped during analysis */
-  private fun shouldSkipLine(line: String): Boolean {
-    val trimmed = line.trim()
-    return trimmed.startsWith("import ") ||
-        trimmed.startsWith("package ") ||
-        trimmed.startsWith("//") ||
-        trimmed.startsWith("/*") ||
-        trimmed.startsWith("*") ||
-        trimmed.startsWith("@") ||
-        trimmed.isEmpty()
-  }
-
   /** Checks if a class is already resolved (imported or in same package) */
   private fun isAlreadyResolved(className: String, existingImports: Set<String>): Boolean {
     // Check if any import ends with this class name or uses wildcard
@@ -225,11 +269,8 @@ class KotlinImportAnalyzer {
   }
 
   /** Checks if a type is in the current package (no import needed) */
-  private fun isInCurrentPackage(className: String, content: String): Boolean {
-    val packageRegex = """package\s+([\w.]+)""".toRegex()
-    val packageMatch = packageRegex.find(content)
-    if (packageMatch != null) {
-      val currentPackage = packageMatch.groupValues[1]
+  private fun isInCurrentPackage(className: String, currentPackage: String?): Boolean {
+    if (currentPackage != null) {
       // In Kotlin, classes in the same package don't need imports
       // We assume the class exists in the same package
       return true // Conservative approach - we'll refine this with actual project structure later
@@ -308,25 +349,26 @@ class KotlinImportAnalyzer {
 
   /** Finds possible fully qualified names for a class */
   private fun findPossibleImports(className: String): List<String> {
-    // Check cache first
-    if (importCache.containsKey(className)) {
-      return importCache[className]!!.take(config.maxImportSuggestions)
+    return suggestionCache.getOrPut(className) {
+      val candidates = (importCache[className] ?: emptyList()) + findProjectImports(className)
+      candidates
+          .distinct()
+          .filter { fqn -> !isPackageExcluded(fqn.substringBeforeLast('.', "")) }
+          .take(config.maxImportSuggestions)
     }
+  }
 
-    val possibleImports = mutableListOf<String>()
-
-    // Check package cache for dynamic discovery
-    if (packageCache.isNotEmpty()) {
-      packageCache.forEach { (packageName, classes) ->
-        if (classes.contains(className) && !isPackageExcluded(packageName)) {
-          possibleImports.add("$packageName.$className")
+  /** Finds classes named [className] in the symbol index of the project */
+  private fun findProjectImports(className: String): List<String> {
+    val cache = indexCache ?: return emptyList()
+    return cache
+        .findSymbols(className, PROJECT_SYMBOL_LOOKUP_LIMIT)
+        .filter { symbol ->
+          symbol.name == className &&
+              symbol.kind in CLASS_SYMBOL_KINDS &&
+              symbol.containerName.isNotEmpty()
         }
-      }
-    }
-
-    // Store in cache (limited to max suggestions)
-    importCache[className] = possibleImports.toMutableList()
-    return possibleImports.take(config.maxImportSuggestions)
+        .map { symbol -> "${symbol.containerName}.${symbol.name}" }
   }
 
   /** Checks if a package should be excluded from suggestions */
@@ -369,6 +411,7 @@ class KotlinImportAnalyzer {
         // Clear previous cache
         packageCache.clear()
         importCache.clear()
+        invalidateAnalyses()
 
         // Get all classes from classpath
         val allClasses =
@@ -378,7 +421,9 @@ class KotlinImportAnalyzer {
 
         KslLogs.info("Found {} classes from classpath", allClasses.size)
 
-        // Build package and import caches
+        // Build package and import caches. The import lists are accumulated in place and published
+        // once complete, instead of copying a list for every class.
+        val imports = HashMap<String, MutableList<String>>()
         allClasses.forEach { fqn ->
           val className = fqn.substringAfterLast('.')
           val packageName = fqn.substringBeforeLast('.', "")
@@ -388,7 +433,7 @@ class KotlinImportAnalyzer {
             packageCache.getOrPut(packageName) { mutableSetOf() }.add(className)
 
             // Add to import cache
-            importCache.getOrPut(className) { mutableListOf() }.add(fqn)
+            imports.getOrPut(className) { ArrayList(1) }.add(fqn)
           }
         }
 
@@ -400,7 +445,9 @@ class KotlinImportAnalyzer {
         }
 
         // Add common Android classes dynamically
-        addCommonAndroidClasses()
+        addCommonAndroidClasses(imports)
+        importCache.putAll(imports)
+        invalidateAnalyses()
 
         log.info(
             "Import cache updated with {} classes from {} packages",
@@ -420,7 +467,7 @@ class KotlinImportAnalyzer {
   }
 
   /** Add common Android classes that might not be in JARs but are commonly used */
-  private fun addCommonAndroidClasses() {
+  private fun addCommonAndroidClasses(imports: MutableMap<String, MutableList<String>>) {
     val commonAndroidClasses =
         mapOf(
             "Toast" to "android.widget.Toast",
@@ -436,7 +483,10 @@ class KotlinImportAnalyzer {
         )
 
     commonAndroidClasses.forEach { (className, fqn) ->
-      importCache.getOrPut(className) { mutableListOf() }.add(fqn)
+      val candidates = imports.getOrPut(className) { ArrayList(1) }
+      if (fqn !in candidates) {
+        candidates.add(fqn)
+      }
       val packageName = fqn.substringBeforeLast('.')
       packageCache.getOrPut(packageName) { mutableSetOf() }.add(className)
     }
@@ -449,47 +499,40 @@ class KotlinImportAnalyzer {
 
   /** Manually add specific class mappings */
   fun addClassMapping(className: String, fullyQualifiedName: String) {
-    importCache.getOrPut(className) { mutableListOf() }.add(fullyQualifiedName)
+    addImport(className, fullyQualifiedName)
 
     val packageName = fullyQualifiedName.substringBeforeLast('.', "")
     if (packageName.isNotEmpty()) {
       packageCache.getOrPut(packageName) { mutableSetOf() }.add(className)
     }
+    invalidateAnalyses()
   }
 
-  private fun extractClassNamesFromJar(jarFile: java.io.File): List<String> {
-    val classNames = mutableListOf<String>()
+  /** Adds a single mapping. Published lists are never modified, so the list is copied. */
+  private fun addImport(className: String, fqn: String) {
+    importCache.compute(className) { _, existing -> (existing ?: emptyList()) + fqn }
+  }
 
-    try {
-      if (!jarFile.exists() || !jarFile.name.endsWith(".jar")) {
-        return emptyList()
-      }
+  private fun invalidateAnalyses() {
+    suggestionCache.clear()
+    analysisCache.clear()
+    indexGeneration++
+  }
 
-      JarFile(jarFile).use { jar ->
-        val entries = jar.entries()
-        while (entries.hasMoreElements()) {
-          val entry = entries.nextElement()
-          val name = entry.name
-
-          // Only process .class files and exclude inner classes
-          if (name.endsWith(".class") && !name.contains("$")) {
-            // Convert path to FQN: com/example/MyClass.class -> com.example.MyClass
-            val fqn = name.substring(0, name.length - 6).replace('/', '.')
-            classNames.add(fqn)
-          }
-        }
-      }
-    } catch (e: Exception) {
-      log.debug("Failed to scan JAR: {}", jarFile.name)
+  private fun extractClassNamesFromJar(jarFile: java.io.File): List<String> {
+    if (!jarFile.exists() || !jarFile.name.endsWith(".jar")) {
+      return emptyList()
     }
 
-    return classNames
+    // Exclude inner classes
+    return ClasspathSymbolTable.classNames(jarFile).filter { !it.contains('$') }
   }
 
   fun clearCache() {
     importCache.clear()
     packageCache.clear()
     diagnosticMetadata.clear()
+    invalidateAnalyses()
   }
 
   /** Get cache statistics for debugging */
@@ -498,6 +541,7 @@ class KotlinImportAnalyzer {
         "importCacheSize" to importCache.size,
         "packageCacheSize" to packageCache.size,
         "diagnosticMetadataSize" to diagnosticMetadata.size,
+        "analysisCacheSize" to analysisCache.size,
     )
   }
 }
@@ -33,9 +33,11 @@ class KotlinIndexCache(private val projectPath: String) {
 
   companion object {
     private val log = LoggerFactory.getLogger(KotlinIndexCache::class.java)
-    private const val CACHE_VERSION = 1
+    private const val LEGACY_CACHE_VERSION = 1
     private const val CACHE_DIR_NAME = "kls-cache"
-    private const val CACHE_FILE_NAME = "index-cache.json"
+    private const val LEGACY_CACHE_FILE_NAME = "index-cache.json"
+    private const val SYMBOL_FILE_NAME = "index-cache.bin"
+    private const val SYMBOL_LOG_FILE_NAME = "index-cache.log"
     private const val CLASSPATH_HASH_FILE = "classpath-hash.txt"
   }
 
@@ -47,9 +49,13 @@ class KotlinIndexCache(private val projectPath: String) {
   // Create project-specific cache directory using project path hash
   private val projectHash = computeHash(projectPath)
   private val cacheDir = File(globalCacheDir, projectHash)
-  private val cacheFile = File(cacheDir, CACHE_FILE_NAME)
+  private val legacyCacheFile = File(cacheDir, LEGACY_CACHE_FILE_NAME)
+  private val cacheFile = File(cacheDir, SYMBOL_FILE_NAME)
+  private val cacheLogFile = File(cacheDir, SYMBOL_LOG_FILE_NAME)
   private val hashFile = File(cacheDir, CLASSPATH_HASH_FILE)
 
+  private val symbolStore = KotlinSymbolStore(cacheFile, cacheLogFile)
+
   init {
     cacheDir.mkdirs()
     KslLogs.debug("Cache directory: {}", cacheDir.absolutePath)
@@ -72,6 +78,7 @@ class KotlinIndexCache(private val projectPath: String) {
 
   /** Check if cache is valid */
   fun isCacheValid(currentClasspathHash: String): Boolean {
+    migrateLegacyCache()
     if (!cacheFile.exists() || !hashFile.exists()) {
       KslLogs.info("Cache files don't exist for project")
       return false
@@ -96,16 +103,7 @@ class KotlinIndexCache(private val projectPath: String) {
   /** Save indexed symbols to cache */
   fun saveCache(symbols: JsonArray, classpathHash: String) {
     try {
-      val cacheData =
-          JsonObject().apply {
-            addProperty("version", CACHE_VERSION)
-            addProperty("timestamp", System.currentTimeMillis())
-            addProperty("projectPath", projectPath)
-            addProperty("classpathHash", classpathHash)
-            add("symbols", symbols)
-          }
-
-      cacheFile.writeText(gson.toJson(cacheData))
+      symbolStore.write(symbols.mapNotNull { KotlinSymbolStore.Symbol.fromJson(it) }, classpathHash)
       hashFile.writeText(classpathHash)
 
       KslLogs.info(
@@ -119,38 +117,102 @@ class KotlinIndexCache(private val projectPath: String) {
     }
   }
 
-  /** Load cached symbols */
-  fun loadCache(): JsonArray? {
-    if (!cacheFile.exists()) {
+  /**
+   * Open the memory-mapped symbol store, migrating a legacy JSON cache first if needed.
+   *
+   * @return The opened store, or `null` if there is no usable cache.
+   */
+  fun openSymbols(): KotlinSymbolStore? {
+    if (symbolStore.isOpen) {
+      return symbolStore
+    }
+
+    migrateLegacyCache()
+    if (!symbolStore.open()) {
       return null
     }
 
+    KslLogs.info("Opened symbol cache with {} symbols from {}", symbolStore.size, cacheFile)
+    return symbolStore
+  }
+
+  /** Find cached symbols whose name starts with [prefix], ignoring case */
+  fun findSymbols(prefix: String, limit: Int = Int.MAX_VALUE): List<KotlinSymbolStore.Symbol> {
+    return openSymbols()?.find(prefix, limit) ?: emptyList()
+  }
+
+  /** Replace the cached symbols declared in the file with the given [uri] by [symbols] */
+  fun updateSymbols(uri: String, symbols: List<KotlinSymbolStore.Symbol>) {
     try {
-      val cacheData = gson.fromJson(cacheFile.readText(), JsonObject::class.java)
-      val version = cacheData.get("version")?.asInt ?: 0
+      if (openSymbols() == null) {
+        return
+      }
+      if (symbols.isEmpty()) {
+        symbolStore.removeUri(uri)
+      } else {
+        symbolStore.append(symbols.map { if (it.uri == uri) it else it.copy(uri = uri) })
+      }
+    } catch (e: Exception) {
+      KslLogs.error("Failed to update symbols in cache", e)
+    }
+  }
 
-      if (version != CACHE_VERSION) {
-        KslLogs.warn("Cache version mismatch: expected={}, found={}", CACHE_VERSION, version)
-        return null
+  /** Remove the cached symbols declared in the file with the given [uri] */
+  fun removeSymbols(uri: String) {
+    try {
+      if (openSymbols() == null) {
+        return
       }
+      symbolStore.removeUri(uri)
+    } catch (e: Exception) {
+      KslLogs.error("Failed to remove symbols from cache", e)
+    }
+  }
 
-      val symbols = cacheData.getAsJsonArray("symbols")
-      KslLogs.info(
-          "Loaded cache with {} symbols from {}",
-          symbols?.size() ?: 0,
-          cacheFile.absolutePath,
-      )
-      return symbols
+  /** Fold appended updates into the base symbol file */
+  fun compactCache() {
+    try {
+      symbolStore.compact()
     } catch (e: Exception) {
-      KslLogs.error("Failed to load cache", e)
-      return null
+      KslLogs.error("Failed to compact cache", e)
+    }
+  }
+
+  /** Convert a JSON cache written by earlier versions into the binary symbol store */
+  private fun migrateLegacyCache() {
+    if (!legacyCacheFile.exists()) {
+      return
+    }
+
+    try {
+      if (!cacheFile.exists()) {
+        val cacheData = gson.fromJson(legacyCacheFile.readText(), JsonObject::class.java)
+        val version = cacheData.get("version")?.asInt ?: 0
+        val symbols = cacheData.getAsJsonArray("symbols")
+        val classpathHash = cacheData.get("classpathHash")?.asString
+
+        if (version == LEGACY_CACHE_VERSION && symbols != null && classpathHash != null) {
+          symbolStore.write(
+              symbols.mapNotNull { KotlinSymbolStore.Symbol.fromJson(it) },
+              classpathHash,
+          )
+          KslLogs.info("Migrated {} symbols from legacy JSON cache", symbols.size())
+        } else {
+          KslLogs.warn("Discarding legacy cache with version {}", version)
+        }
+      }
+    } catch (e: Exception) {
+      KslLogs.error("Failed to migrate legacy cache", e)
+    } finally {
+      legacyCacheFile.delete()
     }
   }
 
   /** Clear cache for this project */
   fun clearCache() {
     try {
-      cacheFile.delete()
+      symbolStore.clear()
+      legacyCacheFile.delete()
       hashFile.delete()
       KslLogs.info("Cache cleared for project")
     } catch (e: Exception) {
@@ -161,6 +223,7 @@ class KotlinIndexCache(private val projectPath: String) {
   /** Clear all caches (for all projects) */
   fun clearAllCaches() {
     try {
+      symbolStore.close()
       globalCacheDir.deleteRecursively()
       globalCacheDir.mkdirs()
       KslLogs.info("All caches cleared")
@@ -177,6 +240,7 @@ class KotlinIndexCache(private val projectPath: String) {
       append("Cache exists: ${cacheFile.exists()}\n")
       if (cacheFile.exists()) {
         append("Cache size: ${cacheFile.length() / 1024} KB\n")
+        append("Pending updates: ${cacheLogFile.length() / 1024} KB\n")
         append("Last modified: ${java.util.Date(cacheFile.lastModified())}\n")
       }
     }
@@ -18,8 +18,12 @@ package com.itsaky.tom.rv2ide.lsp.kotlin
 
 import android.content.Context
 import com.itsaky.tom.rv2ide.eventbus.events.editor.DocumentChangeEvent
+import com.itsaky.tom.rv2ide.eventbus.events.editor.DocumentCloseEvent
 import com.itsaky.tom.rv2ide.eventbus.events.editor.DocumentOpenEvent
+import com.itsaky.tom.rv2ide.eventbus.events.editor.DocumentSaveEvent
 import com.itsaky.tom.rv2ide.eventbus.events.editor.DocumentSelectedEvent
+import com.itsaky.tom.rv2ide.eventbus.events.file.FileDeletionEvent
+import com.itsaky.tom.rv2ide.eventbus.events.file.FileRenameEvent
 import com.itsaky.tom.rv2ide.lsp.api.ILanguageClient
 import com.itsaky.tom.rv2ide.lsp.api.ILanguageServer
 import com.itsaky.tom.rv2ide.lsp.api.IServerSettings
@@ -32,6 +36,7 @@ import com.itsaky.tom.rv2ide.projects.IWorkspace
 import com.itsaky.tom.rv2ide.utils.VMUtils
 import io.github.rosemoe.sora.widget.CodeEditor
 import java.nio.file.Path
+import java.util.concurrent.ConcurrentHashMap
 import kotlinx.coroutines.*
 import org.greenrobot.eventbus.EventBus
 import org.greenrobot.eventbus.Subscribe
@@ -53,6 +58,9 @@ class KotlinLanguageServer(private val context: Context) : ILanguageServer {
   private var selectedFile: java.nio.file.Path? = null
   private val diagnosticProvider = KotlinDiagnosticProvider()
 
+  // files for which the KLS server has published diagnostics at least once
+  private val serverDiagnosedFiles = ConcurrentHashMap.newKeySet<Path>()
+
   private val processManager = KotlinServerProcessManager(context)
   private val documentManager = KotlinDocumentManager(processManager)
   private val requestHandler = KotlinRequestHandler(processManager, documentManager)
@@ -83,6 +91,7 @@ class KotlinLanguageServer(private val context: Context) : ILanguageServer {
     }
 
     processManager.setDiagnosticsCallback { diagnostics ->
+      serverDiagnosedFiles.add(diagnostics.file)
       if (LspFeatures.isDiagnosticsEnabled() == true) {
         _client?.publishDiagnostics(diagnostics)
 
@@ -112,6 +121,7 @@ class KotlinLanguageServer(private val context: Context) : ILanguageServer {
 
     workspaceSetup = KotlinWorkspaceSetup(context, workspace)
     workspaceSetup?.setup(processManager)
+    importAnalyzer.setIndexCache(workspaceSetup?.getIndexCache())
 
     javaCompilerBridge = KotlinJavaCompilerBridge(workspace)
     requestHandler.setJavaCompilerBridge(javaCompilerBridge)
@@ -231,15 +241,18 @@ class KotlinLanguageServer(private val context: Context) : ILanguageServer {
     }
 
     return try {
-      // Only check for import issues - let KLS server handle other diagnostics
       val content = file.toFile().readText()
       val importDiagnostics = importAnalyzer.analyzeMissingImports(file, content)
 
-      if (importDiagnostics.isNotEmpty()) {
-        DiagnosticResult(file, importDiagnostics)
-      } else {
-        DiagnosticResult.NO_UPDATE
+      // Report the local tree-sitter diagnostics until the KLS server has analyzed the file
+      if (file in serverDiagnosedFiles) {
+        return if (importDiagnostics.isNotEmpty()) DiagnosticResult(file, importDiagnostics)
+        else DiagnosticResult.NO_UPDATE
       }
+
+      // an empty result clears the diagnostics of the previous analysis
+      val localDiagnostics = diagnosticProvider.analyze(file, content).diagnostics
+      DiagnosticResult(file, importDiagnostics + localDiagnostics)
     } catch (e: Exception) {
       KslLogs.error("Failed to analyze file", e)
       DiagnosticResult.NO_UPDATE
@@ -351,6 +364,8 @@ class KotlinLanguageServer(private val context: Context) : ILanguageServer {
     }
     processManager.shutdown()
     importAnalyzer.clearCache()
+    diagnosticProvider.close()
+    serverDiagnosedFiles.clear()
     initialized = false
     analyzeTimer.cancel()
     KslLogs.info("Kotlin Language Server shutdown complete")
@@ -395,7 +410,7 @@ class KotlinLanguageServer(private val context: Context) : ILanguageServer {
     }
   }
 
-  @Subscribe(threadMode = ThreadMode.ASYNC)
+  @Subscribe(threadMode = ThreadMode.ASYNC, coalesce = true)
   @Suppress("unused")
   fun onContentChange(event: DocumentChangeEvent) {
     if (
@@ -418,6 +433,52 @@ class KotlinLanguageServer(private val context: Context) : ILanguageServer {
     startOrRestartAnalyzeTimer()
   }
 
+  @Subscribe(threadMode = ThreadMode.ASYNC)
+  @Suppress("unused")
+  fun onFileSaved(event: DocumentSaveEvent) {
+    if (!isKotlinFile(event.savedFile)) return
+    documentManager.ensureDocumentOpen(event.savedFile)
+    workspaceSetup?.updateFileSymbols(processManager, event.savedFile) {
+      importAnalyzer.onProjectSymbolsChanged()
+    }
+  }
+
+  @Subscribe(threadMode = ThreadMode.ASYNC)
+  @Suppress("unused")
+  fun onFileDeleted(event: FileDeletionEvent) {
+    if (!isKotlinFile(event.file.toPath())) return
+    diagnosticProvider.invalidate(event.file.toPath())
+    workspaceSetup?.removeFileSymbols(event.file.toPath())
+    importAnalyzer.onProjectSymbolsChanged()
+  }
+
+  @Subscribe(threadMode = ThreadMode.ASYNC)
+  @Suppress("unused")
+  fun onFileClosed(event: DocumentCloseEvent) {
+    if (!isKotlinFile(event.closedFile)) return
+    diagnosticProvider.invalidate(event.closedFile)
+  }
+
+  @Subscribe(threadMode = ThreadMode.ASYNC)
+  @Suppress("unused")
+  fun onFileRenamed(event: FileRenameEvent) {
+    if (isKotlinFile(event.file.toPath())) {
+      diagnosticProvider.invalidate(event.file.toPath())
+      workspaceSetup?.removeFileSymbols(event.file.toPath())
+      importAnalyzer.onProjectSymbolsChanged()
+    }
+    if (isKotlinFile(event.newFile.toPath())) {
+      workspaceSetup?.updateFileSymbols(processManager, event.newFile.toPath()) {
+        importAnalyzer.onProjectSymbolsChanged()
+      }
+    }
+  }
+
+  private fun isKotlinFile(file: Path): Boolean {
+    val name = file.toString()
+    return name.endsWith(".kt") || name.endsWith(".kts")
+  }
+
   @Subscribe(threadMode = ThreadMode.ASYNC)
   fun onFileSelected(event: DocumentSelectedEvent) {
     KslLogs.info("=== FILE SELECTED EVENT: {}", event.selectedFile)
@@ -0,0 +1,560 @@
+/*
+ *  This file is part of AndroidCodeStudio.
+ *
+ *  AndroidCodeStudio is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidCodeStudio is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidCodeStudio.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.lsp.kotlin
+
+import com.google.gson.JsonElement
+import com.google.gson.JsonObject
+import java.io.BufferedInputStream
+import java.io.BufferedOutputStream
+import java.io.Closeable
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.EOFException
+import java.io.File
+import java.io.FileOutputStream
+import java.io.RandomAccessFile
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.util.Locale
+import java.util.concurrent.locks.ReentrantReadWriteLock
+import kotlin.concurrent.read
+import kotlin.concurrent.write
+
+/**
+ * Binary, memory-mapped store for the symbols indexed by the Kotlin language server.
+ *
+ * The base file is written once per full index and mapped read-only. It holds a header, a table
+ * of de-duplicated UTF-8 strings and fixed-width symbol records sorted by their lower-cased name,
+ * so lookups binary-search the mapping and decode only the records they return. Incremental
+ * changes go to a separate append-only log which is replayed on open and folded into the base
+ * file by [compact].
+ *
+ * Base file layout (big-endian):
+ * ```
+ * header   : magic, version, recordCount, stringTableOffset, recordsOffset, classpathHashRef
+ * strings  : (length: int, utf8: byte[length])*
+ * records  : (keyRef, nameRef, containerRef, uriRef, kind,
+ *             startLine, startChar, endLine, endChar)*   -- 9 ints each
+ * ```
+ *
+ * @author Akash Yadav
+ */
+class KotlinSymbolStore(private val file: File, private val logFile: File) : Closeable {
+
+  /** A symbol as reported by `workspace/symbol` or `textDocument/documentSymbol`. */
+  data class Symbol(
+      val name: String,
+      val kind: Int,
+      val containerName: String,
+      val uri: String,
+      val startLine: Int,
+      val startChar: Int,
+      val endLine: Int,
+      val endChar: Int,
+  ) {
+
+    internal val key: String
+      get() = name.lowercase(Locale.ROOT)
+
+    companion object {
+
+      /** Reads a `SymbolInformation` object, or returns `null` if it has no name. */
+      @JvmStatic
+      fun fromJson(element: JsonElement?): Symbol? {
+        val obj = element?.takeIf { it.isJsonObject }?.asJsonObject ?: return null
+        val name = obj.string("name") ?: return null
+        val location = obj.obj("location")
+        val range = location?.obj("range")
+        val start = range?.obj("start")
+        val end = range?.obj("end")
+        return Symbol(
+            name = name,
+            kind = obj.int("kind"),
+            containerName = obj.string("containerName") ?: "",
+            uri = location?.string("uri") ?: "",
+            startLine = start?.int("line") ?: 0,
+            startChar = start?.int("character") ?: 0,
+            endLine = end?.int("line") ?: 0,
+            endChar = end?.int("character") ?: 0,
+        )
+      }
+
+      /**
+       * Reads a hierarchical `DocumentSymbol` declared in [uri] and adds it, followed by its
+       * children, to [out]. A `SymbolInformation` is accepted as well.
+       *
+       * @param containerName The qualified name of the enclosing declaration or package.
+       */
+      @JvmStatic
+      fun fromDocumentSymbol(
+          element: JsonElement?,
+          uri: String,
+          containerName: String,
+          out: MutableList<Symbol>,
+      ) {
+        val obj = element?.takeIf { it.isJsonObject }?.asJsonObject ?: return
+        if (obj.has("location")) {
+          fromJson(obj)?.let { out.add(it.copy(uri = uri)) }
+          return
+        }
+
+        val name = obj.string("name") ?: return
+        val range = obj.obj("selectionRange") ?: obj.obj("range")
+        val start = range?.obj("start")
+        val end = range?.obj("end")
+        out.add(
+            Symbol(
+                name = name,
+                kind = obj.int("kind"),
+                containerName = containerName,
+                uri = uri,
+                startLine = start?.int("line") ?: 0,
+                startChar = start?.int("character") ?: 0,
+                endLine = end?.int("line") ?: 0,
+                endChar = end?.int("character") ?: 0,
+            )
+        )
+
+        val children = obj.get("children")?.takeIf { it.isJsonArray }?.asJsonArray ?: return
+        val childContainer = if (containerName.isEmpty()) name else "$containerName.$name"
+        children.forEach { fromDocumentSymbol(it, uri, childContainer, out) }
+      }
+
+      private fun JsonObject.obj(name: String): JsonObject? =
+          get(name)?.takeIf { it.isJsonObject }?.asJsonObject
+
+      private fun JsonObject.string(name: String): String? =
+          get(name)?.takeIf { it.isJsonPrimitive }?.asString
+
+      private fun JsonObject.int(name: String): Int =
+          get(name)?.takeIf { it.isJsonPrimitive }?.asInt ?: 0
+    }
+  }
+
+  companion object {
+    const val FORMAT_VERSION = 2
+
+    private const val MAGIC = 0x4B53594D // "KSYM"
+    private const val HEADER_SIZE = 24
+    private const val RECORD_INTS = 9
+    private const val RECORD_SIZE = RECORD_INTS * 4
+
+    private const val OP_ADD: Byte = 1
+    private const val OP_REMOVE_URI: Byte = 2
+
+    /** Compact automatically once the log holds this many operations. */
+    private const val COMPACT_LOG_OPS = 4096
+  }
+
+  private val lock = ReentrantReadWriteLock()
+
+  private var buffer: ByteBuffer? = null
+  private var recordCount = 0
+  private var recordsOffset = 0
+  private var hash: String? = null
+
+  // Replayed state of the append log
+  private val addedByUri = LinkedHashMap<String, MutableList<Symbol>>()
+  private val removedUris = HashSet<String>()
+  private var logOps = 0
+  private var logOut: DataOutputStream? = null
+
+  /** Whether the base file is mapped. */
+  val isOpen: Boolean
+    get() = lock.read { buffer != null }
+
+  /** The classpath hash recorded when the base file was written. */
+  val classpathHash: String?
+    get() = lock.read { hash }
+
+  /** Number of live symbols (base records not removed by the log, plus logged additions). */
+  val size: Int
+    get() {
+      return lock.read {
+        var count = addedByUri.values.sumOf { it.size }
+        if (removedUris.isEmpty()) {
+          count += recordCount
+        } else {
+          val buf = buffer
+          for (i in 0 until recordCount) {
+            if (buf != null && readString(buf, field(buf, i, 3)) !in removedUris) count++
+          }
+        }
+        count
+      }
+    }
+
+  /**
+   * Maps the base file and replays the append log.
+   *
+   * @return `true` if the base file exists and has a supported format.
+   */
+  fun open(): Boolean {
+    return lock.write {
+      if (buffer != null) return@write true
+      if (!file.isFile) return@write false
+
+      val mapped =
+          try {
+            RandomAccessFile(file, "r").use { raf ->
+              raf.channel.map(FileChannel.MapMode.READ_ONLY, 0, raf.length())
+            }
+          } catch (e: Exception) {
+            KslLogs.error("Failed to map symbol store", e)
+            return@write false
+          }
+
+      if (mapped.capacity() < HEADER_SIZE || mapped.getInt(0) != MAGIC) {
+        KslLogs.warn("Invalid symbol store header in {}", file.absolutePath)
+        return@write false
+      }
+
+      val version = mapped.getInt(4)
+      if (version != FORMAT_VERSION) {
+        KslLogs.warn(
+            "Symbol store version mismatch: expected={}, found={}",
+            FORMAT_VERSION,
+            version,
+        )
+        return@write false
+      }
+
+      val count = mapped.getInt(8)
+      val recordsAt = mapped.getInt(16)
+      if (count < 0 || recordsAt.toLong() + count.toLong() * RECORD_SIZE > mapped.capacity()) {
+        KslLogs.warn("Truncated symbol store: {}", file.absolutePath)
+        return@write false
+      }
+
+      buffer = mapped
+      recordCount = count
+      recordsOffset = recordsAt
+      hash = readString(mapped, mapped.getInt(20))
+
+      // Operations appended before the base was mapped are read back from the log
+      addedByUri.clear()
+      removedUris.clear()
+      logOps = 0
+      replayLog()
+      true
+    }
+  }
+
+  /**
+   * Replaces the base file with [symbols], sorted and de-duplicated into a fresh string table, and
+   * discards the append log.
+   */
+  fun write(symbols: Collection<Symbol>, classpathHash: String) {
+    lock.write {
+      writeBase(symbols, classpathHash)
+      resetLog()
+      unmap()
+    }
+    open()
+  }
+
+  /** Returns up to [limit] symbols whose name starts with [prefix], ignoring case. */
+  fun find(prefix: String, limit: Int = Int.MAX_VALUE): List<Symbol> {
+    val key = prefix.lowercase(Locale.ROOT)
+    return lock.read {
+      val result = ArrayList<Symbol>()
+      val buf = buffer
+      if (buf != null) {
+        var i = lowerBound(buf, key)
+        while (i < recordCount && result.size < limit) {
+          if (!readString(buf, field(buf, i, 0)).startsWith(key)) break
+          val symbol = readRecord(buf, i)
+          if (symbol.uri !in removedUris) result.add(symbol)
+          i++
+        }
+      }
+      for (added in addedByUri.values) {
+        for (symbol in added) {
+          if (result.size >= limit) break
+          if (symbol.key.startsWith(key)) result.add(symbol)
+        }
+      }
+      result
+    }
+  }
+
+  /** Invokes [action] for every live symbol, in name order for the base records. */
+  fun forEach(action: (Symbol) -> Unit) {
+    lock.read {
+      val buf = buffer
+      if (buf != null) {
+        for (i in 0 until recordCount) {
+          val symbol = readRecord(buf, i)
+          if (symbol.uri !in removedUris) action(symbol)
+        }
+      }
+      addedByUri.values.forEach { it.forEach(action) }
+    }
+  }
+
+  /**
+   * Appends [symbols] to the log. Symbols previously stored for the same document are replaced.
+   */
+  fun append(symbols: Collection<Symbol>) {
+    if (symbols.isEmpty()) return
+    val shouldCompact =
+        lock.write {
+          val out = logWriter()
+          for (uri in symbols.mapTo(LinkedHashSet()) { it.uri }) {
+            writeRemove(out, uri)
+            applyRemove(uri)
+          }
+          for (symbol in symbols) {
+            writeAdd(out, symbol)
+            addedByUri.getOrPut(symbol.uri) { ArrayList() }.add(symbol)
+            logOps++
+          }
+          out.flush()
+          logOps >= COMPACT_LOG_OPS
+        }
+    if (shouldCompact) compact()
+  }
+
+  /** Appends a removal of every symbol declared in [uri] to the log. */
+  fun removeUri(uri: String) {
+    lock.write {
+      val out = logWriter()
+      writeRemove(out, uri)
+      out.flush()
+      applyRemove(uri)
+    }
+  }
+
+  /** Folds the append log into a new base file. */
+  fun compact() {
+    lock.write {
+      if (logOps == 0) return@write
+      val symbols = ArrayList<Symbol>()
+      forEach { symbols.add(it) }
+      KslLogs.info("Compacting symbol store: {} log operations, {} symbols", logOps, symbols.size)
+      writeBase(symbols, hash ?: "")
+      resetLog()
+      unmap()
+    }
+    open()
+  }
+
+  /** Deletes the base file and the log. */
+  fun clear() {
+    lock.write {
+      resetLog()
+      unmap()
+      file.delete()
+    }
+  }
+
+  override fun close() {
+    lock.write {
+      closeLog()
+      unmap()
+    }
+  }
+
+  private fun unmap() {
+    // The mapping is released once the buffer is garbage collected
+    buffer = null
+    recordCount = 0
+    recordsOffset = 0
+    hash = null
+    addedByUri.clear()
+    removedUris.clear()
+    logOps = 0
+  }
+
+  private fun field(buf: ByteBuffer, index: Int, field: Int): Int =
+      buf.getInt(recordsOffset + index * RECORD_SIZE + field * 4)
+
+  private fun readRecord(buf: ByteBuffer, index: Int): Symbol =
+      Symbol(
+          name = readString(buf, field(buf, index, 1)),
+          containerName = readString(buf, field(buf, index, 2)),
+          uri = readString(buf, field(buf, index, 3)),
+          kind = field(buf, index, 4),
+          startLine = field(buf, index, 5),
+          startChar = field(buf, index, 6),
+          endLine = field(buf, index, 7),
+          endChar = field(buf, index, 8),
+      )
+
+  private fun readString(buf: ByteBuffer, offset: Int): String {
+    val length = buf.getInt(offset)
+    val bytes = ByteArray(length)
+    for (i in 0 until length) {
+      bytes[i] = buf.get(offset + 4 + i)
+    }
+    return String(bytes, Charsets.UTF_8)
+  }
+
+  private fun lowerBound(buf: ByteBuffer, key: String): Int {
+    var low = 0
+    var high = recordCount
+    while (low < high) {
+      val mid = (low + high) ushr 1
+      if (readString(buf, field(buf, mid, 0)) < key) {
+        low = mid + 1
+      } else {
+        high = mid
+      }
+    }
+    return low
+  }
+
+  private fun writeBase(symbols: Collection<Symbol>, classpathHash: String) {
+    val sorted = symbols.sortedWith(compareBy<Symbol>({ it.key }, { it.name }))
+
+    val strings = LinkedHashMap<String, Int>()
+    var stringsSize = 0
+    fun intern(value: String): Int =
+        strings.getOrPut(value) {
+          val offset = HEADER_SIZE + stringsSize
+          stringsSize += 4 + value.toByteArray(Charsets.UTF_8).size
+          offset
+        }
+
+    val hashRef = intern(classpathHash)
+    val records = IntArray(sorted.size * RECORD_INTS)
+    sorted.forEachIndexed { i, symbol ->
+      val base = i * RECORD_INTS
+      records[base] = intern(symbol.key)
+      records[base + 1] = intern(symbol.name)
+      records[base + 2] = intern(symbol.containerName)
+      records[base + 3] = intern(symbol.uri)
+      records[base + 4] = symbol.kind
+      records[base + 5] = symbol.startLine
+      records[base + 6] = symbol.startChar
+      records[base + 7] = symbol.endLine
+      records[base + 8] = symbol.endChar
+    }
+
+    file.parentFile?.mkdirs()
+    val tmp = File(file.parentFile, file.name + ".tmp")
+    DataOutputStream(BufferedOutputStream(FileOutputStream(tmp), 64 * 1024)).use { out ->
+      out.writeInt(MAGIC)
+      out.writeInt(FORMAT_VERSION)
+      out.writeInt(sorted.size)
+      out.writeInt(HEADER_SIZE)
+      out.writeInt(HEADER_SIZE + stringsSize)
+      out.writeInt(hashRef)
+      for (value in strings.keys) {
+        val bytes = value.toByteArray(Charsets.UTF_8)
+        out.writeInt(bytes.size)
+        out.write(bytes)
+      }
+      for (value in records) {
+        out.writeInt(value)
+      }
+    }
+
+    if (!tmp.renameTo(file)) {
+      file.delete()
+      if (!tmp.renameTo(file)) {
+        tmp.delete()
+        throw IllegalStateException("Unable to replace symbol store at ${file.absolutePath}")
+      }
+    }
+  }
+
+  private fun replayLog() {
+    if (!logFile.isFile) return
+    var validLength = 0L
+    try {
+      DataInputStream(BufferedInputStream(logFile.inputStream())).use { input ->
+        while (true) {
+          val op =
+              try {
+                input.readByte()
+              } catch (e: EOFException) {
+                break
+              }
+          when (op) {
+            OP_ADD -> {
+              val symbol =
+                  Symbol(
+                      name = input.readUTF(),
+                      kind = input.readInt(),
+                      containerName = input.readUTF(),
+                      uri = input.readUTF(),
+                      startLine = input.readInt(),
+                      startChar = input.readInt(),
+                      endLine = input.readInt(),
+                      endChar = input.readInt(),
+                  )
+              addedByUri.getOrPut(symbol.uri) { ArrayList() }.add(symbol)
+            }
+            OP_REMOVE_URI -> applyRemove(input.readUTF())
+            else -> throw IllegalStateException("Unknown symbol log operation: $op")
+          }
+          logOps++
+          validLength = logFile.length() - input.available().toLong()
+        }
+      }
+    } catch (e: Exception) {
+      // A torn write at the end of the log; keep the operations before it
+      KslLogs.warn("Discarding corrupt tail of symbol log after {} bytes", validLength, e)
+      RandomAccessFile(logFile, "rw").use { it.setLength(validLength) }
+    }
+  }
+
+  private fun applyRemove(uri: String) {
+    removedUris.add(uri)
+    addedByUri.remove(uri)
+  }
+
+  private fun logWriter(): DataOutputStream =
+      logOut
+          ?: DataOutputStream(BufferedOutputStream(FileOutputStream(logFile, true))).also {
+            logOut = it
+          }
+
+  private fun writeAdd(out: DataOutputStream, symbol: Symbol) {
+    out.writeByte(OP_ADD.toInt())
+    out.writeUTF(symbol.name)
+    out.writeInt(symbol.kind)
+    out.writeUTF(symbol.containerName)
+    out.writeUTF(symbol.uri)
+    out.writeInt(symbol.startLine)
+    out.writeInt(symbol.startChar)
+    out.writeInt(symbol.endLine)
+    out.writeInt(symbol.endChar)
+  }
+
+  private fun writeRemove(out: DataOutputStream, uri: String) {
+    out.writeByte(OP_REMOVE_URI.toInt())
+    out.writeUTF(uri)
+    logOps++
+  }
+
+  private fun closeLog() {
+    try {
+      logOut?.close()
+    } catch (e: Exception) {
+      KslLogs.warn("Failed to close symbol log", e)
+    }
+    logOut = null
+  }
+
+  private fun resetLog() {
+    closeLog()
+    logFile.delete()
+  }
+}
@@ -0,0 +1,240 @@
+/*
+ *  This file is part of AndroidCodeStudio.
+ *
+ *  AndroidCodeStudio is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidCodeStudio is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidCodeStudio.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.lsp.kotlin
+
+/**
+ * Single-pass lexer which finds the capitalized simple names referenced in Kotlin source code.
+ *
+ * Comments, string and character literals (except the expressions in string templates) and
+ * backquoted identifiers are skipped, as are `package` and `import` directives, annotation names
+ * and names qualified with a `.`.
+ *
+ * @author Akash Yadav
+ */
+internal class KotlinTypeReferenceScanner(private val content: CharSequence) {
+
+  private var index = 0
+  private var line = 0
+  private var lineStart = 0
+
+  /** The last significant (non-whitespace) character of code, or `0`. */
+  private var previous = 0.toChar()
+  private var atLineStart = true
+
+  // For every open string template expression, the kind of the enclosing string and the brace
+  // depth of the code around it
+  private val templates = ArrayDeque<Int>()
+  private var braceDepth = 0
+
+  companion object {
+    private const val STRING = 1
+    private const val RAW_STRING = 3
+  }
+
+  /**
+   * Scans the content.
+   *
+   * @param consumer Invoked with the name, the zero-based line and the column of each reference.
+   */
+  fun scan(consumer: (name: String, line: Int, column: Int) -> Unit) {
+    val length = content.length
+    while (index < length) {
+      val c = content[index]
+      when {
+        c == '\n' -> {
+          newLine()
+          index++
+        }
+        c.isWhitespace() -> index++
+        c == '/' && peek(1) == '/' -> skipLine()
+        c == '/' && peek(1) == '*' -> skipBlockComment()
+        c == '"' -> {
+          if (peek(1) == '"' && peek(2) == '"') {
+            index += 3
+            scanString(RAW_STRING)
+          } else {
+            index++
+            scanString(STRING)
+          }
+          code('"')
+        }
+        c == '\'' -> {
+          skipCharLiteral()
+          code('\'')
+        }
+        c == '`' -> {
+          skipQuotedIdentifier()
+          code('`')
+        }
+        c == '}' && braceDepth == 0 && templates.isNotEmpty() -> {
+          // end of a template expression, continue with the rest of the string
+          index++
+          braceDepth = templates.removeLast()
+          scanString(templates.removeLast())
+          code('"')
+        }
+        Character.isJavaIdentifierStart(c) -> scanIdentifier(consumer)
+        c.isDigit() -> {
+          skipNumber()
+          code('0')
+        }
+        else -> {
+          if (c == '{') braceDepth++ else if (c == '}') braceDepth--
+          index++
+          code(c)
+        }
+      }
+    }
+  }
+
+  private fun peek(offset: Int): Char {
+    val at = index + offset
+    return if (at < content.length) content[at] else 0.toChar()
+  }
+
+  private fun code(c: Char) {
+    previous = c
+    atLineStart = false
+  }
+
+  private fun newLine() {
+    line++
+    lineStart = index + 1
+    atLineStart = true
+  }
+
+  private fun scanIdentifier(consumer: (String, Int, Int) -> Unit) {
+    val start = index
+    index++
+    while (index < content.length && Character.isJavaIdentifierPart(content[index])) {
+      index++
+    }
+
+    val name = content.substring(start, index)
+    if (atLineStart && (name == "import" || name == "package")) {
+      skipLine()
+      return
+    }
+
+    if (name[0] in 'A'..'Z' && previous != '.' && previous != '@') {
+      consumer(name, line, start - lineStart)
+    }
+
+    code('a')
+  }
+
+  private fun skipLine() {
+    while (index < content.length && content[index] != '\n') {
+      index++
+    }
+  }
+
+  private fun skipBlockComment() {
+    // block comments nest in Kotlin
+    var depth = 0
+    while (index < content.length) {
+      val c = content[index]
+      if (c == '/' && peek(1) == '*') {
+        depth++
+        index += 2
+      } else if (c == '*' && peek(1) == '/') {
+        index += 2
+        if (--depth == 0) return
+      } else {
+        if (c == '\n') newLine()
+        index++
+      }
+    }
+  }
+
+  /**
+   * Skips a string literal up to and including its closing quotes, or up to the start of a
+   * template expression, which is then scanned as code.
+   */
+  private fun scanString(kind: Int) {
+    while (index < content.length) {
+      val c = content[index]
+      when {
+        c == '\\' && kind == STRING -> index += 2
+        c == '$' && peek(1) == '{' -> {
+          index += 2
+          templates.addLast(kind)
+          templates.addLast(braceDepth)
+          braceDepth = 0
+          return
+        }
+        c == '"' && kind == STRING -> {
+          index++
+          return
+        }
+        c == '"' && peek(1) == '"' && peek(2) == '"' -> {
+          index += 3
+          // a raw string may end with more than three quotes
+          while (peek(0) == '"') index++
+          return
+        }
+        c == '\n' -> {
+          newLine()
+          index++
+          if (kind == STRING) return
+        }
+        else -> index++
+      }
+    }
+  }
+
+  private fun skipCharLiteral() {
+    index++
+    while (index < content.length) {
+      when (content[index]) {
+        '\\' -> index += 2
+        '\'' -> {
+          index++
+          return
+        }
+        '\n' -> return
+        else -> index++
+      }
+    }
+  }
+
+  private fun skipQuotedIdentifier() {
+    index++
+    while (index < content.length) {
+      when (content[index]) {
+        '`' -> {
+          index++
+          return
+        }
+        '\n' -> return
+        else -> index++
+      }
+    }
+  }
+
+  private fun skipNumber() {
+    while (index < content.length) {
+      val c = content[index]
+      if (c.isLetterOrDigit() || c == '_' || (c == '.' && peek(1).isDigit())) {
+        index++
+      } else {
+        return
+      }
+    }
+  }
+}
@@ -25,6 +25,7 @@ import com.itsaky.tom.rv2ide.lsp.kotlin.etc.LspFeatures
 import com.itsaky.tom.rv2ide.projects.IWorkspace
 import com.itsaky.tom.rv2ide.projects.ModuleProject
 import com.itsaky.tom.rv2ide.projects.android.AndroidModule
+import com.itsaky.tom.rv2ide.projects.classpath.ClasspathSymbolTable
 import com.itsaky.tom.rv2ide.utils.Environment
 import java.io.File
 import java.nio.file.*
@@ -40,6 +41,7 @@ class KotlinWorkspaceSetup(private val context: Context, private val workspace:
 
   companion object {
     private val log = LoggerFactory.getLogger(KotlinWorkspaceSetup::class.java)
+    private val PACKAGE_REGEX = """^\s*package\s+([\w.]+)""".toRegex(RegexOption.MULTILINE)
   }
 
   private var compilerService: KotlinCompilerService? = null
@@ -106,6 +108,9 @@ class KotlinWorkspaceSetup(private val context: Context, private val workspace:
     initializeCompilerService()
     classpathProvider.initialize(compilerService)
 
+    // drop the stored class tables of JARs which are gone, e.g. after a dependency update
+    watchScope.launch { ClasspathSymbolTable.prune() }
+
     startBuildWatcher(processManager)
 
     val currentClasspath = classpathProvider.getClasspathList()
@@ -263,8 +268,8 @@ class KotlinWorkspaceSetup(private val context: Context, private val workspace:
   private fun restoreCachedIndex(processManager: KotlinServerProcessManager) {
     KslLogs.info("Restoring index from cache...")
 
-    val cachedSymbols = indexCache.loadCache()
-    if (cachedSymbols != null && cachedSymbols.size() > 0) {
+    val cachedSymbols = indexCache.openSymbols()
+    if (cachedSymbols != null && cachedSymbols.size > 0) {
       // Send cached configuration
       val configParams =
           JsonObject().apply {
@@ -284,7 +289,7 @@ class KotlinWorkspaceSetup(private val context: Context, private val workspace:
           }
 
       processManager.sendNotification("workspace/didChangeConfiguration", configParams)
-      KslLogs.info("Cache restored with {} symbols - indexing skipped", cachedSymbols.size())
+      KslLogs.info("Cache restored with {} symbols - indexing skipped", cachedSymbols.size)
     } else {
       // Cache load failed, trigger fresh indexing
       val currentClasspath = classpathProvider.getClasspathList()
@@ -323,7 +328,10 @@ class KotlinWorkspaceSetup(private val context: Context, private val workspace:
     val symbolParams = JsonObject().apply { addProperty("query", "") }
 
     processManager.sendRequest("workspace/symbol", symbolParams) { result ->
-      val symbols = result?.getAsJsonArray("symbols") ?: JsonArray()
+      val symbols =
+          result?.get("result")?.takeIf { it.isJsonArray }?.asJsonArray
+              ?: result?.getAsJsonArray("symbols")
+              ?: JsonArray()
       val symbolCount = symbols.size()
       KslLogs.info("Indexing complete, found {} symbols", symbolCount)
 
@@ -334,8 +342,55 @@ class KotlinWorkspaceSetup(private val context: Context, private val workspace:
     }
   }
 
+  /**
+   * Re-index the symbols declared in [file] and replace the cached symbols of that file with them.
+   *
+   * @param onUpdated Invoked once the cache has been updated.
+   */
+  fun updateFileSymbols(
+      processManager: KotlinServerProcessManager,
+      file: Path,
+      onUpdated: () -> Unit,
+  ) {
+    val uri = file.toUri().toString()
+    val params =
+        JsonObject().apply { add("textDocument", JsonObject().apply { addProperty("uri", uri) }) }
+
+    processManager.sendRequest("textDocument/documentSymbol", params) { result ->
+      val elements =
+          result?.get("result")?.takeIf { it.isJsonArray }?.asJsonArray
+              ?: run {
+                // Keep the cached symbols when the server could not index the file
+                KslLogs.debug("No document symbols returned for {}", uri)
+                return@sendRequest
+              }
+      val packageName =
+          try {
+            PACKAGE_REGEX.find(file.toFile().readText())?.groupValues?.get(1) ?: ""
+          } catch (e: Exception) {
+            ""
+          }
+
+      val symbols = ArrayList<KotlinSymbolStore.Symbol>()
+      elements.forEach { element ->
+        KotlinSymbolStore.Symbol.fromDocumentSymbol(element, uri, packageName, symbols)
+      }
+      indexCache.updateSymbols(uri, symbols)
+      KslLogs.debug("Updated {} cached symbols for {}", symbols.size, uri)
+      onUpdated()
+    }
+  }
+
+  /** Remove the cached symbols declared in [file]. */
+  fun removeFileSymbols(file: Path) {
+    indexCache.removeSymbols(file.toUri().toString())
+  }
+
   fun cleanup() {
     try {
+      // Fold the incremental symbol updates into the base cache file
+      indexCache.compactCache()
+
       // Stop build watcher
       watcherJob?.cancel()
       buildWatcher?.close()
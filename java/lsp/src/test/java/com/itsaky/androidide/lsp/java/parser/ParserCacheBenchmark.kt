@@ -0,0 +1,104 @@
+/*
+ *  This file is part of AndroidCodeStudio.
+ *
+ *  AndroidCodeStudio is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidCodeStudio is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidCodeStudio.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.lsp.java.parser
+
+import java.nio.file.Files
+import java.nio.file.Path
+import org.junit.After
+import org.junit.Assume.assumeTrue
+import org.junit.Before
+import org.junit.Test
+
+/**
+ * Measures [Parser.parseFile] when requests alternate between a few files, as code actions,
+ * references and hover do. Without the LRU of parse results, every switch re-parses the file.
+ *
+ * This only runs when the `PARSER_BENCHMARK` environment variable is set. [ParserCacheTest] checks
+ * the behavior of the cache.
+ *
+ * @author Akash Yadav
+ */
+class ParserCacheBenchmark {
+
+  companion object {
+    private const val FILES = 4
+    private const val ROUNDS = 50
+  }
+
+  private lateinit var dir: Path
+  private lateinit var files: List<Path>
+
+  @Before
+  fun setUp() {
+    Parser.clearCache()
+    dir = Files.createTempDirectory("parser")
+    files =
+        (0 until FILES).map { index ->
+          dir.resolve("Source$index.java").also { it.toFile().writeText(source(index)) }
+        }
+  }
+
+  @After
+  fun tearDown() {
+    Parser.clearCache()
+    dir.toFile().deleteRecursively()
+  }
+
+  @Test
+  fun compareAlternatingParses() {
+    assumeTrue("PARSER_BENCHMARK is not set", System.getenv("PARSER_BENCHMARK") != null)
+
+    // warm up the compiler
+    alternate { Parser.clearCache() }
+
+    val uncached = alternate { Parser.clearCache() }
+    val cached = alternate {}
+
+    println(
+        "Parsing $FILES alternating files $ROUNDS times: " +
+            "without cache ${uncached / 1_000_000} ms, with cache ${cached / 1_000_000} ms"
+    )
+  }
+
+  private inline fun alternate(beforeParse: () -> Unit): Long {
+    val start = System.nanoTime()
+    repeat(ROUNDS) {
+      for (file in files) {
+        beforeParse()
+        Parser.parseFile(file)
+      }
+    }
+    return System.nanoTime() - start
+  }
+
+  private fun source(index: Int) = buildString {
+    append("package bench;\n\n")
+    append("import java.util.ArrayList;\nimport java.util.List;\n\n")
+    append("public class Source$index {\n")
+    for (method in 0 until 200) {
+      append("  public List<String> method$method(int count) {\n")
+      append("    final List<String> result = new ArrayList<>();\n")
+      append("    for (int i = 0; i < count; i++) {\n")
+      append("      result.add(\"value\" + i + $method);\n")
+      append("    }\n")
+      append("    return result;\n")
+      append("  }\n\n")
+    }
+    append("}\n")
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ *  This file is part of AndroidCodeStudio.
+ *
+ *  AndroidCodeStudio is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidCodeStudio is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidCodeStudio.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.lsp.java.parser
+
+import java.nio.file.Files
+import java.nio.file.Path
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotSame
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+
+/** @author Akash Yadav */
+class ParserCacheTest {
+
+  private lateinit var dir: Path
+
+  @Before
+  fun setUp() {
+    Parser.clearCache()
+    dir = Files.createTempDirectory("parser")
+  }
+
+  @After
+  fun tearDown() {
+    Parser.clearCache()
+    dir.toFile().deleteRecursively()
+  }
+
+  @Test
+  fun reusesParseResultsAcrossFiles() {
+    val files = (0 until 4).map(::sourceFile)
+    val first = files.map { Parser.parseFile(it) }
+    val hits = Parser.getCacheHitCount()
+
+    files.forEachIndexed { index, file -> assertSame(first[index], Parser.parseFile(file)) }
+    assertEquals(hits + files.size, Parser.getCacheHitCount())
+  }
+
+  @Test
+  fun evictsTheLeastRecentlyUsedParse() {
+    val files = (0..Parser.MAX_CACHED_PARSES).map(::sourceFile)
+    val first = files.map { Parser.parseFile(it) }
+
+    // the cache is full with the last files; using the eldest of them keeps it cached
+    assertSame(first[1], Parser.parseFile(files[1]))
+    Parser.parseFile(files[0])
+
+    assertSame(first[1], Parser.parseFile(files[1]))
+    assertNotSame(first[2], Parser.parseFile(files[2]))
+  }
+
+  @Test
+  fun reparsesFilesWhoseContentsChanged() {
+    val file = sourceFile(0)
+    val first = Parser.parseFile(file)
+    assertSame(first, Parser.parseFile(file))
+
+    file.toFile().writeText(source(0).replace("value", "changed"))
+    file.toFile().setLastModified(file.toFile().lastModified() + 2_000)
+
+    val reparsed = Parser.parseFile(file)
+    assertNotSame(first, reparsed)
+    assertTrue(reparsed.contents.contains("changed"))
+    assertSame(reparsed, Parser.parseFile(file))
+  }
+
+  private fun sourceFile(index: Int): Path =
+      dir.resolve("Source$index.java").also { it.toFile().writeText(source(index)) }
+
+  private fun source(index: Int) =
+      """
+      package test;
+
+      public class Source$index {
+        public String value() {
+          return "value$index";
+        }
+      }
+      """
+          .trimIndent()
+}
@@ -0,0 +1,120 @@
+/*
+ *  This file is part of AndroidCodeStudio.
+ *
+ *  AndroidCodeStudio is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidCodeStudio is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidCodeStudio.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.lsp.kotlin
+
+import com.itsaky.tom.rv2ide.treesitter.TreeSitter
+import java.nio.file.Paths
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assume.assumeTrue
+import org.junit.Before
+import org.junit.Test
+
+/**
+ * Checks that the diagnostics of incrementally re-parsed files match those of a full parse.
+ *
+ * This needs the native tree-sitter libraries for the host, so it only runs when they can be loaded
+ * from `java.library.path`.
+ *
+ * @author Akash Yadav
+ */
+class KotlinDiagnosticProviderTest {
+
+  private val file = Paths.get("/fixture/Main.kt")
+  private lateinit var provider: KotlinDiagnosticProvider
+
+  companion object {
+    private val nativesAvailable by lazy {
+      try {
+        TreeSitter.loadLibrary()
+        true
+      } catch (err: Throwable) {
+        false
+      }
+    }
+
+    private val VALID =
+        """
+        package com.example
+
+        fun main() {
+          val count: Int = 1
+          println(count)
+        }
+
+        fun other() {
+          println("other")
+        }
+        """
+            .trimIndent()
+  }
+
+  @Before
+  fun setUp() {
+    assumeTrue("tree-sitter natives are not available", nativesAvailable)
+    provider = KotlinDiagnosticProvider()
+  }
+
+  @After
+  fun tearDown() {
+    if (::provider.isInitialized) {
+      provider.close()
+    }
+  }
+
+  @Test
+  fun clearsFixedTypeMismatches() {
+    assertEquals(emptyList<String>(), codes(VALID))
+
+    val broken = VALID.replace("val count: Int = 1", "val count: Int = \"one\"")
+    assertEquals(listOf("TYPE_MISMATCH"), codes(broken))
+
+    assertEquals(emptyList<String>(), codes(VALID))
+  }
+
+  @Test
+  fun clearsFixedSyntaxErrors() {
+    assertEquals(emptyList<String>(), codes(VALID))
+
+    val broken = VALID.replace("fun main() {", "fun main( {")
+    assertEquals(listOf("SYNTAX_ERROR"), codes(broken).distinct())
+
+    assertEquals(emptyList<String>(), codes(VALID))
+  }
+
+  @Test
+  fun incrementalResultsMatchFullParses() {
+    val edits =
+        listOf(
+            VALID,
+            VALID.replace("val count: Int = 1", "val count: Int = \"one\""),
+            VALID.replace("fun other()", "\n\nfun other()"),
+            VALID.replace("println(count)", "println(count"),
+            VALID,
+        )
+
+    for (content in edits) {
+      val incremental = provider.analyze(file, content).diagnostics
+      val full = KotlinDiagnosticProvider().use { it.analyze(file, content).diagnostics }
+      assertEquals(full, incremental)
+    }
+  }
+
+  private fun codes(content: String): List<String> =
+      provider.analyze(file, content).diagnostics.map { it.code }
+}
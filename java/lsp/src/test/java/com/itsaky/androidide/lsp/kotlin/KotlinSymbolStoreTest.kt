@@ -0,0 +1,165 @@
+/*
+ *  This file is part of AndroidCodeStudio.
+ *
+ *  AndroidCodeStudio is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidCodeStudio is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidCodeStudio.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.lsp.kotlin
+
+import com.google.gson.JsonParser
+import java.io.File
+import java.nio.file.Files
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+
+/** @author Akash Yadav */
+class KotlinSymbolStoreTest {
+
+  private lateinit var dir: File
+  private lateinit var store: KotlinSymbolStore
+
+  @Before
+  fun setUp() {
+    dir = Files.createTempDirectory("ksym").toFile()
+    store = newStore()
+  }
+
+  @After
+  fun tearDown() {
+    store.close()
+    dir.deleteRecursively()
+  }
+
+  @Test
+  fun findsSymbolsByPrefixIgnoringCase() {
+    store.write(
+        listOf(
+            symbol("MainActivity", "com.example", "file:///A.kt"),
+            symbol("MainViewModel", "com.example", "file:///B.kt"),
+            symbol("Other", "com.example", "file:///C.kt"),
+        ),
+        "hash",
+    )
+
+    assertEquals(3, store.size)
+    assertEquals("hash", store.classpathHash)
+    assertEquals(listOf("MainActivity", "MainViewModel"), store.find("main").map { it.name })
+    assertEquals(listOf("MainActivity"), store.find("MAINA").map { it.name })
+    assertEquals(1, store.find("main", limit = 1).size)
+    assertTrue(store.find("missing").isEmpty())
+  }
+
+  @Test
+  fun appendReplacesSymbolsOfTheSameFile() {
+    store.write(listOf(symbol("Old", "com.example", "file:///A.kt")), "hash")
+
+    store.append(listOf(symbol("New", "com.example", "file:///A.kt")))
+
+    assertTrue(store.find("old").isEmpty())
+    assertEquals(listOf("New"), store.find("new").map { it.name })
+    assertEquals(1, store.size)
+  }
+
+  @Test
+  fun removeUriDropsBaseAndAppendedSymbols() {
+    store.write(
+        listOf(
+            symbol("Kept", "com.example", "file:///A.kt"),
+            symbol("Removed", "com.example", "file:///B.kt"),
+        ),
+        "hash",
+    )
+    store.append(listOf(symbol("Added", "com.example", "file:///B.kt")))
+
+    store.removeUri("file:///B.kt")
+
+    assertEquals(listOf("Kept"), collect(store).map { it.name })
+  }
+
+  @Test
+  fun replaysTheLogAfterReopening() {
+    store.write(listOf(symbol("Base", "com.example", "file:///A.kt")), "hash")
+    store.append(listOf(symbol("Appended", "com.example", "file:///B.kt")))
+    store.removeUri("file:///A.kt")
+    store.close()
+
+    store = newStore()
+    assertTrue(store.open())
+    assertEquals(listOf("Appended"), collect(store).map { it.name })
+  }
+
+  @Test
+  fun compactFoldsTheLogIntoTheBaseFile() {
+    store.write(listOf(symbol("Base", "com.example", "file:///A.kt")), "hash")
+    store.append(listOf(symbol("Appended", "com.example", "file:///B.kt")))
+
+    store.compact()
+
+    assertFalse(File(dir, "index.log").exists())
+    assertEquals("hash", store.classpathHash)
+    assertEquals(listOf("Appended", "Base"), collect(store).map { it.name })
+  }
+
+  @Test
+  fun readsNestedDocumentSymbols() {
+    val json =
+        JsonParser.parseString(
+            """
+            {
+              "name": "Outer", "kind": 5,
+              "range": {"start": {"line": 2, "character": 0}, "end": {"line": 9, "character": 1}},
+              "selectionRange": {
+                "start": {"line": 2, "character": 6}, "end": {"line": 2, "character": 11}
+              },
+              "children": [
+                {
+                  "name": "Inner", "kind": 5,
+                  "range": {
+                    "start": {"line": 3, "character": 2}, "end": {"line": 8, "character": 3}
+                  }
+                }
+              ]
+            }
+            """
+        )
+
+    val symbols = ArrayList<KotlinSymbolStore.Symbol>()
+    KotlinSymbolStore.Symbol.fromDocumentSymbol(json, "file:///A.kt", "com.example", symbols)
+
+    assertEquals(2, symbols.size)
+    assertEquals(
+        symbol("Outer", "com.example", "file:///A.kt", 2, 6),
+        symbols[0].copy(endLine = 0, endChar = 0),
+    )
+    assertEquals("com.example.Outer", symbols[1].containerName)
+    assertEquals(3, symbols[1].startLine)
+  }
+
+  private fun newStore() = KotlinSymbolStore(File(dir, "index.bin"), File(dir, "index.log"))
+
+  private fun collect(store: KotlinSymbolStore) =
+      ArrayList<KotlinSymbolStore.Symbol>().also { symbols -> store.forEach { symbols.add(it) } }
+
+  private fun symbol(
+      name: String,
+      container: String,
+      uri: String,
+      line: Int = 0,
+      character: Int = 0,
+  ) = KotlinSymbolStore.Symbol(name, 5, container, uri, line, character, 0, 0)
+}
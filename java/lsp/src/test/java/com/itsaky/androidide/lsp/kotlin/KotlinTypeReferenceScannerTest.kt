@@ -0,0 +1,86 @@
+/*
+ *  This file is part of AndroidCodeStudio.
+ *
+ *  AndroidCodeStudio is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidCodeStudio is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidCodeStudio.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.lsp.kotlin
+
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+/** @author Akash Yadav */
+class KotlinTypeReferenceScannerTest {
+
+  @Test
+  fun reportsCapitalizedNamesWithPositions() {
+    val refs = scan("val list = ArrayList<String>()\n  val view: View? = null")
+    assertEquals(
+        listOf(Ref("ArrayList", 0, 11), Ref("String", 0, 21), Ref("View", 1, 12)),
+        refs,
+    )
+  }
+
+  @Test
+  fun skipsPackageAndImportDirectives() {
+    val refs = scan("package com.Example\nimport android.view.View\nclass Main : Base()")
+    assertEquals(listOf("Main", "Base"), refs.map { it.name })
+  }
+
+  @Test
+  fun skipsQualifiedAndAnnotationNames() {
+    val refs = scan("@Suppress(\"x\") fun f() = android.view.View.GONE + Foo.BAR")
+    assertEquals(listOf("Foo"), refs.map { it.name })
+  }
+
+  @Test
+  fun skipsCommentsAndLiterals() {
+    val source =
+        """
+        // Comment
+        /* Block /* Nested */ Still */
+        val s = "Text \" Quoted"
+        val c = 'C'
+        val `Quoted Name` = 1
+        val n = 0x1F + 1.5E10
+        val r = ${"\"\"\""}Raw "Str" ing${"\"\"\""}
+        Visible
+        """
+            .trimIndent()
+    assertEquals(listOf(Ref("Visible", 7, 0)), scan(source))
+  }
+
+  @Test
+  fun scansStringTemplateExpressions() {
+    val refs = scan("val s = \"a \${Foo.bar { Bar() }} b Baz\" + Qux")
+    assertEquals(listOf("Foo", "Bar", "Qux"), refs.map { it.name })
+  }
+
+  @Test
+  fun scansTemplatesInRawStrings() {
+    val quotes = "\"\"\""
+    val refs = scan("val s = ${quotes}a\n\${Foo()}\nText$quotes + Bar")
+    assertEquals(listOf(Ref("Foo", 1, 2), Ref("Bar", 2, 10)), refs)
+  }
+
+  private data class Ref(val name: String, val line: Int, val column: Int)
+
+  private fun scan(source: String): List<Ref> {
+    val refs = mutableListOf<Ref>()
+    KotlinTypeReferenceScanner(source).scan { name, line, column ->
+      refs += Ref(name, line, column)
+    }
+    return refs
+  }
+}
@@ -77,6 +77,9 @@ public abstract class ILogger {
 
     public final char levelChar;
 
+    // values() creates a new array on every call
+    private static final Level[] VALUES = values();
+
     Level(char levelChar) {
       this.levelChar = levelChar;
     }
@@ -88,7 +91,7 @@ public abstract class ILogger {
         return VERBOSE;
       }
 
-      for (Level value : values()) {
+      for (Level value : VALUES) {
         if (value.levelChar == c) {
           return value;
         }
@@ -35,7 +35,7 @@ android {
 }
 
 dependencies {
-    // your dependencies here
+    testImplementation(libs.tests.junit)
 }
 
 tasks.register("fixAarName") {
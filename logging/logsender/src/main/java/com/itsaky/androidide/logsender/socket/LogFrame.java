@@ -0,0 +1,219 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.logsender.socket;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * The framed protocol used to send logs from a log sender to the receiver in the IDE.
+ *
+ * <p>After the {@link SenderInfoCommand} line, the sender writes frames of the following format.
+ * All integers are big-endian.
+ *
+ * <pre>
+ * frame   := int payloadLength, int entryCount, entry[entryCount]
+ * entry   := byte priority      the priority character ('V', 'D', 'I', ...), or 0 if the line
+ *                               could not be parsed
+ *            int pid
+ *            int tid
+ *            int date           month * 100 + day of month
+ *            int time           milliseconds of the day
+ *            int tagLength      the number of bytes of the tag at the start of the text
+ *            int textLength
+ *            byte[textLength]   UTF-8 encoded tag followed by the message, or the unparsed line
+ * </pre>
+ *
+ * @author Akash Yadav
+ */
+public final class LogFrame {
+
+  /** The version of the framed protocol, sent with the {@link SenderInfoCommand}. */
+  public static final int PROTOCOL_VERSION = 2;
+
+  /** Protocol version of senders which send the raw log lines instead of frames. */
+  public static final int PROTOCOL_VERSION_LINES = 1;
+
+  /** Size of an entry, excluding its text. */
+  public static final int ENTRY_HEADER_SIZE = 1 + 4 * 6;
+
+  /** Upper limit for the payload size of a frame, to detect corrupted streams. */
+  public static final int MAX_PAYLOAD_SIZE = 4 * 1024 * 1024;
+
+  static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private LogFrame() {
+    throw new UnsupportedOperationException();
+  }
+
+  /** A decoded log entry. Instances are reused by the {@link Reader} for every entry. */
+  public static final class Entry {
+
+    public char priority;
+    public int pid;
+    public int tid;
+    public int date;
+    public int time;
+
+    private byte[] buffer;
+    private int textOffset;
+    private int tagLength;
+    private int textLength;
+
+    /** Whether the log line was parsed by the sender. */
+    public boolean isParsed() {
+      return priority != 0;
+    }
+
+    /** The tag of the log entry. */
+    public String tag() {
+      return new String(buffer, textOffset, tagLength, UTF_8);
+    }
+
+    /**
+     * The message of the log entry, or the whole log line if the entry {@link #isParsed() is not
+     * parsed}.
+     */
+    public String message() {
+      return new String(buffer, textOffset + tagLength, textLength - tagLength, UTF_8);
+    }
+
+    /** The date in the {@code MM-DD} format. */
+    public String formatDate() {
+      final char[] chars = new char[5];
+      putTwoDigits(chars, 0, date / 100);
+      chars[2] = '-';
+      putTwoDigits(chars, 3, date % 100);
+      return new String(chars);
+    }
+
+    /** The time in the {@code HH:MM:SS.mmm} format. */
+    public String formatTime() {
+      final char[] chars = new char[12];
+      final int seconds = time / 1000;
+      putTwoDigits(chars, 0, seconds / 3600);
+      chars[2] = ':';
+      putTwoDigits(chars, 3, seconds / 60 % 60);
+      chars[5] = ':';
+      putTwoDigits(chars, 6, seconds % 60);
+      chars[8] = '.';
+      final int millis = time % 1000;
+      chars[9] = (char) ('0' + millis / 100);
+      putTwoDigits(chars, 10, millis % 100);
+      return new String(chars);
+    }
+
+    private static void putTwoDigits(char[] chars, int offset, int value) {
+      chars[offset] = (char) ('0' + value / 10 % 10);
+      chars[offset + 1] = (char) ('0' + value % 10);
+    }
+  }
+
+  /** Handles the entries decoded by a {@link Reader}. */
+  public interface EntryHandler {
+
+    /**
+     * Called for each decoded entry. The entry must not be retained after this method returns.
+     *
+     * @param entry The decoded entry.
+     */
+    void onEntry(Entry entry);
+  }
+
+  /** Reads and decodes frames from an input stream. */
+  public static final class Reader {
+
+    private final DataInputStream input;
+    private final Entry entry = new Entry();
+    private byte[] payload = new byte[8192];
+
+    public Reader(InputStream input) {
+      this.input = new DataInputStream(input);
+    }
+
+    /**
+     * Read the next frame and decode its entries.
+     *
+     * @param handler The handler for the decoded entries.
+     * @return {@code false} if the end of the stream has been reached, {@code true} otherwise.
+     * @throws IOException If the frame cannot be read or is malformed.
+     */
+    public boolean readFrame(EntryHandler handler) throws IOException {
+      final int length;
+      try {
+        length = input.readInt();
+      } catch (EOFException eof) {
+        return false;
+      }
+
+      if (length < 4 || length > MAX_PAYLOAD_SIZE) {
+        throw new IOException("Invalid log frame length: " + length);
+      }
+
+      if (payload.length < length) {
+        payload = new byte[Math.max(length, payload.length * 2)];
+      }
+
+      input.readFully(payload, 0, length);
+
+      final byte[] b = payload;
+      final int count = getInt(b, 0);
+      int offset = 4;
+      for (int i = 0; i < count; i++) {
+        if (offset + ENTRY_HEADER_SIZE > length) {
+          throw new IOException("Truncated log frame");
+        }
+
+        entry.priority = (char) (b[offset] & 0xFF);
+        entry.pid = getInt(b, offset + 1);
+        entry.tid = getInt(b, offset + 5);
+        entry.date = getInt(b, offset + 9);
+        entry.time = getInt(b, offset + 13);
+        entry.tagLength = getInt(b, offset + 17);
+        entry.textLength = getInt(b, offset + 21);
+        offset += ENTRY_HEADER_SIZE;
+
+        if (entry.textLength < 0
+            || entry.tagLength < 0
+            || entry.tagLength > entry.textLength
+            || offset + entry.textLength > length) {
+          throw new IOException("Malformed log frame entry");
+        }
+
+        entry.buffer = b;
+        entry.textOffset = offset;
+        offset += entry.textLength;
+
+        handler.onEntry(entry);
+      }
+
+      entry.buffer = null;
+      return true;
+    }
+
+    private static int getInt(byte[] b, int offset) {
+      return ((b[offset] & 0xFF) << 24)
+          | ((b[offset + 1] & 0xFF) << 16)
+          | ((b[offset + 2] & 0xFF) << 8)
+          | (b[offset + 3] & 0xFF);
+    }
+  }
+}
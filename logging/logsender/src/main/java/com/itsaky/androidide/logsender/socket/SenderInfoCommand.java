@@ -28,9 +28,20 @@ public class SenderInfoCommand extends AbstractSocketCommand {
 
   public final String senderId, packageName;
 
+  /**
+   * The version of the protocol used by the sender after this command. Older senders do not send
+   * this and always send raw log lines ({@link LogFrame#PROTOCOL_VERSION_LINES}).
+   */
+  public final int protocolVersion;
+
   public SenderInfoCommand(String senderId, String packageName) {
+    this(senderId, packageName, LogFrame.PROTOCOL_VERSION);
+  }
+
+  public SenderInfoCommand(String senderId, String packageName, int protocolVersion) {
     this.senderId = senderId;
     this.packageName = packageName;
+    this.protocolVersion = protocolVersion;
   }
 
   @Override
@@ -40,6 +51,6 @@ public class SenderInfoCommand extends AbstractSocketCommand {
 
   @Override
   protected String[] getParams() {
-    return new String[]{this.senderId, this.packageName};
+    return new String[]{this.senderId, this.packageName, String.valueOf(this.protocolVersion)};
   }
 }
@@ -58,7 +58,16 @@ public final class SocketCommandParser {
         return null;
       }
 
-      return new SenderInfoCommand(segments[1], segments[2]);
+      int protocolVersion = LogFrame.PROTOCOL_VERSION_LINES;
+      if (segments.length >= 4) {
+        try {
+          protocolVersion = Integer.parseInt(segments[3].trim());
+        } catch (NumberFormatException e) {
+          // not sent by this sender, keep the line protocol
+        }
+      }
+
+      return new SenderInfoCommand(segments[1], segments[2], protocolVersion);
     }
     return null;
   }
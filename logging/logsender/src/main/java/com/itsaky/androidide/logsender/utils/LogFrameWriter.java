@@ -0,0 +1,267 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.logsender.utils;
+
+import com.itsaky.tom.rv2ide.logsender.socket.LogFrame;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Parses {@code logcat -v threadtime} output and writes it to an output stream as
+ * {@link LogFrame frames}.
+ *
+ * <p>The log lines are split and parsed directly from the bytes read from {@code logcat}, without
+ * decoding them. The entries are buffered and written as a single frame when the frame exceeds
+ * {@link #maxFrameSize}, or when {@link #flush()} is called.
+ *
+ * @author Akash Yadav
+ */
+public class LogFrameWriter {
+
+  /** Default threshold for the size of a frame. */
+  public static final int DEFAULT_MAX_FRAME_SIZE = 32 * 1024;
+
+  /** Default threshold for the time for which entries may be buffered. */
+  public static final long DEFAULT_MAX_DELAY_MS = 100;
+
+  private final OutputStream output;
+  private final int maxFrameSize;
+  private final long maxDelayMs;
+
+  // the frame being built, starting with space for the payload length and the entry count
+  private byte[] frame;
+  private int frameSize = 8;
+  private int entryCount = 0;
+  private long firstEntryAt = 0;
+
+  // the current (incomplete) line
+  private byte[] line = new byte[512];
+  private int lineLength = 0;
+
+  public LogFrameWriter(OutputStream output) {
+    this(output, DEFAULT_MAX_FRAME_SIZE, DEFAULT_MAX_DELAY_MS);
+  }
+
+  public LogFrameWriter(OutputStream output, int maxFrameSize, long maxDelayMs) {
+    this.output = output;
+    this.maxFrameSize = maxFrameSize;
+    this.maxDelayMs = maxDelayMs;
+    this.frame = new byte[maxFrameSize + 1024];
+  }
+
+  /**
+   * Write the given bytes of {@code logcat} output. Complete lines are added to the current frame.
+   * The frame is written if it exceeds the size threshold.
+   */
+  public void write(byte[] bytes, int offset, int length) throws IOException {
+    final int end = offset + length;
+    for (int i = offset; i < end; i++) {
+      final byte b = bytes[i];
+      if (b == '\n') {
+        addLine(line, lineLength);
+        lineLength = 0;
+        continue;
+      }
+
+      if (lineLength == line.length) {
+        final byte[] newLine = new byte[line.length * 2];
+        System.arraycopy(line, 0, newLine, 0, lineLength);
+        line = newLine;
+      }
+
+      line[lineLength++] = b;
+    }
+
+    if (frameSize >= maxFrameSize) {
+      flush();
+    }
+  }
+
+  /** Write the current frame if its entries have been buffered longer than the time threshold. */
+  public void flushIfDue() throws IOException {
+    if (entryCount > 0 && System.currentTimeMillis() - firstEntryAt >= maxDelayMs) {
+      flush();
+    }
+  }
+
+  /** Write the current frame, if it has any entries, and flush the output stream. */
+  public void flush() throws IOException {
+    if (entryCount == 0) {
+      return;
+    }
+
+    putInt(frame, 0, frameSize - 4);
+    putInt(frame, 4, entryCount);
+    output.write(frame, 0, frameSize);
+    output.flush();
+
+    frameSize = 8;
+    entryCount = 0;
+  }
+
+  private void addLine(byte[] b, int length) {
+    if (length > 0 && b[length - 1] == '\r') {
+      length--;
+    }
+
+    if (length == 0) {
+      return;
+    }
+
+    if (entryCount == 0) {
+      firstEntryAt = System.currentTimeMillis();
+    }
+
+    if (!addParsedLine(b, length)) {
+      addEntry((byte) 0, 0, 0, 0, 0, b, 0, 0, b, 0, length);
+    }
+
+    entryCount++;
+  }
+
+  /**
+   * Parse a line of the format {@code MM-DD HH:MM:SS.mmm  PID  TID P TAG     : message} and add it
+   * to the frame.
+   *
+   * @return {@code false} if the line is not in the expected format.
+   */
+  private boolean addParsedLine(byte[] b, int length) {
+    if (length < 18 || b[2] != '-' || b[5] != ' ' || b[8] != ':' || b[11] != ':' || b[14] != '.') {
+      return false;
+    }
+
+    final int month = digits(b, 0, 2);
+    final int day = digits(b, 3, 2);
+    final int hours = digits(b, 6, 2);
+    final int minutes = digits(b, 9, 2);
+    final int seconds = digits(b, 12, 2);
+    final int millis = digits(b, 15, 3);
+    if ((month | day | hours | minutes | seconds | millis) < 0) {
+      return false;
+    }
+
+    int i = skipSpaces(b, 18, length);
+    final int pidStart = i;
+    i = skipDigits(b, i, length);
+    if (i == pidStart) {
+      return false;
+    }
+    final int pid = digits(b, pidStart, i - pidStart);
+
+    i = skipSpaces(b, i, length);
+    final int tidStart = i;
+    i = skipDigits(b, i, length);
+    if (i == tidStart) {
+      return false;
+    }
+    final int tid = digits(b, tidStart, i - tidStart);
+
+    i = skipSpaces(b, i, length);
+    if (i + 2 > length || b[i + 1] != ' ') {
+      return false;
+    }
+    final byte priority = b[i];
+    final int tagStart = i + 2;
+
+    // the tag is padded with spaces and followed by ': '
+    int colon = -1;
+    for (int j = tagStart; j < length; j++) {
+      if (b[j] == ':' && (j + 1 == length || b[j + 1] == ' ')) {
+        colon = j;
+        break;
+      }
+    }
+
+    if (colon == -1) {
+      return false;
+    }
+
+    int tagEnd = colon;
+    while (tagEnd > tagStart && b[tagEnd - 1] == ' ') {
+      tagEnd--;
+    }
+
+    final int messageStart = Math.min(colon + 2, length);
+    final int time = ((hours * 60 + minutes) * 60 + seconds) * 1000 + millis;
+    addEntry(priority, pid, tid, month * 100 + day, time, b, tagStart, tagEnd - tagStart, b,
+        messageStart, length - messageStart);
+    return true;
+  }
+
+  private void addEntry(byte priority, int pid, int tid, int date, int time, byte[] tag,
+      int tagOffset, int tagLength, byte[] message, int messageOffset, int messageLength) {
+    final int textLength = tagLength + messageLength;
+    ensureCapacity(frameSize + LogFrame.ENTRY_HEADER_SIZE + textLength);
+
+    final byte[] f = frame;
+    int offset = frameSize;
+    f[offset++] = priority;
+    offset = putInt(f, offset, pid);
+    offset = putInt(f, offset, tid);
+    offset = putInt(f, offset, date);
+    offset = putInt(f, offset, time);
+    offset = putInt(f, offset, tagLength);
+    offset = putInt(f, offset, textLength);
+    System.arraycopy(tag, tagOffset, f, offset, tagLength);
+    offset += tagLength;
+    System.arraycopy(message, messageOffset, f, offset, messageLength);
+    frameSize = offset + messageLength;
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity > frame.length) {
+      final byte[] newFrame = new byte[Math.max(capacity, frame.length * 2)];
+      System.arraycopy(frame, 0, newFrame, 0, frameSize);
+      frame = newFrame;
+    }
+  }
+
+  private static int putInt(byte[] b, int offset, int value) {
+    b[offset] = (byte) (value >>> 24);
+    b[offset + 1] = (byte) (value >>> 16);
+    b[offset + 2] = (byte) (value >>> 8);
+    b[offset + 3] = (byte) value;
+    return offset + 4;
+  }
+
+  private static int digits(byte[] b, int offset, int count) {
+    int value = 0;
+    for (int i = offset; i < offset + count; i++) {
+      final int digit = b[i] - '0';
+      if (digit < 0 || digit > 9) {
+        return -1;
+      }
+      value = value * 10 + digit;
+    }
+    return value;
+  }
+
+  private static int skipSpaces(byte[] b, int offset, int length) {
+    while (offset < length && b[offset] == ' ') {
+      offset++;
+    }
+    return offset;
+  }
+
+  private static int skipDigits(byte[] b, int offset, int length) {
+    while (offset < length && b[offset] >= '0' && b[offset] <= '9') {
+      offset++;
+    }
+    return offset;
+  }
+}
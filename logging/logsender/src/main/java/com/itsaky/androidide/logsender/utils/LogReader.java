@@ -19,16 +19,18 @@ package com.itsaky.tom.rv2ide.logsender.utils;
 
 import com.itsaky.tom.rv2ide.logsender.socket.ISocketCommand;
 import com.itsaky.tom.rv2ide.logsender.socket.SenderInfoCommand;
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.InetAddress;
 import java.net.Socket;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * Reads application logs with `logcat`.
+ * Reads application logs with `logcat` and sends them to the receiver as
+ * {@link com.itsaky.tom.rv2ide.logsender.socket.LogFrame frames}. A frame is sent when it is large
+ * enough, when the buffered logs are older than the time threshold of the {@link LogFrameWriter},
+ * or when there is no more output from `logcat` to read at the moment.
  *
  * @author Akash Yadav
  */
@@ -64,20 +66,27 @@ public class LogReader extends Thread {
     try (final Socket socket = new Socket(InetAddress.getLocalHost(), port)) {
       final Process process = processBuilder.start();
 
-      try (final BufferedReader reader = new BufferedReader(
-          new InputStreamReader(process.getInputStream()))) {
+      try (final InputStream input = process.getInputStream()) {
 
         final OutputStream outputStream = socket.getOutputStream();
 
         // Send the sender info
         writeCommand(new SenderInfoCommand(this.senderId, this.packageName), outputStream);
 
-        String line;
-        while (!isInterrupted.get() && (line = reader.readLine()) != null) {
-          line += "\n";
-          outputStream.write(line.getBytes());
+        final LogFrameWriter writer = new LogFrameWriter(outputStream);
+        final byte[] buffer = new byte[8192];
+        int read;
+        while (!isInterrupted.get() && (read = input.read(buffer)) != -1) {
+          writer.write(buffer, 0, read);
+          if (input.available() == 0) {
+            writer.flush();
+          } else {
+            writer.flushIfDue();
+          }
         }
 
+        writer.flush();
+
       } catch (IOException ioError) {
         Logger.error("Error reading from the logcat process or writing to the socket", ioError);
       } finally {
@@ -89,7 +98,8 @@ public class LogReader extends Thread {
   }
 
   private void writeCommand(ISocketCommand command, OutputStream outputStream) throws IOException {
-    outputStream.write(command.toString().getBytes());
+    outputStream.write((command + "\n").getBytes());
+    outputStream.flush();
   }
 
   public void cancel() {
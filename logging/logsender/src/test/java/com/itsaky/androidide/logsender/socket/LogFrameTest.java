@@ -0,0 +1,137 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.logsender.socket;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.itsaky.tom.rv2ide.logsender.utils.LogFrameWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * @author Akash Yadav
+ */
+public class LogFrameTest {
+
+  @Test
+  public void parsesThreadtimeLines() throws IOException {
+    final List<String> entries = roundTrip(
+        "01-23 04:05:06.789  1234  5678 I ActivityManager: Start proc\n"
+            + "12-31 23:59:59.001 42 43 E Tag With Spaces   : message: with colon\n");
+
+    assertEquals(List.of(
+        "I|1234|5678|01-23|04:05:06.789|ActivityManager|Start proc",
+        "E|42|43|12-31|23:59:59.001|Tag With Spaces|message: with colon"), entries);
+  }
+
+  @Test
+  public void keepsUnparsedLines() throws IOException {
+    final List<String> entries = roundTrip(
+        "--------- beginning of main\r\n\n01-23 04:05:06.789  1234  5678 I Tag without colon\n");
+
+    assertEquals(List.of(
+        "?|--------- beginning of main",
+        "?|01-23 04:05:06.789  1234  5678 I Tag without colon"), entries);
+  }
+
+  @Test
+  public void completesLinesSplitAcrossWrites() throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final LogFrameWriter writer = new LogFrameWriter(out);
+    write(writer, "01-23 04:05:06.789  1 2 D Ta");
+    write(writer, "g: héllo\n01-23");
+    writer.flush();
+
+    assertEquals(List.of("D|1|2|01-23|04:05:06.789|Tag|héllo"), readAll(out.toByteArray()));
+  }
+
+  @Test
+  public void writesFramesWhenFull() throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final LogFrameWriter writer = new LogFrameWriter(out, 64, LogFrameWriter.DEFAULT_MAX_DELAY_MS);
+    write(writer, "01-23 04:05:06.789  1 2 W Tag: first message\n");
+    assertEquals(0, out.size());
+
+    write(writer, "01-23 04:05:06.790  1 2 W Tag: second message\n");
+    assertTrue(out.size() > 0);
+
+    final LogFrame.Reader reader = new LogFrame.Reader(new ByteArrayInputStream(out.toByteArray()));
+    final List<String> entries = new ArrayList<>();
+    assertTrue(reader.readFrame(entry -> entries.add(entry.message())));
+    assertFalse(reader.readFrame(entry -> fail("Unexpected entry")));
+    assertEquals(List.of("first message", "second message"), entries);
+  }
+
+  @Test
+  public void rejectsMalformedFrames() {
+    final byte[] frame = {0, 0, 0, 8, 0, 0, 0, 1, 'I', 0, 0, 0, 0};
+    try {
+      new LogFrame.Reader(new ByteArrayInputStream(frame)).readFrame(entry -> {});
+      fail("Expected an IOException");
+    } catch (IOException expected) {
+      // the frame declares an entry but is too short to hold its header
+    }
+
+    final byte[] invalidLength = {0x7F, 0, 0, 0};
+    try {
+      new LogFrame.Reader(new ByteArrayInputStream(invalidLength)).readFrame(entry -> {});
+      fail("Expected an IOException");
+    } catch (IOException expected) {
+      assertTrue(expected.getMessage().startsWith("Invalid log frame length"));
+    }
+  }
+
+  private static List<String> roundTrip(String logcat) throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final LogFrameWriter writer = new LogFrameWriter(out);
+    write(writer, logcat);
+    writer.flush();
+    return readAll(out.toByteArray());
+  }
+
+  private static void write(LogFrameWriter writer, String text) throws IOException {
+    final byte[] bytes = text.getBytes(LogFrame.UTF_8);
+    writer.write(bytes, 0, bytes.length);
+  }
+
+  private static List<String> readAll(byte[] bytes) throws IOException {
+    final List<String> entries = new ArrayList<>();
+    final LogFrame.Reader reader = new LogFrame.Reader(new ByteArrayInputStream(bytes));
+    while (reader.readFrame(entry -> entries.add(describe(entry)))) {
+      // read all frames
+    }
+    return entries;
+  }
+
+  private static String describe(LogFrame.Entry entry) {
+    if (!entry.isParsed()) {
+      return "?|" + entry.message();
+    }
+
+    return String.join("|", String.valueOf(entry.priority), String.valueOf(entry.pid),
+        String.valueOf(entry.tid), entry.formatDate(), entry.formatTime(), entry.tag(),
+        entry.message());
+  }
+}
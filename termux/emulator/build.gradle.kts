@@ -26,8 +26,13 @@ plugins {
 android {
     namespace = "com.termux.emulator"
     packaging.jniLibs.useLegacyPackaging = true
+
+    // the emulator logs through android.util.Log when it has no session client
+    testOptions.unitTests.isReturnDefaultValues = true
 }
 
 dependencies {
     implementation(libs.androidx.annotation)
+
+    testImplementation(libs.tests.junit)
 }
\ No newline at end of file
@@ -0,0 +1,120 @@
+package com.termux.terminal;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A circular byte buffer for exactly one producer and one consumer thread.
+ * <p/>
+ * Unlike {@link ByteQueue}, reads and writes do not take a lock: the producer and the consumer each own one position
+ * in the buffer and copy as many bytes as possible at once. A thread only parks when it has to wait for the other
+ * one, and is unparked once the other thread has made progress or the buffer has been closed.
+ */
+final class ByteRing {
+
+    private final byte[] mBuffer;
+    private final int mMask;
+
+    /** The total number of bytes written. Only updated by the producer. */
+    private volatile long mWritePosition;
+    /** The total number of bytes read. Only updated by the consumer. */
+    private volatile long mReadPosition;
+    private volatile boolean mOpen = true;
+
+    /** The consumer thread, while it is waiting for bytes to be written. */
+    private volatile Thread mWaitingReader;
+    /** The producer thread, while it is waiting for space to write bytes. */
+    private volatile Thread mWaitingWriter;
+
+    /** @param size The size of the buffer, rounded up to a power of two. */
+    public ByteRing(int size) {
+        if (size <= 0) throw new IllegalArgumentException("size <= 0");
+        int capacity = Integer.highestOneBit(size);
+        if (capacity < size) capacity <<= 1;
+        mBuffer = new byte[capacity];
+        mMask = capacity - 1;
+    }
+
+    /** Close the buffer. Waiting threads are woken up, and subsequent reads and writes fail. */
+    public void close() {
+        mOpen = false;
+        LockSupport.unpark(mWaitingReader);
+        LockSupport.unpark(mWaitingWriter);
+    }
+
+    /** The number of bytes which can currently be read. */
+    public int available() {
+        return (int) (mWritePosition - mReadPosition);
+    }
+
+    public int read(byte[] buffer, boolean block) {
+        return read(buffer, 0, buffer.length, block);
+    }
+
+    /**
+     * Read up to {@code length} bytes into the given portion of the provided buffer.
+     * <p/>
+     * Returns the number of bytes read, 0 if no bytes are available and {@code block} is false, or -1 if the buffer
+     * has been closed.
+     */
+    public int read(byte[] buffer, int offset, int length, boolean block) {
+        final long readPosition = mReadPosition;
+        long writePosition;
+        while ((writePosition = mWritePosition) == readPosition && mOpen) {
+            if (!block) return 0;
+            mWaitingReader = Thread.currentThread();
+            // Check again after announcing that we are waiting, the producer may have written in the meantime:
+            if (mWritePosition == readPosition && mOpen) LockSupport.park(this);
+            mWaitingReader = null;
+        }
+        if (!mOpen) return -1;
+
+        final int bytesToRead = (int) Math.min(length, writePosition - readPosition);
+        final int start = (int) readPosition & mMask;
+        final int firstRun = Math.min(bytesToRead, mBuffer.length - start);
+        System.arraycopy(mBuffer, start, buffer, offset, firstRun);
+        System.arraycopy(mBuffer, 0, buffer, offset + firstRun, bytesToRead - firstRun);
+        mReadPosition = readPosition + bytesToRead;
+
+        LockSupport.unpark(mWaitingWriter);
+        return bytesToRead;
+    }
+
+    /**
+     * Write the specified portion of the provided buffer, waiting for space as necessary.
+     * <p/>
+     * Returns whether the output was totally written, false if it was closed before.
+     */
+    public boolean write(byte[] buffer, int offset, int lengthToWrite) {
+        if (lengthToWrite + offset > buffer.length) {
+            throw new IllegalArgumentException("length + offset > buffer.length");
+        } else if (lengthToWrite <= 0) {
+            throw new IllegalArgumentException("length <= 0");
+        }
+
+        final int capacity = mBuffer.length;
+        long writePosition = mWritePosition;
+        while (lengthToWrite > 0) {
+            long readPosition;
+            while ((readPosition = mReadPosition) + capacity == writePosition && mOpen) {
+                mWaitingWriter = Thread.currentThread();
+                // Check again after announcing that we are waiting, the consumer may have read in the meantime:
+                if (mReadPosition + capacity == writePosition && mOpen) LockSupport.park(this);
+                mWaitingWriter = null;
+            }
+            if (!mOpen) return false;
+
+            final int bytesToWrite = (int) Math.min(lengthToWrite, capacity - (writePosition - readPosition));
+            final int start = (int) writePosition & mMask;
+            final int firstRun = Math.min(bytesToWrite, capacity - start);
+            System.arraycopy(buffer, offset, mBuffer, start, firstRun);
+            System.arraycopy(buffer, offset + firstRun, mBuffer, 0, bytesToWrite - firstRun);
+            writePosition += bytesToWrite;
+            mWritePosition = writePosition;
+
+            LockSupport.unpark(mWaitingReader);
+            offset += bytesToWrite;
+            lengthToWrite -= bytesToWrite;
+        }
+        return true;
+    }
+}
@@ -1,5 +1,6 @@
 package com.termux.terminal;
 
+import java.util.ArrayDeque;
 import java.util.Arrays;
 
 /**
@@ -7,6 +8,10 @@ import java.util.Arrays;
  * history.
  * <p>
  * See {@link #externalToInternalRow(int)} for how to map from logical screen rows to array indices.
+ * <p>
+ * The text and style arrays of rows which are discarded or compacted are kept in a small pool and reused for new rows,
+ * so that scrolling does not allocate new arrays for every row. If the compact transcript is enabled, rows which
+ * scroll into the transcript are {@link TerminalRow#compact() compacted}.
  */
 public final class TerminalBuffer {
 
@@ -20,6 +25,17 @@ public final class TerminalBuffer {
     /** The index in the circular buffer where the visible screen starts. */
     private int mScreenFirstRow = 0;
 
+    /** The maximum number of text and style arrays kept in the pool. */
+    private static final int MAX_POOLED_ROWS = 32;
+    /** Whether rows scrolling into the transcript are compacted. */
+    private final boolean mCompactTranscript;
+    /** Text arrays released by rows, for reuse. Always has the same size as {@link #mFreeStyles}. */
+    private final ArrayDeque<char[]> mFreeTexts = new ArrayDeque<>();
+    /** Style arrays released by rows, for reuse. All have {@link #mColumns} elements. */
+    private final ArrayDeque<long[]> mFreeStyles = new ArrayDeque<>();
+    /** The row compact rows are decoded into by {@link #getRowForReading(int)}. */
+    private TerminalRow mDecodedRow;
+
     /**
      * Create a transcript screen.
      *
@@ -29,6 +45,20 @@ public final class TerminalBuffer {
      *                   the top of the screen.
      */
     public TerminalBuffer(int columns, int totalRows, int screenRows) {
+        this(columns, totalRows, screenRows, false);
+    }
+
+    /**
+     * Create a transcript screen.
+     *
+     * @param columns           the width of the screen in characters.
+     * @param totalRows         the height of the entire text area, in rows of text.
+     * @param screenRows        the height of just the screen, not including the transcript.
+     * @param compactTranscript whether rows are compacted when they scroll into the transcript, which saves memory at
+     *                          the cost of decoding them when they are shown or copied.
+     */
+    public TerminalBuffer(int columns, int totalRows, int screenRows, boolean compactTranscript) {
+        mCompactTranscript = compactTranscript;
         mColumns = columns;
         mTotalRows = totalRows;
         mScreenRows = screenRows;
@@ -73,7 +103,7 @@ public final class TerminalBuffer {
             } else {
                 x2 = columns;
             }
-            TerminalRow lineObject = mLines[externalToInternalRow(row)];
+            TerminalRow lineObject = getRowForReading(externalToInternalRow(row));
             int x1Index = lineObject.findStartOfColumn(x1);
             int x2Index = (x2 < mColumns) ? lineObject.findStartOfColumn(x2) : lineObject.getSpaceUsed();
             if (x2Index == x1Index) {
@@ -233,10 +263,18 @@ public final class TerminalBuffer {
         } else {
             // Copy away old state and update new:
             TerminalRow[] oldLines = mLines;
+            final int oldColumns = mColumns;
+            // Only the screen rows are needed up front, the other rows are allocated as they scroll into view:
+            mFreeTexts.clear();
+            mFreeStyles.clear();
+            mDecodedRow = null;
             mLines = new TerminalRow[newTotalRows];
-            for (int i = 0; i < newTotalRows; i++)
+            for (int i = 0; i < newRows; i++)
                 mLines[i] = new TerminalRow(newColumns, currentStyle);
 
+            // Compact old rows are decoded into this row:
+            TerminalRow decodedOldLine = null;
+
             final int oldActiveTranscriptRows = mActiveTranscriptRows;
             final int oldScreenFirstRow = mScreenFirstRow;
             final int oldScreenRows = mScreenRows;
@@ -270,7 +308,15 @@ public final class TerminalBuffer {
                 if (oldLine == null || (!(!newCursorPlaced && cursorAtThisRow)) && oldLine.isBlank()) {
                     skippedBlankLines++;
                     continue;
-                } else if (skippedBlankLines > 0) {
+                }
+
+                if (oldLine.isCompact()) {
+                    if (decodedOldLine == null) decodedOldLine = new TerminalRow(oldColumns, 0);
+                    oldLine.decodeInto(decodedOldLine);
+                    oldLine = decodedOldLine;
+                }
+
+                if (skippedBlankLines > 0) {
                     // After skipping some blank lines we encounter a non-blank line. Insert the skipped blank lines.
                     for (int i = 0; i < skippedBlankLines; i++) {
                         if (currentOutputExternalRow == mScreenRows - 1) {
@@ -391,6 +437,9 @@ public final class TerminalBuffer {
         // position:
         blockCopyLinesDown(externalToInternalRow(bottomMargin), mScreenRows - bottomMargin);
 
+        // The top row of the screen is scrolling into the transcript:
+        if (mCompactTranscript && mTotalRows > mScreenRows) compactRow(mScreenFirstRow);
+
         // Update the screen location in the ring buffer:
         mScreenFirstRow = (mScreenFirstRow + 1) % mTotalRows;
         // Note that the history has grown if not already full:
@@ -398,10 +447,14 @@ public final class TerminalBuffer {
 
         // Blank the newly revealed line above the bottom margin:
         int blankRow = externalToInternalRow(bottomMargin - 1);
-        if (mLines[blankRow] == null) {
-            mLines[blankRow] = new TerminalRow(mColumns, style);
+        TerminalRow line = mLines[blankRow];
+        if (line == null) {
+            mLines[blankRow] = newRow(style);
+        } else if (line.isCompact()) {
+            // The oldest row of the transcript is reused:
+            line.reuse(obtainText(), obtainStyles(), style);
         } else {
-            mLines[blankRow].clear(style);
+            line.clear(style);
         }
     }
 
@@ -445,7 +498,53 @@ public final class TerminalBuffer {
     }
 
     public TerminalRow allocateFullLineIfNecessary(int row) {
-        return (mLines[row] == null) ? (mLines[row] = new TerminalRow(mColumns, 0)) : mLines[row];
+        TerminalRow line = mLines[row];
+        if (line == null) return mLines[row] = newRow(0);
+        if (line.isCompact()) line.expand(obtainText(), obtainStyles());
+        return line;
+    }
+
+    /**
+     * Get the row at the given internal index for reading only. Unlike {@link #allocateFullLineIfNecessary(int)}, a
+     * compact row is not expanded but decoded into a shared row, which is only valid until the next call.
+     */
+    public TerminalRow getRowForReading(int row) {
+        TerminalRow line = mLines[row];
+        if (line == null || !line.isCompact()) return allocateFullLineIfNecessary(row);
+
+        if (mDecodedRow == null || mDecodedRow.getColumns() != mColumns) mDecodedRow = new TerminalRow(mColumns, 0);
+        line.decodeInto(mDecodedRow);
+        return mDecodedRow;
+    }
+
+    private TerminalRow newRow(long style) {
+        return new TerminalRow(mColumns, obtainText(), obtainStyles(), style);
+    }
+
+    private char[] obtainText() {
+        char[] text = mFreeTexts.poll();
+        return (text != null) ? text : TerminalRow.newTextArray(mColumns);
+    }
+
+    private long[] obtainStyles() {
+        long[] styles = mFreeStyles.poll();
+        return (styles != null) ? styles : new long[mColumns];
+    }
+
+    /** Return the arrays of a row which is discarded or compacted to the pool. */
+    private void recycleRowArrays(char[] text, long[] styles) {
+        if (styles.length != mColumns || text.length < mColumns || mFreeStyles.size() >= MAX_POOLED_ROWS) return;
+        mFreeTexts.push(text);
+        mFreeStyles.push(styles);
+    }
+
+    private void compactRow(int row) {
+        TerminalRow line = mLines[row];
+        if (line == null || line.isCompact()) return;
+        char[] text = line.mText;
+        long[] styles = line.mStyle;
+        line.compact();
+        recycleRowArrays(text, styles);
     }
 
     public void setChar(int column, int row, int codePoint, long style) {
@@ -455,15 +554,28 @@ public final class TerminalBuffer {
         allocateFullLineIfNecessary(row).setChar(column, codePoint, style);
     }
 
+    /**
+     * Set the cells starting at the given column to the printable ASCII chars in the given range of bytes. This has
+     * the same effect as {@link #setChar(int, int, int, long)} for each char.
+     */
+    public void setAsciiRun(int column, int row, byte[] bytes, int start, int end, long style) {
+        if (row < 0 || row >= mScreenRows || column < 0 || column + (end - start) > mColumns)
+            throw new IllegalArgumentException("TerminalBuffer.setAsciiRun(): row=" + row + ", column=" + column + ", length=" + (end - start) + ", mScreenRows=" + mScreenRows + ", mColumns=" + mColumns);
+        allocateFullLineIfNecessary(externalToInternalRow(row)).setAsciiRun(column, bytes, start, end, style);
+    }
+
     public long getStyleAt(int externalRow, int column) {
-        return allocateFullLineIfNecessary(externalToInternalRow(externalRow)).getStyle(column);
+        int row = externalToInternalRow(externalRow);
+        TerminalRow line = mLines[row];
+        // compact rows are read without expanding them
+        return (line != null) ? line.getStyle(column) : allocateFullLineIfNecessary(row).getStyle(column);
     }
 
     /** Support for http://vt100.net/docs/vt510-rm/DECCARA and http://vt100.net/docs/vt510-rm/DECCARA */
     public void setOrClearEffect(int bits, boolean setOrClear, boolean reverse, boolean rectangular, int leftMargin, int rightMargin, int top, int left,
                                  int bottom, int right) {
         for (int y = top; y < bottom; y++) {
-            TerminalRow line = mLines[externalToInternalRow(y)];
+            TerminalRow line = allocateFullLineIfNecessary(externalToInternalRow(y));
             int startOfLine = (rectangular || y == top) ? left : leftMargin;
             int endOfLine = (rectangular || y + 1 == bottom) ? right : rightMargin;
             for (int x = startOfLine; x < endOfLine; x++) {
@@ -479,12 +591,17 @@ public final class TerminalBuffer {
                 } else {
                     effect &= ~bits;
                 }
-                line.mStyle[x] = TextStyle.encode(foreColor, backColor, effect);
+                line.setStyle(x, TextStyle.encode(foreColor, backColor, effect));
             }
         }
     }
 
     public void clearTranscript() {
+        for (int row = -mActiveTranscriptRows; row < 0 && mFreeStyles.size() < MAX_POOLED_ROWS; row++) {
+            TerminalRow line = mLines[externalToInternalRow(row)];
+            if (line != null && !line.isCompact()) recycleRowArrays(line.mText, line.mStyle);
+        }
+
         if (mScreenFirstRow < mActiveTranscriptRows) {
             Arrays.fill(mLines, mTotalRows + mScreenFirstRow - mActiveTranscriptRows, mTotalRows, null);
             Arrays.fill(mLines, 0, mScreenFirstRow, null);
@@ -317,7 +317,7 @@ public final class TerminalEmulator {
 
     public TerminalEmulator(TerminalOutput session, int columns, int rows, Integer transcriptRows, TerminalSessionClient client) {
         mSession = session;
-        mScreen = mMainBuffer = new TerminalBuffer(columns, getTerminalTranscriptRows(transcriptRows), rows);
+        mScreen = mMainBuffer = new TerminalBuffer(columns, getTerminalTranscriptRows(transcriptRows), rows, true);
         mAltBuffer = new TerminalBuffer(columns, rows, rows);
         mClient = client;
         mRows = rows;
@@ -483,8 +483,68 @@ public final class TerminalEmulator {
      * @param length the number of bytes in the array to process
      */
     public void append(byte[] buffer, int length) {
-        for (int i = 0; i < length; i++)
-            processByte(buffer[i]);
+        int i = 0;
+        while (i < length) {
+            if (canEmitAsciiRun()) {
+                // Runs of printable ASCII chars are written to the screen at once:
+                int runEnd = i;
+                while (runEnd < length && buffer[runEnd] >= 32 && buffer[runEnd] < 127) runEnd++;
+                if (runEnd > i) {
+                    emitAsciiRun(buffer, i, runEnd);
+                    i = runEnd;
+                    continue;
+                }
+            }
+            processByte(buffer[i++]);
+        }
+    }
+
+    /**
+     * If printable ASCII chars can be emitted by {@link #emitAsciiRun(byte[], int, int)}, that is, if they would be
+     * emitted as they are by {@link #emitCodePoint(int)} without any mode affecting them.
+     */
+    private boolean canEmitAsciiRun() {
+        return mUtf8ToFollow == 0 && mEscapeState == ESC_NONE && !mInsertMode
+            && !(mUseLineDrawingUsesG0 ? mUseLineDrawingG0 : mUseLineDrawingG1)
+            && mCursorCol >= mLeftMargin && mCursorCol < mRightMargin;
+    }
+
+    /**
+     * Emit the printable ASCII chars in the given range of the buffer. This has the same effect as calling
+     * {@link #emitCodePoint(int)} for each char, but copies as many chars at once as fit on the current row.
+     */
+    private void emitAsciiRun(byte[] buffer, int start, int end) {
+        mContinueSequence = false;
+        mLastEmittedCodePoint = buffer[end - 1];
+
+        final boolean autoWrap = isDecsetInternalBitSet(DECSET_BIT_AUTOWRAP);
+        final long style = getStyle();
+        while (start < end) {
+            if (autoWrap && mAboutToAutoWrap && mCursorCol == mRightMargin - 1) {
+                mScreen.setLineWrap(mCursorRow);
+                mCursorCol = mLeftMargin;
+                if (mCursorRow + 1 < mBottomMargin) {
+                    mCursorRow++;
+                } else {
+                    scrollDownOneLine();
+                }
+            }
+
+            final int column = mCursorCol;
+            final int count = Math.min(end - start, mRightMargin - column);
+            mScreen.setAsciiRun(column, mCursorRow, buffer, start, start + count, style);
+            start += count;
+
+            final int lastColumn = column + count - 1;
+            if (autoWrap) mAboutToAutoWrap = lastColumn == mRightMargin - 1;
+            mCursorCol = Math.min(lastColumn + 1, mRightMargin - 1);
+
+            if (!autoWrap && start < end) {
+                // Without autowrap, each of the remaining chars overwrites the last column:
+                mScreen.setAsciiRun(mRightMargin - 1, mCursorRow, buffer, end - 1, end, style);
+                start = end;
+            }
+        }
     }
 
     private void processByte(byte byteToProcess) {
@@ -1,11 +1,17 @@
 package com.termux.terminal;
 
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A row in a terminal, composed of a fixed number of cells.
  * <p>
  * The text in the row is stored in a char[] array, {@link #mText}, for quick access during rendering.
+ * <p>
+ * Rows in the transcript may be {@link #compact() compacted}: the text is then stored as one byte per char if it is
+ * ASCII only, and the styles are run-length encoded. A compact row has no {@link #mText} or {@link #mStyle} and must
+ * be {@link #expand(char[], long[]) expanded} or {@link #decodeInto(TerminalRow) decoded} before it is modified or
+ * rendered.
  */
 public final class TerminalRow {
 
@@ -20,18 +26,176 @@ public final class TerminalRow {
     /** If this row has been line wrapped due to text output at the end of line. */
     boolean mLineWrap;
     /** The style bits of each cell in the row. See {@link TextStyle}. */
-    final long[] mStyle;
+    long[] mStyle;
     /** If this row might contain chars with width != 1, used for deactivating fast path */
     boolean mHasNonOneWidthOrSurrogateChars;
 
+    /** The text of a compact row if it only contains ASCII chars, one byte per char. */
+    private byte[] mCompactAsciiText;
+    /** The text of a compact row if it contains non-ASCII chars, without spare capacity. */
+    private char[] mCompactText;
+    /** The styles of a compact row as pairs of (style, exclusive end column), or null if the row is not compact. */
+    private long[] mCompactStyleRuns;
+
+    /** The source of {@link #getVersion() versions}, shared by all rows so that a version identifies a row's contents. */
+    private static final AtomicLong sVersions = new AtomicLong();
+    /** The version of the contents of this row, or 0 if the row has been modified since the version was assigned. */
+    private long mVersion;
+
     /** Construct a blank row (containing only whitespace, ' ') with a specified style. */
     public TerminalRow(int columns, long style) {
+        this(columns, newTextArray(columns), new long[columns], style);
+    }
+
+    /**
+     * Construct a blank row with a specified style, using the given arrays for its text and styles. The text array
+     * must have at least {@code columns} elements and the style array exactly {@code columns} elements.
+     */
+    TerminalRow(int columns, char[] text, long[] styles, long style) {
         mColumns = columns;
-        mText = new char[(int) (SPARE_CAPACITY_FACTOR * columns)];
-        mStyle = new long[columns];
+        mText = text;
+        mStyle = styles;
+        clear(style);
+    }
+
+    /** Create an array for the text of a row with the given number of columns. */
+    static char[] newTextArray(int columns) {
+        return new char[(int) (SPARE_CAPACITY_FACTOR * columns)];
+    }
+
+    public int getColumns() {
+        return mColumns;
+    }
+
+    /** If this row has been {@link #compact() compacted}. */
+    public boolean isCompact() {
+        return mCompactStyleRuns != null;
+    }
+
+    /**
+     * Encode this row compactly. The {@link #mText} and {@link #mStyle} arrays of this row are released and can be
+     * reused by the caller.
+     */
+    void compact() {
+        if (isCompact()) return;
+
+        final char[] text = mText;
+        final int spaceUsed = mSpaceUsed;
+        boolean ascii = true;
+        for (int i = 0; i < spaceUsed; i++) {
+            if (text[i] >= 0x80) {
+                ascii = false;
+                break;
+            }
+        }
+
+        if (ascii) {
+            byte[] bytes = new byte[spaceUsed];
+            for (int i = 0; i < spaceUsed; i++)
+                bytes[i] = (byte) text[i];
+            mCompactAsciiText = bytes;
+        } else {
+            mCompactText = Arrays.copyOf(text, spaceUsed);
+        }
+
+        final long[] styles = mStyle;
+        int runs = 1;
+        for (int i = 1; i < mColumns; i++)
+            if (styles[i] != styles[i - 1]) runs++;
+
+        long[] styleRuns = new long[runs * 2];
+        int run = 0;
+        for (int i = 1; i <= mColumns; i++) {
+            if (i == mColumns || styles[i] != styles[i - 1]) {
+                styleRuns[run++] = styles[i - 1];
+                styleRuns[run++] = i;
+            }
+        }
+        mCompactStyleRuns = styleRuns;
+
+        mText = null;
+        mStyle = null;
+    }
+
+    /**
+     * Expand a compact row so that it can be modified, decoding its contents into the given arrays. The text array
+     * is replaced by a larger one if it cannot hold the text of this row.
+     */
+    void expand(char[] text, long[] styles) {
+        if (!isCompact()) return;
+        if (text.length < mSpaceUsed) text = new char[mSpaceUsed + mColumns];
+        decodeText(text);
+        decodeStyles(styles);
+        mText = text;
+        mStyle = styles;
+        mCompactAsciiText = null;
+        mCompactText = null;
+        mCompactStyleRuns = null;
+    }
+
+    /**
+     * Reuse a compact row as a blank row with a specified style, using the given arrays for its text and styles. The
+     * text array must have at least {@link #getColumns()} elements.
+     */
+    void reuse(char[] text, long[] styles, long style) {
+        mText = text;
+        mStyle = styles;
+        mCompactAsciiText = null;
+        mCompactText = null;
+        mCompactStyleRuns = null;
         clear(style);
     }
 
+    /**
+     * Copy the contents of this row into the given row, which must have the same number of columns. Unlike
+     * {@link #expand(char[], long[])}, this leaves a compact row compact.
+     */
+    void decodeInto(TerminalRow target) {
+        if (target.mColumns != mColumns)
+            throw new IllegalArgumentException("Cannot decode a row with " + mColumns + " columns into a row with " + target.mColumns + " columns");
+        if (target.mText.length < mSpaceUsed) target.mText = new char[mSpaceUsed];
+        if (isCompact()) {
+            decodeText(target.mText);
+            decodeStyles(target.mStyle);
+        } else {
+            System.arraycopy(mText, 0, target.mText, 0, mSpaceUsed);
+            System.arraycopy(mStyle, 0, target.mStyle, 0, mColumns);
+        }
+        target.mSpaceUsed = mSpaceUsed;
+        target.mLineWrap = mLineWrap;
+        target.mHasNonOneWidthOrSurrogateChars = mHasNonOneWidthOrSurrogateChars;
+        target.mVersion = getVersion();
+    }
+
+    /**
+     * Get the version of the text and styles of this row. Versions are unique among all rows: two rows with the same
+     * version have the same contents, so the version can be used as a key for data computed from the contents.
+     */
+    public long getVersion() {
+        if (mVersion == 0) mVersion = sVersions.incrementAndGet();
+        return mVersion;
+    }
+
+    private void decodeText(char[] text) {
+        if (mCompactAsciiText != null) {
+            final byte[] bytes = mCompactAsciiText;
+            for (int i = 0; i < bytes.length; i++)
+                text[i] = (char) bytes[i];
+        } else {
+            System.arraycopy(mCompactText, 0, text, 0, mCompactText.length);
+        }
+    }
+
+    private void decodeStyles(long[] styles) {
+        final long[] styleRuns = mCompactStyleRuns;
+        int start = 0;
+        for (int run = 0; run < styleRuns.length; run += 2) {
+            int end = (int) styleRuns[run + 1];
+            Arrays.fill(styles, start, end, styleRuns[run]);
+            start = end;
+        }
+    }
+
     /** NOTE: The sourceX2 is exclusive. */
     public void copyInterval(TerminalRow line, int sourceX1, int sourceX2, int destinationX) {
         mHasNonOneWidthOrSurrogateChars |= line.mHasNonOneWidthOrSurrogateChars;
@@ -116,6 +280,7 @@ public final class TerminalRow {
     }
 
     public void clear(long style) {
+        mVersion = 0;
         Arrays.fill(mText, ' ');
         Arrays.fill(mStyle, style);
         mSpaceUsed = (short) mColumns;
@@ -128,6 +293,7 @@ public final class TerminalRow {
             throw new IllegalArgumentException("TerminalRow.setChar(): columnToSet=" + columnToSet + ", codePoint=" + codePoint + ", style=" + style);
 
         mStyle[columnToSet] = style;
+        mVersion = 0;
 
         final int newCodePointDisplayWidth = WcWidth.width(codePoint);
 
@@ -237,14 +403,53 @@ public final class TerminalRow {
         }
     }
 
+    /**
+     * Set the cells starting at the given column to the printable ASCII chars in the given range of bytes. Unless this
+     * row has chars with width != 1, the chars are copied without looking up their width.
+     */
+    public void setAsciiRun(int column, byte[] bytes, int start, int end, long style) {
+        if (column < 0 || column + (end - start) > mColumns)
+            throw new IllegalArgumentException("TerminalRow.setAsciiRun(): column=" + column + ", length=" + (end - start));
+
+        if (mHasNonOneWidthOrSurrogateChars) {
+            for (int i = start; i < end; i++)
+                setChar(column++, bytes[i], style);
+            return;
+        }
+
+        final char[] text = mText;
+        mVersion = 0;
+        Arrays.fill(mStyle, column, column + (end - start), style);
+        for (int i = start; i < end; i++)
+            text[column++] = (char) bytes[i];
+    }
+
     boolean isBlank() {
+        if (mCompactAsciiText != null) {
+            for (byte b : mCompactAsciiText)
+                if (b != ' ') return false;
+            return true;
+        }
+
+        final char[] text = isCompact() ? mCompactText : mText;
         for (int charIndex = 0, charLen = getSpaceUsed(); charIndex < charLen; charIndex++)
-            if (mText[charIndex] != ' ') return false;
+            if (text[charIndex] != ' ') return false;
         return true;
     }
 
+    /** Set the style of the cell in the given column without changing its text. */
+    void setStyle(int column, long style) {
+        mStyle[column] = style;
+        mVersion = 0;
+    }
+
     public final long getStyle(int column) {
-        return mStyle[column];
+        final long[] styleRuns = mCompactStyleRuns;
+        if (styleRuns == null) return mStyle[column];
+
+        for (int run = 0; run < styleRuns.length; run += 2)
+            if (column < styleRuns[run + 1]) return styleRuns[run];
+        throw new IllegalArgumentException("column=" + column + ", mColumns=" + mColumns);
     }
 
 }
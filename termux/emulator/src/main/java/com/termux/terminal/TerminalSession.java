@@ -16,6 +16,7 @@ import java.io.InputStream;
 import java.lang.reflect.Field;
 import java.nio.charset.StandardCharsets;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * A terminal session, consisting of a process coupled to a terminal interface.
@@ -33,15 +34,25 @@ public final class TerminalSession extends TerminalOutput {
     private static final int MSG_NEW_INPUT = 1;
     private static final int MSG_PROCESS_EXITED = 4;
 
+    /** The size of the buffer between the process output and the terminal emulator. */
+    private static final int PROCESS_OUTPUT_BUFFER_SIZE = 64 * 1024;
+    /** The maximum number of bytes appended to the emulator for one message, to keep the main thread responsive. */
+    private static final int MAX_BYTES_PER_INPUT_MESSAGE = 64 * 1024;
+
     public final String mHandle = UUID.randomUUID().toString();
 
     TerminalEmulator mEmulator;
 
     /**
-     * A queue written to from a separate thread when the process outputs, and read by main thread to process by
+     * A buffer written to from a separate thread when the process outputs, and read by main thread to process by
      * terminal emulator.
      */
-    final ByteQueue mProcessToTerminalIOQueue = new ByteQueue(4096);
+    final ByteRing mProcessToTerminalIOQueue = new ByteRing(PROCESS_OUTPUT_BUFFER_SIZE);
+    /**
+     * Whether a {@link #MSG_NEW_INPUT} message has been sent and not yet handled. Only one such message is pending at
+     * any time, it handles all the output written before it.
+     */
+    final AtomicBoolean mNewInputPending = new AtomicBoolean();
     /**
      * A queue written to from the main thread due to user interaction, and read by another thread which forwards by
      * writing to the {@link #mTerminalFileDescriptor}.
@@ -134,12 +145,13 @@ public final class TerminalSession extends TerminalOutput {
             @Override
             public void run() {
                 try (InputStream termIn = new FileInputStream(terminalFileDescriptorWrapped)) {
-                    final byte[] buffer = new byte[4096];
+                    final byte[] buffer = new byte[8192];
                     while (true) {
                         int read = termIn.read(buffer);
                         if (read == -1) return;
                         if (!mProcessToTerminalIOQueue.write(buffer, 0, read)) return;
-                        mMainThreadHandler.sendEmptyMessage(MSG_NEW_INPUT);
+                        if (mNewInputPending.compareAndSet(false, true))
+                            mMainThreadHandler.sendEmptyMessage(MSG_NEW_INPUT);
                     }
                 } catch (Exception e) {
                     // Ignore, just shutting down.
@@ -336,17 +348,32 @@ public final class TerminalSession extends TerminalOutput {
     @SuppressLint("HandlerLeak")
     class MainThreadHandler extends Handler {
 
-        final byte[] mReceiveBuffer = new byte[4 * 1024];
+        final byte[] mReceiveBuffer = new byte[16 * 1024];
 
         @Override
         public void handleMessage(Message msg) {
-            int bytesRead = mProcessToTerminalIOQueue.read(mReceiveBuffer, false);
-            if (bytesRead > 0) {
+            final boolean processExited = msg.what == MSG_PROCESS_EXITED;
+            if (msg.what == MSG_NEW_INPUT) {
+                // Output written from now on needs a new message:
+                mNewInputPending.set(false);
+            }
+
+            // Append all pending output before the exit message, or else at most MAX_BYTES_PER_INPUT_MESSAGE bytes:
+            int totalRead = 0;
+            int bytesRead;
+            while ((processExited || totalRead < MAX_BYTES_PER_INPUT_MESSAGE)
+                && (bytesRead = mProcessToTerminalIOQueue.read(mReceiveBuffer, false)) > 0) {
                 mEmulator.append(mReceiveBuffer, bytesRead);
-                notifyScreenUpdate();
+                totalRead += bytesRead;
+            }
+            if (totalRead > 0) notifyScreenUpdate();
+
+            if (!processExited && mProcessToTerminalIOQueue.available() > 0 && mNewInputPending.compareAndSet(false, true)) {
+                // Continue with the remaining output after other messages have been handled:
+                sendEmptyMessage(MSG_NEW_INPUT);
             }
 
-            if (msg.what == MSG_PROCESS_EXITED) {
+            if (processExited) {
                 int exitCode = (Integer) msg.obj;
                 cleanupResources(exitCode);
 
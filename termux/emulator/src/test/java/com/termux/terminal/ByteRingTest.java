@@ -0,0 +1,104 @@
+package com.termux.terminal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class ByteRingTest {
+
+    @Test
+    public void transfersBytesInOrder() throws Exception {
+        final ByteRing ring = new ByteRing(1000);
+        final int total = 5 * 1024 * 1024;
+
+        Thread producer = new Thread(() -> {
+            Random random = new Random(1);
+            byte[] chunk = new byte[3000];
+            int written = 0;
+            while (written < total) {
+                int length = Math.min(total - written, 1 + random.nextInt(chunk.length));
+                for (int i = 0; i < length; i++) chunk[i] = (byte) (written + i);
+                ring.write(chunk, 0, length);
+                written += length;
+            }
+        });
+        producer.start();
+
+        Random random = new Random(2);
+        byte[] buffer = new byte[2500];
+        int read = 0;
+        while (read < total) {
+            int n = ring.read(buffer, 0, 1 + random.nextInt(buffer.length), random.nextBoolean());
+            for (int i = 0; i < n; i++) assertEquals((byte) (read + i), buffer[i]);
+            read += n;
+        }
+
+        producer.join();
+        assertEquals(total, read);
+    }
+
+    @Test
+    public void nonBlockingReadOfEmptyRingReturnsZero() {
+        ByteRing ring = new ByteRing(16);
+        assertEquals(0, ring.read(new byte[4], false));
+
+        ring.write(new byte[]{1, 2, 3}, 0, 3);
+        assertEquals(3, ring.available());
+        assertEquals(3, ring.read(new byte[4], false));
+        assertEquals(0, ring.available());
+    }
+
+    @Test
+    public void closeWakesUpBlockedReader() throws Exception {
+        final ByteRing ring = new ByteRing(16);
+        final AtomicInteger result = new AtomicInteger(Integer.MIN_VALUE);
+        Thread reader = new Thread(() -> result.set(ring.read(new byte[4], true)));
+        reader.start();
+
+        Thread.sleep(50);
+        ring.close();
+        reader.join(5000);
+        assertFalse(reader.isAlive());
+        assertEquals(-1, result.get());
+    }
+
+    @Test
+    public void closeWakesUpBlockedWriter() throws Exception {
+        final ByteRing ring = new ByteRing(16);
+        final AtomicBoolean result = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> result.set(ring.write(new byte[64], 0, 64)));
+        writer.start();
+
+        Thread.sleep(50);
+        ring.close();
+        writer.join(5000);
+        assertFalse(writer.isAlive());
+        assertFalse(result.get());
+    }
+
+    @Test
+    public void writesLargerThanTheRingAreSplit() throws Exception {
+        final ByteRing ring = new ByteRing(8);
+        final byte[] data = new byte[100];
+        for (int i = 0; i < data.length; i++) data[i] = (byte) i;
+
+        Thread writer = new Thread(() -> ring.write(data, 0, data.length));
+        writer.start();
+
+        byte[] received = new byte[data.length];
+        int offset = 0;
+        while (offset < received.length) {
+            int n = ring.read(received, offset, received.length - offset, true);
+            assertTrue(n > 0 && n <= 8);
+            offset += n;
+        }
+        writer.join();
+
+        for (int i = 0; i < data.length; i++) assertEquals(data[i], received[i]);
+    }
+}
@@ -0,0 +1,39 @@
+package com.termux.terminal;
+
+import java.io.ByteArrayOutputStream;
+
+/** A {@link TerminalOutput} which records what the emulator writes back, for tests and benchmarks. */
+final class MockTerminalOutput extends TerminalOutput {
+
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+    /** Create an emulator without a session client which writes to a new mock output. */
+    static TerminalEmulator newEmulator(int columns, int rows, int transcriptRows) {
+        return new TerminalEmulator(new MockTerminalOutput(), columns, rows, transcriptRows, null);
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int count) {
+        baos.write(data, offset, count);
+    }
+
+    @Override
+    public void titleChanged(String oldTitle, String newTitle) {
+    }
+
+    @Override
+    public void onCopyTextToClipboard(String text) {
+    }
+
+    @Override
+    public void onPasteTextFromClipboard() {
+    }
+
+    @Override
+    public void onBell() {
+    }
+
+    @Override
+    public void onColorsChanged() {
+    }
+}
@@ -0,0 +1,156 @@
+package com.termux.terminal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.junit.Test;
+
+/**
+ * Measures the throughput of process output from the reader thread of a {@link TerminalSession} to its emulator,
+ * through the previous {@link ByteQueue} (4 KiB, with 4 KiB reads) and through the {@link ByteRing} with the sizes
+ * used by the session.
+ * <p/>
+ * The main thread handoff of the session needs an Android looper, so the consumer here appends to the emulator
+ * directly, as the session does for each batch of input.
+ * <p/>
+ * Like {@link TerminalEmulatorAppendBenchmark}, this only runs when the {@code TERMINAL_BENCHMARK} environment
+ * variable is set:
+ * <pre>
+ * TERMINAL_BENCHMARK=1 ./gradlew :termux:emulator:test --tests '*ProcessOutputBenchmark*' -i
+ * </pre>
+ */
+public class ProcessOutputBenchmark {
+
+    private static final int MEGABYTES = 32;
+    private static final int PRODUCER_CHUNK = 8192;
+
+    /** A pipe between the producer and the consumer thread. */
+    private interface Pipe {
+        boolean write(byte[] buffer, int offset, int length);
+
+        int read(byte[] buffer);
+
+        void close();
+    }
+
+    @Test
+    public void measureThroughput() throws Exception {
+        assumeTrue("TERMINAL_BENCHMARK is not set", System.getenv("TERMINAL_BENCHMARK") != null);
+
+        byte[] output = generateOutput(MEGABYTES * 1024 * 1024);
+
+        for (int round = 0; round < 3; round++) {
+            boolean print = round == 2;
+            String queueScreen = measure("ByteQueue", output, 4096, newQueuePipe(4096), print);
+            String ringScreen = measure("ByteRing", output, 16 * 1024, newRingPipe(64 * 1024), print);
+            assertEquals(queueScreen, ringScreen);
+        }
+    }
+
+    private static String measure(String name, byte[] output, int readBufferSize, Pipe pipe, boolean print)
+        throws InterruptedException {
+        TerminalEmulator emulator = MockTerminalOutput.newEmulator(120, 40, 2000);
+
+        Thread producer = new Thread(() -> {
+            for (int offset = 0; offset < output.length; offset += PRODUCER_CHUNK) {
+                if (!pipe.write(output, offset, Math.min(PRODUCER_CHUNK, output.length - offset))) return;
+            }
+        });
+
+        long start = System.nanoTime();
+        producer.start();
+        byte[] buffer = new byte[readBufferSize];
+        long received = 0;
+        int reads = 0;
+        while (received < output.length) {
+            int n = pipe.read(buffer);
+            if (n < 0) break;
+            emulator.append(buffer, n);
+            received += n;
+            reads++;
+        }
+        long elapsed = System.nanoTime() - start;
+        // closing drops unread bytes, so the pipe is only closed once everything has been read
+        pipe.close();
+        producer.join();
+
+        assertEquals(output.length, received);
+        if (print) {
+            System.out.printf("%-10s %d MiB in %d ms: %.1f MiB/s, %d reads%n", name, MEGABYTES, elapsed / 1_000_000,
+                MEGABYTES * 1e9 / elapsed, reads);
+        }
+        return emulator.getScreen().getTranscriptText();
+    }
+
+    /** Output like that of a verbose build: plain lines with some colored and some non-ASCII text. */
+    static byte[] generateOutput(int size) {
+        StringBuilder sb = new StringBuilder(size + 256);
+        int line = 0;
+        while (sb.length() < size) {
+            switch (line % 5) {
+                case 0:
+                    sb.append("> Task :app:compileDebugKotlin UP-TO-DATE\r\n");
+                    break;
+                case 1:
+                    sb.append("\033[1;33mw:\033[0m file:///project/src/Main.kt:").append(line).append(":17 ")
+                        .append("Parameter 'args' is never used\r\n");
+                    break;
+                case 2:
+                    sb.append("    at com.example.Foo.bar(Foo.java:").append(line % 1000).append(")\r\n");
+                    break;
+                case 3:
+                    sb.append("Übersetze Ressourcen … \033[32mOK\033[0m\r\n");
+                    break;
+                default:
+                    sb.append("\033[34m").append("drwxr-xr-x").append("\033[0m  ").append(line)
+                        .append(" src/main/res/layout/activity_main_").append(line % 97).append(".xml\r\n");
+                    break;
+            }
+            line++;
+        }
+        byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+        return Arrays.copyOf(bytes, Math.min(bytes.length, size));
+    }
+
+    private static Pipe newQueuePipe(int size) {
+        ByteQueue queue = new ByteQueue(size);
+        return new Pipe() {
+            @Override
+            public boolean write(byte[] buffer, int offset, int length) {
+                return queue.write(buffer, offset, length);
+            }
+
+            @Override
+            public int read(byte[] buffer) {
+                return queue.read(buffer, true);
+            }
+
+            @Override
+            public void close() {
+                queue.close();
+            }
+        };
+    }
+
+    private static Pipe newRingPipe(int size) {
+        ByteRing ring = new ByteRing(size);
+        return new Pipe() {
+            @Override
+            public boolean write(byte[] buffer, int offset, int length) {
+                return ring.write(buffer, offset, length);
+            }
+
+            @Override
+            public int read(byte[] buffer) {
+                return ring.read(buffer, true);
+            }
+
+            @Override
+            public void close() {
+                ring.close();
+            }
+        };
+    }
+}
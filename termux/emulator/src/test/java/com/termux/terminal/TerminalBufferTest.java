@@ -0,0 +1,110 @@
+package com.termux.terminal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Checks that a buffer which compacts its transcript rows behaves exactly like one which keeps every row expanded.
+ */
+public class TerminalBufferTest {
+
+    private static final int COLUMNS = 20;
+    private static final int SCREEN_ROWS = 5;
+    private static final int TOTAL_ROWS = 30;
+
+    private static final int[] CODE_POINTS = {'a', 'Z', '0', ' ', '#', 0xE9, 0x4E2D, 0x1F600};
+
+    @Test
+    public void compactAndFullRowsHaveTheSameContents() {
+        for (long seed = 0; seed < 20; seed++) {
+            TerminalBuffer compact = new TerminalBuffer(COLUMNS, TOTAL_ROWS, SCREEN_ROWS, true);
+            TerminalBuffer full = new TerminalBuffer(COLUMNS, TOTAL_ROWS, SCREEN_ROWS, false);
+
+            // both buffers receive the same random output, which scrolls rows through the whole transcript
+            Random compactRandom = new Random(seed);
+            Random fullRandom = new Random(seed);
+            for (int i = 0; i < 100; i++) {
+                writeRandomScreen(compact, compactRandom);
+                writeRandomScreen(full, fullRandom);
+                assertSameContents(compact, full);
+            }
+        }
+    }
+
+    @Test
+    public void readingStylesDoesNotExpandCompactRows() {
+        TerminalBuffer buffer = new TerminalBuffer(COLUMNS, TOTAL_ROWS, SCREEN_ROWS, true);
+        long style = TextStyle.encode(2, 5, TextStyle.CHARACTER_ATTRIBUTE_BOLD);
+        for (int i = 0; i < 10; i++) {
+            for (int column = 0; column < COLUMNS; column += 2) buffer.setChar(column, 0, 'x', style);
+            buffer.scrollDownOneLine(0, SCREEN_ROWS, TextStyle.NORMAL);
+        }
+
+        int transcriptRows = buffer.getActiveTranscriptRows();
+        assertEquals(10, transcriptRows);
+        for (int row = -transcriptRows; row < 0; row++) {
+            for (int column = 0; column < COLUMNS; column++) {
+                assertEquals(column % 2 == 0 ? style : TextStyle.NORMAL, buffer.getStyleAt(row, column));
+            }
+            buffer.getSelectedText(0, row, COLUMNS, row);
+            buffer.getWordAtLocation(0, row);
+            assertTrue("row " + row + " was expanded", buffer.mLines[buffer.externalToInternalRow(row)].isCompact());
+        }
+    }
+
+    @Test
+    public void resizingKeepsTheTranscript() {
+        TerminalBuffer compact = new TerminalBuffer(COLUMNS, TOTAL_ROWS, SCREEN_ROWS, true);
+        TerminalBuffer full = new TerminalBuffer(COLUMNS, TOTAL_ROWS, SCREEN_ROWS, false);
+        Random compactRandom = new Random(42);
+        Random fullRandom = new Random(42);
+        for (int i = 0; i < 20; i++) {
+            writeRandomScreen(compact, compactRandom);
+            writeRandomScreen(full, fullRandom);
+        }
+
+        int[] compactCursor = {0, 0};
+        int[] fullCursor = {0, 0};
+        compact.resize(COLUMNS + 7, SCREEN_ROWS + 2, TOTAL_ROWS, compactCursor, TextStyle.NORMAL, false);
+        full.resize(COLUMNS + 7, SCREEN_ROWS + 2, TOTAL_ROWS, fullCursor, TextStyle.NORMAL, false);
+        assertEquals(fullCursor[0], compactCursor[0]);
+        assertEquals(fullCursor[1], compactCursor[1]);
+        assertSameContents(compact, full);
+    }
+
+    /** Write a random line with random styles to the bottom row, and scroll it up. */
+    private static void writeRandomScreen(TerminalBuffer buffer, Random random) {
+        int row = SCREEN_ROWS - 1;
+        int column = 0;
+        while (column < COLUMNS) {
+            int codePoint = CODE_POINTS[random.nextInt(CODE_POINTS.length)];
+            int width = WcWidth.width(codePoint);
+            if (column + width > COLUMNS) break;
+            long style = random.nextInt(3) == 0 ? TextStyle.NORMAL
+                : TextStyle.encode(random.nextInt(16), random.nextInt(16), random.nextInt(8));
+            buffer.setChar(column, row, codePoint, style);
+            column += width;
+        }
+
+        if (random.nextBoolean()) buffer.setLineWrap(row);
+        buffer.scrollDownOneLine(0, SCREEN_ROWS, TextStyle.NORMAL);
+    }
+
+    private static void assertSameContents(TerminalBuffer compact, TerminalBuffer full) {
+        assertEquals(full.getActiveTranscriptRows(), compact.getActiveTranscriptRows());
+        assertEquals(full.getTranscriptText(), compact.getTranscriptText());
+        assertEquals(full.getTranscriptTextWithFullLinesJoined(), compact.getTranscriptTextWithFullLinesJoined());
+
+        int columns = full.mColumns;
+        for (int row = -full.getActiveTranscriptRows(); row < full.mScreenRows; row++) {
+            assertEquals(full.getLineWrap(row), compact.getLineWrap(row));
+            assertEquals(full.getSelectedText(0, row, columns, row), compact.getSelectedText(0, row, columns, row));
+            for (int column = 0; column < columns; column++) {
+                assertEquals("style at " + row + ":" + column, full.getStyleAt(row, column), compact.getStyleAt(row, column));
+            }
+        }
+    }
+}
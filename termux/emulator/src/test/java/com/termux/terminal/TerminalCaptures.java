@@ -0,0 +1,94 @@
+package com.termux.terminal;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Generated terminal output resembling common captures, for tests and benchmarks. The output is generated rather than
+ * recorded, so that it is deterministic, can be produced in any size and does not add megabytes of recorded process
+ * output to the repository.
+ */
+final class TerminalCaptures {
+
+    private TerminalCaptures() {
+    }
+
+    /** Output of a verbose Gradle build: long plain lines, stack traces and a few colored warnings. */
+    static byte[] buildLog(int size) {
+        StringBuilder sb = new StringBuilder(size + 256);
+        for (int line = 0; sb.length() < size; line++) {
+            switch (line % 4) {
+                case 0:
+                    sb.append("> Task :app:compileDebugKotlin UP-TO-DATE\r\n");
+                    break;
+                case 1:
+                    sb.append("\033[1;33mw:\033[0m file:///project/app/src/main/java/com/example/Main.kt:").append(line)
+                        .append(":17 Parameter 'args' is never used, could be renamed to _\r\n");
+                    break;
+                case 2:
+                    sb.append("\tat org.gradle.internal.execution.steps.ExecuteStep.execute(ExecuteStep.java:")
+                        .append(line % 1000).append(")\r\n");
+                    break;
+                default:
+                    sb.append("Ressourcen übersetzt … \033[32mOK\033[0m\r\n");
+                    break;
+            }
+        }
+        return toBytes(sb, size);
+    }
+
+    /** Output of {@code ls -R}: directory headers and short, mostly plain file names. */
+    static byte[] lsRecursive(int size) {
+        StringBuilder sb = new StringBuilder(size + 256);
+        for (int dir = 0; sb.length() < size; dir++) {
+            sb.append("./src/main/res/drawable-").append(dir % 5).append("/dir").append(dir).append(":\r\n");
+            for (int file = 0; file < 12; file++) {
+                sb.append("ic_file_").append(dir).append('_').append(file).append(".xml  ");
+                if (file % 4 == 3) sb.append("\r\n");
+            }
+            sb.append("\r\n");
+        }
+        return toBytes(sb, size);
+    }
+
+    /** Colored output, like {@code ls --color} or a test report: many short runs between SGR sequences. */
+    static byte[] colored(int size) {
+        StringBuilder sb = new StringBuilder(size + 256);
+        for (int line = 0; sb.length() < size; line++) {
+            sb.append("\033[0;3").append(line % 8).append('m').append("PASSED").append("\033[0m ")
+                .append("\033[1m").append("Test").append(line).append("\033[22m ")
+                .append("\033[38;5;").append(line % 256).append('m').append("(").append(line % 97).append(" ms)")
+                .append("\033[0m\r\n");
+        }
+        return toBytes(sb, size);
+    }
+
+    /**
+     * Output which exercises the paths around the ASCII fast path: margins, wrapping, insert mode, line drawing,
+     * tabs, backspaces, wide and combining chars and UTF-8 sequences.
+     */
+    static byte[] edgeCases() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 3; i++) {
+            sb.append("a long line which is wrapped at the right edge of the screen more than once, ")
+                .append("with a tab\there and a backspace x\bX\r\n");
+            sb.append("wide 中文字 and combining é and emoji 😀 chars\r\n");
+            sb.append("\033[4h").append("insert mode\033[5D>>").append("\033[4l\r\n");
+            sb.append("\033(0").append("lqqqk x x mqqqj").append("\033(B").append(" back to ASCII\r\n");
+            sb.append("\033[?7l").append("no autowrap: this line is far too long for the screen and is cut off")
+                .append("\033[?7h\r\n");
+            sb.append("\033[3;6r").append("\033[?69h").append("\033[5;20s").append("\033[4;5H")
+                .append("inside the left and right margins, which wrap long lines")
+                .append("\033[6;2H").append("left of the left margin").append("\033[4;30H").append("right of it")
+                .append("\033[?69l")
+                .append("\033[r").append("\033[20;1H");
+            sb.append("\033[2J\033[H").append("cleared").append("\033[10;70H").append("at the edge").append("\r\n");
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] toBytes(StringBuilder sb, int size) {
+        byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+        return Arrays.copyOf(bytes, Math.min(bytes.length, size));
+    }
+}
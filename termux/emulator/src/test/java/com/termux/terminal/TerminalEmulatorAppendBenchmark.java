@@ -0,0 +1,82 @@
+package com.termux.terminal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import org.junit.Test;
+
+/**
+ * Measures the throughput of {@link TerminalEmulator#append(byte[], int)}, which writes runs of printable ASCII
+ * chars at once, against processing the same output byte by byte, for different kinds of terminal output.
+ * <p/>
+ * This takes a while, so it only runs when the {@code TERMINAL_BENCHMARK} environment variable is set. The output is
+ * generated by {@link TerminalCaptures}. Recorded output, such as a typescript written by {@code script -q}, can be
+ * measured too by listing the files in {@code TERMINAL_BENCHMARK_CAPTURES}, separated by the path separator:
+ * <pre>
+ * TERMINAL_BENCHMARK=1 TERMINAL_BENCHMARK_CAPTURES=/tmp/build.log ./gradlew :termux:emulator:test \
+ *   --tests '*TerminalEmulatorAppendBenchmark*' -i
+ * </pre>
+ */
+public class TerminalEmulatorAppendBenchmark {
+
+    private static final int SIZE = 16 * 1024 * 1024;
+    private static final int CHUNK = 16 * 1024;
+
+    @Test
+    public void measureThroughput() throws IOException {
+        assumeTrue("TERMINAL_BENCHMARK is not set", System.getenv("TERMINAL_BENCHMARK") != null);
+
+        measure("build log", TerminalCaptures.buildLog(SIZE));
+        measure("ls -R", TerminalCaptures.lsRecursive(SIZE));
+        measure("colored", TerminalCaptures.colored(SIZE));
+
+        String captures = System.getenv("TERMINAL_BENCHMARK_CAPTURES");
+        if (captures == null || captures.isEmpty()) return;
+        for (String path : captures.split(File.pathSeparator)) {
+            File capture = new File(path);
+            measure(capture.getName(), Files.readAllBytes(capture.toPath()));
+        }
+    }
+
+    private static void measure(String name, byte[] output) {
+        long bestFast = Long.MAX_VALUE;
+        long bestByteByByte = Long.MAX_VALUE;
+        String fastText = null;
+        String byteByByteText = null;
+        for (int run = 0; run < 3; run++) {
+            TerminalEmulator fast = MockTerminalOutput.newEmulator(120, 40, 2000);
+            long start = System.nanoTime();
+            feed(fast, output, false);
+            bestFast = Math.min(bestFast, System.nanoTime() - start);
+            fastText = fast.getScreen().getTranscriptText();
+
+            TerminalEmulator byteByByte = MockTerminalOutput.newEmulator(120, 40, 2000);
+            start = System.nanoTime();
+            feed(byteByByte, output, true);
+            bestByteByByte = Math.min(bestByteByByte, System.nanoTime() - start);
+            byteByByteText = byteByByte.getScreen().getTranscriptText();
+        }
+
+        assertEquals(byteByByteText, fastText);
+        double megabytes = output.length / (1024.0 * 1024.0);
+        System.out.printf("%-10s append %6.1f MiB/s, byte by byte %6.1f MiB/s%n", name, megabytes * 1e9 / bestFast,
+            megabytes * 1e9 / bestByteByByte);
+    }
+
+    /** Feed the output in chunks of the size the session reads from the process. */
+    private static void feed(TerminalEmulator emulator, byte[] output, boolean byteByByte) {
+        byte[] chunk = new byte[CHUNK];
+        for (int offset = 0; offset < output.length; offset += CHUNK) {
+            int length = Math.min(CHUNK, output.length - offset);
+            System.arraycopy(output, offset, chunk, 0, length);
+            if (byteByByte) {
+                TerminalEmulatorAppendTest.appendByteByByte(emulator, chunk, length);
+            } else {
+                emulator.append(chunk, length);
+            }
+        }
+    }
+}
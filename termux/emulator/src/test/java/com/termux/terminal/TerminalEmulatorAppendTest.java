@@ -0,0 +1,97 @@
+package com.termux.terminal;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+/** Checks that the ASCII fast path of {@link TerminalEmulator#append(byte[], int)} matches byte by byte processing. */
+public class TerminalEmulatorAppendTest {
+
+    private static final int COLUMNS = 40;
+    private static final int ROWS = 12;
+
+    /** The private {@code TerminalEmulator.processByte(byte)}, which handles one byte of output without a fast path. */
+    private static final MethodHandle PROCESS_BYTE;
+
+    static {
+        try {
+            Method processByte = TerminalEmulator.class.getDeclaredMethod("processByte", byte.class);
+            processByte.setAccessible(true);
+            PROCESS_BYTE = MethodHandles.lookup().unreflect(processByte);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Test
+    public void edgeCases() {
+        assertSameAsByteByByte(TerminalCaptures.edgeCases());
+    }
+
+    @Test
+    public void buildLog() {
+        assertSameAsByteByByte(TerminalCaptures.buildLog(64 * 1024));
+    }
+
+    @Test
+    public void lsRecursive() {
+        assertSameAsByteByByte(TerminalCaptures.lsRecursive(64 * 1024));
+    }
+
+    @Test
+    public void colored() {
+        assertSameAsByteByByte(TerminalCaptures.colored(64 * 1024));
+    }
+
+    private static void assertSameAsByteByByte(byte[] output) {
+        TerminalEmulator expected = MockTerminalOutput.newEmulator(COLUMNS, ROWS, 100);
+        appendByteByByte(expected, output, output.length);
+
+        // feed the output in random chunks, so that runs and UTF-8 sequences are split between appends
+        for (long seed = 0; seed < 5; seed++) {
+            TerminalEmulator actual = MockTerminalOutput.newEmulator(COLUMNS, ROWS, 100);
+            Random random = new Random(seed);
+            int offset = 0;
+            while (offset < output.length) {
+                int length = Math.min(output.length - offset, 1 + random.nextInt(300));
+                actual.append(Arrays.copyOfRange(output, offset, offset + length), length);
+                offset += length;
+            }
+            assertSameState(expected, actual);
+        }
+    }
+
+    /**
+     * Process the output one byte at a time, without writing runs of printable ASCII chars at once. This is how
+     * {@link TerminalEmulator#append(byte[], int)} processed all output before, and is the reference for it.
+     */
+    static void appendByteByByte(TerminalEmulator emulator, byte[] buffer, int length) {
+        try {
+            for (int i = 0; i < length; i++) PROCESS_BYTE.invokeExact(emulator, buffer[i]);
+        } catch (Throwable t) {
+            throw new AssertionError(t);
+        }
+    }
+
+    private static void assertSameState(TerminalEmulator expected, TerminalEmulator actual) {
+        assertEquals(expected.getCursorRow(), actual.getCursorRow());
+        assertEquals(expected.getCursorCol(), actual.getCursorCol());
+
+        TerminalBuffer expectedScreen = expected.getScreen();
+        TerminalBuffer actualScreen = actual.getScreen();
+        assertEquals(expectedScreen.getTranscriptText(), actualScreen.getTranscriptText());
+        assertEquals(expectedScreen.getActiveTranscriptRows(), actualScreen.getActiveTranscriptRows());
+        for (int row = -expectedScreen.getActiveTranscriptRows(); row < ROWS; row++) {
+            assertEquals("line wrap of row " + row, expectedScreen.getLineWrap(row), actualScreen.getLineWrap(row));
+            for (int column = 0; column < COLUMNS; column++) {
+                assertEquals("style at " + row + ":" + column, expectedScreen.getStyleAt(row, column),
+                    actualScreen.getStyleAt(row, column));
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.termux.terminal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+
+/**
+ * Checks that the version of a row identifies its contents, which the renderer relies on to cache the text runs of
+ * unchanged rows.
+ */
+public class TerminalRowVersionTest {
+
+    private static final int COLUMNS = 10;
+    private static final long STYLE = TextStyle.NORMAL;
+
+    @Test
+    public void versionChangesOnlyWhenTheRowIsModified() {
+        TerminalRow row = new TerminalRow(COLUMNS, STYLE);
+        long version = row.getVersion();
+        assertEquals(version, row.getVersion());
+
+        row.setChar(0, 'a', STYLE);
+        version = assertChanged(version, row);
+
+        byte[] bytes = "bcd".getBytes(StandardCharsets.US_ASCII);
+        row.setAsciiRun(1, bytes, 0, bytes.length, STYLE);
+        version = assertChanged(version, row);
+
+        row.setStyle(2, TextStyle.encode(2, 5, TextStyle.CHARACTER_ATTRIBUTE_BOLD));
+        version = assertChanged(version, row);
+
+        row.clear(STYLE);
+        assertChanged(version, row);
+    }
+
+    @Test
+    public void rowsWithDifferentContentsHaveDifferentVersions() {
+        TerminalRow first = new TerminalRow(COLUMNS, STYLE);
+        TerminalRow second = new TerminalRow(COLUMNS, STYLE);
+        assertTrue(first.getVersion() != second.getVersion());
+    }
+
+    @Test
+    public void compactingKeepsTheVersion() {
+        TerminalRow row = new TerminalRow(COLUMNS, STYLE);
+        row.setChar(0, 0x4E2D, STYLE);
+        long version = row.getVersion();
+
+        row.compact();
+        assertEquals(version, row.getVersion());
+        row.expand(new char[COLUMNS], new long[COLUMNS]);
+        assertEquals(version, row.getVersion());
+    }
+
+    @Test
+    public void decodedRowsCarryTheVersionOfTheirSource() {
+        TerminalRow source = new TerminalRow(COLUMNS, STYLE);
+        source.setChar(0, 'x', STYLE);
+        source.compact();
+        long version = source.getVersion();
+
+        TerminalRow target = new TerminalRow(COLUMNS, STYLE);
+        source.decodeInto(target);
+        assertEquals(version, target.getVersion());
+
+        target.setChar(1, 'y', STYLE);
+        assertTrue(target.getVersion() != version);
+        assertEquals(version, source.getVersion());
+    }
+
+    @Test
+    public void settingEffectsChangesTheVersion() {
+        TerminalBuffer buffer = new TerminalBuffer(COLUMNS, 20, 5, false);
+        TerminalRow row = buffer.allocateFullLineIfNecessary(buffer.externalToInternalRow(0));
+        long version = row.getVersion();
+
+        buffer.setOrClearEffect(TextStyle.CHARACTER_ATTRIBUTE_BOLD, true, false, false, 0, COLUMNS, 0, 0, 1, COLUMNS);
+        assertTrue(row.getVersion() != version);
+    }
+
+    private static long assertChanged(long version, TerminalRow row) {
+        long newVersion = row.getVersion();
+        assertTrue(newVersion != version);
+        return newVersion;
+    }
+}
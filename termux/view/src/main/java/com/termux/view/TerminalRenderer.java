@@ -11,10 +11,15 @@ import com.termux.terminal.TerminalRow;
 import com.termux.terminal.TextStyle;
 import com.termux.terminal.WcWidth;
 
+import java.util.Arrays;
+
 /**
  * Renderer of a {@link TerminalEmulator} into a {@link Canvas}.
  * <p/>
  * Saves font metrics, so needs to be recreated each time the typeface or font size changes.
+ * <p/>
+ * The widths of non-ASCII glyphs are measured once, and the text runs of rows without cursor or selection are cached
+ * by the {@link TerminalRow#getVersion() version} of the row, so rows which did not change are not measured again.
  */
 public final class TerminalRenderer {
 
@@ -33,6 +38,17 @@ public final class TerminalRenderer {
 
     private final float[] asciiMeasures = new float[127];
 
+    /** The number of slots in the caches of glyph widths and of row runs. */
+    private static final int CACHE_SIZE = 1024;
+    /** The code points whose measured widths are cached in {@link #mGlyphWidths}, direct mapped by code point. */
+    private final int[] mGlyphWidthCodePoints = new int[CACHE_SIZE];
+    /** The measured widths of the code points in {@link #mGlyphWidthCodePoints}. */
+    private final float[] mGlyphWidths = new float[CACHE_SIZE];
+    /** The runs of recently rendered rows without cursor or selection, direct mapped by row version. */
+    private final TextRuns[] mCachedRuns = new TextRuns[CACHE_SIZE];
+    /** The runs of the row being rendered, if it contains the cursor or a selection. */
+    private final TextRuns mUncachedRuns = new TextRuns();
+
     public TerminalRenderer(int textSize, Typeface typeface) {
         mTextSize = textSize;
         mTypeface = typeface;
@@ -80,79 +96,172 @@ public final class TerminalRenderer {
                 selx2 = (row == selectionY2) ? selectionX2 : mEmulator.mColumns;
             }
 
-            TerminalRow lineObject = screen.allocateFullLineIfNecessary(screen.externalToInternalRow(row));
+            TerminalRow lineObject = screen.getRowForReading(screen.externalToInternalRow(row));
             final char[] line = lineObject.mText;
-            final int charsUsedInLine = lineObject.getSpaceUsed();
-
-            long lastRunStyle = 0;
-            boolean lastRunInsideCursor = false;
-            boolean lastRunInsideSelection = false;
-            int lastRunStartColumn = -1;
-            int lastRunStartIndex = 0;
-            boolean lastRunFontWidthMismatch = false;
-            int currentCharIndex = 0;
-            float measuredWidthForRun = 0.f;
-
-            for (int column = 0; column < columns; ) {
-                final char charAtIndex = line[currentCharIndex];
-                final boolean charIsHighsurrogate = Character.isHighSurrogate(charAtIndex);
-                final int charsForCodePoint = charIsHighsurrogate ? 2 : 1;
-                final int codePoint = charIsHighsurrogate ? Character.toCodePoint(charAtIndex, line[currentCharIndex + 1]) : charAtIndex;
-                final int codePointWcWidth = WcWidth.width(codePoint);
-                final boolean insideCursor = (cursorX == column || (codePointWcWidth == 2 && cursorX == column + 1));
-                final boolean insideSelection = column >= selx1 && column <= selx2;
-                final long style = lineObject.getStyle(column);
-
-                // Check if the measured text width for this code point is not the same as that expected by wcwidth().
-                // This could happen for some fonts which are not truly monospace, or for more exotic characters such as
-                // smileys which android font renders as wide.
-                // If this is detected, we draw this code point scaled to match what wcwidth() expects.
-                final float measuredCodePointWidth = (codePoint < asciiMeasures.length) ? asciiMeasures[codePoint] : mTextPaint.measureText(line,
-                    currentCharIndex, charsForCodePoint);
-                final boolean fontWidthMismatch = Math.abs(measuredCodePointWidth / mFontWidth - codePointWcWidth) > 0.01;
-
-                if (style != lastRunStyle || insideCursor != lastRunInsideCursor || insideSelection != lastRunInsideSelection || fontWidthMismatch || lastRunFontWidthMismatch) {
-                    if (column == 0) {
-                        // Skip first column as there is nothing to draw, just record the current style.
-                    } else {
-                        final int columnWidthSinceLastRun = column - lastRunStartColumn;
-                        final int charsSinceLastRun = currentCharIndex - lastRunStartIndex;
-                        int cursorColor = lastRunInsideCursor ? mEmulator.mColors.mCurrentColors[TextStyle.COLOR_INDEX_CURSOR] : 0;
-                        boolean invertCursorTextColor = false;
-                        if (lastRunInsideCursor && cursorShape == TerminalEmulator.TERMINAL_CURSOR_STYLE_BLOCK) {
-                            invertCursorTextColor = true;
-                        }
-                        drawTextRun(canvas, line, palette, heightOffset, lastRunStartColumn, columnWidthSinceLastRun,
-                            lastRunStartIndex, charsSinceLastRun, measuredWidthForRun,
-                            cursorColor, cursorShape, lastRunStyle, reverseVideo || invertCursorTextColor || lastRunInsideSelection);
-                    }
-                    measuredWidthForRun = 0.f;
-                    lastRunStyle = style;
-                    lastRunInsideCursor = insideCursor;
-                    lastRunInsideSelection = insideSelection;
-                    lastRunStartColumn = column;
-                    lastRunStartIndex = currentCharIndex;
-                    lastRunFontWidthMismatch = fontWidthMismatch;
+
+            final TextRuns runs;
+            if (cursorX == -1 && selx2 == -1) {
+                // Without cursor or selection, the runs only depend on the contents of the row:
+                runs = getCachedRuns(lineObject, columns);
+            } else {
+                runs = mUncachedRuns;
+                computeRuns(lineObject, columns, cursorX, selx1, selx2, runs);
+            }
+
+            final int cursorColor = mEmulator.mColors.mCurrentColors[TextStyle.COLOR_INDEX_CURSOR];
+            for (int i = 0; i < runs.mCount; i++) {
+                final boolean insideCursor = runs.mInsideCursor[i];
+                boolean invertCursorTextColor = false;
+                if (insideCursor && cursorShape == TerminalEmulator.TERMINAL_CURSOR_STYLE_BLOCK) {
+                    invertCursorTextColor = true;
                 }
-                measuredWidthForRun += measuredCodePointWidth;
-                column += codePointWcWidth;
-                currentCharIndex += charsForCodePoint;
-                while (currentCharIndex < charsUsedInLine && WcWidth.width(line, currentCharIndex) <= 0) {
-                    // Eat combining chars so that they are treated as part of the last non-combining code point,
-                    // instead of e.g. being considered inside the cursor in the next run.
-                    currentCharIndex += Character.isHighSurrogate(line[currentCharIndex]) ? 2 : 1;
+                drawTextRun(canvas, line, palette, heightOffset, runs.mStartColumns[i], runs.mColumnWidths[i],
+                    runs.mStartCharIndices[i], runs.mCharCounts[i], runs.mMeasuredWidths[i],
+                    insideCursor ? cursorColor : 0, cursorShape, runs.mStyles[i],
+                    reverseVideo || invertCursorTextColor || runs.mInsideSelection[i]);
+            }
+        }
+    }
+
+    /** Get the runs of the given row without cursor or selection, computing them if they are not cached. */
+    private TextRuns getCachedRuns(TerminalRow row, int columns) {
+        final long version = row.getVersion();
+        // Mix the bits of the version, consecutive versions would otherwise only use consecutive slots:
+        final long hash = version * 0x9E3779B97F4A7C15L;
+        final int slot = (int) (hash >>> 32) & (mCachedRuns.length - 1);
+
+        TextRuns runs = mCachedRuns[slot];
+        if (runs == null) runs = mCachedRuns[slot] = new TextRuns();
+        if (runs.mVersion != version || runs.mColumns != columns) {
+            computeRuns(row, columns, -1, -1, -1, runs);
+            runs.mVersion = version;
+            runs.mColumns = columns;
+        }
+        return runs;
+    }
+
+    /**
+     * Split the given row into runs of cells which can be drawn with a single {@link #drawTextRun} call.
+     *
+     * @param cursorX The column of the cursor in this row, or -1.
+     * @param selx1   The first selected column in this row, or -1.
+     * @param selx2   The last selected column in this row, or -1 if nothing is selected.
+     */
+    private void computeRuns(TerminalRow lineObject, int columns, int cursorX, int selx1, int selx2, TextRuns runs) {
+        final char[] line = lineObject.mText;
+        final int charsUsedInLine = lineObject.getSpaceUsed();
+        runs.mCount = 0;
+        runs.mVersion = -1;
+
+        long lastRunStyle = 0;
+        boolean lastRunInsideCursor = false;
+        boolean lastRunInsideSelection = false;
+        int lastRunStartColumn = -1;
+        int lastRunStartIndex = 0;
+        boolean lastRunFontWidthMismatch = false;
+        int currentCharIndex = 0;
+        float measuredWidthForRun = 0.f;
+
+        for (int column = 0; column < columns; ) {
+            final char charAtIndex = line[currentCharIndex];
+            final boolean charIsHighsurrogate = Character.isHighSurrogate(charAtIndex);
+            final int charsForCodePoint = charIsHighsurrogate ? 2 : 1;
+            final int codePoint = charIsHighsurrogate ? Character.toCodePoint(charAtIndex, line[currentCharIndex + 1]) : charAtIndex;
+            final int codePointWcWidth = WcWidth.width(codePoint);
+            final boolean insideCursor = (cursorX == column || (codePointWcWidth == 2 && cursorX == column + 1));
+            final boolean insideSelection = column >= selx1 && column <= selx2;
+            final long style = lineObject.getStyle(column);
+
+            // Check if the measured text width for this code point is not the same as that expected by wcwidth().
+            // This could happen for some fonts which are not truly monospace, or for more exotic characters such as
+            // smileys which android font renders as wide.
+            // If this is detected, we draw this code point scaled to match what wcwidth() expects.
+            final float measuredCodePointWidth = (codePoint < asciiMeasures.length) ? asciiMeasures[codePoint]
+                : measureCodePoint(codePoint, line, currentCharIndex, charsForCodePoint);
+            final boolean fontWidthMismatch = Math.abs(measuredCodePointWidth / mFontWidth - codePointWcWidth) > 0.01;
+
+            if (style != lastRunStyle || insideCursor != lastRunInsideCursor || insideSelection != lastRunInsideSelection || fontWidthMismatch || lastRunFontWidthMismatch) {
+                if (column == 0) {
+                    // Skip first column as there is nothing to draw, just record the current style.
+                } else {
+                    runs.add(lastRunStartColumn, column - lastRunStartColumn, lastRunStartIndex, currentCharIndex - lastRunStartIndex,
+                        measuredWidthForRun, lastRunStyle, lastRunInsideCursor, lastRunInsideSelection);
                 }
+                measuredWidthForRun = 0.f;
+                lastRunStyle = style;
+                lastRunInsideCursor = insideCursor;
+                lastRunInsideSelection = insideSelection;
+                lastRunStartColumn = column;
+                lastRunStartIndex = currentCharIndex;
+                lastRunFontWidthMismatch = fontWidthMismatch;
+            }
+            measuredWidthForRun += measuredCodePointWidth;
+            column += codePointWcWidth;
+            currentCharIndex += charsForCodePoint;
+            while (currentCharIndex < charsUsedInLine && WcWidth.width(line, currentCharIndex) <= 0) {
+                // Eat combining chars so that they are treated as part of the last non-combining code point,
+                // instead of e.g. being considered inside the cursor in the next run.
+                currentCharIndex += Character.isHighSurrogate(line[currentCharIndex]) ? 2 : 1;
             }
+        }
+
+        runs.add(lastRunStartColumn, columns - lastRunStartColumn, lastRunStartIndex, currentCharIndex - lastRunStartIndex,
+            measuredWidthForRun, lastRunStyle, lastRunInsideCursor, lastRunInsideSelection);
+    }
+
+    /** Get the measured width of a non-ASCII code point, which is measured only once. */
+    private float measureCodePoint(int codePoint, char[] line, int charIndex, int charCount) {
+        final int slot = (codePoint * 0x9E3779B9 >>> 16) & (mGlyphWidthCodePoints.length - 1);
+        if (mGlyphWidthCodePoints[slot] == codePoint) return mGlyphWidths[slot];
 
-            final int columnWidthSinceLastRun = columns - lastRunStartColumn;
-            final int charsSinceLastRun = currentCharIndex - lastRunStartIndex;
-            int cursorColor = lastRunInsideCursor ? mEmulator.mColors.mCurrentColors[TextStyle.COLOR_INDEX_CURSOR] : 0;
-            boolean invertCursorTextColor = false;
-            if (lastRunInsideCursor && cursorShape == TerminalEmulator.TERMINAL_CURSOR_STYLE_BLOCK) {
-                invertCursorTextColor = true;
+        final float width = mTextPaint.measureText(line, charIndex, charCount);
+        mGlyphWidthCodePoints[slot] = codePoint;
+        mGlyphWidths[slot] = width;
+        return width;
+    }
+
+    /**
+     * The runs of a row, as computed by {@link #computeRuns}. When cached, the runs are valid for the row contents
+     * with {@link TerminalRow#getVersion() version} {@link #mVersion}.
+     */
+    private static final class TextRuns {
+
+        long mVersion = -1;
+        int mColumns;
+
+        int mCount;
+        int[] mStartColumns = new int[8];
+        int[] mColumnWidths = new int[8];
+        int[] mStartCharIndices = new int[8];
+        int[] mCharCounts = new int[8];
+        float[] mMeasuredWidths = new float[8];
+        long[] mStyles = new long[8];
+        boolean[] mInsideCursor = new boolean[8];
+        boolean[] mInsideSelection = new boolean[8];
+
+        void add(int startColumn, int columnWidth, int startCharIndex, int charCount, float measuredWidth, long style,
+                 boolean insideCursor, boolean insideSelection) {
+            if (mCount == mStyles.length) {
+                final int newLength = mCount * 2;
+                mStartColumns = Arrays.copyOf(mStartColumns, newLength);
+                mColumnWidths = Arrays.copyOf(mColumnWidths, newLength);
+                mStartCharIndices = Arrays.copyOf(mStartCharIndices, newLength);
+                mCharCounts = Arrays.copyOf(mCharCounts, newLength);
+                mMeasuredWidths = Arrays.copyOf(mMeasuredWidths, newLength);
+                mStyles = Arrays.copyOf(mStyles, newLength);
+                mInsideCursor = Arrays.copyOf(mInsideCursor, newLength);
+                mInsideSelection = Arrays.copyOf(mInsideSelection, newLength);
             }
-            drawTextRun(canvas, line, palette, heightOffset, lastRunStartColumn, columnWidthSinceLastRun, lastRunStartIndex, charsSinceLastRun,
-                measuredWidthForRun, cursorColor, cursorShape, lastRunStyle, reverseVideo || invertCursorTextColor || lastRunInsideSelection);
+
+            mStartColumns[mCount] = startColumn;
+            mColumnWidths[mCount] = columnWidth;
+            mStartCharIndices[mCount] = startCharIndex;
+            mCharCounts[mCount] = charCount;
+            mMeasuredWidths[mCount] = measuredWidth;
+            mStyles[mCount] = style;
+            mInsideCursor[mCount] = insideCursor;
+            mInsideSelection[mCount] = insideSelection;
+            mCount++;
         }
     }
 
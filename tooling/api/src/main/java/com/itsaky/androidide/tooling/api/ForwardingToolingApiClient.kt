@@ -17,6 +17,8 @@
 
 package com.itsaky.tom.rv2ide.tooling.api
 
+import com.itsaky.tom.rv2ide.tooling.api.messages.BuildStreamBatch
+import com.itsaky.tom.rv2ide.tooling.api.messages.LogMessageBatch
 import com.itsaky.tom.rv2ide.tooling.api.messages.LogMessageParams
 import com.itsaky.tom.rv2ide.tooling.api.messages.result.BuildInfo
 import com.itsaky.tom.rv2ide.tooling.api.messages.result.BuildResult
@@ -35,6 +37,10 @@ class ForwardingToolingApiClient(var client: IToolingApiClient?) : IToolingApiCl
     client?.logMessage(params)
   }
 
+  override fun logMessages(batch: LogMessageBatch) {
+    client?.logMessages(batch)
+  }
+
   override fun logOutput(line: String) {
     client?.logOutput(line)
   }
@@ -55,6 +61,10 @@ class ForwardingToolingApiClient(var client: IToolingApiClient?) : IToolingApiCl
     client?.onProgressEvent(event)
   }
 
+  override fun onBuildStream(batch: BuildStreamBatch): CompletableFuture<Void> {
+    return client?.onBuildStream(batch) ?: CompletableFuture.completedFuture(null)
+  }
+
   override fun getBuildArguments(): CompletableFuture<List<String>> {
     return client?.getBuildArguments() ?: CompletableFuture.completedFuture(emptyList())
   }
@@ -17,6 +17,8 @@
 
 package com.itsaky.tom.rv2ide.tooling.api
 
+import com.itsaky.tom.rv2ide.tooling.api.messages.BuildStreamBatch
+import com.itsaky.tom.rv2ide.tooling.api.messages.LogMessageBatch
 import com.itsaky.tom.rv2ide.tooling.api.messages.LogMessageParams
 import com.itsaky.tom.rv2ide.tooling.api.messages.result.BuildInfo
 import com.itsaky.tom.rv2ide.tooling.api.messages.result.BuildResult
@@ -42,6 +44,14 @@ interface IToolingApiClient {
    */
   @JsonNotification fun logMessage(params: LogMessageParams)
 
+  /**
+   * Log the given batch of log messages. This is used instead of [logMessage] when the logs are
+   * sent asynchronously by the tooling API.
+   *
+   * @param batch The batch of log messages.
+   */
+  @JsonNotification fun logMessages(batch: LogMessageBatch)
+
   /**
    * Log the build output received from Gradle.
    *
@@ -75,6 +85,18 @@ interface IToolingApiClient {
    */
   @JsonNotification fun onProgressEvent(event: ProgressEvent)
 
+  /**
+   * Called with a batch of build output lines and progress events. This is used instead of
+   * [logOutput] and [onProgressEvent] while a build is running.
+   *
+   * The server limits the number of batches which have not been acknowledged yet, so the returned
+   * future must complete only when the client has consumed the batch. This throttles a chatty
+   * build instead of flooding the client.
+   *
+   * @param batch The batch of output and events.
+   */
+  @JsonRequest fun onBuildStream(batch: BuildStreamBatch): CompletableFuture<Void>
+
   /**
    * Get the extra build arguments that will be used for every build.
    *
@@ -0,0 +1,86 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itsaky.tom.rv2ide.tooling.api.messages
+
+import com.itsaky.tom.rv2ide.tooling.events.ProgressEvent
+
+/**
+ * A batch of build output and progress events streamed from the Tooling API server to the IDE.
+ *
+ * The output lines are packed into a single string instead of being sent as separate messages.
+ * Each line in [output], including the last one, is terminated by a line feed. Lines and events form
+ * a single ordered stream: [eventPositions] tags each event with the number of lines of this batch
+ * which were produced before it. Use [forEachInOrder] to consume the batch in that order.
+ *
+ * @property sequence The sequence number of this batch, starting from 0 for each server process.
+ * @property output The packed output lines.
+ * @property lineCount The number of lines in [output].
+ * @property events The progress events in this batch, in the order they were received from Gradle.
+ * @property eventPositions For each event in [events], the number of lines in [output] which
+ *   precede it.
+ * @author Akash Yadav
+ */
+data class BuildStreamBatch(
+    val sequence: Long,
+    val output: String,
+    val lineCount: Int,
+    val events: List<ProgressEvent>,
+    val eventPositions: List<Int>,
+) {
+
+  /**
+   * Dispatches the lines and events of this batch in the order they were produced.
+   *
+   * @param onLine Called for each output line. The line keeps its line terminator.
+   * @param onEvent Called for each progress event.
+   */
+  inline fun forEachInOrder(onLine: (String) -> Unit, onEvent: (ProgressEvent) -> Unit) {
+    var eventIndex = 0
+    var lineIndex = 0
+    var start = 0
+    while (start < output.length) {
+      while (eventIndex < events.size && eventPositions.getOrElse(eventIndex) { 0 } <= lineIndex) {
+        onEvent(events[eventIndex++])
+      }
+
+      val end = output.indexOf('\n', start).let { if (it == -1) output.length else it + 1 }
+      onLine(output.substring(start, end))
+      lineIndex++
+      start = end
+    }
+
+    while (eventIndex < events.size) {
+      onEvent(events[eventIndex++])
+    }
+  }
+
+  /** Unpacks the output lines of this batch. Each line keeps its line terminator. */
+  fun lines(): List<String> {
+    if (lineCount == 0 || output.isEmpty()) {
+      return emptyList()
+    }
+
+    val lines = ArrayList<String>(lineCount)
+    var start = 0
+    while (start < output.length) {
+      val end = output.indexOf('\n', start).let { if (it == -1) output.length else it + 1 }
+      lines.add(output.substring(start, end))
+      start = end
+    }
+    return lines
+  }
+}
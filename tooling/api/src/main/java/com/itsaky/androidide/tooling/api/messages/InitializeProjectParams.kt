@@ -26,6 +26,9 @@ import java.io.Serializable
  * @property gradleDistribution The parameters for the Gradle distribution to use.
  * @property androidParams The [AndroidInitializationParams] for initializing the Android module
  *   projects.
+ * @property buildModel Whether the project model should be built. The client sets this to `false`
+ *   when it has restored the project model from its cache and only needs a connection to the
+ *   project for running builds. This is not considered when comparing the parameters.
  * @author Akash Yadav
  */
 data class InitializeProjectParams
@@ -34,4 +37,7 @@ constructor(
     val directory: String,
     val gradleDistribution: GradleDistributionParams = GradleDistributionParams.WRAPPER,
     val androidParams: AndroidInitializationParams = AndroidInitializationParams.DEFAULT,
-) : Serializable
+) : Serializable {
+
+  var buildModel: Boolean = true
+}
@@ -0,0 +1,28 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.tooling.api.messages
+
+/**
+ * A batch of log messages sent from the tooling API to the IDE.
+ *
+ * @property messages The log messages, in the order they were logged.
+ * @property droppedCount The number of log messages which were dropped since the previous batch
+ *   because the log queue of the tooling API was full.
+ * @author Akash Yadav
+ */
+data class LogMessageBatch(val messages: List<LogMessageParams>, val droppedCount: Long = 0)
@@ -29,6 +29,10 @@ object ToolingProps {
   val TESTING_IS_TEST_ENV = propName("testing", "isTestEnv")
   val TESTING_LATEST_AGP_VERSION = propName("testing", "latestAgpVersion")
 
+  val LOGGING_ASYNC = propName("logging", "async")
+  val LOGGING_QUEUE_SIZE = propName("logging", "queueSize")
+  val LOGGING_BLOCK_WHEN_FULL = propName("logging", "blockWhenFull")
+
   val isTestEnv: Boolean
     get() = System.getProperty(TESTING_IS_TEST_ENV).toBoolean()
 
@@ -41,5 +45,20 @@ object ToolingProps {
           ?: AndroidPluginVersion.LATEST_TESTED
     }
 
+  /** Whether the logs should be sent to the client asynchronously. Defaults to `true`. */
+  val isAsyncLogging: Boolean
+    get() = System.getProperty(LOGGING_ASYNC)?.toBoolean() ?: true
+
+  /** The capacity of the queue of the asynchronously sent logs. */
+  val loggingQueueSize: Int?
+    get() = System.getProperty(LOGGING_QUEUE_SIZE)?.toIntOrNull()
+
+  /**
+   * Whether threads should wait for space in the log queue when it is full, instead of dropping the
+   * log messages. Defaults to `false`.
+   */
+  val blockLoggingWhenFull: Boolean
+    get() = System.getProperty(LOGGING_BLOCK_WHEN_FULL).toBoolean()
+
   fun propName(cat: String, name: String) = "ide.tooling.$cat.$name"
 }
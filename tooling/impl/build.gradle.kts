@@ -76,4 +76,6 @@ dependencies {
 
 
   runtimeOnly(libs.tooling.slf4j)
+
+  testImplementation(libs.tests.junit)
 }
@@ -18,23 +18,50 @@
 package com.itsaky.tom.rv2ide.tooling.impl
 
 import com.itsaky.tom.rv2ide.tooling.api.IToolingApiClient
+import com.itsaky.tom.rv2ide.tooling.impl.progress.BuildStreamChannel
+import java.io.ByteArrayOutputStream
 import java.io.OutputStream
 
 /**
- * Sends the output received from Gradle build to the [IToolingApiClient].
+ * Sends the output received from Gradle build to the [IToolingApiClient]. Lines are streamed through
+ * [Main.buildStream] if available.
  *
  * @author Akash Yadav
  */
 class LoggingOutputStream : OutputStream() {
-  private val lineBuilder = StringBuilder()
+  private val lineBuffer = ByteArrayOutputStream(256)
 
   override fun write(b: Int) {
-    val c = b.toChar()
-    lineBuilder.append(c)
+    lineBuffer.write(b)
+    if (b == '\n'.code) {
+      emitLine()
+    }
+  }
+
+  override fun write(b: ByteArray, off: Int, len: Int) {
+    var start = off
+    val end = off + len
+    for (i in off until end) {
+      if (b[i] == '\n'.code.toByte()) {
+        lineBuffer.write(b, start, i + 1 - start)
+        emitLine()
+        start = i + 1
+      }
+    }
+    if (start < end) {
+      lineBuffer.write(b, start, end - start)
+    }
+  }
+
+  private fun emitLine() {
+    val line = lineBuffer.toString(Charsets.UTF_8.name())
+    lineBuffer.reset()
 
-    if (c == '\n' && Main.client != null) {
-      Main.client.logOutput(lineBuilder.toString())
-      lineBuilder.clear()
+    val stream: BuildStreamChannel? = Main.buildStream
+    if (stream != null) {
+      stream.appendOutput(line)
+    } else {
+      Main.client?.logOutput(line)
     }
   }
 }
@@ -21,6 +21,7 @@ import com.itsaky.tom.rv2ide.logging.JvmStdErrAppender;
 import com.itsaky.tom.rv2ide.tooling.api.IToolingApiClient;
 import com.itsaky.tom.rv2ide.tooling.api.util.ToolingApiLauncher;
 import com.itsaky.tom.rv2ide.tooling.impl.internal.ProjectImpl;
+import com.itsaky.tom.rv2ide.tooling.impl.progress.BuildStreamChannel;
 import com.itsaky.tom.rv2ide.tooling.impl.progress.ForwardingProgressListener;
 import java.io.ByteArrayInputStream;
 import java.nio.charset.StandardCharsets;
@@ -39,6 +40,7 @@ public class Main {
 
   private static final Logger LOG = LoggerFactory.getLogger(Main.class);
   public static IToolingApiClient client;
+  public static BuildStreamChannel buildStream;
   public static Future<Void> future;
 
   public static void main(String[] args) {
@@ -53,6 +55,7 @@ public class Main {
         ToolingApiLauncher.newServerLauncher(server, project, System.in, System.out);
     Main.future = launcher.startListening();
     Main.client = (IToolingApiClient) launcher.getRemoteProxy();
+    Main.buildStream = new BuildStreamChannel(client);
     server.connect(client);
 
     LOG.debug("Server started. Will run until shutdown message is received...");
@@ -83,12 +86,29 @@ public class Main {
       } finally {
         Main.future = null;
         Main.client = null;
+        closeBuildStream();
 
         LOG.info("Tooling API server shutdown complete");
       }
     }
   }
 
+  /** Sends any pending build output to the client and waits for it to be acknowledged. */
+  public static void flushBuildStream() {
+    final var stream = buildStream;
+    if (stream != null && !stream.flush()) {
+      LOG.warn("Timed out waiting for the client to receive the build output");
+    }
+  }
+
+  public static void closeBuildStream() {
+    final var stream = buildStream;
+    buildStream = null;
+    if (stream != null) {
+      stream.close();
+    }
+  }
+
   public static void checkGradleWrapper() {
     if (client != null) {
       LOG.info("Checking gradle wrapper availability...");
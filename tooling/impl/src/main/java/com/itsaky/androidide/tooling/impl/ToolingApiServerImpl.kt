@@ -157,7 +157,9 @@ internal class ToolingApiServerImpl(private val project: ProjectImpl) : ITooling
               "Unable to create gradle connector for project directory: ${params.directory}"
             }
 
-        notifyBeforeBuild(BuildInfo(emptyList()))
+        if (params.buildModel) {
+          notifyBeforeBuild(BuildInfo(emptyList()))
+        }
 
         if (isReinitializing) {
           log.info("Reusing project connection...")
@@ -172,23 +174,24 @@ internal class ToolingApiServerImpl(private val project: ProjectImpl) : ITooling
 
         stopWatch.lapFromLast("Project connection established")
 
-        this.buildCancellationToken = GradleConnector.newCancellationTokenSource()
-
-        val project =
-            try {
-              val modelBuilderParams =
-                  RootProjectModelBuilderParams(connection, this.buildCancellationToken!!.token())
-              val impl =
-                  RootModelBuilder(params).build(modelBuilderParams) as? ProjectImpl?
-                      ?: throw ModelBuilderException("Failed to build project model")
-              impl
-            } catch (err: Throwable) {
-              throw err
-            }
+        if (!params.buildModel) {
+          // the client has restored the project model from its cache
+          // we only need the connection to be able to run builds
+          // the model is built on first use in case a client still queries it
+          log.info("Skipping project model build as requested by the client")
+          stopWatch.log()
+          this.project.setFrom(ProjectImpl())
+          this.project.modelLoader = { loadProjectModel(params, connection) }
+          this.isInitialized = true
+          return@runBuild InitializeResult(true)
+        }
+
+        val project = buildProjectModel(params, connection)
 
         stopWatch.lapFromLast("Project read successful")
         stopWatch.log()
 
+        this.project.modelLoader = null
         this.project.setFrom(project)
         this.isInitialized = true
 
@@ -202,6 +205,42 @@ internal class ToolingApiServerImpl(private val project: ProjectImpl) : ITooling
     }
   }
 
+  /**
+   * Builds the project model which was skipped during [initialize]. The model is built like any
+   * other build so that it can be cancelled and its progress and failure are reported to the
+   * client.
+   */
+  private fun loadProjectModel(
+      params: InitializeProjectParams,
+      connection: ProjectConnection,
+  ): ProjectImpl {
+    return runBuild {
+          notifyBeforeBuild(BuildInfo(emptyList()))
+          try {
+            val project = buildProjectModel(params, connection)
+            this.buildCancellationToken = null
+            notifyBuildSuccess(emptyList())
+            return@runBuild project
+          } catch (err: Throwable) {
+            log.error("Failed to build project model", err)
+            notifyBuildFailure(emptyList())
+            throw err
+          }
+        }
+        .join()
+  }
+
+  private fun buildProjectModel(
+      params: InitializeProjectParams,
+      connection: ProjectConnection,
+  ): ProjectImpl {
+    this.buildCancellationToken = GradleConnector.newCancellationTokenSource()
+    val modelBuilderParams =
+        RootProjectModelBuilderParams(connection, this.buildCancellationToken!!.token())
+    return RootModelBuilder(params).build(modelBuilderParams) as? ProjectImpl?
+        ?: throw ModelBuilderException("Failed to build project model")
+  }
+
   private fun validateProjectDirectory(projectDirectory: File) =
       when {
         !projectDirectory.exists() -> PROJECT_NOT_FOUND
@@ -303,10 +342,13 @@ internal class ToolingApiServerImpl(private val project: ProjectImpl) : ITooling
   }
 
   private fun notifyBuildFailure(tasks: List<String>) {
+    // the build output must reach the client before the build result
+    Main.flushBuildStream()
     client?.onBuildFailed(BuildResult((tasks)))
   }
 
   private fun notifyBuildSuccess(tasks: List<String>) {
+    Main.flushBuildStream()
     client?.onBuildSuccessful(BuildResult(tasks))
   }
 
@@ -361,6 +403,7 @@ internal class ToolingApiServerImpl(private val project: ProjectImpl) : ITooling
       this.lastInitParams = null
       Main.future = null
       Main.client = null
+      Main.closeBuildStream()
 
       null
     }
@@ -17,6 +17,7 @@
 
 package com.itsaky.tom.rv2ide.tooling.impl.internal
 
+import com.itsaky.tom.rv2ide.builder.model.DefaultLibrary
 import com.itsaky.tom.rv2ide.builder.model.DefaultProjectSyncIssues
 import com.itsaky.tom.rv2ide.tooling.api.IAndroidProject
 import com.itsaky.tom.rv2ide.tooling.api.IGradleProject
@@ -24,6 +25,8 @@ import com.itsaky.tom.rv2ide.tooling.api.IJavaProject
 import com.itsaky.tom.rv2ide.tooling.api.IProject
 import com.itsaky.tom.rv2ide.tooling.api.ProjectType
 import com.itsaky.tom.rv2ide.tooling.api.models.BasicProjectMetadata
+import com.itsaky.tom.rv2ide.tooling.api.models.ModuleModel
+import com.itsaky.tom.rv2ide.tooling.api.models.WorkspaceModel
 import com.itsaky.tom.rv2ide.tooling.api.models.params.StringParameter
 import com.itsaky.tom.rv2ide.tooling.api.models.result.SelectProjectResult
 import com.itsaky.tom.rv2ide.tooling.impl.internal.forwarding.ForwardingProject
@@ -53,6 +56,25 @@ internal class ProjectImpl(
     this.selectedProject = ForwardingProject()
   }
 
+  /**
+   * Builds the project model when it is first needed. Set when the client restored the model
+   * from its cache and the server skipped the model build during initialization. Every accessor
+   * of the model must call [ensureModelLoaded] first.
+   */
+  @Transient @Volatile var modelLoader: (() -> ProjectImpl)? = null
+
+  private fun ensureModelLoaded() {
+    if (modelLoader == null) {
+      return
+    }
+
+    synchronized(lock) {
+      val loader = modelLoader ?: return
+      setFrom(loader())
+      modelLoader = null
+    }
+  }
+
   fun setFrom(other: ProjectImpl) {
     this.rootProject = other.rootProject
     this.rootProjectPath = other.rootProjectPath
@@ -66,17 +88,105 @@ internal class ProjectImpl(
   }
 
   override fun getProjects(): CompletableFuture<List<BasicProjectMetadata>> {
-    return CompletableFuture.supplyAsync { projects.map { it.getMetadata().get() } }
+    return CompletableFuture.supplyAsync {
+      ensureModelLoaded()
+      projects.map { it.getMetadata().get() }
+    }
   }
 
   override fun getProjectSyncIssues(): CompletableFuture<DefaultProjectSyncIssues> {
-    return CompletableFuture.completedFuture(
-        this.projectSyncIssues ?: DefaultProjectSyncIssues(emptyList())
-    )
+    return CompletableFuture.supplyAsync {
+      ensureModelLoaded()
+      this.projectSyncIssues ?: DefaultProjectSyncIssues(emptyList())
+    }
+  }
+
+  override fun getWorkspaceModel(): CompletableFuture<WorkspaceModel> {
+    return CompletableFuture.supplyAsync {
+      ensureModelLoaded()
+      val rootProject = checkNotNull(this.rootProject) { "Project has not been initialized" }
+      val libraries = HashMap<String, DefaultLibrary>()
+      val rootModel = rootProject.toModuleModel(libraries)
+
+      // the root project is also built as a module, send it only once if both are of the same type
+      val rootPath = rootProject.getMetadata().get().projectPath
+      val rootProjectIndex =
+          projects.indexOfFirst {
+            it.getMetadata().get().projectPath == rootPath && it.projectType == rootModel.type
+          }
+
+      WorkspaceModel(
+          rootProject = rootModel,
+          projects =
+              projects
+                  .filterIndexed { index, _ -> index != rootProjectIndex }
+                  .map { it.toModuleModel(libraries) },
+          libraries = libraries,
+          syncIssues = this.projectSyncIssues,
+          rootProjectIndex = rootProjectIndex,
+      )
+    }
+  }
+
+  private val IGradleProject.projectType: ProjectType
+    get() =
+        when (this) {
+          is IAndroidProject -> ProjectType.Android
+          is IJavaProject -> ProjectType.Java
+          else -> ProjectType.Gradle
+        }
+
+  private fun IGradleProject.toModuleModel(
+      libraries: MutableMap<String, DefaultLibrary>
+  ): ModuleModel {
+    return when (this) {
+      is IAndroidProject -> {
+        val libraryMap = getLibraryMap().get()
+        val libraryDependencies = HashMap<String, Set<String>>()
+        for ((key, library) in libraryMap) {
+          // the same library may be resolved with different dependencies in different modules
+          // the library is sent once, the dependencies of this module are kept with the module
+          val existing = libraries.putIfAbsent(key, library) ?: continue
+          if (existing.dependencies != library.dependencies) {
+            libraryDependencies[key] = library.dependencies
+          }
+        }
+
+        ModuleModel(
+            type = ProjectType.Android,
+            metadata = getMetadata().get(),
+            tasks = getTasks().get(),
+            configuredVariant = getConfiguredVariant().get(),
+            variants = getVariants().get(),
+            bootClasspaths = getBootClasspaths().get(),
+            libraryKeys = libraryMap.keys.toList(),
+            libraryDependencies = libraryDependencies,
+            mainSourceSet = getMainSourceSet().get(),
+            lintCheckJars = getLintCheckJars().get(),
+        )
+      }
+
+      is IJavaProject ->
+          ModuleModel(
+              type = ProjectType.Java,
+              metadata = getMetadata().get(),
+              tasks = getTasks().get(),
+              contentRoots = getContentRoots().get(),
+              dependencies = getDependencies().get(),
+          )
+
+      else ->
+          ModuleModel(
+              type = ProjectType.Gradle,
+              metadata = getMetadata().get(),
+              tasks = getTasks().get(),
+          )
+    }
   }
 
   override fun selectProject(param: StringParameter): CompletableFuture<SelectProjectResult> {
     return CompletableFuture.supplyAsync {
+      ensureModelLoaded()
       synchronized(lock) {
         this.selectedProject.project = getProject(param.value)
         SelectProjectResult(this.selectedProject.project != null)
@@ -86,6 +196,7 @@ internal class ProjectImpl(
 
   override fun getType(): CompletableFuture<ProjectType> {
     return CompletableFuture.supplyAsync {
+      ensureModelLoaded()
       synchronized(lock) {
         return@supplyAsync when (this.selectedProject.project) {
           is IAndroidProject -> ProjectType.Android
@@ -19,27 +19,252 @@ package com.itsaky.tom.rv2ide.tooling.impl.logging
 
 import ch.qos.logback.classic.spi.ILoggingEvent
 import ch.qos.logback.core.AppenderBase
+import com.itsaky.tom.rv2ide.tooling.api.messages.LogMessageBatch
 import com.itsaky.tom.rv2ide.tooling.api.messages.LogMessageParams
 import com.itsaky.tom.rv2ide.tooling.impl.Main
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicLongArray
+import java.util.concurrent.atomic.AtomicReferenceArray
+import java.util.concurrent.locks.LockSupport
+import kotlin.concurrent.thread
 
 /**
  * [AppenderBase] implementation which forwards all logs to the tooling API client.
  *
+ * In [async] mode (the default), logging threads only enqueue the log messages to a bounded
+ * lock-free ring buffer. The messages are drained on a dedicated thread and sent to the client in
+ * batches with [logMessages][com.itsaky.tom.rv2ide.tooling.api.IToolingApiClient.logMessages].
+ * When the buffer is full, the message is either dropped or the logging thread waits for space,
+ * depending on the [overflowPolicy]. Otherwise, each message is sent synchronously on the thread
+ * which logged it.
+ *
  * @author Akash Yadav
  */
 class ToolingApiAppender : AppenderBase<ILoggingEvent>() {
 
+  /** Whether the messages are sent asynchronously. Must be set before the appender is started. */
+  var async: Boolean = true
+
+  /** The capacity of the ring buffer. Rounded up to a power of two when the appender is started. */
+  var queueSize: Int = DEFAULT_QUEUE_SIZE
+
+  /** The maximum number of messages sent in a single batch. */
+  var maxBatchSize: Int = DEFAULT_MAX_BATCH_SIZE
+
+  /** What to do when a message is logged while the ring buffer is full. */
+  var overflowPolicy: OverflowPolicy = OverflowPolicy.DROP
+
+  /** The maximum time a logging thread waits for space with [OverflowPolicy.BLOCK]. */
+  var maxBlockMs: Long = DEFAULT_MAX_BLOCK_MS
+
+  private val dropped = AtomicLong(0)
+  private var reportedDropped = 0L
+
+  @Volatile private var ring: LogRing? = null
+  @Volatile private var drainer: Thread? = null
+
+  @Volatile private var drainerParked = false
+
+  /** The total number of log messages dropped because the ring buffer was full. */
+  val droppedCount: Long
+    get() = dropped.get()
+
+  /** Policy for handling messages logged while the ring buffer is full. */
+  enum class OverflowPolicy {
+
+    /** Drop the message and count it in [droppedCount]. */
+    DROP,
+
+    /**
+     * Wait for space in the ring buffer, for at most [maxBlockMs]. The message is dropped if there
+     * is still no space after that.
+     */
+    BLOCK,
+  }
+
+  companion object {
+    const val DEFAULT_QUEUE_SIZE = 2048
+    const val DEFAULT_MAX_BATCH_SIZE = 256
+    const val DEFAULT_MAX_BLOCK_MS = 1000L
+
+    /** Time for which the drainer waits for the queued messages to be sent when stopping. */
+    private const val STOP_TIMEOUT_MS = 2000L
+  }
+
+  override fun start() {
+    if (async) {
+      ring = LogRing(Integer.highestOneBit((queueSize - 1).coerceAtLeast(1)) shl 1)
+      drainer = thread(name = "ToolingApiLogDrainer", isDaemon = true) { drainLoop() }
+    }
+    super.start()
+  }
+
+  override fun stop() {
+    super.stop()
+
+    val drainer = this.drainer ?: return
+    LockSupport.unpark(drainer)
+    try {
+      drainer.join(STOP_TIMEOUT_MS)
+    } catch (err: InterruptedException) {
+      Thread.currentThread().interrupt()
+    }
+
+    this.drainer = null
+    this.ring = null
+  }
+
   override fun append(eventObject: ILoggingEvent?) {
     if (eventObject == null || !isStarted) {
       return
     }
 
-    Main.client?.logMessage(
+    val params =
         LogMessageParams(
             eventObject.level.levelStr[0],
             eventObject.loggerName,
             eventObject.formattedMessage,
         )
-    )
+
+    val ring = this.ring
+    if (ring == null) {
+      Main.client?.logMessage(params)
+      return
+    }
+
+    val queued =
+        ring.offer(params) ||
+            (overflowPolicy == OverflowPolicy.BLOCK && offerBlocking(ring, params))
+
+    if (!queued) {
+      dropped.incrementAndGet()
+      return
+    }
+
+    if (drainerParked) {
+      drainer?.let(LockSupport::unpark)
+    }
+  }
+
+  private fun offerBlocking(ring: LogRing, params: LogMessageParams): Boolean {
+    if (Thread.currentThread() === drainer) {
+      // never wait for ourselves
+      return false
+    }
+
+    val deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxBlockMs)
+    while (System.nanoTime() < deadline) {
+      drainer?.let(LockSupport::unpark)
+      LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100))
+      if (ring.offer(params)) {
+        return true
+      }
+    }
+
+    return false
+  }
+
+  private fun drainLoop() {
+    val batch = ArrayList<LogMessageParams>(maxBatchSize)
+    while (true) {
+      val ring = this.ring ?: return
+
+      while (batch.size < maxBatchSize) {
+        batch.add(ring.poll() ?: break)
+      }
+
+      if (batch.isNotEmpty()) {
+        send(batch)
+        batch.clear()
+        continue
+      }
+
+      if (!isStarted) {
+        // stopped and drained
+        return
+      }
+
+      drainerParked = true
+      if (ring.isEmpty() && isStarted) {
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100))
+      }
+      drainerParked = false
+    }
+  }
+
+  private fun send(batch: List<LogMessageParams>) {
+    val dropped = this.dropped.get()
+    val newlyDropped = dropped - reportedDropped
+    reportedDropped = dropped
+
+    try {
+      Main.client?.logMessages(LogMessageBatch(ArrayList(batch), newlyDropped))
+    } catch (err: Throwable) {
+      // do not log with slf4j here, that would feed the error back to this appender
+      addError("Unable to send log messages to the client", err)
+    }
+  }
+
+  /**
+   * A bounded multi-producer, single-consumer ring buffer. Producers claim slots with a CAS on the
+   * tail and publish them with a per-slot sequence number, so neither side takes a lock.
+   */
+  private class LogRing(capacity: Int) {
+
+    private val mask = capacity - 1L
+    private val capacity = capacity.toLong()
+    private val buffer = AtomicReferenceArray<LogMessageParams?>(capacity)
+    private val sequences = AtomicLongArray(capacity)
+    private val tail = AtomicLong(0)
+
+    // only accessed by the consumer
+    private var head = 0L
+
+    init {
+      for (i in 0 until capacity) {
+        sequences.set(i, i.toLong())
+      }
+    }
+
+    fun offer(element: LogMessageParams): Boolean {
+      while (true) {
+        val position = tail.get()
+        val index = (position and mask).toInt()
+        val diff = sequences.get(index) - position
+        when {
+          diff == 0L ->
+              if (tail.compareAndSet(position, position + 1)) {
+                buffer.set(index, element)
+                sequences.set(index, position + 1)
+                return true
+              }
+
+          // the slot still holds an element which has not been consumed, the ring is full
+          diff < 0L -> return false
+
+          // another producer claimed this slot, retry with the new tail
+          else -> Unit
+        }
+      }
+    }
+
+    fun poll(): LogMessageParams? {
+      val index = (head and mask).toInt()
+      if (sequences.get(index) != head + 1) {
+        return null
+      }
+
+      val element = buffer.get(index)
+      buffer.set(index, null)
+      sequences.set(index, head + capacity)
+      head++
+      return element
+    }
+
+    fun isEmpty(): Boolean {
+      val index = (head and mask).toInt()
+      return sequences.get(index) != head + 1
+    }
   }
 }
@@ -25,6 +25,7 @@ import ch.qos.logback.core.spi.ContextAwareBase
 import com.google.auto.service.AutoService
 import com.itsaky.tom.rv2ide.logging.JvmStdErrAppender
 import com.itsaky.tom.rv2ide.logging.encoder.IDELogFormatEncoder
+import com.itsaky.tom.rv2ide.tooling.api.util.ToolingProps
 
 /**
  * Default logging configurator for the Tooling API Runtime.
@@ -44,6 +45,12 @@ class ToolingLoggingConfigurator : ContextAwareBase(), Configurator {
     stdErrAppender.start()
 
     val toolingApiAppender = ToolingApiAppender()
+    toolingApiAppender.context = context
+    toolingApiAppender.async = ToolingProps.isAsyncLogging
+    ToolingProps.loggingQueueSize?.let { toolingApiAppender.queueSize = it }
+    if (ToolingProps.blockLoggingWhenFull) {
+      toolingApiAppender.overflowPolicy = ToolingApiAppender.OverflowPolicy.BLOCK
+    }
     toolingApiAppender.start()
 
     val rootLogger = context.getLogger(Logger.ROOT_LOGGER_NAME)
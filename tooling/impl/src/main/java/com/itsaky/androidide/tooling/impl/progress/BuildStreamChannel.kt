@@ -0,0 +1,248 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itsaky.tom.rv2ide.tooling.impl.progress
+
+import com.itsaky.tom.rv2ide.tooling.api.IToolingApiClient
+import com.itsaky.tom.rv2ide.tooling.api.messages.BuildStreamBatch
+import com.itsaky.tom.rv2ide.tooling.events.ProgressEvent
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.thread
+import kotlin.concurrent.withLock
+import org.slf4j.LoggerFactory
+
+/**
+ * Streams build output and progress events to the [IToolingApiClient] in batches.
+ *
+ * Lines and events are buffered as one ordered stream, each event being tagged with its position
+ * among the buffered lines, and sent with [IToolingApiClient.onBuildStream] when the buffer
+ * exceeds [maxPendingChars] or [maxPendingEvents], after [flushIntervalMs], or when [flush] is
+ * called. At most [maxInFlight] batches may be unacknowledged by the client. Once that limit is
+ * reached and the buffer is full, the threads producing output are blocked (for at most
+ * [maxBlockMs]) until the client catches up.
+ *
+ * JSON-RPC notifications and requests other than the batches are not affected by this channel.
+ *
+ * @author Akash Yadav
+ */
+class BuildStreamChannel
+@JvmOverloads
+constructor(
+    private val client: IToolingApiClient,
+    private val maxPendingChars: Int = DEFAULT_MAX_PENDING_CHARS,
+    private val maxPendingEvents: Int = DEFAULT_MAX_PENDING_EVENTS,
+    private val maxInFlight: Int = DEFAULT_MAX_IN_FLIGHT,
+    private val flushIntervalMs: Long = DEFAULT_FLUSH_INTERVAL_MS,
+    private val maxBlockMs: Long = DEFAULT_MAX_BLOCK_MS,
+) : AutoCloseable {
+
+  private val lock = ReentrantLock()
+
+  /** Signalled when there is data to send or when a batch has been acknowledged. */
+  private val canSend = lock.newCondition()
+
+  /** Signalled when the pending buffer has been taken by the sender. */
+  private val canAppend = lock.newCondition()
+
+  /** Signalled when all batches have been sent and acknowledged. */
+  private val drained = lock.newCondition()
+
+  // guarded by 'lock'
+  private var output = StringBuilder()
+  private var lineCount = 0
+  private var events = ArrayList<ProgressEvent>()
+  private var eventPositions = ArrayList<Int>()
+  private var firstPendingAt = 0L
+  private var inFlight = 0
+  private var sequence = 0L
+  private var flushRequested = false
+  private var closed = false
+
+  private val sender = thread(name = "BuildStreamSender", isDaemon = true) { sendLoop() }
+
+  companion object {
+
+    private val log = LoggerFactory.getLogger(BuildStreamChannel::class.java)
+
+    const val DEFAULT_MAX_PENDING_CHARS = 64 * 1024
+    const val DEFAULT_MAX_PENDING_EVENTS = 256
+    const val DEFAULT_MAX_IN_FLIGHT = 2
+    const val DEFAULT_FLUSH_INTERVAL_MS = 50L
+    const val DEFAULT_MAX_BLOCK_MS = 10_000L
+    const val DEFAULT_FLUSH_TIMEOUT_MS = 5_000L
+  }
+
+  /**
+   * Appends a line of build output. The line must be terminated with a line feed.
+   *
+   * @param line The line to append.
+   */
+  fun appendOutput(line: String) {
+    lock.withLock {
+      awaitCapacity { output.length < maxPendingChars }
+      markPending()
+      output.append(line)
+      if (!line.endsWith('\n')) {
+        output.append('\n')
+      }
+      lineCount++
+      if (output.length >= maxPendingChars) {
+        canSend.signal()
+      }
+    }
+  }
+
+  /**
+   * Appends a progress event.
+   *
+   * @param event The event to append.
+   */
+  fun appendProgress(event: ProgressEvent) {
+    lock.withLock {
+      awaitCapacity { events.size < maxPendingEvents }
+      markPending()
+      events.add(event)
+      eventPositions.add(lineCount)
+      if (events.size >= maxPendingEvents) {
+        canSend.signal()
+      }
+    }
+  }
+
+  /**
+   * Sends all buffered output and waits until the client has acknowledged it.
+   *
+   * @param timeoutMs The maximum time to wait, in milliseconds.
+   * @return Whether all the output was acknowledged before the timeout.
+   */
+  @JvmOverloads
+  fun flush(timeoutMs: Long = DEFAULT_FLUSH_TIMEOUT_MS): Boolean {
+    lock.withLock {
+      var remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMs)
+      flushRequested = true
+      canSend.signal()
+      try {
+        while (!closed && (hasPending() || inFlight > 0)) {
+          if (remaining <= 0L) {
+            return false
+          }
+          remaining = drained.awaitNanos(remaining)
+        }
+        return true
+      } finally {
+        flushRequested = false
+      }
+    }
+  }
+
+  override fun close() {
+    flush()
+    lock.withLock {
+      closed = true
+      canSend.signalAll()
+      canAppend.signalAll()
+      drained.signalAll()
+    }
+    sender.join(flushIntervalMs)
+  }
+
+  private fun hasPending() = lineCount > 0 || events.isNotEmpty()
+
+  private fun markPending() {
+    if (!hasPending()) {
+      firstPendingAt = System.nanoTime()
+      canSend.signal()
+    }
+  }
+
+  private inline fun awaitCapacity(hasCapacity: () -> Boolean) {
+    var remaining = TimeUnit.MILLISECONDS.toNanos(maxBlockMs)
+    while (!closed && !hasCapacity()) {
+      if (remaining <= 0L) {
+        // the client is not consuming the output, stop throttling the build
+        log.warn("Client did not acknowledge build output for {}ms", maxBlockMs)
+        return
+      }
+      remaining = canAppend.awaitNanos(remaining)
+    }
+  }
+
+  private fun isReadyToSend(): Boolean {
+    if (!hasPending() || inFlight >= maxInFlight) {
+      return false
+    }
+
+    return flushRequested ||
+        closed ||
+        output.length >= maxPendingChars ||
+        events.size >= maxPendingEvents ||
+        System.nanoTime() - firstPendingAt >= TimeUnit.MILLISECONDS.toNanos(flushIntervalMs)
+  }
+
+  private fun sendLoop() {
+    while (true) {
+      val batch =
+          lock.withLock {
+            while (!isReadyToSend()) {
+              if (closed && !hasPending()) {
+                return
+              }
+
+              if (!hasPending() || inFlight >= maxInFlight) {
+                canSend.await()
+              } else {
+                val waited = System.nanoTime() - firstPendingAt
+                canSend.awaitNanos(TimeUnit.MILLISECONDS.toNanos(flushIntervalMs) - waited)
+              }
+            }
+
+            val batch =
+                BuildStreamBatch(sequence++, output.toString(), lineCount, events, eventPositions)
+            output = StringBuilder()
+            lineCount = 0
+            events = ArrayList()
+            eventPositions = ArrayList()
+            inFlight++
+            canAppend.signalAll()
+            batch
+          }
+
+      try {
+        client.onBuildStream(batch).whenComplete { _, err ->
+          if (err != null) {
+            log.warn("Failed to deliver build output batch #{}", batch.sequence, err)
+          }
+          onAcknowledged()
+        }
+      } catch (err: Throwable) {
+        log.error("Unable to send build output batch #{}", batch.sequence, err)
+        onAcknowledged()
+      }
+    }
+  }
+
+  private fun onAcknowledged() {
+    lock.withLock {
+      inFlight--
+      canSend.signal()
+      canAppend.signalAll()
+      if (inFlight == 0 && !hasPending()) {
+        drained.signalAll()
+      }
+    }
+  }
+}
@@ -96,6 +96,11 @@ class ForwardingProgressListener : ProgressListener {
               }
         }
 
-    Main.client.onProgressEvent(ideEvent)
+    val stream: BuildStreamChannel? = Main.buildStream
+    if (stream != null) {
+      stream.appendProgress(ideEvent)
+    } else {
+      Main.client.onProgressEvent(ideEvent)
+    }
   }
 }
@@ -77,7 +77,11 @@ abstract class AbstractModelBuilder<P, R>(
       }
 
       // Warn the user if the project is using a newer AGP version
-      if (!newerAgpWarned.get() && agpVersion > ToolingProps.latestTestedAgpVersion) {
+      // module models may be built concurrently, only the first builder should report this
+      if (
+          agpVersion > ToolingProps.latestTestedAgpVersion &&
+              newerAgpWarned.compareAndSet(false, true)
+      ) {
         val syncIssue =
             DefaultSyncIssue(
                 data =
@@ -89,7 +93,6 @@ abstract class AbstractModelBuilder<P, R>(
                 type = IDESyncIssue.TYPE_AGP_VERSION_TOO_NEW,
             )
         syncIssueReporter.report(syncIssue)
-        newerAgpWarned.set(true)
       }
     }
 
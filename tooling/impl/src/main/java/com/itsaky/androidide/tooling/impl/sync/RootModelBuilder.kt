@@ -21,13 +21,19 @@ import com.itsaky.tom.rv2ide.builder.model.DefaultProjectSyncIssues
 import com.itsaky.tom.rv2ide.builder.model.DefaultSyncIssue
 import com.itsaky.tom.rv2ide.builder.model.shouldBeIgnored
 import com.itsaky.tom.rv2ide.tooling.api.IAndroidProject
+import com.itsaky.tom.rv2ide.tooling.api.IModuleProject
 import com.itsaky.tom.rv2ide.tooling.api.IProject
 import com.itsaky.tom.rv2ide.tooling.api.messages.InitializeProjectParams
 import com.itsaky.tom.rv2ide.tooling.api.util.AndroidModulePropertyCopier
 import com.itsaky.tom.rv2ide.tooling.impl.Main
 import com.itsaky.tom.rv2ide.tooling.impl.Main.finalizeLauncher
 import com.itsaky.tom.rv2ide.tooling.impl.internal.ProjectImpl
+import com.itsaky.tom.rv2ide.utils.StopWatch
+import java.io.File
 import java.io.Serializable
+import java.util.Properties
+import java.util.concurrent.ConcurrentHashMap
+import org.gradle.tooling.BuildAction
 import org.gradle.tooling.ConfigurableLauncher
 import org.gradle.tooling.model.idea.IdeaProject
 import org.slf4j.LoggerFactory
@@ -63,7 +69,8 @@ class RootModelBuilder(initializationParams: InitializeProjectParams) :
 
           val rootProjectVersions = getAndroidVersions(rootModule, controller)
 
-          val syncIssues = hashSetOf<DefaultSyncIssue>()
+          // sync issues are reported concurrently by the module model builders
+          val syncIssues = ConcurrentHashMap.newKeySet<DefaultSyncIssue>()
           val syncIssueReporter = ISyncIssueReporter {
             if (it.shouldBeIgnored()) {
               // this SyncIssue should not be shown to the user
@@ -91,20 +98,29 @@ class RootModelBuilder(initializationParams: InitializeProjectParams) :
                 GradleProjectModelBuilder(initializationParams).build(rootModule.gradleProject)
               }
 
-          val projects =
+          // Each module is built by a nested build action with its own build controller. Gradle
+          // runs these actions in parallel if parallel execution is enabled for the model build
+          // (see applyAndroidModelBuilderProps). The results are in the order of the actions.
+          val moduleActions =
               ideaModules.map { ideaModule ->
-                ModuleProjectModelBuilder(initializationParams)
-                    .build(
-                        ModuleProjectModelBuilderParams(
-                            controller,
-                            ideaProject,
-                            ideaModule,
-                            modulePaths,
-                            syncIssueReporter,
-                        )
-                    )
+                BuildAction<IModuleProject> { moduleController ->
+                  ModuleProjectModelBuilder(initializationParams)
+                      .build(
+                          ModuleProjectModelBuilderParams(
+                              moduleController,
+                              ideaProject,
+                              ideaModule,
+                              modulePaths,
+                              syncIssueReporter,
+                          )
+                      )
+                }
               }
 
+          val stopWatch = StopWatch("Fetch models of ${moduleActions.size} module(s)")
+          val projects = controller.run(moduleActions)
+          stopWatch.log()
+
           return@action ProjectImpl(
               rootProject,
               rootModule.gradleProject.path,
@@ -113,8 +129,9 @@ class RootModelBuilder(initializationParams: InitializeProjectParams) :
           )
         }
 
-    finalizeLauncher(executor)
+    // added before the arguments from the client so that those take precedence
     applyAndroidModelBuilderProps(executor)
+    finalizeLauncher(executor)
 
     if (cancellationToken != null) {
       executor.withCancellationToken(cancellationToken)
@@ -131,6 +148,15 @@ class RootModelBuilder(initializationParams: InitializeProjectParams) :
   }
 
   private fun applyAndroidModelBuilderProps(launcher: ConfigurableLauncher<*>) {
+    // the model build only configures the projects, fetch the module models in parallel
+    // unless the project or the user has configured parallel execution themselves
+    val gradleUserHome =
+        System.getenv("GRADLE_USER_HOME")?.let(::File)
+            ?: File(System.getProperty("user.home"), ".gradle")
+    if (!isParallelExecutionConfigured(File(initializationParams.directory), gradleUserHome)) {
+      launcher.addArguments("--parallel")
+    }
+
     launcher.addProperty(IAndroidProject.PROPERTY_BUILD_MODEL_ONLY, true)
     launcher.addProperty(IAndroidProject.PROPERTY_INVOKED_FROM_IDE, true)
   }
@@ -138,4 +164,27 @@ class RootModelBuilder(initializationParams: InitializeProjectParams) :
   private fun ConfigurableLauncher<*>.addProperty(property: String, value: Any) {
     addArguments(String.format("-P%s=%s", property, value))
   }
+
+  companion object {
+
+    private const val PROPERTY_PARALLEL = "org.gradle.parallel"
+
+    /**
+     * Whether `org.gradle.parallel` is set in the `gradle.properties` file of the project or of
+     * the Gradle user home.
+     */
+    @JvmStatic
+    internal fun isParallelExecutionConfigured(projectDir: File, gradleUserHome: File): Boolean {
+      return listOf(projectDir, gradleUserHome).any { dir ->
+        val file = File(dir, "gradle.properties")
+        if (!file.isFile) {
+          return@any false
+        }
+
+        val properties = Properties()
+        file.inputStream().use { properties.load(it) }
+        properties.containsKey(PROPERTY_PARALLEL)
+      }
+    }
+  }
 }
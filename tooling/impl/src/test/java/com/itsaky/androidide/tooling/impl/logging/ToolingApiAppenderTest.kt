@@ -0,0 +1,143 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.tooling.impl.logging
+
+import ch.qos.logback.classic.Level
+import ch.qos.logback.classic.LoggerContext
+import ch.qos.logback.classic.spi.LoggingEvent
+import com.itsaky.tom.rv2ide.tooling.api.IToolingApiClient
+import com.itsaky.tom.rv2ide.tooling.api.messages.LogMessageBatch
+import com.itsaky.tom.rv2ide.tooling.api.messages.LogMessageParams
+import com.itsaky.tom.rv2ide.tooling.impl.Main
+import java.lang.reflect.Proxy
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+/** @author Akash Yadav */
+class ToolingApiAppenderTest {
+
+  private val context = LoggerContext()
+  private val logger = context.getLogger("ToolingApiAppenderTest")
+
+  private val messages = CopyOnWriteArrayList<LogMessageParams>()
+  private val batches = CopyOnWriteArrayList<LogMessageBatch>()
+
+  /** Invoked before a batch is recorded, on the thread which sends it. */
+  @Volatile private var onBatch: () -> Unit = {}
+
+  @After
+  fun tearDown() {
+    Main.client = null
+  }
+
+  @Test
+  fun sendsMessagesSynchronously() {
+    Main.client = recordingClient()
+    val appender = appender { async = false }
+
+    log(appender, 3)
+    appender.stop()
+
+    assertEquals(expected(0 until 3), messages)
+    assertTrue(batches.isEmpty())
+  }
+
+  @Test
+  fun sendsQueuedMessagesInOrderedBatches() {
+    Main.client = recordingClient()
+    val appender = appender { maxBatchSize = 4 }
+
+    log(appender, 100)
+    appender.stop()
+
+    assertTrue(messages.isEmpty())
+    assertEquals(expected(0 until 100), batches.flatMap { it.messages })
+    assertTrue(batches.all { it.messages.size <= 4 })
+    assertEquals(0L, appender.droppedCount)
+  }
+
+  @Test
+  fun dropsAndReportsMessagesWhenTheQueueIsFull() {
+    val sending = CountDownLatch(1)
+    val release = CountDownLatch(1)
+    onBatch = {
+      sending.countDown()
+      release.await(5, TimeUnit.SECONDS)
+    }
+
+    Main.client = recordingClient()
+    val appender = appender { queueSize = 4 }
+
+    // the drainer takes the first message and blocks while sending it
+    log(appender, 1)
+    assertTrue(sending.await(5, TimeUnit.SECONDS))
+
+    // four messages fill the queue, the remaining two are dropped
+    log(appender, 6, from = 1)
+    assertEquals(2L, appender.droppedCount)
+
+    onBatch = {}
+    release.countDown()
+    appender.stop()
+
+    assertEquals(expected(0 until 5), batches.flatMap { it.messages })
+    assertEquals(2L, batches.sumOf { it.droppedCount })
+  }
+
+  private fun appender(configure: ToolingApiAppender.() -> Unit): ToolingApiAppender =
+      ToolingApiAppender().apply {
+        context = this@ToolingApiAppenderTest.context
+        configure()
+        start()
+      }
+
+  private fun log(appender: ToolingApiAppender, count: Int, from: Int = 0) {
+    for (i in from until from + count) {
+      appender.doAppend(LoggingEvent(null, logger, Level.INFO, "message $i", null, null))
+    }
+  }
+
+  private fun expected(range: IntRange) =
+      range.map { LogMessageParams('I', "ToolingApiAppenderTest", "message $it") }
+
+  private fun recordingClient(): IToolingApiClient {
+    return Proxy.newProxyInstance(
+        javaClass.classLoader,
+        arrayOf(IToolingApiClient::class.java),
+    ) { _, method, args ->
+      when (method.name) {
+        "logMessage" -> messages.add(args[0] as LogMessageParams)
+        "logMessages" -> {
+          onBatch()
+          batches.add(args[0] as LogMessageBatch)
+        }
+      }
+      if (method.returnType == CompletableFuture::class.java) {
+        CompletableFuture.completedFuture(null)
+      } else {
+        null
+      }
+    } as IToolingApiClient
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.tooling.impl.progress
+
+import com.itsaky.tom.rv2ide.tooling.api.IToolingApiClient
+import com.itsaky.tom.rv2ide.tooling.api.messages.BuildStreamBatch
+import com.itsaky.tom.rv2ide.tooling.events.OperationDescriptor
+import com.itsaky.tom.rv2ide.tooling.events.ProgressEvent
+import java.lang.reflect.Proxy
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.TimeUnit
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+/** @author Akash Yadav */
+class BuildStreamChannelTest {
+
+  private val batches = CopyOnWriteArrayList<BuildStreamBatch>()
+  private val sent = LinkedBlockingQueue<BuildStreamBatch>()
+  private val acknowledgements = CopyOnWriteArrayList<CompletableFuture<Void>>()
+
+  /** Whether the client acknowledges the batches as soon as it receives them. */
+  @Volatile private var autoAcknowledge = true
+
+  private var channel: BuildStreamChannel? = null
+
+  @After
+  fun tearDown() {
+    autoAcknowledge = true
+    acknowledgements.forEach { it.complete(null) }
+    channel?.close()
+  }
+
+  @Test
+  fun keepsOutputAndEventsInOrder() {
+    val channel = channel()
+    channel.appendOutput("first\n")
+    channel.appendProgress(TestEvent("started"))
+    channel.appendOutput("second")
+    channel.appendProgress(TestEvent("finished"))
+    channel.appendOutput("third\n")
+    assertTrue(channel.flush())
+
+    val stream = mutableListOf<String>()
+    batches.forEach { batch ->
+      batch.forEachInOrder({ stream += it }, { stream += "<${it.displayName}>" })
+    }
+    assertEquals(listOf("first\n", "<started>", "second\n", "<finished>", "third\n"), stream)
+    assertEquals(batches.indices.map { it.toLong() }, batches.map { it.sequence })
+  }
+
+  @Test
+  fun sendsWhenTheBufferIsFull() {
+    val channel = channel(maxPendingChars = 10)
+    channel.appendOutput("12345\n")
+    channel.appendOutput("67890\n")
+
+    val batch = sent.poll(5, TimeUnit.SECONDS)
+    assertNotNull(batch)
+    assertEquals("12345\n67890\n", batch!!.output)
+    assertEquals(2, batch.lineCount)
+  }
+
+  @Test
+  fun sendsAfterTheFlushInterval() {
+    val channel = channel(flushIntervalMs = 20)
+    channel.appendOutput("line\n")
+
+    assertEquals("line\n", sent.poll(5, TimeUnit.SECONDS)?.output)
+  }
+
+  @Test
+  fun limitsTheUnacknowledgedBatches() {
+    autoAcknowledge = false
+    val channel = channel(maxPendingChars = 4, maxInFlight = 1)
+    channel.appendOutput("one\n")
+    assertNotNull(sent.poll(5, TimeUnit.SECONDS))
+
+    // the second batch is held back until the first one is acknowledged
+    channel.appendOutput("two\n")
+    assertFalse(channel.flush(100))
+    assertEquals(1, batches.size)
+
+    acknowledgements[0].complete(null)
+    assertEquals("two\n", sent.poll(5, TimeUnit.SECONDS)?.output)
+    acknowledgements[1].complete(null)
+    assertTrue(channel.flush())
+  }
+
+  private fun channel(
+      maxPendingChars: Int = BuildStreamChannel.DEFAULT_MAX_PENDING_CHARS,
+      maxInFlight: Int = BuildStreamChannel.DEFAULT_MAX_IN_FLIGHT,
+      flushIntervalMs: Long = 60_000,
+  ): BuildStreamChannel =
+      BuildStreamChannel(
+              recordingClient(),
+              maxPendingChars = maxPendingChars,
+              maxInFlight = maxInFlight,
+              flushIntervalMs = flushIntervalMs,
+          )
+          .also { channel = it }
+
+  private fun recordingClient(): IToolingApiClient {
+    return Proxy.newProxyInstance(
+        javaClass.classLoader,
+        arrayOf(IToolingApiClient::class.java),
+    ) { _, method, args ->
+      if (method.name == "onBuildStream") {
+        val batch = args[0] as BuildStreamBatch
+        val acknowledgement = CompletableFuture<Void>()
+        acknowledgements.add(acknowledgement)
+        batches.add(batch)
+        sent.add(batch)
+        if (autoAcknowledge) {
+          acknowledgement.complete(null)
+        }
+        acknowledgement
+      } else if (method.returnType == CompletableFuture::class.java) {
+        CompletableFuture.completedFuture(null)
+      } else {
+        null
+      }
+    } as IToolingApiClient
+  }
+
+  private class TestDescriptor(override val name: String) : OperationDescriptor() {
+    override val displayName = name
+  }
+
+  private class TestEvent(override val displayName: String) : ProgressEvent() {
+    override val eventTime = 0L
+    override val descriptor: OperationDescriptor = TestDescriptor(displayName)
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itsaky.tom.rv2ide.tooling.impl.sync
+
+import com.itsaky.tom.rv2ide.tooling.api.IToolingApiClient
+import com.itsaky.tom.rv2ide.tooling.api.messages.InitializeProjectParams
+import com.itsaky.tom.rv2ide.tooling.impl.Main
+import com.itsaky.tom.rv2ide.tooling.impl.internal.ProjectImpl
+import java.io.File
+import java.lang.reflect.Proxy
+import java.util.concurrent.CompletableFuture
+import org.gradle.tooling.GradleConnector
+import org.gradle.tooling.ProjectConnection
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotNull
+import org.junit.Assume.assumeTrue
+import org.junit.Test
+
+/**
+ * Measures the time taken by [RootModelBuilder] to sync a project with the module models fetched
+ * in parallel and sequentially.
+ *
+ * This needs a real (preferably multi-module) project and a working Gradle setup, so it only runs
+ * when the `SYNC_BENCHMARK_PROJECT` environment variable points to the root directory of such a
+ * project. `SYNC_BENCHMARK_RUNS` sets the number of measured syncs per mode (default `3`). For
+ * example:
+ * ```
+ * SYNC_BENCHMARK_PROJECT=/path/to/project ./gradlew :tooling:impl:test \
+ *   --tests '*RootModelBuilderBenchmark*' -i
+ * ```
+ *
+ * The syncs pass `--parallel` or `--no-parallel` as a client argument, which overrides the
+ * `org.gradle.parallel` setting of the project and the argument added by [RootModelBuilder]. With
+ * `--no-parallel`, Gradle runs the nested module actions one after another, as the builder did
+ * before the module models were fetched concurrently.
+ *
+ * @author Akash Yadav
+ */
+class RootModelBuilderBenchmark {
+
+  private val projectDir = System.getenv("SYNC_BENCHMARK_PROJECT")?.let(::File)
+  private val runs = System.getenv("SYNC_BENCHMARK_RUNS")?.toIntOrNull() ?: 3
+
+  @After
+  fun tearDown() {
+    Main.client = null
+  }
+
+  @Test
+  fun measureSyncTime() {
+    assumeTrue(
+        "SYNC_BENCHMARK_PROJECT is not set to a project directory",
+        projectDir?.isDirectory == true,
+    )
+
+    val projectDir = projectDir!!
+    val connector = GradleConnector.newConnector().forProjectDirectory(projectDir)
+    val connection = connector.connect()
+    try {
+      // warm up the daemon and the configuration of the project
+      val modules = sync(connection, projectDir, parallel = true).projects.size
+
+      val sequential = LongArray(runs) { measure { sync(connection, projectDir, false) } }
+      val parallel = LongArray(runs) { measure { sync(connection, projectDir, true) } }
+
+      println("Synced ${projectDir.name} with $modules module(s), $runs run(s) per mode")
+      println("  sequential: ${sequential.joinToString()} ms (median ${sequential.median()} ms)")
+      println("  parallel:   ${parallel.joinToString()} ms (median ${parallel.median()} ms)")
+
+      assertEquals(modules, sync(connection, projectDir, parallel = false).projects.size)
+    } finally {
+      connection.close()
+    }
+  }
+
+  private fun sync(
+      connection: ProjectConnection,
+      projectDir: File,
+      parallel: Boolean,
+  ): ProjectImpl {
+    Main.client = clientWithArguments(listOf(if (parallel) "--parallel" else "--no-parallel"))
+    val project =
+        RootModelBuilder(InitializeProjectParams(projectDir.absolutePath))
+            .build(RootProjectModelBuilderParams(connection, null)) as? ProjectImpl
+    assertNotNull("Failed to build the project model", project)
+    return project!!
+  }
+
+  private inline fun measure(action: () -> Unit): Long {
+    val start = System.nanoTime()
+    action()
+    return (System.nanoTime() - start) / 1_000_000
+  }
+
+  private fun LongArray.median(): Long = sorted()[size / 2]
+
+  /** A client which only provides the build arguments, all other calls are ignored. */
+  private fun clientWithArguments(arguments: List<String>): IToolingApiClient {
+    return Proxy.newProxyInstance(
+        javaClass.classLoader,
+        arrayOf(IToolingApiClient::class.java),
+    ) { _, method, _ ->
+      when (method.name) {
+        "getBuildArguments" -> CompletableFuture.completedFuture(arguments.toMutableList())
+        else ->
+            if (method.returnType == CompletableFuture::class.java) {
+              CompletableFuture.completedFuture(null)
+            } else {
+              null
+            }
+      }
+    } as IToolingApiClient
+  }
+}
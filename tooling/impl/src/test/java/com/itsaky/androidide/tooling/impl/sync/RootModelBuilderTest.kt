@@ -0,0 +1,63 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.tooling.impl.sync
+
+import java.io.File
+import java.nio.file.Files
+import org.junit.After
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+
+/** @author Akash Yadav */
+class RootModelBuilderTest {
+
+  private lateinit var projectDir: File
+  private lateinit var gradleUserHome: File
+
+  @Before
+  fun setUp() {
+    projectDir = Files.createTempDirectory("project").toFile()
+    gradleUserHome = Files.createTempDirectory("gradle-home").toFile()
+  }
+
+  @After
+  fun tearDown() {
+    projectDir.deleteRecursively()
+    gradleUserHome.deleteRecursively()
+  }
+
+  @Test
+  fun enablesParallelExecutionByDefault() {
+    File(projectDir, "gradle.properties").writeText("org.gradle.jvmargs=-Xmx2g\n")
+    assertFalse(RootModelBuilder.isParallelExecutionConfigured(projectDir, gradleUserHome))
+  }
+
+  @Test
+  fun respectsTheParallelSettingOfTheProject() {
+    File(projectDir, "gradle.properties").writeText("org.gradle.parallel=false\n")
+    assertTrue(RootModelBuilder.isParallelExecutionConfigured(projectDir, gradleUserHome))
+  }
+
+  @Test
+  fun respectsTheParallelSettingOfTheUser() {
+    File(gradleUserHome, "gradle.properties").writeText("org.gradle.parallel=false\n")
+    assertTrue(RootModelBuilder.isParallelExecutionConfigured(projectDir, gradleUserHome))
+  }
+}
@@ -19,6 +19,7 @@ package com.itsaky.tom.rv2ide.tooling.api
 
 import com.itsaky.tom.rv2ide.builder.model.DefaultProjectSyncIssues
 import com.itsaky.tom.rv2ide.tooling.api.models.BasicProjectMetadata
+import com.itsaky.tom.rv2ide.tooling.api.models.WorkspaceModel
 import java.util.concurrent.CompletableFuture
 import org.eclipse.lsp4j.jsonrpc.services.JsonRequest
 import org.eclipse.lsp4j.jsonrpc.services.JsonSegment
@@ -39,6 +40,13 @@ interface IProject : IProjectQueries {
   /** Get the project sync issues. */
   @JsonRequest fun getProjectSyncIssues(): CompletableFuture<DefaultProjectSyncIssues>
 
+  /**
+   * Get the complete model of the root project and all of its subprojects in a single response.
+   * This should be preferred over selecting each project with [selectProject] and querying it
+   * separately, which requires multiple round trips per project.
+   */
+  @JsonRequest fun getWorkspaceModel(): CompletableFuture<WorkspaceModel>
+
   companion object {
 
     /** Name that can be used for project whose [BasicProjectMetadata.name] property is null. */
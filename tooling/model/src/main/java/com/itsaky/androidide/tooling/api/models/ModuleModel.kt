@@ -0,0 +1,59 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itsaky.tom.rv2ide.tooling.api.models
+
+import com.itsaky.tom.rv2ide.builder.model.DefaultSourceSetContainer
+import com.itsaky.tom.rv2ide.tooling.api.ProjectType
+import java.io.File
+
+/**
+ * The complete model of a single Gradle project, as part of a [WorkspaceModel].
+ *
+ * Properties which do not apply to the [type] of the project are empty.
+ *
+ * @property type The type of the project.
+ * @property metadata The project metadata. This is an [AndroidProjectMetadata] for Android projects
+ *   and a [JavaProjectMetadata] for Java projects.
+ * @property tasks The tasks of the project.
+ * @property configuredVariant The variant that was configured while building the model (Android).
+ * @property variants The variants of the project (Android).
+ * @property bootClasspaths The boot classpaths of the project (Android).
+ * @property libraryKeys The keys of the libraries in [WorkspaceModel.libraries] that this project
+ *   depends on (Android).
+ * @property libraryDependencies The dependencies of the libraries of this project which differ
+ *   from those of the same library in [WorkspaceModel.libraries], mapped by the library keys
+ *   (Android).
+ * @property mainSourceSet The main source set container, if available (Android).
+ * @property lintCheckJars The lint check jars (Android).
+ * @property contentRoots The content roots (Java).
+ * @property dependencies The dependencies (Java).
+ * @author Akash Yadav
+ */
+data class ModuleModel(
+    val type: ProjectType,
+    val metadata: ProjectMetadata,
+    val tasks: List<GradleTask>,
+    val configuredVariant: String? = null,
+    val variants: List<BasicAndroidVariantMetadata> = emptyList(),
+    val bootClasspaths: Collection<File> = emptyList(),
+    val libraryKeys: List<String> = emptyList(),
+    val libraryDependencies: Map<String, Set<String>> = emptyMap(),
+    val mainSourceSet: DefaultSourceSetContainer? = null,
+    val lintCheckJars: List<File> = emptyList(),
+    val contentRoots: List<JavaContentRoot> = emptyList(),
+    val dependencies: List<JavaModuleDependency> = emptyList(),
+)
@@ -0,0 +1,92 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itsaky.tom.rv2ide.tooling.api.models
+
+import com.itsaky.tom.rv2ide.builder.model.DefaultLibrary
+import com.itsaky.tom.rv2ide.builder.model.DefaultProjectSyncIssues
+
+/**
+ * The complete model of a Gradle workspace, fetched with a single call to
+ * [IProject.getWorkspaceModel][com.itsaky.tom.rv2ide.tooling.api.IProject.getWorkspaceModel].
+ *
+ * Libraries are shared by most of the modules in a project, so they are sent once in [libraries]
+ * and referenced by [ModuleModel.libraryKeys]. The same library may be resolved with different
+ * dependencies in different modules, such differences are kept in
+ * [ModuleModel.libraryDependencies].
+ *
+ * The root project is usually included in the projects as well. It is then sent only once, as
+ * [rootProject], and [rootProjectIndex] is its index in [allProjects].
+ *
+ * @property rootProject The model of the root project.
+ * @property projects The models of the projects included in the root project, without the root
+ *   project if it is at [rootProjectIndex].
+ * @property libraries The libraries of all the projects, mapped by their keys.
+ * @property syncIssues The project sync issues.
+ * @property rootProjectIndex The index of the root project in [allProjects], or `-1` if the root
+ *   project is not included in the projects.
+ * @author Akash Yadav
+ */
+data class WorkspaceModel(
+    val rootProject: ModuleModel,
+    val projects: List<ModuleModel>,
+    val libraries: Map<String, DefaultLibrary>,
+    val syncIssues: DefaultProjectSyncIssues,
+    val rootProjectIndex: Int = -1,
+) {
+
+  /** Get the models of all the projects included in the root project. */
+  fun allProjects(): List<ModuleModel> {
+    if (rootProjectIndex < 0) {
+      return projects
+    }
+
+    return projects.toMutableList().apply { add(rootProjectIndex, rootProject) }
+  }
+
+  /**
+   * Get the library map of the given module, as returned by
+   * [IAndroidProject.getLibraryMap][com.itsaky.tom.rv2ide.tooling.api.IAndroidProject.getLibraryMap].
+   */
+  fun libraryMapOf(module: ModuleModel): Map<String, DefaultLibrary> {
+    val map = LinkedHashMap<String, DefaultLibrary>(module.libraryKeys.size)
+    for (key in module.libraryKeys) {
+      val library = libraries[key] ?: continue
+      val dependencies = module.libraryDependencies[key]
+      map[key] = dependencies?.let { library.withDependencies(it) } ?: library
+    }
+    return map
+  }
+}
+
+private fun DefaultLibrary.withDependencies(dependencies: Set<String>): DefaultLibrary {
+  val source = this
+  return DefaultLibrary().apply {
+    androidLibraryData = source.androidLibraryData
+    artifact = source.artifact
+    srcJar = source.srcJar
+    docJar = source.docJar
+    samplesJar = source.samplesJar
+    key = source.key
+    libraryInfo = source.libraryInfo
+    lintJar = source.lintJar
+    projectInfo = source.projectInfo
+    type = source.type
+    this.dependencies.addAll(dependencies)
+    lookupPackage = source.lookupPackage
+    packageName = source.packageName
+  }
+}
@@ -34,4 +34,6 @@ dependencies {
     implementation(projects.logging.logger)
     implementation(projects.utilities.buildInfo)
 
+    testImplementation(libs.tests.junit)
+
 }
\ No newline at end of file
@@ -0,0 +1,92 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itsaky.tom.rv2ide.models
+
+import com.itsaky.tom.rv2ide.utils.ILogger
+
+/**
+ * A filter for the lines in a [LogStore]. A line matches the filter if it matches all of the
+ * specified criteria. A `null` criterion matches every line.
+ *
+ * @property minLevel The minimum severity of the matched lines. Lines without a level only match
+ *   if this is `null`.
+ * @property tag The tag of the matched lines.
+ * @property pid The ID of the process which produced the matched lines.
+ * @author Akash Yadav
+ */
+data class LogFilter
+@JvmOverloads
+constructor(
+    val minLevel: ILogger.Level? = null,
+    val tag: String? = null,
+    val pid: Int? = null,
+) {
+
+  /** Whether this filter matches every line. */
+  val isEmpty: Boolean
+    get() = minLevel == null && tag == null && pid == null
+
+  /** Whether a line with the given [level], [tag] and [pid] matches this filter. */
+  fun matches(level: ILogger.Level?, tag: String?, pid: Int): Boolean {
+    if (minLevel != null && (level == null || severityOf(level) < severityOf(minLevel))) {
+      return false
+    }
+
+    if (this.tag != null && this.tag != tag) {
+      return false
+    }
+
+    return this.pid == null || this.pid == pid
+  }
+
+  /** Whether the given log line matches this filter. */
+  fun matches(line: LogLine): Boolean {
+    if (isEmpty) {
+      return true
+    }
+
+    if (!line.formatted) {
+      return matches(null, null, LogStore.NO_PID)
+    }
+
+    return matches(line.level, line.tag, line.pid?.toIntOrNull() ?: LogStore.NO_PID)
+  }
+
+  companion object {
+
+    /** A filter which matches every line. */
+    @JvmField val ALL = LogFilter()
+
+    /** The number of distinct [severities][severityOf]. */
+    internal const val SEVERITY_COUNT = 5
+
+    /**
+     * Get the severity of the given level, from `0` for [ILogger.Level.VERBOSE] to `4` for
+     * [ILogger.Level.ERROR]. Unlike the ordinal of the level, the severity can be compared.
+     */
+    @JvmStatic
+    fun severityOf(level: ILogger.Level): Int {
+      return when (level) {
+        ILogger.Level.VERBOSE -> 0
+        ILogger.Level.DEBUG -> 1
+        ILogger.Level.INFO -> 2
+        ILogger.Level.WARNING -> 3
+        ILogger.Level.ERROR -> 4
+      }
+    }
+  }
+}
@@ -16,46 +16,158 @@
  */
 package com.itsaky.tom.rv2ide.models
 
+import com.itsaky.tom.rv2ide.utils.BoundedStringTable
 import com.itsaky.tom.rv2ide.utils.DefaultRecyclable
 import com.itsaky.tom.rv2ide.utils.ILogger
-import com.itsaky.tom.rv2ide.utils.LogTagUtils
 import com.itsaky.tom.rv2ide.utils.newRecyclableObjectPool
 
+/**
+ * A line of log. Instances are pooled and must be [recycled][recycle] once consumed.
+ *
+ * A log line created with [forLogString] or [parse] is a flyweight view of the parsed characters:
+ * only the bounds of its fields are recorded while parsing, and a field is converted to a string
+ * only when it is accessed. Formatting with [toString], [toSimpleString] or [appendTo] copies the
+ * fields directly from the source characters using precomputed templates.
+ *
+ * Reading a line does not modify it: fields backed by the source are converted to a new string on
+ * every access instead of being cached in the line. A line can therefore be read from several
+ * threads (like the log reader and the UI thread) once it has been handed over, as long as it is
+ * not modified or recycled while it is read.
+ */
 class LogLine private constructor() : DefaultRecyclable() {
 
   var unformatted: String? = null
-  var date: String? = null
-  var time: String? = null
-  var pid: String? = null
-  var tid: String? = null
-  var tag: String? = null
-  var message: String? = null
   var level: ILogger.Level? = null
   var formatted = false
 
+  // the characters this line is a view of, if any
+  private var source: CharSequence? = null
+
+  // start and end offsets of the fields in 'source', or -1 if a field is not backed by the source
+  private val bounds = IntArray(FIELD_COUNT * 2)
+
+  // fields which have been set
+  private val values = arrayOfNulls<String>(FIELD_COUNT)
+
+  var date: String?
+    get() = getField(DATE)
+    set(value) = setField(DATE, value)
+
+  var time: String?
+    get() = getField(TIME)
+    set(value) = setField(TIME, value)
+
+  var pid: String?
+    get() = getField(PID)
+    set(value) = setField(PID, value)
+
+  var tid: String?
+    get() = getField(TID)
+    set(value) = setField(TID, value)
+
+  var tag: String?
+    get() = getField(TAG)
+    set(value) = setField(TAG, value)
+
+  var message: String?
+    get() = getField(MESSAGE)
+    set(value) = setField(MESSAGE, value)
+
   // For JSONRpc and Recyclable
   init {
     resetToDefault()
   }
 
   fun toSimpleString(): String {
-    return if (formatted) String.format(
-      "%-25s %-2s %s", LogTagUtils.trimTagIfNeeded(tag, 25), level?.levelChar ?: 'U',
-      message) else unformatted!!
+    return if (formatted) format(SIMPLE_TEMPLATE) else unformatted!!
   }
 
   fun formattedTagAndMessage(): String {
-    return if (formatted) String.format("%-25s %-2s", LogTagUtils.trimTagIfNeeded(tag, 25),
-      message) else unformatted!!
+    return if (formatted) format(TAG_AND_MESSAGE_TEMPLATE) else unformatted!!
+  }
+
+  /**
+   * Append this line to the given [StringBuilder], in the same format as [toString] or, if [simple]
+   * is `true`, as [toSimpleString].
+   */
+  fun appendTo(sb: StringBuilder, simple: Boolean = false): StringBuilder {
+    if (!formatted) {
+      return sb.append(unformatted)
+    }
+
+    (if (simple) SIMPLE_TEMPLATE else FULL_TEMPLATE).appendTo(this, sb)
+    return sb
+  }
+
+  private fun format(template: Template): String {
+    val sb = formatBuilder.get()!!
+    sb.setLength(0)
+    template.appendTo(this, sb)
+    return sb.toString()
+  }
+
+  private fun getField(field: Int): String? {
+    val start = bounds[field * 2]
+    val source = this.source
+    if (start >= 0 && source != null) {
+      // tags are looked up in the table without allocating, other fields are usually read once
+      val end = bounds[field * 2 + 1]
+      return if (field == TAG) tags.intern(source, start, end)
+      else source.subSequence(start, end).toString()
+    }
+
+    return values[field]
+  }
+
+  private fun setField(field: Int, value: String?) {
+    values[field] = value
+    bounds[field * 2] = -1
+  }
+
+  private fun appendField(sb: StringBuilder, field: Int): Int {
+    val start = bounds[field * 2]
+    val source = this.source
+    if (start >= 0 && source != null) {
+      val end = bounds[field * 2 + 1]
+      sb.append(source, start, end)
+      return end - start
+    }
+
+    val value = values[field]
+    sb.append(value)
+    return value?.length ?: 4
+  }
+
+  private fun appendTag(sb: StringBuilder, maxLength: Int) {
+    val start = bounds[TAG * 2]
+    val source = this.source
+    val chars: CharSequence
+    val from: Int
+    val to: Int
+    if (start >= 0 && source != null) {
+      chars = source
+      from = start
+      to = bounds[TAG * 2 + 1]
+    } else {
+      chars = values[TAG] ?: "null"
+      from = 0
+      to = chars.length
+    }
+
+    val length = to - from
+    if (length > maxLength) {
+      // same as LogTagUtils.trimTagIfNeeded(tag, maxLength)
+      sb.append("..").append(chars, to - maxLength + 2, to)
+    } else {
+      sb.append(chars, from, to)
+      pad(sb, maxLength - length)
+    }
   }
 
   private fun resetToDefault() {
-    message = null
-    tag = null
-    tid = null
-    pid = null
-    time = null
-    date = null
+    source = null
+    bounds.fill(-1)
+    values.fill(null)
     unformatted = null
     level = ILogger.Level.DEBUG
     formatted = false
@@ -67,10 +179,7 @@ class LogLine private constructor() : DefaultRecyclable() {
   }
 
   override fun toString(): String {
-    return if (formatted) String.format(
-      "%s %s %s %s %-2s %-25s %s",
-      date, time, pid, tid, level?.levelChar ?: 'U', LogTagUtils.trimTagIfNeeded(tag, 25),
-      message) else unformatted!!
+    return if (formatted) format(FULL_TEMPLATE) else unformatted!!
   }
 
   override fun equals(other: Any?): Boolean {
@@ -103,8 +212,74 @@ class LogLine private constructor() : DefaultRecyclable() {
     return result
   }
 
+  /**
+   * A precomputed layout of a formatted log line. The columns are separated by a single space.
+   *
+   * @param columns Pairs of a field (or [LEVEL]) and the width of the column. Shorter values are
+   *   padded with spaces. Longer tags are trimmed to the width of their column.
+   */
+  private class Template(private vararg val columns: Int) {
+
+    fun appendTo(line: LogLine, sb: StringBuilder) {
+      var i = 0
+      while (i < columns.size) {
+        if (i > 0) {
+          sb.append(' ')
+        }
+
+        val field = columns[i]
+        val width = columns[i + 1]
+        when (field) {
+          LEVEL -> {
+            sb.append(line.level?.levelChar ?: 'U')
+            pad(sb, width - 1)
+          }
+
+          TAG -> line.appendTag(sb, width)
+          else -> pad(sb, width - line.appendField(sb, field))
+        }
+
+        i += 2
+      }
+    }
+  }
+
   companion object {
 
+    private const val DATE = 0
+    private const val TIME = 1
+    private const val PID = 2
+    private const val TID = 3
+    private const val TAG = 4
+    private const val MESSAGE = 5
+    private const val FIELD_COUNT = 6
+
+    // not backed by the source
+    private const val LEVEL = FIELD_COUNT
+
+    private const val TAG_WIDTH = 25
+    private const val LEVEL_WIDTH = 2
+
+    // "%s %s %s %s %-2s %-25s %s"
+    private val FULL_TEMPLATE =
+        Template(DATE, 0, TIME, 0, PID, 0, TID, 0, LEVEL, LEVEL_WIDTH, TAG, TAG_WIDTH, MESSAGE, 0)
+
+    // "%-25s %-2s %s"
+    private val SIMPLE_TEMPLATE = Template(TAG, TAG_WIDTH, LEVEL, LEVEL_WIDTH, MESSAGE, 0)
+
+    // "%-25s %-2s" with the tag and the message
+    private val TAG_AND_MESSAGE_TEMPLATE = Template(TAG, TAG_WIDTH, MESSAGE, LEVEL_WIDTH)
+
+    private const val SPACES = "                                "
+
+    private val formatBuilder =
+        object : ThreadLocal<StringBuilder>() {
+          override fun initialValue() = StringBuilder(256)
+        }
+
+    /** Interned log tags. */
+    @JvmStatic val tags = BoundedStringTable()
+
     // do not cache too many LogLine items
     // LogLines should be recycled as soon as they are appended to the log view
     private val logLinePool = newRecyclableObjectPool(
@@ -112,6 +287,15 @@ class LogLine private constructor() : DefaultRecyclable() {
       factory = ::LogLine
     )
 
+    private fun pad(sb: StringBuilder, count: Int) {
+      var remaining = count
+      while (remaining > 0) {
+        val n = minOf(remaining, SPACES.length)
+        sb.append(SPACES, 0, n)
+        remaining -= n
+      }
+    }
+
     @JvmOverloads
     @JvmStatic
     fun obtain(level: ILogger.Level?, tag: String?, message: String?,
@@ -129,22 +313,109 @@ class LogLine private constructor() : DefaultRecyclable() {
       if (log == null) {
         return null
       }
+      return parse(log, 0, log.length)
+    }
+
+    /**
+     * Parse the log line in the given window of characters, in the `logcat -v threadtime` format
+     * (`MM-DD HH:MM:SS.mmm  PID  TID L TAG     : message`). No strings are created while parsing;
+     * the returned line is a view of the window and its fields are only converted to strings when
+     * they are accessed.
+     *
+     * The returned line refers to [chars], so mutable windows must not be modified until the line
+     * has been consumed. If the line cannot be parsed, it is returned as an
+     * [unformatted][LogLine.unformatted] line.
+     *
+     * @param chars The characters to parse.
+     * @param start The start of the window (inclusive).
+     * @param end The end of the window (exclusive).
+     */
+    @JvmStatic
+    fun parse(chars: CharSequence, start: Int, end: Int): LogLine {
       val logLine = logLinePool.obtain()
-      try {
-        val split = log.split("\\s".toRegex(), limit = 7).toTypedArray()
-        logLine.level = ILogger.Level.forChar(split[4][0])
-        logLine.date = split[0]
-        logLine.time = split[1] // time
-        logLine.pid = split[2] // process id
-        logLine.tid = split[3] // thread id
-        logLine.tag = split[5] // tag
-        logLine.message = split[6] // message
-        logLine.formatted = true
-      } catch (th: Throwable) { // do not log the exception with ILogger
-        logLine.unformatted = log
+      if (!logLine.parseThreadTime(chars, start, end)) {
+        logLine.resetToDefault()
+        logLine.unformatted =
+            if (chars is String && start == 0 && end == chars.length) chars
+            else chars.subSequence(start, end).toString()
         logLine.formatted = false
       }
       return logLine
     }
+
+    private fun LogLine.parseThreadTime(chars: CharSequence, start: Int, end: Int): Boolean {
+      var i = start
+      for (field in DATE..TID) {
+        i = skipSpaces(chars, i, end)
+        val tokenStart = i
+        while (i < end && !chars[i].isWhitespace()) {
+          i++
+        }
+
+        if (i == tokenStart) {
+          return false
+        }
+
+        bounds[field * 2] = tokenStart
+        bounds[field * 2 + 1] = i
+      }
+
+      i = skipSpaces(chars, i, end)
+      if (i + 1 >= end || !chars[i + 1].isWhitespace()) {
+        return false
+      }
+
+      level =
+          try {
+            ILogger.Level.forChar(chars[i])
+          } catch (err: IllegalArgumentException) {
+            return false
+          }
+
+      // the tag is padded with spaces and followed by ': '
+      val tagStart = skipSpaces(chars, i + 2, end)
+      var colon = -1
+      for (j in tagStart until end) {
+        if (chars[j] == ':' && (j + 1 == end || chars[j + 1] == ' ')) {
+          colon = j
+          break
+        }
+      }
+
+      val tagEnd: Int
+      val messageStart: Int
+      if (colon != -1) {
+        var e = colon
+        while (e > tagStart && chars[e - 1] == ' ') {
+          e--
+        }
+        tagEnd = e
+        messageStart = minOf(colon + 2, end)
+      } else {
+        // no separator, the first word is the tag
+        var e = tagStart
+        while (e < end && !chars[e].isWhitespace()) {
+          e++
+        }
+        tagEnd = e
+        messageStart = skipSpaces(chars, e, end)
+      }
+
+      bounds[TAG * 2] = tagStart
+      bounds[TAG * 2 + 1] = tagEnd
+      bounds[MESSAGE * 2] = messageStart
+      bounds[MESSAGE * 2 + 1] = end
+      source = chars
+      formatted = true
+      return true
+    }
+
+    private fun skipSpaces(chars: CharSequence, start: Int, end: Int): Int {
+      var i = start
+      while (i < end && chars[i].isWhitespace()) {
+        i++
+      }
+      return i
+    }
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,357 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itsaky.tom.rv2ide.models
+
+import com.itsaky.tom.rv2ide.models.LogFilter.Companion.SEVERITY_COUNT
+import com.itsaky.tom.rv2ide.models.LogFilter.Companion.severityOf
+import com.itsaky.tom.rv2ide.utils.ILogger
+import java.util.concurrent.locks.ReentrantReadWriteLock
+import kotlin.concurrent.read
+import kotlin.concurrent.write
+
+/**
+ * An in-memory, column oriented store of log lines which can be [queried][query] with a
+ * [LogFilter].
+ *
+ * The store keeps at most [capacity] lines; when it is full, the oldest line is evicted. Every
+ * line is identified by a sequence number, which increases by one for every added line. The level,
+ * tag and process ID of the lines are stored in separate columns, and a sorted posting list of
+ * sequence numbers is maintained for each level, tag and process ID. A query therefore only visits
+ * the lines in the smallest posting list selected by the filter and checks the remaining criteria
+ * against the columns, instead of scanning all the stored lines.
+ *
+ * Since lines are evicted in the order they were added, an evicted line is always at the head of
+ * its posting lists, so adding and evicting lines is done in constant time. Posting lists which
+ * become empty are dropped along with their tag or process ID, so the indexes only ever refer to
+ * the stored lines.
+ *
+ * Instances are safe to use from multiple threads.
+ *
+ * @property capacity The maximum number of lines in this store.
+ * @author Akash Yadav
+ */
+class LogStore(val capacity: Int) {
+
+  private val lock = ReentrantReadWriteLock()
+
+  // columns, indexed by the sequence number modulo the capacity
+  private val severities = ByteArray(capacity)
+  private val tagIds = IntArray(capacity)
+  private val pids = IntArray(capacity)
+  private val lines = arrayOfNulls<String>(capacity)
+
+  // posting lists
+  private val severityPostings = Array(SEVERITY_COUNT) { PostingList() }
+  private val tagPostings = ArrayList<PostingList?>()
+  private val tagNames = ArrayList<String?>()
+  private val tagIdsByName = HashMap<String, Int>()
+  private val freeTagIds = ArrayDeque<Int>()
+  private val pidPostings = HashMap<Int, PostingList>()
+
+  // sequence number of the oldest stored line
+  private var firstSeq = 0L
+
+  // sequence number of the next added line
+  private var nextSeq = 0L
+
+  /** The number of lines in this store. */
+  val size: Int
+    get() = lock.read { (nextSeq - firstSeq).toInt() }
+
+  /** The number of distinct tags of the stored lines. */
+  internal val tagCount: Int
+    get() = lock.read { tagIdsByName.size }
+
+  /** The number of distinct process IDs of the stored lines. */
+  internal val pidCount: Int
+    get() = lock.read { pidPostings.size }
+
+  companion object {
+
+    /** The process ID of the lines which were not produced by a known process. */
+    const val NO_PID = -1
+
+    private const val NO_TAG = -1
+    private const val NO_SEVERITY: Byte = -1
+
+    private val EMPTY = LongArray(0)
+  }
+
+  init {
+    require(capacity > 0) { "capacity must be > 0" }
+  }
+
+  /**
+   * Add the given log line to this store.
+   *
+   * @param line The log line.
+   * @param text The text of the line, as shown to the user.
+   * @return The sequence number of the line.
+   */
+  fun add(line: LogLine, text: String): Long {
+    if (!line.formatted) {
+      return add(null, null, NO_PID, text)
+    }
+
+    return add(line.level, line.tag, line.pid?.toIntOrNull() ?: NO_PID, text)
+  }
+
+  /**
+   * Add a line to this store.
+   *
+   * @param level The level of the line, or `null` if the line does not have a level.
+   * @param tag The tag of the line, or `null` if the line does not have a tag.
+   * @param pid The ID of the process which produced the line, or [NO_PID].
+   * @param text The text of the line, as shown to the user.
+   * @return The sequence number of the line.
+   */
+  fun add(level: ILogger.Level?, tag: String?, pid: Int, text: String): Long {
+    return lock.write {
+      if (nextSeq - firstSeq == capacity.toLong()) {
+        evictOldest()
+      }
+
+      val seq = nextSeq++
+      val index = indexOf(seq)
+      val severity = level?.let(::severityOf) ?: -1
+      val tagId = if (tag == null) NO_TAG else tagIdOf(tag)
+
+      severities[index] = severity.toByte()
+      tagIds[index] = tagId
+      pids[index] = pid
+      lines[index] = text
+
+      if (severity >= 0) {
+        severityPostings[severity].add(seq)
+      }
+
+      if (tagId != NO_TAG) {
+        tagPostings[tagId]!!.add(seq)
+      }
+
+      if (pid != NO_PID) {
+        pidPostings.getOrPut(pid) { PostingList() }.add(seq)
+      }
+
+      seq
+    }
+  }
+
+  /** Get the sequence numbers of the lines which match the given filter, in ascending order. */
+  fun query(filter: LogFilter): LongArray {
+    return lock.read {
+      val tagId = if (filter.tag == null) NO_TAG else tagIdsByName[filter.tag] ?: return EMPTY
+      val pidList = if (filter.pid == null) null else pidPostings[filter.pid] ?: return EMPTY
+      val minSeverity = filter.minLevel?.let(::severityOf) ?: -1
+
+      // the most selective exact posting list drives the query, other criteria are checked
+      // against the columns
+      var driver: PostingList? = if (tagId == NO_TAG) null else tagPostings[tagId]!!
+      if (pidList != null && (driver == null || pidList.size < driver.size)) {
+        driver = pidList
+      }
+
+      if (driver != null) {
+        val result = LongArray(driver.size)
+        var count = 0
+        for (i in driver.head until driver.tail) {
+          val seq = driver.seqs[i]
+          val index = indexOf(seq)
+          if (
+              severities[index] >= minSeverity &&
+                  (tagId == NO_TAG || tagIds[index] == tagId) &&
+                  (filter.pid == null || pids[index] == filter.pid)
+          ) {
+            result[count++] = seq
+          }
+        }
+        return result.copyOf(count)
+      }
+
+      if (minSeverity >= 0) {
+        return mergeSeverities(minSeverity)
+      }
+
+      LongArray((nextSeq - firstSeq).toInt()) { firstSeq + it }
+    }
+  }
+
+  /**
+   * Get the text of the line with the given sequence number, or `null` if the line has been evicted
+   * or was never added.
+   */
+  fun textOf(seq: Long): String? =
+      lock.read {
+        if (seq < firstSeq || seq >= nextSeq) null else lines[indexOf(seq)]
+      }
+
+  /**
+   * Append the text of the lines with the given sequence numbers to [sb], each followed by a line
+   * terminator. Lines which have been evicted are skipped.
+   */
+  @JvmOverloads
+  fun appendTo(
+      sb: StringBuilder,
+      seqs: LongArray,
+      from: Int = 0,
+      to: Int = seqs.size,
+  ): StringBuilder {
+    return lock.read {
+      for (i in from until to) {
+        val seq = seqs[i]
+        if (seq < firstSeq || seq >= nextSeq) {
+          continue
+        }
+
+        val text = lines[indexOf(seq)]!!
+        sb.append(text)
+        if (!text.endsWith('\n')) {
+          sb.append('\n')
+        }
+      }
+      sb
+    }
+  }
+
+  /** Remove all lines from this store. Sequence numbers are not reused. */
+  fun clear() {
+    lock.write {
+      lines.fill(null)
+      severityPostings.forEach { it.clear() }
+      tagPostings.clear()
+      tagNames.clear()
+      tagIdsByName.clear()
+      freeTagIds.clear()
+      pidPostings.clear()
+      firstSeq = nextSeq
+    }
+  }
+
+  private fun indexOf(seq: Long) = (seq % capacity).toInt()
+
+  private fun tagIdOf(tag: String): Int {
+    return tagIdsByName.getOrPut(tag) {
+      val freeId = freeTagIds.removeFirstOrNull()
+      if (freeId != null) {
+        tagPostings[freeId] = PostingList()
+        tagNames[freeId] = tag
+        return@getOrPut freeId
+      }
+
+      tagPostings.add(PostingList())
+      tagNames.add(tag)
+      tagPostings.size - 1
+    }
+  }
+
+  private fun evictOldest() {
+    val seq = firstSeq++
+    val index = indexOf(seq)
+
+    val severity = severities[index].toInt()
+    if (severity >= 0) {
+      severityPostings[severity].removeFirst()
+    }
+
+    val tagId = tagIds[index]
+    if (tagId != NO_TAG) {
+      val postings = tagPostings[tagId]!!
+      postings.removeFirst()
+      if (postings.size == 0) {
+        // the tag is not used by any stored line, its ID can be reused
+        tagIdsByName.remove(tagNames[tagId])
+        tagPostings[tagId] = null
+        tagNames[tagId] = null
+        freeTagIds.addLast(tagId)
+      }
+    }
+
+    val pid = pids[index]
+    if (pid != NO_PID) {
+      val postings = pidPostings[pid]!!
+      postings.removeFirst()
+      if (postings.size == 0) {
+        // process IDs are not reused often, do not keep empty lists around
+        pidPostings.remove(pid)
+      }
+    }
+
+    lines[index] = null
+    severities[index] = NO_SEVERITY
+  }
+
+  private fun mergeSeverities(minSeverity: Int): LongArray {
+    val lists = severityPostings.copyOfRange(minSeverity, SEVERITY_COUNT)
+    if (lists.size == 1) {
+      val list = lists[0]
+      return list.seqs.copyOfRange(list.head, list.tail)
+    }
+
+    val cursors = IntArray(lists.size) { lists[it].head }
+    val result = LongArray(lists.sumOf { it.size })
+    for (i in result.indices) {
+      var min = -1
+      for (j in lists.indices) {
+        if (
+            cursors[j] < lists[j].tail &&
+                (min == -1 || lists[j].seqs[cursors[j]] < lists[min].seqs[cursors[min]])
+        ) {
+          min = j
+        }
+      }
+      result[i] = lists[min].seqs[cursors[min]++]
+    }
+    return result
+  }
+
+  /** A sorted list of sequence numbers, which are added at the tail and removed from the head. */
+  private class PostingList {
+    var seqs = LongArray(16)
+    var head = 0
+    var tail = 0
+
+    val size: Int
+      get() = tail - head
+
+    fun add(seq: Long) {
+      if (tail == seqs.size) {
+        if (head >= seqs.size / 2) {
+          // reclaim the space of the removed entries instead of growing
+          seqs.copyInto(seqs, 0, head, tail)
+          tail -= head
+          head = 0
+        } else {
+          seqs = seqs.copyOf(seqs.size * 2)
+        }
+      }
+      seqs[tail++] = seq
+    }
+
+    fun removeFirst() {
+      head++
+      if (head == tail) {
+        head = 0
+        tail = 0
+      }
+    }
+
+    fun clear() {
+      head = 0
+      tail = 0
+    }
+  }
+}
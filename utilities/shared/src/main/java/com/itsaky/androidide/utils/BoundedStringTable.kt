@@ -0,0 +1,87 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.utils
+
+/**
+ * A bounded table of interned strings. The table is direct mapped: each string is stored in the
+ * slot for its hash, replacing the string which was stored there before. The table therefore never
+ * holds more than [capacity] strings, while frequently repeated strings (like log tags or package
+ * names) are almost always found.
+ *
+ * Lookups compare the characters of the given region with the stored string, so a string is only
+ * allocated when the region is not in the table. The table is safe to use from multiple threads;
+ * concurrent updates of a slot only result in an extra allocation.
+ *
+ * @param capacity The maximum number of strings in the table. Rounded up to a power of two.
+ * @author Akash Yadav
+ */
+class BoundedStringTable @JvmOverloads constructor(capacity: Int = DEFAULT_CAPACITY) {
+
+  private val table =
+      arrayOfNulls<String>(Integer.highestOneBit((capacity - 1).coerceAtLeast(1)) shl 1)
+  private val mask = table.size - 1
+
+  /** The number of slots in the table. */
+  val capacity: Int
+    get() = table.size
+
+  companion object {
+    const val DEFAULT_CAPACITY = 1024
+  }
+
+  /** Get the interned instance of the given string. */
+  fun intern(string: String): String = intern(string, 0, string.length)
+
+  /**
+   * Get the interned string for the characters of [chars] in the range [start] (inclusive) to [end]
+   * (exclusive).
+   */
+  fun intern(chars: CharSequence, start: Int, end: Int): String {
+    // same as String.hashCode() for the region
+    var hash = 0
+    for (i in start until end) {
+      hash = 31 * hash + chars[i].code
+    }
+
+    val index = (hash xor (hash ushr 16)) and mask
+    val existing = table[index]
+    if (existing != null && existing.regionEquals(chars, start, end)) {
+      return existing
+    }
+
+    val string =
+        if (chars is String && start == 0 && end == chars.length) chars
+        else chars.subSequence(start, end).toString()
+    table[index] = string
+    return string
+  }
+
+  private fun String.regionEquals(chars: CharSequence, start: Int, end: Int): Boolean {
+    if (length != end - start) {
+      return false
+    }
+
+    for (i in indices) {
+      if (this[i] != chars[start + i]) {
+        return false
+      }
+    }
+
+    return true
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itsaky.tom.rv2ide.models
+
+import com.itsaky.tom.rv2ide.utils.ILogger
+import com.itsaky.tom.rv2ide.utils.LogTagUtils
+import java.io.File
+import java.lang.management.ManagementFactory
+import org.junit.Assert.assertNotEquals
+import org.junit.Assume.assumeTrue
+import org.junit.Test
+
+/**
+ * Measures the throughput and the allocations per line of parsing and formatting logcat lines with
+ * [LogLine], compared to the previous implementation (a regex split and `String.format`).
+ *
+ * This only runs when the `LOG_BENCHMARK` environment variable is set. By default, one million
+ * lines generated in the `threadtime` format are parsed. Set the `LOGCAT_CAPTURE` environment
+ * variable to the path of a recorded capture (`adb logcat -v threadtime -d > capture.txt`) to
+ * measure with real log output instead; the capture is read into memory as a whole. For example:
+ * ```
+ * LOG_BENCHMARK=1 ./gradlew :utilities:shared:test --tests '*LogLineBenchmark*' -i
+ * ```
+ *
+ * @author Akash Yadav
+ */
+class LogLineBenchmark {
+
+  private val threadBean = ManagementFactory.getThreadMXBean() as com.sun.management.ThreadMXBean
+
+  @Test
+  fun measureParseAndFormat() {
+    assumeTrue("LOG_BENCHMARK is not set", System.getenv("LOG_BENCHMARK") != null)
+
+    val capture = System.getenv("LOGCAT_CAPTURE")?.let { File(it).readText() } ?: generateCapture()
+    val lines = lineBounds(capture)
+    val count = if (System.getenv("LOGCAT_CAPTURE") != null) lines.size / 2 else LINE_COUNT
+
+    val sb = StringBuilder(256)
+
+    // warm up both implementations
+    repeat(3) {
+      parseAll(capture, lines, count / 4, sb)
+      parseAllLegacy(capture, lines, count / 4, sb)
+    }
+
+    // the legacy split kept the ':' after the tag, so the outputs are not compared
+    measure("LogLine.parse", count) { parseAll(capture, lines, count, sb) }
+    measure("split + format", count) { parseAllLegacy(capture, lines, count, sb) }
+  }
+
+  private inline fun measure(name: String, count: Int, action: () -> Long) {
+    val threadId = Thread.currentThread().id
+    val allocatedBefore = threadBean.getThreadAllocatedBytes(threadId)
+    val start = System.nanoTime()
+    val checksum = action()
+    val elapsed = System.nanoTime() - start
+    val allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore
+
+    println(
+        "%-16s %,d lines in %,d ms: %,.0f lines/s, %.1f bytes allocated/line"
+            .format(
+                name,
+                count,
+                elapsed / 1_000_000,
+                count * 1e9 / elapsed,
+                allocated.toDouble() / count,
+            )
+    )
+    assertNotEquals(0L, checksum)
+  }
+
+  /** Parse and format [count] lines, cycling through the lines of the capture. */
+  private fun parseAll(capture: String, lines: IntArray, count: Int, sb: StringBuilder): Long {
+    var checksum = 0L
+    val lineCount = lines.size / 2
+    for (n in 0 until count) {
+      val i = (n % lineCount) * 2
+      val line = LogLine.parse(capture, lines[i], lines[i + 1])
+      sb.setLength(0)
+      line.appendTo(sb)
+      checksum = checksum * 31 + sb.length
+      line.recycle()
+    }
+    return checksum
+  }
+
+  /** The implementation of LogLine.forLogString and LogLine.toString before the parser. */
+  private fun parseAllLegacy(
+      capture: String,
+      lines: IntArray,
+      count: Int,
+      sb: StringBuilder,
+  ): Long {
+    var checksum = 0L
+    val lineCount = lines.size / 2
+    val whitespace = "\\s".toRegex()
+    for (n in 0 until count) {
+      val i = (n % lineCount) * 2
+      val log = capture.substring(lines[i], lines[i + 1])
+      val formatted =
+          try {
+            val split = log.split(whitespace, limit = 7).toTypedArray()
+            val level = ILogger.Level.forChar(split[4][0])
+            String.format(
+                "%s %s %s %s %-2s %-25s %s",
+                split[0],
+                split[1],
+                split[2],
+                split[3],
+                level.levelChar,
+                LogTagUtils.trimTagIfNeeded(split[5], 25),
+                split[6],
+            )
+          } catch (err: Throwable) {
+            log
+          }
+      sb.setLength(0)
+      sb.append(formatted)
+      checksum = checksum * 31 + sb.length
+    }
+    return checksum
+  }
+
+  private fun lineBounds(capture: String): IntArray {
+    val bounds = ArrayList<Int>()
+    var start = 0
+    while (start < capture.length) {
+      var end = capture.indexOf('\n', start)
+      if (end == -1) {
+        end = capture.length
+      }
+      if (end > start) {
+        bounds.add(start)
+        bounds.add(end)
+      }
+      start = end + 1
+    }
+    return bounds.toIntArray()
+  }
+
+  /**
+   * Generate lines in the exact single-space layout which the legacy split could parse, with a
+   * limited set of tags as in real captures.
+   */
+  private fun generateCapture(): String {
+    val levels = charArrayOf('V', 'D', 'I', 'W', 'E')
+    val tags = Array(64) { "Tag$it" } + arrayOf("ActivityManager", "AVeryLongTagForTheColumn0")
+    val sb = StringBuilder()
+    for (i in 0 until 4096) {
+      sb.append("10-19 12:")
+          .append("%02d:%02d.%03d".format(i / 3600 % 60, i / 60 % 60, i % 1000))
+          .append(' ')
+          .append(1000 + i % 7)
+          .append(' ')
+          .append(2000 + i % 13)
+          .append(' ')
+          .append(levels[i % levels.size])
+          .append(' ')
+          .append(tags[i % tags.size])
+          .append(": message number ")
+          .append(i)
+          .append(" with some text")
+          .append('\n')
+    }
+    return sb.toString()
+  }
+
+  companion object {
+    private const val LINE_COUNT = 1_000_000
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itsaky.tom.rv2ide.models
+
+import com.itsaky.tom.rv2ide.utils.ILogger
+import com.itsaky.tom.rv2ide.utils.LogTagUtils
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+/** @author Akash Yadav */
+class LogLineTest {
+
+  @Test
+  fun parsesThreadTimeLines() {
+    val line = LogLine.forLogString("10-19 12:34:56.789  1234  5678 W ActivityManager: Slow op")!!
+    try {
+      assertTrue(line.formatted)
+      assertEquals("10-19", line.date)
+      assertEquals("12:34:56.789", line.time)
+      assertEquals("1234", line.pid)
+      assertEquals("5678", line.tid)
+      assertEquals(ILogger.Level.WARNING, line.level)
+      assertEquals("ActivityManager", line.tag)
+      assertEquals("Slow op", line.message)
+    } finally {
+      line.recycle()
+    }
+  }
+
+  @Test
+  fun parsesPaddedTagsAndEmptyMessages() {
+    val line = LogLine.forLogString("10-19 12:34:56.789   42   42 I chatty  : ")!!
+    try {
+      assertTrue(line.formatted)
+      assertEquals("chatty", line.tag)
+      assertEquals("", line.message)
+    } finally {
+      line.recycle()
+    }
+  }
+
+  @Test
+  fun keepsUnparsableLinesUnformatted() {
+    for (text in arrayOf("", "--------- beginning of main", "10-19 12:34:56.789 1 2 X tag: m")) {
+      val line = LogLine.forLogString(text)!!
+      try {
+        assertFalse(line.formatted)
+        assertEquals(text, line.toString())
+      } finally {
+        line.recycle()
+      }
+    }
+  }
+
+  @Test
+  fun parsesWindowsOfLargerBuffers() {
+    val buffer = StringBuilder("xx10-19 12:34:56.789 1 2 E Tag: first\n")
+    val end = buffer.indexOf("\n")
+    val line = LogLine.parse(buffer, 2, end)
+    try {
+      assertEquals("Tag", line.tag)
+      assertEquals("first", line.message)
+    } finally {
+      line.recycle()
+    }
+  }
+
+  @Test
+  fun formatsLikeTheFormatStrings() {
+    val tags = arrayOf("T", "ActivityManager", "AVeryLongTagWhichDoesNotFitTheColumn")
+    for (tag in tags) {
+      val text = "10-19 12:34:56.789  1234  5678 D $tag: message text"
+      val line = LogLine.forLogString(text)!!
+      try {
+        val trimmed = LogTagUtils.trimTagIfNeeded(tag, 25)
+        assertEquals(
+            String.format("%s %s %s %s %-2s %-25s %s", "10-19", "12:34:56.789", "1234", "5678",
+                'D', trimmed, "message text"),
+            line.toString(),
+        )
+        assertEquals(
+            String.format("%-25s %-2s %s", trimmed, 'D', "message text"),
+            line.toSimpleString(),
+        )
+        assertEquals(
+            String.format("%-25s %-2s", trimmed, "message text"),
+            line.formattedTagAndMessage(),
+        )
+        assertEquals(line.toString(), line.appendTo(StringBuilder()).toString())
+      } finally {
+        line.recycle()
+      }
+    }
+  }
+
+  @Test
+  fun formatsObtainedLines() {
+    val line = LogLine.obtain(ILogger.Level.ERROR, "Tag", "message")
+    try {
+      assertEquals(String.format("%-25s %-2s %s", "Tag", 'E', "message"), line.toSimpleString())
+    } finally {
+      line.recycle()
+    }
+  }
+
+  @Test
+  fun readsFieldsConcurrently() {
+    val text = "10-19 12:34:56.789  1234  5678 W ActivityManager: Slow op"
+    val first = LogLine.forLogString(text)!!
+    val expected = first.toString()
+    first.recycle()
+
+    val executor = Executors.newFixedThreadPool(4)
+    try {
+      repeat(200) {
+        val line = LogLine.forLogString(text)!!
+        val ready = CountDownLatch(1)
+        val reads =
+            (0 until 4).map {
+              executor.submit(
+                  Callable {
+                    ready.await()
+                    listOf(line.pid, line.tag, line.message, line.toString())
+                  }
+              )
+            }
+        ready.countDown()
+        for (read in reads) {
+          assertEquals(listOf("1234", "ActivityManager", "Slow op", expected), read.get())
+        }
+        line.recycle()
+      }
+    } finally {
+      executor.shutdown()
+      executor.awaitTermination(10, TimeUnit.SECONDS)
+    }
+  }
+
+  @Test
+  fun internsTags() {
+    val first = LogLine.forLogString("10-19 12:34:56.789 1 2 I SameTag: a")!!
+    val second = LogLine.forLogString("10-19 12:34:56.790 1 2 I SameTag: b")!!
+    try {
+      assertSame(first.tag, second.tag)
+    } finally {
+      first.recycle()
+      second.recycle()
+    }
+  }
+}
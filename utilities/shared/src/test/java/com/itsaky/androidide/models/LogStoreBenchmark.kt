@@ -0,0 +1,120 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itsaky.tom.rv2ide.models
+
+import com.itsaky.tom.rv2ide.utils.ILogger.Level
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assume.assumeTrue
+import org.junit.Test
+
+/**
+ * Measures the time taken to add lines to a [LogStore] and to query it, compared to filtering the
+ * stored lines with a linear scan (which is what re-filtering the text shown in the log view would
+ * have to do).
+ *
+ * Like [LogLineBenchmark], this only runs when the `LOG_BENCHMARK` environment variable is set.
+ *
+ * @author Akash Yadav
+ */
+class LogStoreBenchmark {
+
+  private val levels = arrayOf(Level.VERBOSE, Level.DEBUG, Level.INFO, Level.WARNING, Level.ERROR)
+
+  @Test
+  fun measureAddAndQuery() {
+    assumeTrue("LOG_BENCHMARK is not set", System.getenv("LOG_BENCHMARK") != null)
+
+    val store = LogStore(CAPACITY)
+
+    // the columns of the lines, for the linear scan
+    val lineLevels = arrayOfNulls<Level>(CAPACITY)
+    val lineTags = arrayOfNulls<String>(CAPACITY)
+    val linePids = IntArray(CAPACITY)
+
+    val tags = Array(TAG_COUNT) { "Tag$it" }
+    val start = System.nanoTime()
+    for (i in 0 until ADDED_LINES) {
+      // a few tags and processes produce most of the lines
+      val level = levels[(i * 31 + i / 7) % levels.size]
+      val tag = tags[if (i % 4 == 0) i % TAG_COUNT else i % 8]
+      val pid = 1000 + if (i % 3 == 0) i % 50 else i % 2
+      store.add(level, tag, pid, "line $i")
+
+      val index = i % CAPACITY
+      lineLevels[index] = level
+      lineTags[index] = tag
+      linePids[index] = pid
+    }
+    val elapsed = System.nanoTime() - start
+    println(
+        "add: %,d lines in %,d ms (%.0f ns/line)"
+            .format(ADDED_LINES, elapsed / 1_000_000, elapsed.toDouble() / ADDED_LINES)
+    )
+
+    val filters =
+        listOf(
+            "error" to LogFilter(minLevel = Level.ERROR),
+            "warning+" to LogFilter(minLevel = Level.WARNING),
+            "rare tag" to LogFilter(tag = "Tag100"),
+            "frequent tag" to LogFilter(tag = "Tag1"),
+            "rare pid" to LogFilter(pid = 1003),
+            "tag+pid+level" to LogFilter(Level.INFO, "Tag1", 1001),
+        )
+
+    val firstSeq = (ADDED_LINES - CAPACITY).toLong()
+    for ((name, filter) in filters) {
+      val indexed = time { store.query(filter) }
+      val scanned = time {
+        val result = LongArray(CAPACITY)
+        var count = 0
+        for (n in 0 until CAPACITY) {
+          val seq = firstSeq + n
+          val index = (seq % CAPACITY).toInt()
+          if (filter.matches(lineLevels[index], lineTags[index], linePids[index])) {
+            result[count++] = seq
+          }
+        }
+        result.copyOf(count)
+      }
+
+      assertArrayEquals(name, scanned.first, indexed.first)
+      println(
+          "%-14s %,6d matches: indexed %,8d ns, linear scan %,8d ns"
+              .format(name, indexed.first.size, indexed.second, scanned.second)
+      )
+    }
+  }
+
+  /** Run the query repeatedly and return its result and the best time of a run, in nanoseconds. */
+  private inline fun time(query: () -> LongArray): Pair<LongArray, Long> {
+    var result = query()
+    var best = Long.MAX_VALUE
+    repeat(RUNS) {
+      val start = System.nanoTime()
+      result = query()
+      best = minOf(best, System.nanoTime() - start)
+    }
+    return result to best
+  }
+
+  companion object {
+    private const val CAPACITY = 50_000
+    private const val ADDED_LINES = 1_000_000
+    private const val TAG_COUNT = 200
+    private const val RUNS = 50
+  }
+}
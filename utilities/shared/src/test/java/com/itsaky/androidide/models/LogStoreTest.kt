@@ -0,0 +1,125 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itsaky.tom.rv2ide.models
+
+import com.itsaky.tom.rv2ide.utils.ILogger.Level
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Test
+
+/** @author Akash Yadav */
+class LogStoreTest {
+
+  @Test
+  fun queriesByLevelTagAndPid() {
+    val store = LogStore(16)
+    store.add(Level.DEBUG, "A", 1, "0") // 0
+    store.add(Level.ERROR, "B", 1, "1") // 1
+    store.add(Level.INFO, "A", 2, "2") // 2
+    store.add(null, null, LogStore.NO_PID, "3") // 3
+    store.add(Level.WARNING, "A", 1, "4") // 4
+
+    assertArrayEquals(longArrayOf(0, 1, 2, 3, 4), store.query(LogFilter.ALL))
+    assertArrayEquals(longArrayOf(1, 2, 4), store.query(LogFilter(minLevel = Level.INFO)))
+    assertArrayEquals(longArrayOf(0, 2, 4), store.query(LogFilter(tag = "A")))
+    assertArrayEquals(longArrayOf(0, 1, 4), store.query(LogFilter(pid = 1)))
+    assertArrayEquals(longArrayOf(4), store.query(LogFilter(Level.INFO, "A", 1)))
+    assertArrayEquals(longArrayOf(), store.query(LogFilter(tag = "C")))
+    assertArrayEquals(longArrayOf(), store.query(LogFilter(pid = 3)))
+  }
+
+  @Test
+  fun matchesTheLinearScan() {
+    val store = LogStore(100)
+    val levels = arrayOf(Level.VERBOSE, Level.DEBUG, Level.INFO, Level.WARNING, Level.ERROR)
+    val added = ArrayList<Triple<Level, String, Int>>()
+    for (i in 0 until 250) {
+      val line = Triple(levels[i * 7 % levels.size], "T${i % 6}", i % 4)
+      added.add(line)
+      store.add(line.first, line.second, line.third, "$i")
+    }
+
+    val filters =
+        listOf(
+            LogFilter(minLevel = Level.WARNING),
+            LogFilter(tag = "T3"),
+            LogFilter(pid = 2),
+            LogFilter(Level.DEBUG, "T1", 1),
+            LogFilter(Level.ERROR, pid = 0),
+        )
+    for (filter in filters) {
+      val expected =
+          (150L until 250L)
+              .filter { seq ->
+                val (level, tag, pid) = added[seq.toInt()]
+                filter.matches(level, tag, pid)
+              }
+              .toLongArray()
+      assertArrayEquals(filter.toString(), expected, store.query(filter))
+    }
+  }
+
+  @Test
+  fun evictsTheOldestLines() {
+    val store = LogStore(3)
+    for (i in 0 until 5) {
+      store.add(Level.INFO, "T", 1, "line $i")
+    }
+
+    assertEquals(3, store.size)
+    assertNull(store.textOf(1))
+    assertEquals("line 2", store.textOf(2))
+    assertArrayEquals(longArrayOf(2, 3, 4), store.query(LogFilter(tag = "T")))
+    assertEquals(
+        "line 3\nline 4\n",
+        store.appendTo(StringBuilder(), longArrayOf(1, 3, 4)).toString(),
+    )
+  }
+
+  @Test
+  fun dropsTagsAndPidsOfEvictedLines() {
+    val store = LogStore(4)
+    for (i in 0 until 10_000) {
+      store.add(Level.DEBUG, "Tag$i", i, "$i")
+    }
+
+    assertEquals(4, store.tagCount)
+    assertEquals(4, store.pidCount)
+    assertArrayEquals(longArrayOf(9_999), store.query(LogFilter(tag = "Tag9999")))
+    assertArrayEquals(longArrayOf(), store.query(LogFilter(tag = "Tag0")))
+
+    // reused tag IDs must not match the lines of the previous tag
+    store.add(Level.DEBUG, "Tag9999", 1, "again")
+    assertArrayEquals(longArrayOf(9_999, 10_000), store.query(LogFilter(tag = "Tag9999")))
+    assertArrayEquals(longArrayOf(9_998), store.query(LogFilter(tag = "Tag9998")))
+  }
+
+  @Test
+  fun clearRemovesAllLines() {
+    val store = LogStore(4)
+    store.add(Level.DEBUG, "T", 1, "a")
+    store.clear()
+
+    assertEquals(0, store.size)
+    assertEquals(0, store.tagCount)
+    assertArrayEquals(longArrayOf(), store.query(LogFilter(tag = "T")))
+
+    assertEquals(1L, store.add(Level.DEBUG, "T", 1, "b"))
+    assertArrayEquals(longArrayOf(1), store.query(LogFilter(tag = "T")))
+  }
+}
@@ -53,4 +53,6 @@ dependencies {
   implementation(projects.utilities.xmlInflater)
   implementation(projects.xml.lsp)
 
+  testImplementation(libs.tests.junit)
+
 }
@@ -0,0 +1,204 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.uidesigner.utils
+
+import com.itsaky.tom.rv2ide.eventbus.events.file.FileCreationEvent
+import com.itsaky.tom.rv2ide.eventbus.events.file.FileDeletionEvent
+import com.itsaky.tom.rv2ide.eventbus.events.file.FileRenameEvent
+import com.itsaky.tom.rv2ide.projects.IProjectManager
+import com.itsaky.tom.rv2ide.projects.android.AndroidModule
+import java.io.File
+import java.util.concurrent.ConcurrentHashMap
+import org.greenrobot.eventbus.EventBus
+import org.greenrobot.eventbus.Subscribe
+import org.greenrobot.eventbus.ThreadMode
+import org.slf4j.LoggerFactory
+
+/**
+ * Index of the XML drawable resources in the resource directories of a module.
+ *
+ * The `drawable` and `drawable-<qualifiers>` directories of each resource directory are listed
+ * once and the files are indexed by their resource name. When a resource is defined in multiple
+ * configurations, the default configuration is preferred, followed by the API level, density and
+ * other qualified configurations. Once the index has been registered with an event bus using
+ * [registerWith], the index of a resource directory is dropped when a drawable file or directory in
+ * it is created, renamed or deleted in the IDE. Changes made outside the IDE
+ * are detected through the modification times of the indexed directories, which are checked on
+ * every lookup.
+ *
+ * @author Akash Yadav
+ */
+object DrawableResourceIndex {
+
+  private const val DRAWABLE_DIR = "drawable"
+
+  private val log = LoggerFactory.getLogger(DrawableResourceIndex::class.java)
+
+  private val API_QUALIFIER = Regex("v\\d+")
+  private val DENSITY_QUALIFIER = Regex("(l|m|tv|x{0,3}h|any|no)dpi")
+
+  /**
+   * The drawables of a resource directory.
+   *
+   * @property stamps The modification times of the resource directory and of its drawable
+   *   directories when they were listed.
+   * @property files Drawable files per resource name, best configuration first.
+   */
+  private class Index(val stamps: Map<File, Long>, val files: Map<String, List<File>>) {
+
+    /** Whether no drawable directory has been added, removed or modified since indexing. */
+    fun isUpToDate(): Boolean =
+        stamps.all { (dir, lastModified) -> dir.lastModified() == lastModified }
+  }
+
+  private val indices = ConcurrentHashMap<File, Index>()
+
+  /**
+   * Find the XML file for the drawable resource with the given name.
+   *
+   * @param contextFile A file in the module which references the drawable, usually the layout file.
+   * @param name The name of the drawable resource.
+   * @param fallbackResDirs The resource directories to search if the module of [contextFile] cannot
+   *   be determined.
+   * @return The drawable file, or `null` if no such drawable exists.
+   */
+  fun find(contextFile: File?, name: String, fallbackResDirs: () -> List<File>): File? {
+    val resDirs = contextFile?.let { findResDirs(it) } ?: fallbackResDirs()
+    for (resDir in resDirs) {
+      val file = indexOf(resDir)[name]?.firstOrNull()
+      if (file != null) {
+        return file
+      }
+    }
+
+    return null
+  }
+
+  /**
+   * Register the index with the given event bus so that it is invalidated on file events. Does
+   * nothing if the index is already registered with the event bus.
+   */
+  fun registerWith(eventBus: EventBus) {
+    synchronized(this) {
+      if (!eventBus.isRegistered(this)) {
+        eventBus.register(this)
+      }
+    }
+  }
+
+  @Subscribe(threadMode = ThreadMode.ASYNC)
+  fun onFileCreated(event: FileCreationEvent) {
+    invalidate(event.file)
+  }
+
+  @Subscribe(threadMode = ThreadMode.ASYNC)
+  fun onFileDeleted(event: FileDeletionEvent) {
+    invalidate(event.file)
+  }
+
+  @Subscribe(threadMode = ThreadMode.ASYNC)
+  fun onFileRenamed(event: FileRenameEvent) {
+    invalidate(event.file)
+    invalidate(event.newFile)
+  }
+
+  private fun invalidate(file: File) {
+    // the file may be a drawable file, or a drawable directory itself
+    val resDir =
+        when {
+          isDrawableDir(file.parentFile) -> file.parentFile?.parentFile
+          isDrawableDir(file) -> file.parentFile
+          else -> null
+        } ?: return
+
+    if (indices.remove(resDir.absoluteFile) != null) {
+      log.debug("Invalidated drawable index of {}", resDir)
+    }
+  }
+
+  private fun findResDirs(file: File): List<File>? {
+    val workspace = IProjectManager.getInstance().getWorkspace() ?: return null
+    val module = workspace.findModuleForFile(file, false) as? AndroidModule ?: return null
+    return module.getResourceDirectories().toList()
+  }
+
+  private fun indexOf(resDir: File): Map<String, List<File>> {
+    val key = resDir.absoluteFile
+    indices[key]?.let { index ->
+      if (index.isUpToDate()) {
+        return index.files
+      }
+      log.debug("Drawables in {} changed outside the IDE", key)
+    }
+
+    return createIndex(key).also { indices[key] = it }.files
+  }
+
+  private fun createIndex(resDir: File): Index {
+    // directory times are read before listing, so changes made while listing are detected later
+    val stamps = HashMap<File, Long>()
+    stamps[resDir] = resDir.lastModified()
+    val drawableDirs =
+        resDir.listFiles { file -> isDrawableDir(file) } ?: return Index(stamps, emptyMap())
+    drawableDirs.forEach { stamps[it] = it.lastModified() }
+
+    val index = HashMap<String, MutableList<Pair<Int, File>>>()
+    for (dir in drawableDirs) {
+      val rank = rankOf(dir.name.substringAfter(DRAWABLE_DIR).removePrefix("-"))
+      val files = dir.listFiles { file -> file.isFile && file.extension == "xml" } ?: continue
+      for (file in files) {
+        index.getOrPut(file.nameWithoutExtension) { mutableListOf() }.add(rank to file)
+      }
+    }
+
+    log.debug("Indexed {} drawables in {}", index.size, resDir)
+    return Index(
+        stamps,
+        index.mapValues { (_, files) -> files.sortedBy { it.first }.map { it.second } },
+    )
+  }
+
+  /** Lower rank is preferred. */
+  private fun rankOf(qualifiers: String): Int {
+    if (qualifiers.isEmpty()) {
+      return 0
+    }
+
+    val parts = qualifiers.split('-')
+    val rank =
+        when {
+          parts.all { API_QUALIFIER.matches(it) } -> 1
+          parts.all { DENSITY_QUALIFIER.matches(it) || API_QUALIFIER.matches(it) } -> 2
+          else -> 3
+        }
+
+    // prefer less specific configurations within the same rank
+    return rank * 16 + parts.size
+  }
+
+  private fun isDrawableDir(file: File?): Boolean {
+    if (file == null) {
+      return false
+    }
+
+    val name = file.name
+    // deleted directories are also considered for invalidating the index
+    return (name == DRAWABLE_DIR || name.startsWith("$DRAWABLE_DIR-")) &&
+        (file.isDirectory || !file.exists())
+  }
+}
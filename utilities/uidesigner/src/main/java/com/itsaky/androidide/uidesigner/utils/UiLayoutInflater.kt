@@ -52,6 +52,7 @@ import com.itsaky.tom.rv2ide.inflater.internal.ViewImpl
 import com.itsaky.tom.rv2ide.lookup.Lookup
 import com.itsaky.tom.rv2ide.projects.android.AndroidModule
 import com.itsaky.tom.rv2ide.xml.widgets.WidgetTable
+import org.greenrobot.eventbus.EventBus
 import org.slf4j.LoggerFactory
 
 /**
@@ -161,6 +162,7 @@ class UiLayoutInflater : LayoutInflaterImpl() {
   init {
     this.componentFactory = UiInflaterComponentFactory()
     Lookup.getDefault().update(ILayoutInflater.LOOKUP_KEY, this)
+    DrawableResourceIndex.registerWith(EventBus.getDefault())
   }
 
   /**
@@ -0,0 +1,294 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.uidesigner.utils
+
+import android.graphics.Path
+import android.graphics.drawable.Drawable
+import androidx.annotation.VisibleForTesting
+import java.io.File
+import java.io.StringReader
+import java.security.MessageDigest
+import org.slf4j.LoggerFactory
+import org.xmlpull.v1.XmlPullParser
+import org.xmlpull.v1.XmlPullParserFactory
+
+/**
+ * Cache of parsed vector drawable files, keyed by the content hash of the file.
+ *
+ * A file is read again only if its size or modification time has changed, and parsed again only if
+ * its contents have changed. Files with identical contents share the same parsed model. When a
+ * parsed model is evicted, the stamps of the files with its contents are evicted as well.
+ *
+ * @author Akash Yadav
+ */
+object VectorDrawableCache {
+
+  @VisibleForTesting internal const val MAX_ENTRIES = 64
+
+  private val log = LoggerFactory.getLogger(VectorDrawableCache::class.java)
+
+  private class FileStamp(val lastModified: Long, val length: Long, val hash: String)
+
+  private val stamps = HashMap<String, FileStamp>()
+
+  private val drawables =
+      object : LinkedHashMap<String, ParsedVectorDrawable>(MAX_ENTRIES, 0.75f, true) {
+        override fun removeEldestEntry(
+            eldest: MutableMap.MutableEntry<String, ParsedVectorDrawable>?
+        ): Boolean {
+          if (size <= MAX_ENTRIES) {
+            return false
+          }
+
+          stamps.values.removeAll { it.hash == eldest?.key }
+          return true
+        }
+      }
+
+  /** The number of files whose stamps are cached. */
+  @VisibleForTesting
+  internal val stampCount: Int
+    get() = synchronized(this) { stamps.size }
+
+  /**
+   * Get the parsed drawable for the given file.
+   *
+   * @return The parsed drawable, or `null` if the file cannot be read.
+   */
+  fun get(file: File): ParsedVectorDrawable? {
+    val key = file.absolutePath
+    val lastModified = file.lastModified()
+    val length = file.length()
+
+    synchronized(this) {
+      val stamp = stamps[key]
+      if (stamp != null && stamp.lastModified == lastModified && stamp.length == length) {
+        drawables[stamp.hash]?.let {
+          return it
+        }
+      }
+    }
+
+    val bytes =
+        try {
+          file.readBytes()
+        } catch (e: Exception) {
+          log.debug("Unable to read drawable file {}: {}", file, e.message)
+          return null
+        }
+
+    val hash =
+        MessageDigest.getInstance("SHA-1").digest(bytes).joinToString("") { "%02x".format(it) }
+
+    synchronized(this) {
+      stamps[key] = FileStamp(lastModified, length, hash)
+      return drawables.getOrPut(hash) { ParsedVectorDrawable(String(bytes, Charsets.UTF_8)) }
+    }
+  }
+}
+
+/**
+ * The contents of a drawable XML file, along with the models parsed from it. Each model is parsed
+ * lazily and at most once.
+ *
+ * @author Akash Yadav
+ */
+class ParsedVectorDrawable internal constructor(val content: String) {
+
+  companion object {
+    private val log = LoggerFactory.getLogger(ParsedVectorDrawable::class.java)
+  }
+
+  private val parsedPaths = HashMap<String, Path?>()
+
+  /**
+   * The state of the drawable created with VectorDrawableCompat, once it has been created. It is
+   * shared by all contexts, so drawables must be created from it with the theme of the target
+   * context and mutated before use.
+   */
+  @Volatile var drawableState: Drawable.ConstantState? = null
+
+  /** Whether the root element of the file is a `<vector>`. */
+  val isVector: Boolean by lazy { checkIsVector() }
+
+  /** The contents preprocessed to be more compatible with VectorDrawableCompat. */
+  val compatXml: String by lazy { preprocessVectorXml(content) }
+
+  /** The vector model used for custom path rendering, or `null` if it cannot be parsed. */
+  val vectorData: VectorData? by lazy { parseVectorData() }
+
+  /** Get the [Path] for the given path data, parsing it only once. */
+  fun pathFor(pathString: String): Path? {
+    return synchronized(parsedPaths) {
+      parsedPaths.getOrPut(pathString) { PathParser.createPathFromPathData(pathString) }
+    }
+  }
+
+  private fun newParser(): XmlPullParser {
+    val parser = XmlPullParserFactory.newInstance().newPullParser()
+    parser.setInput(StringReader(content))
+    return parser
+  }
+
+  /** Check if XML file is a vector drawable */
+  private fun checkIsVector(): Boolean {
+    try {
+      val parser = newParser()
+
+      var eventType = parser.eventType
+      while (eventType != XmlPullParser.END_DOCUMENT) {
+        if (eventType == XmlPullParser.START_TAG) {
+          return parser.name == "vector"
+        }
+        eventType = parser.next()
+      }
+    } catch (e: Exception) {
+      log.debug("Error checking if file is vector drawable: {}", e.message)
+    }
+    return false
+  }
+
+  /** Preprocess vector XML to make it more compatible with VectorDrawableCompat */
+  private fun preprocessVectorXml(xmlContent: String): String {
+    var modified = xmlContent
+
+    // Ensure proper XML declaration
+    if (!modified.contains("<?xml")) {
+      modified =
+          """<?xml version="1.0" encoding="utf-8"?>
+$modified"""
+    }
+
+    // Fix common issues with vector XML
+    modified = modified.replace("android:fillType=\"evenOdd\"", "android:fillType=\"nonZero\"")
+
+    // Ensure all paths have proper fillColor if missing
+    if (modified.contains("<path") && !modified.contains("android:fillColor")) {
+      modified = modified.replace("<path ", "<path android:fillColor=\"#FF000000\" ")
+    }
+
+    return modified
+  }
+
+  /** Enhanced vector data parsing with better error handling */
+  private fun parseVectorData(): VectorData? {
+    try {
+      val parser = newParser()
+
+      var vectorData: VectorData? = null
+      val paths = mutableListOf<PathData>()
+      val groups = mutableListOf<GroupData>()
+      var currentGroup: GroupData? = null
+
+      var eventType = parser.eventType
+      while (eventType != XmlPullParser.END_DOCUMENT) {
+        when (eventType) {
+          XmlPullParser.START_TAG -> {
+            when (parser.name) {
+              "vector" -> {
+                vectorData =
+                    VectorData(
+                        width = parseSize(parser.getAttributeValue(null, "android:width")),
+                        height = parseSize(parser.getAttributeValue(null, "android:height")),
+                        viewportWidth =
+                            parser.getAttributeValue(null, "android:viewportWidth")?.toFloatOrNull()
+                                ?: 24f,
+                        viewportHeight =
+                            parser
+                                .getAttributeValue(null, "android:viewportHeight")
+                                ?.toFloatOrNull() ?: 24f,
+                        tint = parser.getAttributeValue(null, "android:tint"),
+                    )
+              }
+              "group" -> {
+                currentGroup =
+                    GroupData(
+                        name = parser.getAttributeValue(null, "android:name"),
+                        rotation =
+                            parser.getAttributeValue(null, "android:rotation")?.toFloatOrNull()
+                                ?: 0f,
+                        pivotX =
+                            parser.getAttributeValue(null, "android:pivotX")?.toFloatOrNull() ?: 0f,
+                        pivotY =
+                            parser.getAttributeValue(null, "android:pivotY")?.toFloatOrNull() ?: 0f,
+                        scaleX =
+                            parser.getAttributeValue(null, "android:scaleX")?.toFloatOrNull() ?: 1f,
+                        scaleY =
+                            parser.getAttributeValue(null, "android:scaleY")?.toFloatOrNull() ?: 1f,
+                        translateX =
+                            parser.getAttributeValue(null, "android:translateX")?.toFloatOrNull()
+                                ?: 0f,
+                        translateY =
+                            parser.getAttributeValue(null, "android:translateY")?.toFloatOrNull()
+                                ?: 0f,
+                    )
+              }
+              "path" -> {
+                val pathData =
+                    PathData(
+                        pathString = parser.getAttributeValue(null, "android:pathData") ?: "",
+                        fillColor =
+                            parser.getAttributeValue(null, "android:fillColor") ?: "#FF000000",
+                        strokeColor = parser.getAttributeValue(null, "android:strokeColor"),
+                        strokeWidth =
+                            parser.getAttributeValue(null, "android:strokeWidth")?.toFloatOrNull()
+                                ?: 0f,
+                        fillAlpha =
+                            parser.getAttributeValue(null, "android:fillAlpha")?.toFloatOrNull()
+                                ?: 1f,
+                        strokeAlpha =
+                            parser.getAttributeValue(null, "android:strokeAlpha")?.toFloatOrNull()
+                                ?: 1f,
+                    )
+
+                if (currentGroup != null) {
+                  currentGroup.paths.add(pathData)
+                } else {
+                  paths.add(pathData)
+                }
+              }
+            }
+          }
+          XmlPullParser.END_TAG -> {
+            when (parser.name) {
+              "group" -> {
+                if (currentGroup != null) {
+                  groups.add(currentGroup)
+                  currentGroup = null
+                }
+              }
+            }
+          }
+        }
+        eventType = parser.next()
+      }
+
+      return vectorData?.copy(paths = paths, groups = groups)
+    } catch (e: Exception) {
+      log.debug("Error parsing vector data: {}", e.message)
+      return null
+    }
+  }
+
+  /** Parse size attribute (e.g., "24dp" -> 24f) */
+  private fun parseSize(sizeStr: String?): Float {
+    if (sizeStr == null) return 24f
+    val numericPart = sizeStr.replace(Regex("[^0-9.]"), "")
+    return numericPart.toFloatOrNull() ?: 24f
+  }
+}
@@ -14,11 +14,9 @@ import android.widget.ImageView
 import androidx.core.content.ContextCompat
 import androidx.vectordrawable.graphics.drawable.VectorDrawableCompat
 import java.io.File
-import java.io.FileInputStream
 import java.io.StringReader
 import kotlin.math.min
 import org.slf4j.LoggerFactory
-import org.xmlpull.v1.XmlPullParser
 import org.xmlpull.v1.XmlPullParserFactory
 
 /**
@@ -88,19 +86,19 @@ class VectorDrawableRenderer {
     }
 
     // Method 2: Try to find and load the vector file directly
-    val projectRoot = findProjectRoot(layoutFile) ?: return false
-    val vectorFile = findVectorFile(projectRoot, drawableName)
+    val vectorFile = findVectorFile(layoutFile, drawableName) ?: return false
+    val vector = VectorDrawableCache.get(vectorFile) ?: return false
 
-    if (vectorFile != null && isVectorDrawable(vectorFile)) {
+    if (vector.isVector) {
       log.debug("Found vector drawable file: {}", vectorFile.absolutePath)
 
       // Method 2a: Try VectorDrawableCompat with manipulated XML
-      if (tryVectorDrawableCompat(view, vectorFile, context, isBackground)) {
+      if (tryVectorDrawableCompat(view, vectorFile, vector, context, isBackground)) {
         return true
       }
 
       // Method 2b: Try custom path rendering as fallback
-      if (tryCustomPathRendering(view, vectorFile, context, isBackground)) {
+      if (tryCustomPathRendering(view, vectorFile, vector, context, isBackground)) {
         return true
       }
     }
@@ -112,23 +110,30 @@ class VectorDrawableRenderer {
   private fun tryVectorDrawableCompat(
       view: View,
       vectorFile: File,
+      vector: ParsedVectorDrawable,
       context: Context,
       isBackground: Boolean,
   ): Boolean {
-    try {
-      val xmlContent = vectorFile.readText()
-
-      // Create a modified XML content that VectorDrawableCompat can handle
-      val modifiedXml = preprocessVectorXml(xmlContent)
+    vector.drawableState?.let { state ->
+      // a mutable copy for this context's theme, so that tinting one view does not affect others
+      applyDrawableToView(
+          view,
+          state.newDrawable(context.resources, context.theme).mutate(),
+          isBackground,
+      )
+      return true
+    }
 
-      // Try to create VectorDrawableCompat from the XML
+    try {
+      // Use the XML content modified so that VectorDrawableCompat can handle it
       val factory = XmlPullParserFactory.newInstance()
       val parser = factory.newPullParser()
-      parser.setInput(StringReader(modifiedXml))
+      parser.setInput(StringReader(vector.compatXml))
 
       val drawable = VectorDrawableCompat.createFromXml(context.resources, parser)
       if (drawable != null) {
-        applyDrawableToView(view, drawable, isBackground)
+        vector.drawableState = drawable.constantState
+        applyDrawableToView(view, drawable.mutate(), isBackground)
         log.debug("Successfully created VectorDrawableCompat from: {}", vectorFile.name)
         return true
       }
@@ -139,43 +144,22 @@ class VectorDrawableRenderer {
     return false
   }
 
-  /** Preprocess vector XML to make it more compatible with VectorDrawableCompat */
-  private fun preprocessVectorXml(xmlContent: String): String {
-    var modified = xmlContent
-
-    // Ensure proper XML declaration
-    if (!modified.contains("<?xml")) {
-      modified =
-          """<?xml version="1.0" encoding="utf-8"?>
-$modified"""
-    }
-
-    // Fix common issues with vector XML
-    modified = modified.replace("android:fillType=\"evenOdd\"", "android:fillType=\"nonZero\"")
-
-    // Ensure all paths have proper fillColor if missing
-    if (modified.contains("<path") && !modified.contains("android:fillColor")) {
-      modified = modified.replace("<path ", "<path android:fillColor=\"#FF000000\" ")
-    }
-
-    return modified
-  }
-
   /** Try custom path rendering (improved version) */
   private fun tryCustomPathRendering(
       view: View,
       vectorFile: File,
+      vector: ParsedVectorDrawable,
       context: Context,
       isBackground: Boolean,
   ): Boolean {
     try {
-      val vectorData = parseVectorData(vectorFile)
+      val vectorData = vector.vectorData
       if (vectorData == null) {
         log.debug("Failed to parse vector data from: {}", vectorFile.absolutePath)
         return false
       }
 
-      val drawable = createVectorDrawable(vectorData, context)
+      val drawable = createVectorDrawable(vectorData, vector, context)
       if (drawable == null) {
         log.debug("Failed to create drawable from vector data")
         return false
@@ -199,161 +183,21 @@ $modified"""
     }
   }
 
-  /** Find vector file in project drawable folders */
-  private fun findVectorFile(projectRoot: File, drawableName: String): File? {
-    val drawableFolders =
-        listOf(
-            "src/main/res/drawable",
-            "src/main/res/drawable-hdpi",
-            "src/main/res/drawable-mdpi",
-            "src/main/res/drawable-xhdpi",
-            "src/main/res/drawable-xxhdpi",
-            "src/main/res/drawable-xxxhdpi",
-            "app/src/main/res/drawable",
-            "app/src/main/res/drawable-hdpi",
-            "app/src/main/res/drawable-mdpi",
-            "app/src/main/res/drawable-xhdpi",
-            "app/src/main/res/drawable-xxhdpi",
-            "app/src/main/res/drawable-xxxhdpi",
-        )
-
-    for (folder in drawableFolders) {
-      val resourceDir = File(projectRoot, folder)
-      if (!resourceDir.exists()) continue
-
-      val vectorFile = File(resourceDir, "$drawableName.xml")
-      if (vectorFile.exists() && vectorFile.canRead()) {
-        return vectorFile
-      }
-    }
-
-    return null
-  }
-
-  /** Check if XML file is a vector drawable */
-  private fun isVectorDrawable(xmlFile: File): Boolean {
-    try {
-      val factory = XmlPullParserFactory.newInstance()
-      val parser = factory.newPullParser()
-      parser.setInput(FileInputStream(xmlFile), "UTF-8")
-
-      var eventType = parser.eventType
-      while (eventType != XmlPullParser.END_DOCUMENT) {
-        if (eventType == XmlPullParser.START_TAG) {
-          return parser.name == "vector"
-        }
-        eventType = parser.next()
-      }
-    } catch (e: Exception) {
-      log.debug("Error checking if file is vector drawable: {}", e.message)
-    }
-    return false
-  }
-
-  /** Enhanced vector data parsing with better error handling */
-  private fun parseVectorData(vectorFile: File): VectorData? {
-    try {
-      val factory = XmlPullParserFactory.newInstance()
-      val parser = factory.newPullParser()
-      parser.setInput(FileInputStream(vectorFile), "UTF-8")
-
-      var vectorData: VectorData? = null
-      val paths = mutableListOf<PathData>()
-      val groups = mutableListOf<GroupData>()
-      var currentGroup: GroupData? = null
-
-      var eventType = parser.eventType
-      while (eventType != XmlPullParser.END_DOCUMENT) {
-        when (eventType) {
-          XmlPullParser.START_TAG -> {
-            when (parser.name) {
-              "vector" -> {
-                vectorData =
-                    VectorData(
-                        width = parseSize(parser.getAttributeValue(null, "android:width")),
-                        height = parseSize(parser.getAttributeValue(null, "android:height")),
-                        viewportWidth =
-                            parser.getAttributeValue(null, "android:viewportWidth")?.toFloatOrNull()
-                                ?: 24f,
-                        viewportHeight =
-                            parser
-                                .getAttributeValue(null, "android:viewportHeight")
-                                ?.toFloatOrNull() ?: 24f,
-                        tint = parser.getAttributeValue(null, "android:tint"),
-                    )
-              }
-              "group" -> {
-                currentGroup =
-                    GroupData(
-                        name = parser.getAttributeValue(null, "android:name"),
-                        rotation =
-                            parser.getAttributeValue(null, "android:rotation")?.toFloatOrNull()
-                                ?: 0f,
-                        pivotX =
-                            parser.getAttributeValue(null, "android:pivotX")?.toFloatOrNull() ?: 0f,
-                        pivotY =
-                            parser.getAttributeValue(null, "android:pivotY")?.toFloatOrNull() ?: 0f,
-                        scaleX =
-                            parser.getAttributeValue(null, "android:scaleX")?.toFloatOrNull() ?: 1f,
-                        scaleY =
-                            parser.getAttributeValue(null, "android:scaleY")?.toFloatOrNull() ?: 1f,
-                        translateX =
-                            parser.getAttributeValue(null, "android:translateX")?.toFloatOrNull()
-                                ?: 0f,
-                        translateY =
-                            parser.getAttributeValue(null, "android:translateY")?.toFloatOrNull()
-                                ?: 0f,
-                    )
-              }
-              "path" -> {
-                val pathData =
-                    PathData(
-                        pathString = parser.getAttributeValue(null, "android:pathData") ?: "",
-                        fillColor =
-                            parser.getAttributeValue(null, "android:fillColor") ?: "#FF000000",
-                        strokeColor = parser.getAttributeValue(null, "android:strokeColor"),
-                        strokeWidth =
-                            parser.getAttributeValue(null, "android:strokeWidth")?.toFloatOrNull()
-                                ?: 0f,
-                        fillAlpha =
-                            parser.getAttributeValue(null, "android:fillAlpha")?.toFloatOrNull()
-                                ?: 1f,
-                        strokeAlpha =
-                            parser.getAttributeValue(null, "android:strokeAlpha")?.toFloatOrNull()
-                                ?: 1f,
-                    )
-
-                if (currentGroup != null) {
-                  currentGroup.paths.add(pathData)
-                } else {
-                  paths.add(pathData)
-                }
-              }
-            }
-          }
-          XmlPullParser.END_TAG -> {
-            when (parser.name) {
-              "group" -> {
-                if (currentGroup != null) {
-                  groups.add(currentGroup)
-                  currentGroup = null
-                }
-              }
-            }
-          }
-        }
-        eventType = parser.next()
-      }
-
-      return vectorData?.copy(paths = paths, groups = groups)
-    } catch (e: Exception) {
-      log.debug("Error parsing vector data: {}", e.message)
-      return null
+  /** Find vector file in the drawable folders of the module */
+  private fun findVectorFile(layoutFile: File?, drawableName: String): File? {
+    return DrawableResourceIndex.find(layoutFile, drawableName) {
+      // the module could not be determined, search the conventional resource directories
+      val projectRoot = findProjectRoot(layoutFile) ?: return@find emptyList()
+      listOf(File(projectRoot, "src/main/res"), File(projectRoot, "app/src/main/res"))
     }
   }
 
   /** Enhanced drawable creation with group support */
-  private fun createVectorDrawable(vectorData: VectorData, context: Context): Drawable? {
+  private fun createVectorDrawable(
+      vectorData: VectorData,
+      vector: ParsedVectorDrawable,
+      context: Context,
+  ): Drawable? {
     try {
       val density = context.resources.displayMetrics.density
       val bitmapWidth = (vectorData.width * density).toInt().coerceAtLeast(1)
@@ -378,7 +222,7 @@ $modified"""
       // Draw root-level paths
       for (pathData in vectorData.paths) {
         if (pathData.pathString.isNotEmpty()) {
-          drawPath(canvas, pathData)
+          drawPath(canvas, pathData, vector)
         }
       }
 
@@ -400,7 +244,7 @@ $modified"""
         // Draw paths in the group
         for (pathData in group.paths) {
           if (pathData.pathString.isNotEmpty()) {
-            drawPath(canvas, pathData)
+            drawPath(canvas, pathData, vector)
           }
         }
 
@@ -417,9 +261,9 @@ $modified"""
   }
 
   /** Enhanced path drawing with better paint handling */
-  private fun drawPath(canvas: Canvas, pathData: PathData) {
+  private fun drawPath(canvas: Canvas, pathData: PathData, vector: ParsedVectorDrawable) {
     try {
-      val path = PathParser.createPathFromPathData(pathData.pathString)
+      val path = vector.pathFor(pathData.pathString)
       if (path == null) {
         log.debug("Failed to parse path string: {}", pathData.pathString)
         return
@@ -458,13 +302,6 @@ $modified"""
     }
   }
 
-  /** Parse size attribute (e.g., "24dp" -> 24f) */
-  private fun parseSize(sizeStr: String?): Float {
-    if (sizeStr == null) return 24f
-    val numericPart = sizeStr.replace(Regex("[^0-9.]"), "")
-    return numericPart.toFloatOrNull() ?: 24f
-  }
-
   /** Parse color string with better support for various formats */
   private fun parseColor(colorString: String): Int {
     return try {
@@ -569,12 +406,20 @@ data class GroupData(
 
 /** Path parser using Android's native PathParser if available */
 object PathParser {
-  fun createPathFromPathData(pathData: String): Path? {
-    return try {
+
+  private val nativeParser by lazy {
+    try {
       // Try to use Android's native PathParser (API 21+)
       val pathParserClass = Class.forName("androidx.core.graphics.PathParser")
-      val method = pathParserClass.getMethod("createPathFromPathData", String::class.java)
-      method.invoke(null, pathData) as? Path
+      pathParserClass.getMethod("createPathFromPathData", String::class.java)
+    } catch (e: Exception) {
+      null
+    }
+  }
+
+  fun createPathFromPathData(pathData: String): Path? {
+    return try {
+      nativeParser?.invoke(null, pathData) as? Path ?: parsePathStringManually(pathData)
     } catch (e: Exception) {
       // Fallback to manual parsing if native parser not available
       parsePathStringManually(pathData)
@@ -0,0 +1,117 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.uidesigner.utils
+
+import com.itsaky.tom.rv2ide.eventbus.events.file.FileCreationEvent
+import java.io.File
+import java.nio.file.Files
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Before
+import org.junit.Test
+
+/** @author Akash Yadav */
+class DrawableResourceIndexTest {
+
+  private lateinit var dir: File
+
+  @Before
+  fun setUp() {
+    dir = Files.createTempDirectory("dri").toFile()
+  }
+
+  @After
+  fun tearDown() {
+    dir.deleteRecursively()
+  }
+
+  @Test
+  fun prefersTheLeastQualifiedConfiguration() {
+    val res = res("a", "drawable-hdpi/icon.xml", "drawable-night-v21/icon.xml")
+    assertEquals(File(res, "drawable-hdpi/icon.xml"), find("icon", res))
+
+    val withApi = res("b", "drawable-hdpi/icon.xml", "drawable-v21/icon.xml")
+    assertEquals(File(withApi, "drawable-v21/icon.xml"), find("icon", withApi))
+
+    val withDefault = res("c", "drawable-v21/icon.xml", "drawable/icon.xml")
+    assertEquals(File(withDefault, "drawable/icon.xml"), find("icon", withDefault))
+  }
+
+  @Test
+  fun findsOnlyXmlDrawables() {
+    val res = res("res", "drawable/bitmap.png", "layout/main.xml")
+    assertNull(find("bitmap", res))
+    assertNull(find("main", res))
+  }
+
+  @Test
+  fun searchesTheResourceDirectoriesInOrder() {
+    val first = res("first", "drawable/shared.xml")
+    val second = res("second", "drawable/shared.xml", "drawable/own.xml")
+
+    assertEquals(File(first, "drawable/shared.xml"), find("shared", first, second))
+    assertEquals(File(second, "drawable/own.xml"), find("own", first, second))
+  }
+
+  @Test
+  fun detectsChangesMadeOutsideTheIde() {
+    val res = res("res", "drawable/old.xml")
+    age(res, File(res, "drawable"))
+    assertNull(find("new", res))
+
+    create(res, "drawable/new.xml")
+    assertEquals(File(res, "drawable/new.xml"), find("new", res))
+  }
+
+  @Test
+  fun dropsTheIndexOnFileEvents() {
+    val res = res("res", "drawable/old.xml")
+    assertNull(find("new", res))
+
+    // keep the modification time so that only the event reveals the new directory
+    val lastModified = res.lastModified()
+    val newFile = create(res, "drawable-v24/new.xml")
+    res.setLastModified(lastModified)
+    assertNull(find("new", res))
+
+    DrawableResourceIndex.onFileCreated(FileCreationEvent(newFile.parentFile))
+    assertEquals(newFile, find("new", res))
+  }
+
+  private fun find(name: String, vararg resDirs: File): File? =
+      DrawableResourceIndex.find(null, name) { resDirs.toList() }
+
+  private fun res(name: String, vararg files: String): File =
+      File(dir, name).also { res ->
+        res.mkdirs()
+        files.forEach { create(res, it) }
+      }
+
+  private fun create(res: File, path: String): File =
+      File(res, path).apply {
+        parentFile!!.mkdirs()
+        writeText("<shape/>")
+      }
+
+  /** Move the modification times of the given directories to the past. */
+  private fun age(vararg dirs: File) {
+    val past = System.currentTimeMillis() - 60_000
+    dirs.forEach { it.setLastModified(past) }
+  }
+}
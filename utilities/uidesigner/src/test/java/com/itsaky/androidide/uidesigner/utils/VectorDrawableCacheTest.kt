@@ -0,0 +1,72 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.uidesigner.utils
+
+import java.io.File
+import java.nio.file.Files
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotSame
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+
+/** @author Akash Yadav */
+class VectorDrawableCacheTest {
+
+  private lateinit var dir: File
+
+  @Before
+  fun setUp() {
+    dir = Files.createTempDirectory("vdc").toFile()
+  }
+
+  @After
+  fun tearDown() {
+    dir.deleteRecursively()
+  }
+
+  @Test
+  fun sharesTheModelOfIdenticalFiles() {
+    val first = drawable("first", "<vector id=\"shared\"/>")
+    val second = drawable("second", "<vector id=\"shared\"/>")
+
+    val drawable = VectorDrawableCache.get(first)
+    assertSame(drawable, VectorDrawableCache.get(second))
+    assertSame(drawable, VectorDrawableCache.get(first))
+    assertEquals("<vector id=\"shared\"/>", drawable!!.content)
+  }
+
+  @Test
+  fun evictsStampsWithTheirModels() {
+    val first = drawable("evicted", "<vector id=\"evicted\"/>")
+    val evicted = VectorDrawableCache.get(first)
+
+    repeat(VectorDrawableCache.MAX_ENTRIES * 2) {
+      VectorDrawableCache.get(drawable("icon_$it", "<vector id=\"$it\"/>"))
+    }
+
+    assertTrue(VectorDrawableCache.stampCount <= VectorDrawableCache.MAX_ENTRIES)
+    assertNotSame(evicted, VectorDrawableCache.get(first))
+  }
+
+  private fun drawable(name: String, content: String): File {
+    return File(dir, "$name.xml").apply { writeText(content) }
+  }
+}
@@ -43,4 +43,6 @@ dependencies {
   implementation(projects.xml.aaptcompiler)
   implementation(projects.xml.utils)
 
+  testImplementation(libs.tests.junit)
+
 }
@@ -45,6 +45,7 @@ import com.itsaky.tom.rv2ide.inflater.internal.utils.IDTable
 import com.itsaky.tom.rv2ide.inflater.internal.utils.ViewFactory.createViewInstance
 import com.itsaky.tom.rv2ide.inflater.internal.utils.ViewFactory.generateLayoutParams
 import com.itsaky.tom.rv2ide.inflater.internal.utils.parseLayoutReference
+import com.itsaky.tom.rv2ide.inflater.utils.XmlProcessorCache
 import com.itsaky.tom.rv2ide.inflater.utils.endParse
 import com.itsaky.tom.rv2ide.inflater.utils.isParsing
 import com.itsaky.tom.rv2ide.inflater.utils.startParse
@@ -55,6 +56,7 @@ import com.itsaky.tom.rv2ide.xml.widgets.Widget
 import com.itsaky.tom.rv2ide.xml.widgets.WidgetTable
 import com.itsaky.tom.rv2ide.xml.widgets.WidgetType
 import java.io.File
+import org.greenrobot.eventbus.EventBus
 
 /**
  * Default implementation of [ILayoutInflater].
@@ -75,6 +77,11 @@ open class LayoutInflaterImpl : ILayoutInflater {
       Lookup.getDefault().update(LAYOUT_INFLATER_COMPONENT_FACTORY_KEY, value)
     }
 
+  init {
+    // the processed layouts are cached across inflations
+    XmlProcessorCache.registerWith(EventBus.getDefault())
+  }
+
   protected val primaryInflatingFile: File
     get() = this._primaryInflatingFile!!
 
@@ -0,0 +1,118 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.inflater.utils
+
+import com.android.aaptcompiler.XmlProcessor
+import com.itsaky.tom.rv2ide.eventbus.events.editor.DocumentSaveEvent
+import com.itsaky.tom.rv2ide.eventbus.events.file.FileDeletionEvent
+import com.itsaky.tom.rv2ide.eventbus.events.file.FileRenameEvent
+import java.io.File
+import java.security.MessageDigest
+import org.greenrobot.eventbus.EventBus
+import org.greenrobot.eventbus.Subscribe
+import org.greenrobot.eventbus.ThreadMode
+import org.slf4j.LoggerFactory
+
+/**
+ * Cache of processed [XmlProcessor] instances, keyed by the path and the content hash of the XML
+ * file. Re-inflating a layout only recompiles the files whose contents have actually changed,
+ * instead of every layout included by it.
+ *
+ * Entries are evicted when the file is saved, renamed or deleted, once the cache has been
+ * registered with an event bus using [registerWith].
+ *
+ * @author Akash Yadav
+ */
+internal object XmlProcessorCache {
+
+  private const val MAX_ENTRIES = 32
+
+  private val log = LoggerFactory.getLogger(XmlProcessorCache::class.java)
+
+  private class Entry(val hash: String, val namespace: String?, val processor: XmlProcessor)
+
+  private val entries =
+      object : LinkedHashMap<String, Entry>(MAX_ENTRIES, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, Entry>?): Boolean {
+          return size > MAX_ENTRIES
+        }
+      }
+
+  /** Compute the content hash for the given file contents. */
+  fun hash(bytes: ByteArray): String {
+    val digest = MessageDigest.getInstance("SHA-1").digest(bytes)
+    return digest.joinToString("") { "%02x".format(it) }
+  }
+
+  /**
+   * Get the cached processor for the given file.
+   *
+   * @param file The XML file.
+   * @param hash The [hash] of the current contents of the file.
+   * @param namespace The namespace of the module the file belongs to.
+   * @return The cached processor, or `null` if there is no processor for these contents.
+   */
+  fun get(file: File, hash: String, namespace: String?): XmlProcessor? {
+    val entry = synchronized(entries) { entries[keyOf(file)] } ?: return null
+    if (entry.hash != hash || entry.namespace != namespace) {
+      return null
+    }
+
+    log.debug("Using cached XmlProcessor for {}", file)
+    return entry.processor
+  }
+
+  fun put(file: File, hash: String, namespace: String?, processor: XmlProcessor) {
+    synchronized(entries) { entries[keyOf(file)] = Entry(hash, namespace, processor) }
+  }
+
+  /**
+   * Register the cache with the given event bus so that its entries are evicted on file events.
+   * Does nothing if the cache is already registered with the event bus.
+   */
+  fun registerWith(eventBus: EventBus) {
+    synchronized(this) {
+      if (!eventBus.isRegistered(this)) {
+        eventBus.register(this)
+      }
+    }
+  }
+
+  fun invalidate(file: File) {
+    synchronized(entries) { entries.remove(keyOf(file)) }
+  }
+
+  @Subscribe(threadMode = ThreadMode.ASYNC)
+  fun onDocumentSaved(event: DocumentSaveEvent) {
+    invalidate(event.savedFile.toFile())
+  }
+
+  @Subscribe(threadMode = ThreadMode.ASYNC)
+  fun onFileDeleted(event: FileDeletionEvent) {
+    invalidate(event.file)
+  }
+
+  @Subscribe(threadMode = ThreadMode.ASYNC)
+  fun onFileRenamed(event: FileRenameEvent) {
+    invalidate(event.file)
+  }
+
+  private fun keyOf(file: File): String {
+    return file.toPath().toAbsolutePath().normalize().toString()
+  }
+}
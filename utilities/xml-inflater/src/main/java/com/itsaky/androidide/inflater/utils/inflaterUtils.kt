@@ -33,6 +33,7 @@ import com.itsaky.tom.rv2ide.inflater.internal.AttributeImpl
 import com.itsaky.tom.rv2ide.lookup.Lookup
 import com.itsaky.tom.rv2ide.projects.IProjectManager
 import com.itsaky.tom.rv2ide.projects.android.AndroidModule
+import java.io.ByteArrayInputStream
 import java.io.File
 
 /** Get the [ILayoutInflater] registered with [Lookup]. */
@@ -109,7 +110,15 @@ fun processXmlFile(
           ProtoXml,
       )
 
+  // files which are included in multiple layouts are processed only once for the same contents
+  val bytes = file.readBytes()
+  val hash = XmlProcessorCache.hash(bytes)
+  XmlProcessorCache.get(file, hash, module.namespace)?.let {
+    return it to module
+  }
+
   val processor = XmlProcessor(pathData.source, com.android.aaptcompiler.BlameLogger(IDELogger))
-  processor.process(resFile, file.inputStream())
+  processor.process(resFile, ByteArrayInputStream(bytes))
+  XmlProcessorCache.put(file, hash, module.namespace, processor)
   return processor to module
 }
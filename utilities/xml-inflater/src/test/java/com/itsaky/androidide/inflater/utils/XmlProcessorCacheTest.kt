@@ -0,0 +1,95 @@
+/*
+ *  This file is part of AndroidIDE.
+ *
+ *  AndroidIDE is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  AndroidIDE is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *   along with AndroidIDE.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.itsaky.tom.rv2ide.inflater.utils
+
+import com.android.aaptcompiler.Source
+import com.android.aaptcompiler.XmlProcessor
+import com.itsaky.tom.rv2ide.eventbus.events.editor.DocumentSaveEvent
+import com.itsaky.tom.rv2ide.eventbus.events.file.FileDeletionEvent
+import com.itsaky.tom.rv2ide.eventbus.events.file.FileRenameEvent
+import java.io.File
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
+import org.junit.Test
+
+/** @author Akash Yadav */
+class XmlProcessorCacheTest {
+
+  private val namespace = "com.example"
+
+  @Test
+  fun hashesContents() {
+    val hash = XmlProcessorCache.hash("<LinearLayout/>".toByteArray())
+    assertEquals(40, hash.length)
+    assertEquals(hash, XmlProcessorCache.hash("<LinearLayout/>".toByteArray()))
+    assertNotEquals(hash, XmlProcessorCache.hash("<FrameLayout/>".toByteArray()))
+  }
+
+  @Test
+  fun returnsProcessorOnlyForSameContentsAndNamespace() {
+    val file = layout("same")
+    val processor = put(file, "a")
+
+    assertSame(processor, XmlProcessorCache.get(file, "a", namespace))
+    val unnormalized = File(file.parentFile, "./same.xml")
+    assertSame(processor, XmlProcessorCache.get(unnormalized, "a", namespace))
+    assertNull(XmlProcessorCache.get(file, "b", namespace))
+    assertNull(XmlProcessorCache.get(file, "a", "com.other"))
+  }
+
+  @Test
+  fun evictsOnFileEvents() {
+    val saved = layout("saved")
+    put(saved, "a")
+    XmlProcessorCache.onDocumentSaved(DocumentSaveEvent(saved.toPath()))
+    assertNull(XmlProcessorCache.get(saved, "a", namespace))
+
+    val deleted = layout("deleted")
+    put(deleted, "a")
+    XmlProcessorCache.onFileDeleted(FileDeletionEvent(deleted))
+    assertNull(XmlProcessorCache.get(deleted, "a", namespace))
+
+    val renamed = layout("renamed")
+    put(renamed, "a")
+    XmlProcessorCache.onFileRenamed(FileRenameEvent(renamed, layout("new")))
+    assertNull(XmlProcessorCache.get(renamed, "a", namespace))
+  }
+
+  @Test
+  fun evictsLeastRecentlyUsedEntries() {
+    val files = (0 until 33).map { layout("lru_$it") }
+    val first = put(files[0], "a")
+    files.drop(1).dropLast(1).forEach { put(it, "a") }
+
+    // accessing the first entry makes the second one the eldest
+    assertSame(first, XmlProcessorCache.get(files[0], "a", namespace))
+    put(files.last(), "a")
+
+    assertSame(first, XmlProcessorCache.get(files[0], "a", namespace))
+    assertNull(XmlProcessorCache.get(files[1], "a", namespace))
+  }
+
+  private fun layout(name: String) = File("/fixture/res/layout/$name.xml")
+
+  private fun put(file: File, hash: String): XmlProcessor =
+      XmlProcessor(Source(file.path), null).also {
+        XmlProcessorCache.put(file, hash, namespace, it)
+      }
+}